@@ -143,6 +143,8 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
   protected final int _queryResponseLimit;
   protected final Map<Long, QueryServers> _queriesById;
   protected final boolean _enableMultistageMigrationMetric;
+  // Result cache for the tables that enable it in the query config, or null when disabled on the broker
+  protected final BrokerResultCache _resultCache;
   protected ExecutorService _multistageCompileExecutor;
   protected BlockingQueue<Pair<String, String>> _multistageCompileQueryQueue;
 
@@ -162,6 +164,11 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
     boolean enableQueryCancellation =
         Boolean.parseBoolean(config.getProperty(Broker.CONFIG_OF_BROKER_ENABLE_QUERY_CANCELLATION));
     _queriesById = enableQueryCancellation ? new ConcurrentHashMap<>() : null;
+    int resultCacheMaxEntries = _config.getProperty(Broker.CONFIG_OF_BROKER_RESULT_CACHE_MAX_ENTRIES,
+        Broker.DEFAULT_BROKER_RESULT_CACHE_MAX_ENTRIES);
+    _resultCache = resultCacheMaxEntries > 0 ? new BrokerResultCache(resultCacheMaxEntries,
+        _config.getProperty(Broker.CONFIG_OF_BROKER_RESULT_CACHE_REALTIME_TTL_MS,
+            Broker.DEFAULT_BROKER_RESULT_CACHE_REALTIME_TTL_MS)) : null;
 
     _enableMultistageMigrationMetric = _config.getProperty(Broker.CONFIG_OF_BROKER_ENABLE_MULTISTAGE_MIGRATION_METRIC,
         Broker.DEFAULT_ENABLE_MULTISTAGE_MIGRATION_METRIC);
@@ -613,6 +620,36 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
         realtimeBrokerRequest.getPinotQuery().setFilterExpression(null);
       }
 
+      // Look up the result cache before calculating the routing. The routing versions are read before the routing is
+      // calculated so that a result computed on a changing routing is never cached with the new versions.
+      BrokerResultCache.Key resultCacheKey = null;
+      long resultCacheTtlMs = 0;
+      Long offlineRoutingVersion = null;
+      Long realtimeRoutingVersion = null;
+      if (_resultCache != null && BrokerResultCache.isCacheable(pinotQuery)) {
+        resultCacheTtlMs = _resultCache.getTtlMs(offlineBrokerRequest != null ? offlineTableConfig : null,
+            realtimeBrokerRequest != null ? realtimeTableConfig : null);
+        if (resultCacheTtlMs > 0) {
+          offlineRoutingVersion =
+              offlineBrokerRequest != null ? _routingManager.getRoutingVersion(offlineTableName) : null;
+          realtimeRoutingVersion =
+              realtimeBrokerRequest != null ? _routingManager.getRoutingVersion(realtimeTableName) : null;
+          if ((offlineBrokerRequest == null || offlineRoutingVersion != null) && (realtimeBrokerRequest == null
+              || realtimeRoutingVersion != null)) {
+            resultCacheKey = BrokerResultCache.getKey(pinotQuery,
+                offlineBrokerRequest != null ? offlineBrokerRequest.getPinotQuery() : null,
+                realtimeBrokerRequest != null ? realtimeBrokerRequest.getPinotQuery() : null);
+            BrokerResponseNative cachedResponse =
+                _resultCache.get(resultCacheKey, offlineRoutingVersion, realtimeRoutingVersion);
+            if (cachedResponse != null) {
+              _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.RESULT_CACHE_HITS, 1);
+              return getCachedResponse(cachedResponse, pinotQuery, requestContext, tableName, requesterIdentity);
+            }
+            _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.RESULT_CACHE_MISSES, 1);
+          }
+        }
+      }
+
       // Calculate routing table for the query
       // TODO: Modify RoutingManager interface to directly take PinotQuery
       long routingStartTimeNs = System.nanoTime();
@@ -807,6 +844,11 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
             1);
       }
 
+      if (resultCacheKey != null) {
+        _resultCache.put(resultCacheKey, offlineRoutingVersion, realtimeRoutingVersion, brokerResponse,
+            resultCacheTtlMs);
+      }
+
       // Set total query processing time
       long totalTimeMs = System.currentTimeMillis() - requestContext.getRequestArrivalTimeMillis();
       brokerResponse.setTimeUsedMs(totalTimeMs);
@@ -867,6 +909,21 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
     return brokerResponse;
   }
 
+  private BrokerResponseNative getCachedResponse(BrokerResponseNative brokerResponse, PinotQuery pinotQuery,
+      RequestContext requestContext, String tableName, @Nullable RequesterIdentity requesterIdentity) {
+    long totalTimeMs = System.currentTimeMillis() - requestContext.getRequestArrivalTimeMillis();
+    brokerResponse.setTimeUsedMs(totalTimeMs);
+    augmentStatistics(requestContext, brokerResponse);
+    if (QueryOptionsUtils.shouldDropResults(pinotQuery.getQueryOptions())) {
+      brokerResponse.setResultTable(null);
+    }
+    _brokerMetrics.addTimedTableValue(requestContext.getTableName(), BrokerTimer.QUERY_TOTAL_TIME_MS, totalTimeMs,
+        TimeUnit.MILLISECONDS);
+    _queryLogger.log(
+        new QueryLogger.QueryLogParams(requestContext, tableName, brokerResponse, requesterIdentity, null));
+    return brokerResponse;
+  }
+
   private void handleTimestampIndexOverride(PinotQuery pinotQuery, @Nullable TableConfig tableConfig) {
     if (tableConfig == null || tableConfig.getFieldConfigList() == null) {
       return;
@@ -0,0 +1,227 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.requesthandler;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.broker.routing.BrokerRoutingManager;
+import org.apache.pinot.common.request.PinotQuery;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
+import org.apache.pinot.spi.config.table.QueryConfig;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.utils.CommonConstants.Broker;
+import org.apache.pinot.spi.utils.CommonConstants.Broker.Request.QueryOptionKey;
+
+
+/**
+ * The {@code BrokerResultCache} caches the responses of the single-stage queries on the tables that enable it through
+ * {@link QueryConfig#getResultCacheTtlMs()}.
+ * <p>The cache key is the query after the broker side rewrites (including the time boundary for hybrid tables), without
+ * the query options that do not affect the result. Each entry records the routing versions (see
+ * {@link BrokerRoutingManager#getRoutingVersion(String)}) of the tables it was computed on, and is invalidated on
+ * lookup once any of them changes, i.e. once a segment is added, removed, moved or refreshed.
+ * <p>The results on real-time tables also depend on the consuming segments, which change without any routing change,
+ * so their TTL is capped by {@link Broker#CONFIG_OF_BROKER_RESULT_CACHE_REALTIME_TTL_MS}.
+ */
+@ThreadSafe
+public class BrokerResultCache {
+  // Query options that don't affect the query result
+  private static final List<String> IGNORED_QUERY_OPTIONS =
+      List.of(QueryOptionKey.TIMEOUT_MS, QueryOptionKey.DROP_RESULTS, QueryOptionKey.MAX_SERVER_RESPONSE_SIZE_BYTES,
+          QueryOptionKey.MAX_QUERY_RESPONSE_SIZE_BYTES, QueryOptionKey.SERVER_RETURN_FINAL_RESULT);
+
+  private final Cache<Key, Entry> _cache;
+  private final long _realtimeTtlMs;
+  private final LongSupplier _clock;
+
+  public BrokerResultCache(int maxEntries, long realtimeTtlMs) {
+    this(maxEntries, realtimeTtlMs, System::currentTimeMillis);
+  }
+
+  @VisibleForTesting
+  BrokerResultCache(int maxEntries, long realtimeTtlMs, LongSupplier clock) {
+    _cache = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+    _realtimeTtlMs = realtimeTtlMs;
+    _clock = clock;
+  }
+
+  /**
+   * Returns whether the result of the given query can be cached based on the query itself. EXPLAIN and traced queries
+   * are never cached, and the cache can be bypassed with the {@link QueryOptionKey#SKIP_RESULT_CACHE} query option.
+   */
+  public static boolean isCacheable(PinotQuery pinotQuery) {
+    if (pinotQuery.isExplain()) {
+      return false;
+    }
+    Map<String, String> queryOptions = pinotQuery.getQueryOptions();
+    return queryOptions == null || (!Boolean.parseBoolean(queryOptions.get(Broker.Request.TRACE))
+        && !QueryOptionsUtils.isSkipResultCache(queryOptions));
+  }
+
+  /**
+   * Returns the TTL in milliseconds of the result of a query on the given tables (pass {@code null} for the table type
+   * that is not queried), or 0 if the result should not be cached. All the queried tables must enable the cache.
+   */
+  public long getTtlMs(@Nullable TableConfig offlineTableConfig, @Nullable TableConfig realtimeTableConfig) {
+    long ttlMs = Long.MAX_VALUE;
+    if (offlineTableConfig != null) {
+      ttlMs = Math.min(ttlMs, getTableTtlMs(offlineTableConfig));
+    }
+    if (realtimeTableConfig != null) {
+      ttlMs = Math.min(ttlMs, Math.min(getTableTtlMs(realtimeTableConfig), _realtimeTtlMs));
+    }
+    return ttlMs != Long.MAX_VALUE ? ttlMs : 0;
+  }
+
+  private static long getTableTtlMs(TableConfig tableConfig) {
+    QueryConfig queryConfig = tableConfig.getQueryConfig();
+    if (queryConfig == null) {
+      return 0;
+    }
+    Long resultCacheTtlMs = queryConfig.getResultCacheTtlMs();
+    return resultCacheTtlMs != null ? resultCacheTtlMs : 0;
+  }
+
+  /**
+   * Returns the cache key for the given queries. The key is computed from copies of the queries, so the queries can be
+   * modified afterward.
+   *
+   * @param pinotQuery Query used in the reduce phase
+   * @param offlinePinotQuery Query sent to the offline servers, or {@code null} if the offline table is not queried
+   * @param realtimePinotQuery Query sent to the real-time servers, or {@code null} if the real-time table is not
+   *                           queried
+   */
+  public static Key getKey(PinotQuery pinotQuery, @Nullable PinotQuery offlinePinotQuery,
+      @Nullable PinotQuery realtimePinotQuery) {
+    return new Key(normalize(pinotQuery), offlinePinotQuery != null ? normalize(offlinePinotQuery) : null,
+        realtimePinotQuery != null ? normalize(realtimePinotQuery) : null);
+  }
+
+  private static PinotQuery normalize(PinotQuery pinotQuery) {
+    PinotQuery normalized = pinotQuery.deepCopy();
+    Map<String, String> queryOptions = normalized.getQueryOptions();
+    if (queryOptions != null) {
+      IGNORED_QUERY_OPTIONS.forEach(queryOptions::remove);
+    }
+    return normalized;
+  }
+
+  /**
+   * Returns a copy of the cached response for the given key, or {@code null} if there is no cached response, or the
+   * cached response is expired or computed with different routing versions.
+   */
+  @Nullable
+  public BrokerResponseNative get(Key key, @Nullable Long offlineRoutingVersion,
+      @Nullable Long realtimeRoutingVersion) {
+    Entry entry = _cache.getIfPresent(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry._expirationTimeMs <= _clock.getAsLong() || !Objects.equals(entry._offlineRoutingVersion,
+        offlineRoutingVersion) || !Objects.equals(entry._realtimeRoutingVersion, realtimeRoutingVersion)) {
+      _cache.asMap().remove(key, entry);
+      return null;
+    }
+    return copy(entry._brokerResponse);
+  }
+
+  /**
+   * Caches the given response if it is complete (no exception and all the queried servers responded).
+   */
+  public void put(Key key, @Nullable Long offlineRoutingVersion, @Nullable Long realtimeRoutingVersion,
+      BrokerResponseNative brokerResponse, long ttlMs) {
+    if (ttlMs <= 0 || brokerResponse.getResultTable() == null || brokerResponse.getExceptionsSize() > 0
+        || brokerResponse.getNumServersResponded() != brokerResponse.getNumServersQueried()) {
+      return;
+    }
+    _cache.put(key,
+        new Entry(copy(brokerResponse), offlineRoutingVersion, realtimeRoutingVersion, _clock.getAsLong() + ttlMs));
+  }
+
+  @VisibleForTesting
+  long size() {
+    return _cache.size();
+  }
+
+  /**
+   * Copies the result related fields of the response. The execution stats are left empty because no server is queried
+   * when the response is served from the cache.
+   */
+  private static BrokerResponseNative copy(BrokerResponseNative brokerResponse) {
+    BrokerResponseNative copy = new BrokerResponseNative();
+    copy.setResultTable(brokerResponse.getResultTable());
+    copy.setNumGroupsLimitReached(brokerResponse.isNumGroupsLimitReached());
+    copy.setTotalDocs(brokerResponse.getTotalDocs());
+    return copy;
+  }
+
+  public static final class Key {
+    private final PinotQuery _pinotQuery;
+    private final PinotQuery _offlinePinotQuery;
+    private final PinotQuery _realtimePinotQuery;
+
+    private Key(PinotQuery pinotQuery, @Nullable PinotQuery offlinePinotQuery,
+        @Nullable PinotQuery realtimePinotQuery) {
+      _pinotQuery = pinotQuery;
+      _offlinePinotQuery = offlinePinotQuery;
+      _realtimePinotQuery = realtimePinotQuery;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return _pinotQuery.equals(key._pinotQuery) && Objects.equals(_offlinePinotQuery, key._offlinePinotQuery)
+          && Objects.equals(_realtimePinotQuery, key._realtimePinotQuery);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_pinotQuery, _offlinePinotQuery, _realtimePinotQuery);
+    }
+  }
+
+  private static final class Entry {
+    final BrokerResponseNative _brokerResponse;
+    final Long _offlineRoutingVersion;
+    final Long _realtimeRoutingVersion;
+    final long _expirationTimeMs;
+
+    Entry(BrokerResponseNative brokerResponse, @Nullable Long offlineRoutingVersion,
+        @Nullable Long realtimeRoutingVersion, long expirationTimeMs) {
+      _brokerResponse = brokerResponse;
+      _offlineRoutingVersion = offlineRoutingVersion;
+      _realtimeRoutingVersion = realtimeRoutingVersion;
+      _expirationTimeMs = expirationTimeMs;
+    }
+  }
+}
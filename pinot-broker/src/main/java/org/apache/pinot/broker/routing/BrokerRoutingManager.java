@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.helix.AccessOption;
@@ -99,6 +100,8 @@ import org.slf4j.LoggerFactory;
  */
 public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandler {
   private static final Logger LOGGER = LoggerFactory.getLogger(BrokerRoutingManager.class);
+  // Generates the routing versions for all the routing entries, so that a rebuilt routing never reuses a version
+  private static final AtomicLong ROUTING_VERSION_GENERATOR = new AtomicLong();
 
   private final BrokerMetrics _brokerMetrics;
   private final Map<String, RoutingEntry> _routingEntryMap = new ConcurrentHashMap<>();
@@ -701,6 +704,17 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     return routingEntry._instanceSelector.getServingInstances();
   }
 
+  /**
+   * Returns the routing version for the given table, or {@code null} if the routing does not exist. The version changes
+   * whenever the segments routed for the table might have changed (routing built, segment assignment changed or segment
+   * refreshed), and can be used to detect stale results computed with a previous routing.
+   */
+  @Nullable
+  public Long getRoutingVersion(String tableNameWithType) {
+    RoutingEntry routingEntry = _routingEntryMap.get(tableNameWithType);
+    return routingEntry != null ? routingEntry.getRoutingVersion() : null;
+  }
+
   /**
    * Returns the table-level query timeout in milliseconds for the given table, or {@code null} if the timeout is not
    * configured in the table config.
@@ -728,6 +742,8 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     transient int _lastUpdateExternalViewVersion;
     // Time boundary manager is only available for the offline part of the hybrid table
     transient TimeBoundaryManager _timeBoundaryManager;
+    // Bumped on every change that might affect the routed segments
+    transient volatile long _routingVersion = ROUTING_VERSION_GENERATOR.incrementAndGet();
 
     RoutingEntry(String tableNameWithType, String idealStatePath, String externalViewPath,
         SegmentPreSelector segmentPreSelector, SegmentSelector segmentSelector, List<SegmentPruner> segmentPruners,
@@ -763,6 +779,7 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
 
     void setTimeBoundaryManager(@Nullable TimeBoundaryManager timeBoundaryManager) {
       _timeBoundaryManager = timeBoundaryManager;
+      _routingVersion = ROUTING_VERSION_GENERATOR.incrementAndGet();
     }
 
     @Nullable
@@ -779,6 +796,10 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
       return _queryTimeoutMs;
     }
 
+    long getRoutingVersion() {
+      return _routingVersion;
+    }
+
     // NOTE: The change gets applied in sequence, and before change applied to all components, there could be some
     // inconsistency between components, which is fine because the inconsistency only exists for the newly changed
     // segments and only lasts for a very short time.
@@ -793,6 +814,7 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
       }
       _lastUpdateIdealStateVersion = idealState.getStat().getVersion();
       _lastUpdateExternalViewVersion = externalView.getStat().getVersion();
+      _routingVersion = ROUTING_VERSION_GENERATOR.incrementAndGet();
     }
 
     void onInstancesChange(Set<String> enabledInstances, List<String> changedInstances) {
@@ -804,6 +826,7 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
       if (_timeBoundaryManager != null) {
         _timeBoundaryManager.refreshSegment(segment);
       }
+      _routingVersion = ROUTING_VERSION_GENERATOR.incrementAndGet();
     }
 
     InstanceSelector.SelectionResult calculateRouting(BrokerRequest brokerRequest, long requestId) {
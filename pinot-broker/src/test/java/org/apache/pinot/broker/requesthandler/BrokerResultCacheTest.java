@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.requesthandler;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.pinot.common.exception.QueryException;
+import org.apache.pinot.common.request.PinotQuery;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.common.response.broker.ResultTable;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.spi.config.table.QueryConfig;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
+import org.apache.pinot.sql.parsers.CalciteSqlParser;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+
+public class BrokerResultCacheTest {
+  private static final long TTL_MS = 10_000L;
+
+  @Test
+  public void testIsCacheable() {
+    assertTrue(BrokerResultCache.isCacheable(CalciteSqlParser.compileToPinotQuery("SELECT COUNT(*) FROM testTable")));
+    assertFalse(BrokerResultCache.isCacheable(
+        CalciteSqlParser.compileToPinotQuery("EXPLAIN PLAN FOR SELECT COUNT(*) FROM testTable")));
+    assertFalse(BrokerResultCache.isCacheable(
+        CalciteSqlParser.compileToPinotQuery("SET skipResultCache = true; SELECT COUNT(*) FROM testTable")));
+    assertFalse(BrokerResultCache.isCacheable(
+        CalciteSqlParser.compileToPinotQuery("SET trace = true; SELECT COUNT(*) FROM testTable")));
+  }
+
+  @Test
+  public void testGetTtlMs() {
+    BrokerResultCache resultCache = new BrokerResultCache(10, 1000L);
+    TableConfig offlineTableConfig = getTableConfig(TableType.OFFLINE, TTL_MS);
+    TableConfig realtimeTableConfig = getTableConfig(TableType.REALTIME, TTL_MS);
+    assertEquals(resultCache.getTtlMs(offlineTableConfig, null), TTL_MS);
+    assertEquals(resultCache.getTtlMs(null, realtimeTableConfig), 1000L);
+    assertEquals(resultCache.getTtlMs(offlineTableConfig, realtimeTableConfig), 1000L);
+    assertEquals(resultCache.getTtlMs(getTableConfig(TableType.OFFLINE, null), null), 0L);
+    assertEquals(resultCache.getTtlMs(getTableConfig(TableType.OFFLINE, null), realtimeTableConfig), 0L);
+
+    // Results on real-time tables are not cached by default
+    assertEquals(new BrokerResultCache(10, 0L).getTtlMs(offlineTableConfig, realtimeTableConfig), 0L);
+  }
+
+  @Test
+  public void testGetAndPut() {
+    AtomicLong clock = new AtomicLong();
+    BrokerResultCache resultCache = new BrokerResultCache(10, 0L, clock::get);
+    PinotQuery pinotQuery = CalciteSqlParser.compileToPinotQuery("SELECT COUNT(*) FROM testTable");
+    BrokerResultCache.Key key = BrokerResultCache.getKey(pinotQuery, pinotQuery, null);
+    assertNull(resultCache.get(key, 1L, null));
+
+    BrokerResponseNative brokerResponse = getBrokerResponse();
+    resultCache.put(key, 1L, null, brokerResponse, TTL_MS);
+    BrokerResponseNative cachedResponse = resultCache.get(key, 1L, null);
+    assertNotNull(cachedResponse);
+    assertEquals(cachedResponse.getResultTable().getRows(), brokerResponse.getResultTable().getRows());
+    assertEquals(cachedResponse.getNumRowsResultSet(), 1);
+    assertEquals(cachedResponse.getTotalDocs(), 100L);
+    assertEquals(cachedResponse.getNumServersQueried(), 0);
+
+    // Modifying the returned response should not modify the cached one
+    cachedResponse.setResultTable(null);
+    assertNotNull(resultCache.get(key, 1L, null).getResultTable());
+
+    // Volatile query options should not affect the key
+    PinotQuery queryWithTimeout =
+        CalciteSqlParser.compileToPinotQuery("SET timeoutMs = 1000; SELECT COUNT(*) FROM testTable");
+    assertNotNull(resultCache.get(BrokerResultCache.getKey(queryWithTimeout, queryWithTimeout, null), 1L, null));
+    PinotQuery otherQuery = CalciteSqlParser.compileToPinotQuery("SELECT COUNT(*) FROM testTable WHERE a = 1");
+    assertNull(resultCache.get(BrokerResultCache.getKey(otherQuery, otherQuery, null), 1L, null));
+
+    // Routing change should invalidate the entry
+    assertNull(resultCache.get(key, 2L, null));
+    assertEquals(resultCache.size(), 0);
+
+    // Expired entry should be invalidated
+    resultCache.put(key, 2L, null, brokerResponse, TTL_MS);
+    clock.addAndGet(TTL_MS - 1);
+    assertNotNull(resultCache.get(key, 2L, null));
+    clock.incrementAndGet();
+    assertNull(resultCache.get(key, 2L, null));
+    assertEquals(resultCache.size(), 0);
+  }
+
+  @Test
+  public void testSkipIncompleteResponse() {
+    BrokerResultCache resultCache = new BrokerResultCache(10, 0L);
+    PinotQuery pinotQuery = CalciteSqlParser.compileToPinotQuery("SELECT COUNT(*) FROM testTable");
+    BrokerResultCache.Key key = BrokerResultCache.getKey(pinotQuery, pinotQuery, null);
+
+    BrokerResponseNative responseWithException = getBrokerResponse();
+    responseWithException.addException(QueryException.BROKER_SEGMENT_UNAVAILABLE_ERROR);
+    resultCache.put(key, 1L, null, responseWithException, TTL_MS);
+    assertNull(resultCache.get(key, 1L, null));
+
+    BrokerResponseNative responseWithMissingServer = getBrokerResponse();
+    responseWithMissingServer.setNumServersResponded(1);
+    resultCache.put(key, 1L, null, responseWithMissingServer, TTL_MS);
+    assertNull(resultCache.get(key, 1L, null));
+  }
+
+  private static TableConfig getTableConfig(TableType tableType, Long resultCacheTtlMs) {
+    return new TableConfigBuilder(tableType).setTableName("testTable")
+        .setQueryConfig(new QueryConfig(null, null, null, null, null, null, resultCacheTtlMs)).build();
+  }
+
+  private static BrokerResponseNative getBrokerResponse() {
+    BrokerResponseNative brokerResponse = new BrokerResponseNative();
+    brokerResponse.setResultTable(new ResultTable(
+        new DataSchema(new String[]{"count(*)"}, new ColumnDataType[]{ColumnDataType.LONG}),
+        List.<Object[]>of(new Object[]{100L})));
+    brokerResponse.setTotalDocs(100L);
+    brokerResponse.setNumServersQueried(2);
+    brokerResponse.setNumServersResponded(2);
+    return brokerResponse;
+  }
+}
@@ -18,7 +18,6 @@
  */
 package org.apache.pinot.common.datatable;
 
-import com.google.common.base.Preconditions;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
@@ -28,12 +27,31 @@ public class DataTableFactory {
   }
 
   public static final int VERSION_4 = 4;
+  public static final int VERSION_5 = 5;
 
+  /**
+   * Deserializes the data table from the byte buffer.
+   * <p>NOTE: Since {@link #VERSION_5}, the returned data table references the byte buffer without copying it, so the
+   * byte buffer must not be modified or released while the data table is in use.
+   */
   public static DataTable getDataTable(ByteBuffer byteBuffer)
       throws IOException {
     int version = byteBuffer.getInt();
-    Preconditions.checkState(version == VERSION_4, "Unsupported data table version: %s", version);
-    return new DataTableImplV4(byteBuffer);
+    switch (version) {
+      case VERSION_4:
+        return new DataTableImplV4(byteBuffer);
+      case VERSION_5:
+        return new DataTableImplV5(byteBuffer);
+      default:
+        throw new IllegalStateException("Unsupported data table version: " + version);
+    }
+  }
+
+  /**
+   * Returns the version of the data table serialized in the byte buffer, without modifying the byte buffer.
+   */
+  public static int getVersion(ByteBuffer byteBuffer) {
+    return byteBuffer.getInt(byteBuffer.position());
   }
 
   public static DataTable getDataTable(byte[] bytes)
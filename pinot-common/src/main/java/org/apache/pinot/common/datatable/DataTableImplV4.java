@@ -529,7 +529,7 @@ public class DataTableImplV4 implements DataTable {
    * Unlike V2, where numeric metadata values (int and long) in V3 are encoded in UTF-8 in the wire format,
    * in V3 big endian representation is used.
    */
-  private byte[] serializeMetadata()
+  protected byte[] serializeMetadata()
       throws IOException {
     ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
     DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
@@ -568,7 +568,7 @@ public class DataTableImplV4 implements DataTable {
    *
    * This method use relative operations on the ByteBuffer and expects the buffer's position to be set correctly.
    */
-  private Map<String, String> deserializeMetadata(ByteBuffer buffer)
+  protected Map<String, String> deserializeMetadata(ByteBuffer buffer)
       throws IOException {
     int numEntries = buffer.getInt();
     Map<String, String> metadata = new HashMap<>();
@@ -593,7 +593,7 @@ public class DataTableImplV4 implements DataTable {
     return metadata;
   }
 
-  private byte[] serializeExceptions()
+  protected byte[] serializeExceptions()
       throws IOException {
     ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
     DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
@@ -612,7 +612,7 @@ public class DataTableImplV4 implements DataTable {
     return byteArrayOutputStream.toByteArray();
   }
 
-  private Map<Integer, String> deserializeExceptions(ByteBuffer buffer)
+  protected Map<Integer, String> deserializeExceptions(ByteBuffer buffer)
       throws IOException {
     int numExceptions = buffer.getInt();
     Map<Integer, String> exceptions = new HashMap<>(HashUtil.getHashMapCapacity(numExceptions));
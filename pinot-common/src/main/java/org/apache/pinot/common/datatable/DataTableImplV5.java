@@ -0,0 +1,245 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.common.datatable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.spi.accounting.ThreadResourceUsageProvider;
+
+
+/**
+ * Datatable V5 implementation.
+ *
+ * The layout of serialized V5 datatable is the same as V4, except for the FIXED_SIZE_DATA SECTION which stores the
+ * values column by column instead of row by row:
+ * +-----------------------------------------------+
+ * | FIXED_SIZE_DATA SECTION                       |
+ * | COLUMN 0 VALUES (NUM_ROWS * COLUMN 0 SIZE)    |
+ * | ...                                           |
+ * | COLUMN N VALUES (NUM_ROWS * COLUMN N SIZE)    |
+ * | NULL BITMAPS (OFFSET|LENGTH) FOR EACH COLUMN  |
+ * +-----------------------------------------------+
+ *
+ * Values of the same column are stored contiguously so that the builder can append them without materializing the
+ * rows, and the sections are read from the serialized bytes without being copied.
+ */
+public class DataTableImplV5 extends DataTableImplV4 {
+  // Size of the value in the fixed size data section for each column
+  protected int[] _columnSizes;
+
+  public DataTableImplV5() {
+    super();
+  }
+
+  /**
+   * Constructs the data table with the fixed size data stored column by column. The byte buffers are referenced
+   * without being copied.
+   */
+  public DataTableImplV5(int numRows, DataSchema dataSchema, String[] stringDictionary, ByteBuffer fixedSizeData,
+      ByteBuffer variableSizeData) {
+    _numRows = numRows;
+    _dataSchema = dataSchema;
+    _numColumns = dataSchema == null ? 0 : dataSchema.size();
+    _stringDictionary = stringDictionary;
+    _fixedSizeData = fixedSizeData;
+    _variableSizeData = variableSizeData;
+    computeBlockObjectConstants();
+  }
+
+  /**
+   * Deserializes the data table from the byte buffer positioned after the version. The fixed size and variable size
+   * data sections reference the byte buffer without being copied.
+   */
+  public DataTableImplV5(ByteBuffer byteBuffer)
+      throws IOException {
+    // Read header.
+    _numRows = byteBuffer.getInt();
+    _numColumns = byteBuffer.getInt();
+    int exceptionsStart = byteBuffer.getInt();
+    int exceptionsLength = byteBuffer.getInt();
+    int dictionaryMapStart = byteBuffer.getInt();
+    int dictionaryMapLength = byteBuffer.getInt();
+    int dataSchemaStart = byteBuffer.getInt();
+    int dataSchemaLength = byteBuffer.getInt();
+    int fixedSizeDataStart = byteBuffer.getInt();
+    int fixedSizeDataLength = byteBuffer.getInt();
+    int variableSizeDataStart = byteBuffer.getInt();
+    int variableSizeDataLength = byteBuffer.getInt();
+
+    // The offsets are relative to the start of the data table, which is where the version is stored
+    int baseOffset = byteBuffer.position() - HEADER_SIZE;
+
+    // Read exceptions.
+    if (exceptionsLength != 0) {
+      byteBuffer.position(baseOffset + exceptionsStart);
+      _errCodeToExceptionMap = deserializeExceptions(byteBuffer);
+    }
+
+    // Read dictionary.
+    if (dictionaryMapLength != 0) {
+      byteBuffer.position(baseOffset + dictionaryMapStart);
+      _stringDictionary = deserializeStringDictionary(byteBuffer);
+    }
+
+    // Read data schema.
+    if (dataSchemaLength != 0) {
+      byteBuffer.position(baseOffset + dataSchemaStart);
+      _dataSchema = DataSchema.fromBytes(byteBuffer);
+    }
+
+    // Reference fixed size and variable size data.
+    if (fixedSizeDataLength != 0) {
+      _fixedSizeData = slice(byteBuffer, baseOffset + fixedSizeDataStart, fixedSizeDataLength);
+    }
+    _variableSizeData = slice(byteBuffer, baseOffset + variableSizeDataStart, variableSizeDataLength);
+
+    // Read metadata.
+    byteBuffer.position(baseOffset + variableSizeDataStart + variableSizeDataLength);
+    int metadataLength = byteBuffer.getInt();
+    if (metadataLength != 0) {
+      _metadata = deserializeMetadata(byteBuffer);
+    }
+
+    // Compute extra constants.
+    computeBlockObjectConstants();
+  }
+
+  private static ByteBuffer slice(ByteBuffer byteBuffer, int offset, int length) {
+    ByteBuffer duplicate = byteBuffer.duplicate();
+    duplicate.position(offset);
+    duplicate.limit(offset + length);
+    return duplicate.slice();
+  }
+
+  @Override
+  public int getVersion() {
+    return DataTableFactory.VERSION_5;
+  }
+
+  @Override
+  protected void computeBlockObjectConstants() {
+    super.computeBlockObjectConstants();
+    if (_dataSchema != null) {
+      _columnSizes = new int[_numColumns];
+      for (int i = 0; i < _numColumns; i++) {
+        int nextColumnOffset = i < _numColumns - 1 ? _columnOffsets[i + 1] : _rowSizeInBytes;
+        _columnSizes[i] = nextColumnOffset - _columnOffsets[i];
+      }
+    }
+  }
+
+  /**
+   * Columns are stored one after the other, so the values of a column start at the offset of the column within a row
+   * multiplied by the number of rows.
+   */
+  @Override
+  protected int getOffsetInFixedBuffer(int rowId, int colId) {
+    return _numRows * _columnOffsets[colId] + rowId * _columnSizes[colId];
+  }
+
+  /**
+   * Serializes the data table into a single byte array of the exact size, writing the fixed size and variable size
+   * data sections directly from their byte buffers.
+   */
+  @Override
+  public byte[] toBytes()
+      throws IOException {
+    ThreadResourceUsageProvider threadTimer = new ThreadResourceUsageProvider();
+
+    byte[] exceptionsBytes = serializeExceptions();
+    byte[] dictionaryBytes = _stringDictionary != null ? serializeStringDictionary() : null;
+    byte[] dataSchemaBytes = _dataSchema != null ? _dataSchema.toBytes() : null;
+    int exceptionsLength = exceptionsBytes.length;
+    int dictionaryLength = dictionaryBytes != null ? dictionaryBytes.length : 0;
+    int dataSchemaLength = dataSchemaBytes != null ? dataSchemaBytes.length : 0;
+    int fixedSizeDataLength = _fixedSizeData != null ? _fixedSizeData.capacity() : 0;
+    int variableSizeDataLength = _variableSizeData != null ? _variableSizeData.capacity() : 0;
+
+    // Add table serialization time metadata if thread timer is enabled.
+    if (ThreadResourceUsageProvider.isThreadCpuTimeMeasurementEnabled()) {
+      long responseSerializationCpuTimeNs = threadTimer.getThreadTimeNs();
+      getMetadata().put(MetadataKey.RESPONSE_SER_CPU_TIME_NS.getName(), String.valueOf(responseSerializationCpuTimeNs));
+    }
+    byte[] metadataBytes = serializeMetadata();
+
+    int exceptionsStart = HEADER_SIZE;
+    int dictionaryStart = exceptionsStart + exceptionsLength;
+    int dataSchemaStart = dictionaryStart + dictionaryLength;
+    int fixedSizeDataStart = dataSchemaStart + dataSchemaLength;
+    int variableSizeDataStart = fixedSizeDataStart + fixedSizeDataLength;
+    int metadataStart = variableSizeDataStart + variableSizeDataLength;
+    byte[] bytes = new byte[metadataStart + Integer.BYTES + metadataBytes.length];
+    ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+
+    // Write header.
+    byteBuffer.putInt(getVersion());
+    byteBuffer.putInt(_numRows);
+    byteBuffer.putInt(_numColumns);
+    byteBuffer.putInt(exceptionsStart);
+    byteBuffer.putInt(exceptionsLength);
+    byteBuffer.putInt(dictionaryStart);
+    byteBuffer.putInt(dictionaryLength);
+    byteBuffer.putInt(dataSchemaStart);
+    byteBuffer.putInt(dataSchemaLength);
+    byteBuffer.putInt(fixedSizeDataStart);
+    byteBuffer.putInt(fixedSizeDataLength);
+    byteBuffer.putInt(variableSizeDataStart);
+    byteBuffer.putInt(variableSizeDataLength);
+
+    // Write sections.
+    byteBuffer.put(exceptionsBytes);
+    if (dictionaryBytes != null) {
+      byteBuffer.put(dictionaryBytes);
+    }
+    if (dataSchemaBytes != null) {
+      byteBuffer.put(dataSchemaBytes);
+    }
+    if (_fixedSizeData != null) {
+      byteBuffer.put(_fixedSizeData.duplicate().clear());
+    }
+    if (_variableSizeData != null) {
+      byteBuffer.put(_variableSizeData.duplicate().clear());
+    }
+    byteBuffer.putInt(metadataBytes.length);
+    byteBuffer.put(metadataBytes);
+
+    return bytes;
+  }
+
+  @Override
+  public DataTable toMetadataOnlyDataTable() {
+    DataTableImplV5 metadataOnlyDataTable = new DataTableImplV5();
+    metadataOnlyDataTable._metadata.putAll(_metadata);
+    metadataOnlyDataTable._errCodeToExceptionMap.putAll(_errCodeToExceptionMap);
+    return metadataOnlyDataTable;
+  }
+
+  @Override
+  public DataTable toDataOnlyDataTable() {
+    return new DataTableImplV5(_numRows, _dataSchema, _stringDictionary, duplicate(_fixedSizeData),
+        duplicate(_variableSizeData));
+  }
+
+  @Nullable
+  private static ByteBuffer duplicate(@Nullable ByteBuffer byteBuffer) {
+    return byteBuffer != null ? byteBuffer.duplicate() : null;
+  }
+}
@@ -39,7 +39,7 @@ public class DataTableUtils {
    * @return row size in bytes.
    */
   public static int computeColumnOffsets(DataSchema dataSchema, int[] columnOffsets, int dataTableVersion) {
-    assert dataTableVersion == DataTableFactory.VERSION_4;
+    assert dataTableVersion == DataTableFactory.VERSION_4 || dataTableVersion == DataTableFactory.VERSION_5;
     int numColumns = columnOffsets.length;
     assert numColumns == dataSchema.size();
 
@@ -157,7 +157,15 @@ public enum BrokerMeter implements AbstractMetrics.Meter {
    * For each query with at least one window function, this meter is increased as many times as window functions in the
    * query.
    */
-  WINDOW_COUNT("queries", true),;
+  WINDOW_COUNT("queries", true),
+  /**
+   * Number of single-stage queries served from the broker result cache.
+   */
+  RESULT_CACHE_HITS("queries", false),
+  /**
+   * Number of cacheable single-stage queries that were not found in the broker result cache.
+   */
+  RESULT_CACHE_MISSES("queries", false);
 
   private final String _brokerMeterName;
   private final String _unit;
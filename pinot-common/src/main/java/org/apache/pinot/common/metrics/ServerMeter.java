@@ -163,7 +163,27 @@ public enum ServerMeter implements AbstractMetrics.Meter {
    * That means that if a stage has 10 workers and all of them reach the limit, this will be increased by 1.
    * But if a single query has 2 different window operators and each one reaches the limit, this will be increased by 2.
    */
-  WINDOW_TIMES_MAX_ROWS_REACHED("times", true);
+  WINDOW_TIMES_MAX_ROWS_REACHED("times", true),
+  /**
+   * Number of segments whose query result is served from the segment result cache.
+   */
+  SEGMENT_RESULT_CACHE_HITS("segments", true),
+  /**
+   * Number of cacheable segments whose query result is not found in the segment result cache.
+   */
+  SEGMENT_RESULT_CACHE_MISSES("segments", true),
+  /**
+   * Number of leaf predicates whose matching doc ids are served from the filter bitmap cache.
+   */
+  FILTER_BITMAP_CACHE_HITS("predicates", true),
+  /**
+   * Number of leaf predicates looked up in the filter bitmap cache whose matching doc ids are not found.
+   */
+  FILTER_BITMAP_CACHE_MISSES("predicates", true),
+  /**
+   * Number of scan based leaf predicates missing the filter bitmap cache whose result is not admitted into the cache.
+   */
+  FILTER_BITMAP_CACHE_ADMISSION_REJECTIONS("predicates", true);
 
   private final String _meterName;
   private final String _unit;
@@ -257,12 +257,50 @@ public class QueryOptionsUtils {
     return checkedParseInt(QueryOptionKey.MAX_INITIAL_RESULT_HOLDER_CAPACITY, maxInitResultCap);
   }
 
+  public static boolean isGroupBySpillEnabled(Map<String, String> queryOptions) {
+    return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.ENABLE_GROUP_BY_SPILL));
+  }
+
   @Nullable
   public static Integer getGroupTrimThreshold(Map<String, String> queryOptions) {
     String groupByTrimThreshold = queryOptions.get(QueryOptionKey.GROUP_TRIM_THRESHOLD);
     return checkedParseInt(QueryOptionKey.GROUP_TRIM_THRESHOLD, groupByTrimThreshold);
   }
 
+  public static boolean isUsePartitionedGroupByCombine(Map<String, String> queryOptions) {
+    return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.USE_PARTITIONED_GROUP_BY_COMBINE));
+  }
+
+  @Nullable
+  public static Integer getMorselSize(Map<String, String> queryOptions) {
+    String morselSizeString = queryOptions.get(QueryOptionKey.MORSEL_SIZE);
+    return checkedParseInt(QueryOptionKey.MORSEL_SIZE, morselSizeString);
+  }
+
+  @Nullable
+  public static Boolean isUseAdaptiveFilterReordering(Map<String, String> queryOptions) {
+    String useAdaptiveFilterReordering = queryOptions.get(QueryOptionKey.USE_ADAPTIVE_FILTER_REORDERING);
+    return useAdaptiveFilterReordering != null ? Boolean.parseBoolean(useAdaptiveFilterReordering) : null;
+  }
+
+  @Nullable
+  public static Boolean isDeferSelectionMaterialization(Map<String, String> queryOptions) {
+    String deferSelectionMaterialization = queryOptions.get(QueryOptionKey.DEFER_SELECTION_MATERIALIZATION);
+    return deferSelectionMaterialization != null ? Boolean.parseBoolean(deferSelectionMaterialization) : null;
+  }
+
+  @Nullable
+  public static Boolean isIncrementalReduce(Map<String, String> queryOptions) {
+    String incrementalReduce = queryOptions.get(QueryOptionKey.INCREMENTAL_REDUCE);
+    return incrementalReduce != null ? Boolean.parseBoolean(incrementalReduce) : null;
+  }
+
+  @Nullable
+  public static Long getGroupByMemoryBudgetBytes(Map<String, String> queryOptions) {
+    String memoryBudgetBytes = queryOptions.get(QueryOptionKey.GROUP_BY_MEMORY_BUDGET_BYTES);
+    return checkedParseLong(QueryOptionKey.GROUP_BY_MEMORY_BUDGET_BYTES, memoryBudgetBytes, 0);
+  }
+
   private static Long checkedParseLong(String optionName, String optionValue, int minValue) {
     try {
       if (optionValue != null) {
@@ -309,6 +347,14 @@ public class QueryOptionsUtils {
     return Boolean.parseBoolean(queryOptions.get(CommonConstants.Broker.Request.QueryOptionKey.DROP_RESULTS));
   }
 
+  public static boolean isSkipResultCache(Map<String, String> queryOptions) {
+    return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.SKIP_RESULT_CACHE));
+  }
+
+  public static boolean isSkipSegmentResultCache(Map<String, String> queryOptions) {
+    return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.SKIP_SEGMENT_RESULT_CACHE));
+  }
+
   @Nullable
   public static Integer getMaxStreamingPendingBlocks(Map<String, String> queryOptions) {
     String maxStreamingPendingBlocks = queryOptions.get(QueryOptionKey.MAX_STREAMING_PENDING_BLOCKS);
@@ -333,6 +379,12 @@ public class QueryOptionsUtils {
     return checkedParseInt(QueryOptionKey.MAX_ROWS_IN_WINDOW, maxRowsInWindow);
   }
 
+  @Nullable
+  public static Integer getMaxRowsInSort(Map<String, String> queryOptions) {
+    String maxRowsInSort = queryOptions.get(QueryOptionKey.MAX_ROWS_IN_SORT);
+    return checkedParseInt(QueryOptionKey.MAX_ROWS_IN_SORT, maxRowsInSort);
+  }
+
   @Nullable
   public static WindowOverFlowMode getWindowOverflowMode(Map<String, String> queryOptions) {
     String windowOverflowModeStr = queryOptions.get(QueryOptionKey.WINDOW_OVERFLOW_MODE);
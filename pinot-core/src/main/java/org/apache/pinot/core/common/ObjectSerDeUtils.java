@@ -58,6 +58,7 @@ import it.unimi.dsi.fastutil.objects.ObjectSet;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -71,6 +72,7 @@ import org.apache.datasketches.frequencies.ItemsSketch;
 import org.apache.datasketches.frequencies.LongsSketch;
 import org.apache.datasketches.kll.KllDoublesSketch;
 import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.theta.Sketch;
 import org.apache.datasketches.tuple.aninteger.IntegerSummary;
 import org.apache.datasketches.tuple.aninteger.IntegerSummaryDeserializer;
@@ -331,6 +333,23 @@ public class ObjectSerDeUtils {
      * De-serializes a value from a byte buffer.
      */
     T deserialize(ByteBuffer byteBuffer);
+
+    /**
+     * Returns the size in bytes of the serialized value, or -1 if it is not known without serializing the value. When
+     * the size is known, the value can be serialized into a byte buffer with {@link #serialize(Object, ByteBuffer)}
+     * without allocating an intermediate byte array.
+     */
+    default int getSerializedSize(T value) {
+      return -1;
+    }
+
+    /**
+     * Serializes a value into the byte buffer at its current position, and advances the position by the serialized
+     * size. The byte buffer must have enough remaining space for the serialized value.
+     */
+    default void serialize(T value, ByteBuffer byteBuffer) {
+      byteBuffer.put(serialize(value));
+    }
   }
 
   public static final ObjectSerDe<String> STRING_SER_DE = new ObjectSerDe<String>() {
@@ -369,6 +388,16 @@ public class ObjectSerDeUtils {
     public Long deserialize(ByteBuffer byteBuffer) {
       return byteBuffer.getLong();
     }
+
+    @Override
+    public int getSerializedSize(Long value) {
+      return Long.BYTES;
+    }
+
+    @Override
+    public void serialize(Long value, ByteBuffer byteBuffer) {
+      byteBuffer.putLong(value);
+    }
   };
 
   public static final ObjectSerDe<Double> DOUBLE_SER_DE = new ObjectSerDe<Double>() {
@@ -387,6 +416,16 @@ public class ObjectSerDeUtils {
     public Double deserialize(ByteBuffer byteBuffer) {
       return byteBuffer.getDouble();
     }
+
+    @Override
+    public int getSerializedSize(Double value) {
+      return Double.BYTES;
+    }
+
+    @Override
+    public void serialize(Double value, ByteBuffer byteBuffer) {
+      byteBuffer.putDouble(value);
+    }
   };
 
   public static final ObjectSerDe<IntArrayList> INT_ARRAY_LIST_SER_DE = new ObjectSerDe<IntArrayList>() {
@@ -1150,6 +1189,16 @@ public class ObjectSerDeUtils {
     public TDigest deserialize(ByteBuffer byteBuffer) {
       return MergingDigest.fromBytes(byteBuffer);
     }
+
+    @Override
+    public int getSerializedSize(TDigest tDigest) {
+      return tDigest.byteSize();
+    }
+
+    @Override
+    public void serialize(TDigest tDigest, ByteBuffer byteBuffer) {
+      tDigest.asBytes(byteBuffer);
+    }
   };
 
   public static final ObjectSerDe<Sketch> DATA_SKETCH_THETA_SER_DE = new ObjectSerDe<Sketch>() {
@@ -1175,6 +1224,21 @@ public class ObjectSerDeUtils {
       byteBuffer.get(bytes);
       return Sketch.wrap(Memory.wrap(bytes));
     }
+
+    @Override
+    public int getSerializedSize(Sketch value) {
+      return value.getCompactBytes();
+    }
+
+    @Override
+    public void serialize(Sketch value, ByteBuffer byteBuffer) {
+      // Compact the sketch directly into the byte buffer, which uses the native byte order of the sketch
+      int size = value.getCompactBytes();
+      ByteBuffer sketchBuffer = byteBuffer.slice().order(ByteOrder.nativeOrder());
+      sketchBuffer.limit(size);
+      value.compact(value.isOrdered(), WritableMemory.writableWrap(sketchBuffer));
+      byteBuffer.position(byteBuffer.position() + size);
+    }
   };
 
   public static final ObjectSerDe<org.apache.datasketches.tuple.Sketch<IntegerSummary>> DATA_SKETCH_INT_TUPLE_SER_DE =
@@ -1842,6 +1906,22 @@ public class ObjectSerDeUtils {
     return SER_DES[objectTypeValue].serialize(value);
   }
 
+  /**
+   * Returns the size in bytes of the serialized value, or -1 if it cannot be serialized with
+   * {@link #serialize(Object, int, ByteBuffer)} without allocating an intermediate byte array.
+   */
+  public static int getSerializedSize(Object value, int objectTypeValue) {
+    return SER_DES[objectTypeValue].getSerializedSize(value);
+  }
+
+  /**
+   * Serializes the value into the byte buffer at its current position, and advances the position by the serialized
+   * size.
+   */
+  public static void serialize(Object value, int objectTypeValue, ByteBuffer byteBuffer) {
+    SER_DES[objectTypeValue].serialize(value, byteBuffer);
+  }
+
   public static <T> T deserialize(CustomObject customObject) {
     return (T) SER_DES[customObject.getType()].deserialize(customObject.getBuffer());
   }
@@ -22,6 +22,7 @@ import com.google.common.base.Preconditions;
 import org.apache.pinot.common.datatable.DataTable;
 import org.apache.pinot.common.datatable.DataTableFactory;
 import org.apache.pinot.common.datatable.DataTableImplV4;
+import org.apache.pinot.common.datatable.DataTableImplV5;
 import org.apache.pinot.common.utils.DataSchema;
 
 
@@ -31,22 +32,31 @@ public class DataTableBuilderFactory {
 
   public static final int DEFAULT_VERSION = DataTableFactory.VERSION_4;
 
+  private static volatile int _version = DEFAULT_VERSION;
+
   public static int getDataTableVersion() {
-    return DEFAULT_VERSION;
+    return _version;
   }
 
+  /**
+   * Sets the version of the data tables sent to the broker. {@link DataTableFactory#VERSION_5} stores the values column
+   * by column, and can only be read by the brokers supporting it.
+   */
   public static void setDataTableVersion(int version) {
-    Preconditions.checkArgument(version == DEFAULT_VERSION, "Unsupported version: " + version);
+    Preconditions.checkArgument(version == DataTableFactory.VERSION_4 || version == DataTableFactory.VERSION_5,
+        "Unsupported version: " + version);
+    _version = version;
   }
 
   public static DataTableBuilder getDataTableBuilder(DataSchema dataSchema) {
-    return new DataTableBuilderV4(dataSchema);
+    return _version == DataTableFactory.VERSION_5 ? new DataTableBuilderV5(dataSchema)
+        : new DataTableBuilderV4(dataSchema);
   }
 
   /**
    * Returns an empty data table without data.
    */
   public static DataTable getEmptyDataTable() {
-    return new DataTableImplV4();
+    return _version == DataTableFactory.VERSION_5 ? new DataTableImplV5() : new DataTableImplV4();
   }
 }
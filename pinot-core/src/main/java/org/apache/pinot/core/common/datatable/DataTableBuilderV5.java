@@ -0,0 +1,280 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.common.datatable;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.CustomObject;
+import org.apache.pinot.common.datatable.DataTable;
+import org.apache.pinot.common.datatable.DataTableFactory;
+import org.apache.pinot.common.datatable.DataTableImplV5;
+import org.apache.pinot.common.datatable.DataTableUtils;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.RoaringBitmapUtils;
+import org.apache.pinot.core.common.ObjectSerDeUtils;
+import org.apache.pinot.spi.utils.BigDecimalUtils;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.apache.pinot.spi.utils.MapUtils;
+import org.roaringbitmap.RoaringBitmap;
+
+
+/**
+ * DataTableBuilder for {@link DataTableImplV5}. The values are appended column by column into growable byte buffers
+ * without materializing the rows, and the custom objects with a known serialized size (e.g. TDigest, Theta Sketch) are
+ * serialized directly into the variable size data buffer without intermediate byte arrays.
+ */
+public class DataTableBuilderV5 implements DataTableBuilder {
+  private static final int INITIAL_ROW_CAPACITY = 64;
+  private static final int INITIAL_VARIABLE_SIZE_DATA_CAPACITY = 1024;
+
+  private final DataSchema _dataSchema;
+  private final int _numColumns;
+  private final int[] _columnSizes;
+  private final ByteBuffer[] _columnBuffers;
+  private final Object2IntOpenHashMap<String> _dictionary = new Object2IntOpenHashMap<>();
+
+  private ByteBuffer _variableSizeData = ByteBuffer.allocate(INITIAL_VARIABLE_SIZE_DATA_CAPACITY);
+  // (OFFSET|LENGTH) of the null bitmap for each column, null when null handling is not enabled
+  private ByteBuffer _nullBitmaps;
+  private int _numRows;
+  private int _rowCapacity;
+  private int _rowId = -1;
+
+  public DataTableBuilderV5(DataSchema dataSchema) {
+    _dataSchema = dataSchema;
+    _numColumns = dataSchema.size();
+    int[] columnOffsets = new int[_numColumns];
+    int rowSizeInBytes = DataTableUtils.computeColumnOffsets(dataSchema, columnOffsets, DataTableFactory.VERSION_5);
+    _columnSizes = new int[_numColumns];
+    for (int i = 0; i < _numColumns; i++) {
+      int nextColumnOffset = i < _numColumns - 1 ? columnOffsets[i + 1] : rowSizeInBytes;
+      _columnSizes[i] = nextColumnOffset - columnOffsets[i];
+    }
+    _columnBuffers = new ByteBuffer[_numColumns];
+  }
+
+  @Override
+  public void startRow() {
+    _rowId = _numRows++;
+    if (_numRows > _rowCapacity) {
+      _rowCapacity = Math.max(INITIAL_ROW_CAPACITY, _rowCapacity * 2);
+      for (int i = 0; i < _numColumns; i++) {
+        int capacity = _rowCapacity * _columnSizes[i];
+        ByteBuffer columnBuffer = _columnBuffers[i];
+        _columnBuffers[i] =
+            ByteBuffer.wrap(columnBuffer == null ? new byte[capacity] : Arrays.copyOf(columnBuffer.array(), capacity));
+      }
+    }
+  }
+
+  @Override
+  public void setColumn(int colId, int value) {
+    _columnBuffers[colId].putInt(getOffset(colId), value);
+  }
+
+  @Override
+  public void setColumn(int colId, long value) {
+    _columnBuffers[colId].putLong(getOffset(colId), value);
+  }
+
+  @Override
+  public void setColumn(int colId, float value) {
+    _columnBuffers[colId].putFloat(getOffset(colId), value);
+  }
+
+  @Override
+  public void setColumn(int colId, double value) {
+    _columnBuffers[colId].putDouble(getOffset(colId), value);
+  }
+
+  @Override
+  public void setColumn(int colId, BigDecimal value) {
+    setVariableSizeValue(colId, BigDecimalUtils.serialize(value));
+  }
+
+  @Override
+  public void setColumn(int colId, String value) {
+    _columnBuffers[colId].putInt(getOffset(colId), getDictId(value));
+  }
+
+  @Override
+  public void setColumn(int colId, ByteArray value) {
+    setVariableSizeValue(colId, value.getBytes());
+  }
+
+  @Override
+  public void setColumn(int colId, @Nullable Map<String, Object> value) {
+    if (value == null) {
+      setOffsetAndLength(colId, _variableSizeData.position(), 0);
+    } else {
+      setVariableSizeValue(colId, MapUtils.serializeMap(value));
+    }
+  }
+
+  @Override
+  public void setColumn(int colId, @Nullable Object value) {
+    int offset = _variableSizeData.position();
+    if (value == null) {
+      setOffsetAndLength(colId, offset, 0);
+      ensureVariableSizeDataCapacity(Integer.BYTES);
+      _variableSizeData.putInt(CustomObject.NULL_TYPE_VALUE);
+      return;
+    }
+    int objectTypeValue = ObjectSerDeUtils.ObjectType.getObjectType(value).getValue();
+    int size = ObjectSerDeUtils.getSerializedSize(value, objectTypeValue);
+    if (size >= 0) {
+      ensureVariableSizeDataCapacity(Integer.BYTES + size);
+      _variableSizeData.putInt(objectTypeValue);
+      ObjectSerDeUtils.serialize(value, objectTypeValue, _variableSizeData);
+      assert _variableSizeData.position() == offset + Integer.BYTES + size;
+    } else {
+      byte[] bytes = ObjectSerDeUtils.serialize(value, objectTypeValue);
+      size = bytes.length;
+      ensureVariableSizeDataCapacity(Integer.BYTES + size);
+      _variableSizeData.putInt(objectTypeValue);
+      _variableSizeData.put(bytes);
+    }
+    setOffsetAndLength(colId, offset, size);
+  }
+
+  @Override
+  public void setColumn(int colId, int[] values) {
+    setOffsetAndLength(colId, _variableSizeData.position(), values.length);
+    ensureVariableSizeDataCapacity(values.length * Integer.BYTES);
+    for (int value : values) {
+      _variableSizeData.putInt(value);
+    }
+  }
+
+  @Override
+  public void setColumn(int colId, long[] values) {
+    setOffsetAndLength(colId, _variableSizeData.position(), values.length);
+    ensureVariableSizeDataCapacity(values.length * Long.BYTES);
+    for (long value : values) {
+      _variableSizeData.putLong(value);
+    }
+  }
+
+  @Override
+  public void setColumn(int colId, float[] values) {
+    setOffsetAndLength(colId, _variableSizeData.position(), values.length);
+    ensureVariableSizeDataCapacity(values.length * Float.BYTES);
+    for (float value : values) {
+      _variableSizeData.putFloat(value);
+    }
+  }
+
+  @Override
+  public void setColumn(int colId, double[] values) {
+    setOffsetAndLength(colId, _variableSizeData.position(), values.length);
+    ensureVariableSizeDataCapacity(values.length * Double.BYTES);
+    for (double value : values) {
+      _variableSizeData.putDouble(value);
+    }
+  }
+
+  @Override
+  public void setColumn(int colId, String[] values) {
+    setOffsetAndLength(colId, _variableSizeData.position(), values.length);
+    ensureVariableSizeDataCapacity(values.length * Integer.BYTES);
+    for (String value : values) {
+      _variableSizeData.putInt(getDictId(value));
+    }
+  }
+
+  @Override
+  public void finishRow() {
+  }
+
+  @Override
+  public void setNullRowIds(@Nullable RoaringBitmap nullRowIds) {
+    if (_nullBitmaps == null) {
+      _nullBitmaps = ByteBuffer.allocate(_numColumns * Integer.BYTES * 2);
+    }
+    _nullBitmaps.putInt(_variableSizeData.position());
+    if (nullRowIds == null || nullRowIds.isEmpty()) {
+      _nullBitmaps.putInt(0);
+    } else {
+      byte[] bitmapBytes = RoaringBitmapUtils.serialize(nullRowIds);
+      _nullBitmaps.putInt(bitmapBytes.length);
+      ensureVariableSizeDataCapacity(bitmapBytes.length);
+      _variableSizeData.put(bitmapBytes);
+    }
+  }
+
+  @Override
+  public DataTable build() {
+    String[] reverseDictionary = new String[_dictionary.size()];
+    for (Object2IntMap.Entry<String> entry : _dictionary.object2IntEntrySet()) {
+      reverseDictionary[entry.getIntValue()] = entry.getKey();
+    }
+    int nullBitmapsLength = _nullBitmaps != null ? _nullBitmaps.position() : 0;
+    int fixedSizeDataLength = nullBitmapsLength;
+    for (int i = 0; i < _numColumns; i++) {
+      fixedSizeDataLength += _numRows * _columnSizes[i];
+    }
+    ByteBuffer fixedSizeData = ByteBuffer.allocate(fixedSizeDataLength);
+    if (_numRows > 0) {
+      for (int i = 0; i < _numColumns; i++) {
+        fixedSizeData.put(_columnBuffers[i].array(), 0, _numRows * _columnSizes[i]);
+      }
+    }
+    if (nullBitmapsLength > 0) {
+      fixedSizeData.put(_nullBitmaps.array(), 0, nullBitmapsLength);
+    }
+    fixedSizeData.clear();
+    ByteBuffer variableSizeData = ByteBuffer.wrap(_variableSizeData.array(), 0, _variableSizeData.position()).slice();
+    return new DataTableImplV5(_numRows, _dataSchema, reverseDictionary, fixedSizeData, variableSizeData);
+  }
+
+  private int getOffset(int colId) {
+    return _rowId * _columnSizes[colId];
+  }
+
+  private int getDictId(String value) {
+    return _dictionary.computeIntIfAbsent(value, k -> _dictionary.size());
+  }
+
+  private void setOffsetAndLength(int colId, int offset, int length) {
+    ByteBuffer columnBuffer = _columnBuffers[colId];
+    int position = getOffset(colId);
+    columnBuffer.putInt(position, offset);
+    columnBuffer.putInt(position + Integer.BYTES, length);
+  }
+
+  private void setVariableSizeValue(int colId, byte[] bytes) {
+    setOffsetAndLength(colId, _variableSizeData.position(), bytes.length);
+    ensureVariableSizeDataCapacity(bytes.length);
+    _variableSizeData.put(bytes);
+  }
+
+  private void ensureVariableSizeDataCapacity(int size) {
+    int position = _variableSizeData.position();
+    if (_variableSizeData.capacity() - position < size) {
+      int capacity = Math.max(position + size, _variableSizeData.capacity() * 2);
+      _variableSizeData = ByteBuffer.wrap(Arrays.copyOf(_variableSizeData.array(), capacity));
+      _variableSizeData.position(position);
+    }
+  }
+}
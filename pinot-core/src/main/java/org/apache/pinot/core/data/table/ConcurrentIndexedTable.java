@@ -63,10 +63,12 @@ public class ConcurrentIndexedTable extends IndexedTable {
       _readWriteLock.readLock().unlock();
     }
 
-    if (_lookupMap.size() >= _trimThreshold) {
+    boolean trimEarly = reserveMemory(_lookupMap.size());
+    if (trimEarly || _lookupMap.size() >= _trimThreshold) {
       _readWriteLock.writeLock().lock();
       try {
-        if (_lookupMap.size() >= _trimThreshold) {
+        int size = _lookupMap.size();
+        if ((trimEarly && size > _trimSize) || size >= _trimThreshold) {
           resize();
         }
       } finally {
@@ -80,6 +82,7 @@ public class ConcurrentIndexedTable extends IndexedTable {
       updateExistingRecord(key, record);
     } else {
       addOrUpdateRecord(key, record);
+      reserveMemory(_lookupMap.size());
       if (_lookupMap.size() >= _resultSize) {
         _noMoreNewRecords.set(true);
       }
@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.table;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import java.util.Arrays;
+import java.util.Iterator;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import org.apache.pinot.core.query.aggregation.groupby.DictionaryBasedGroupKeyGenerator;
+import org.apache.pinot.core.query.aggregation.groupby.DictionaryBasedGroupKeyGenerator.RawGroupKey;
+import org.apache.pinot.segment.spi.index.reader.Dictionary;
+import org.apache.pinot.spi.trace.Tracing;
+
+
+/**
+ * The {@code DictIdGroupByTable} merges the segment level group-by results generated with the same dictionaries (e.g.
+ * the morsels of the same segment), keyed by the raw keys encoded from the dictionary ids of the group-by columns (see
+ * {@link DictionaryBasedGroupKeyGenerator#hasLongRawKeys()}).
+ * <p>Merging by raw keys avoids decoding the group key values and hashing/comparing them (e.g. strings) for each
+ * segment level result. The values are decoded only once per group when the merged results are upserted into the
+ * {@link IndexedTable}.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+@ThreadSafe
+public class DictIdGroupByTable {
+  private final AggregationFunction[] _aggregationFunctions;
+  private final int _numAggregationFunctions;
+  private final Dictionary[] _dictionaries;
+  private final int[] _cardinalities;
+  private final int _numGroupByExpressions;
+  private final Long2ObjectOpenHashMap<Object[]> _resultsMap = new Long2ObjectOpenHashMap<>();
+
+  private int _numPendingResults;
+
+  /**
+   * @param aggregationFunctions Aggregation functions of the query
+   * @param groupKeyGenerator Group key generator of one of the results, used to decode the raw keys
+   * @param numResults Number of segment level results to be merged
+   */
+  public DictIdGroupByTable(AggregationFunction[] aggregationFunctions,
+      DictionaryBasedGroupKeyGenerator groupKeyGenerator, int numResults) {
+    assert groupKeyGenerator.hasLongRawKeys();
+    _aggregationFunctions = aggregationFunctions;
+    _numAggregationFunctions = aggregationFunctions.length;
+    _dictionaries = groupKeyGenerator.getDictionaries();
+    _cardinalities = groupKeyGenerator.getCardinalities();
+    _numGroupByExpressions = _dictionaries.length;
+    _numPendingResults = numResults;
+  }
+
+  /**
+   * Merges the segment level results generated with the same dictionaries as this table. Returns {@code true} when all
+   * the expected results have been merged, in which case the table can be upserted into the indexed table.
+   */
+  public synchronized boolean merge(DictionaryBasedGroupKeyGenerator groupKeyGenerator,
+      AggregationGroupByResult aggregationGroupByResult) {
+    Iterator<RawGroupKey> rawGroupKeyIterator = groupKeyGenerator.getRawGroupKeys();
+    int numMergedKeys = 0;
+    while (rawGroupKeyIterator.hasNext()) {
+      RawGroupKey rawGroupKey = rawGroupKeyIterator.next();
+      int groupId = rawGroupKey._groupId;
+      Object[] results = _resultsMap.get(rawGroupKey._rawKey);
+      if (results == null) {
+        results = new Object[_numAggregationFunctions];
+        for (int i = 0; i < _numAggregationFunctions; i++) {
+          results[i] = aggregationGroupByResult.getResultForGroupId(i, groupId);
+        }
+        _resultsMap.put(rawGroupKey._rawKey, results);
+      } else {
+        for (int i = 0; i < _numAggregationFunctions; i++) {
+          results[i] =
+              _aggregationFunctions[i].merge(results[i], aggregationGroupByResult.getResultForGroupId(i, groupId));
+        }
+      }
+      Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(numMergedKeys++);
+    }
+    return --_numPendingResults == 0;
+  }
+
+  /**
+   * Decodes the group key values of the merged results and upserts them into the given indexed table.
+   */
+  public synchronized void upsertInto(IndexedTable indexedTable) {
+    int numColumns = _numGroupByExpressions + _numAggregationFunctions;
+    ObjectIterator<Long2ObjectMap.Entry<Object[]>> iterator = _resultsMap.long2ObjectEntrySet().fastIterator();
+    int numUpsertedKeys = 0;
+    while (iterator.hasNext()) {
+      Long2ObjectMap.Entry<Object[]> entry = iterator.next();
+      Object[] values = new Object[numColumns];
+      long rawKey = entry.getLongKey();
+      for (int i = 0; i < _numGroupByExpressions; i++) {
+        int cardinality = _cardinalities[i];
+        values[i] = _dictionaries[i].getInternal((int) (rawKey % cardinality));
+        rawKey /= cardinality;
+      }
+      System.arraycopy(entry.getValue(), 0, values, _numGroupByExpressions, _numAggregationFunctions);
+      indexedTable.upsert(new Key(Arrays.copyOf(values, _numGroupByExpressions)), new Record(values));
+      Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(numUpsertedKeys++);
+    }
+    _resultsMap.clear();
+  }
+}
@@ -25,12 +25,15 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import org.apache.pinot.common.request.context.ExpressionContext;
 import org.apache.pinot.common.request.context.OrderByExpressionContext;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
 import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.util.QueryMemoryBudget;
+import org.apache.pinot.spi.trace.Tracing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,6 +44,8 @@ import org.slf4j.LoggerFactory;
 @SuppressWarnings({"rawtypes", "unchecked"})
 public abstract class IndexedTable extends BaseTable {
   private static final Logger LOGGER = LoggerFactory.getLogger(IndexedTable.class);
+  // Number of records to reserve from the query memory budget at a time
+  private static final int NUM_RECORDS_PER_RESERVATION = 1024;
 
   protected final Map<Key, Record> _lookupMap;
   protected final boolean _hasFinalInput;
@@ -51,10 +56,15 @@ public abstract class IndexedTable extends BaseTable {
   protected final TableResizer _tableResizer;
   protected final int _trimSize;
   protected final int _trimThreshold;
+  @Nullable
+  protected final QueryMemoryBudget _memoryBudget;
+  protected final long _recordSizeInBytes;
 
+  // Number of records reserved from the query memory budget
+  protected volatile int _numReservedRecords;
   protected Collection<Record> _topRecords;
-  private int _numResizes;
-  private long _resizeTimeNs;
+  protected int _numResizes;
+  protected long _resizeTimeNs;
 
   /**
    * Constructor for the IndexedTable.
@@ -108,6 +118,9 @@ public abstract class IndexedTable extends BaseTable {
       _trimSize = Integer.MAX_VALUE;
       _trimThreshold = Integer.MAX_VALUE;
     }
+
+    _memoryBudget = queryContext.getMemoryBudget();
+    _recordSizeInBytes = _memoryBudget != null ? QueryMemoryBudget.estimateRecordSizeInBytes(dataSchema) : 0;
   }
 
   @Override
@@ -118,6 +131,60 @@ public abstract class IndexedTable extends BaseTable {
     return upsert(new Key(keyValues), record);
   }
 
+  /**
+   * Reserves the memory for the given number of records from the query memory budget, if configured. Throws
+   * {@link org.apache.pinot.spi.exception.QueryMemoryBudgetExceededException} when the budget is exceeded.
+   * <p>Returns {@code true} when the budget is close to its limit and the table (GROUP BY with ORDER BY) has more
+   * records than the trim size, in which case the caller should resize the table early instead of waiting for the trim
+   * threshold.
+   */
+  protected boolean reserveMemory(int numRecords) {
+    if (_memoryBudget == null || numRecords <= _numReservedRecords) {
+      return false;
+    }
+    synchronized (this) {
+      int numReservedRecords = _numReservedRecords;
+      if (numRecords <= numReservedRecords) {
+        return false;
+      }
+      int numRecordsToReserve = (numRecords / NUM_RECORDS_PER_RESERVATION + 1) * NUM_RECORDS_PER_RESERVATION;
+      _memoryBudget.reserve((numRecordsToReserve - numReservedRecords) * _recordSizeInBytes,
+          "merging group-by results");
+      _numReservedRecords = numRecordsToReserve;
+    }
+    return _hasOrderBy && numRecords > _trimSize && _memoryBudget.isNearLimit();
+  }
+
+  /**
+   * Releases all the memory reserved for the table, e.g. after merging it into another table.
+   */
+  protected void releaseAllMemory() {
+    if (_memoryBudget == null) {
+      return;
+    }
+    synchronized (this) {
+      _memoryBudget.release(_numReservedRecords * _recordSizeInBytes);
+      _numReservedRecords = 0;
+    }
+  }
+
+  /**
+   * Releases the memory reserved for the records beyond the given number of records, e.g. after resizing the table.
+   */
+  protected void releaseMemory(int numRecords) {
+    if (_memoryBudget == null) {
+      return;
+    }
+    synchronized (this) {
+      int numRecordsToKeep = (numRecords / NUM_RECORDS_PER_RESERVATION + 1) * NUM_RECORDS_PER_RESERVATION;
+      int numReservedRecords = _numReservedRecords;
+      if (numRecordsToKeep < numReservedRecords) {
+        _memoryBudget.release((numReservedRecords - numRecordsToKeep) * _recordSizeInBytes);
+        _numReservedRecords = numRecordsToKeep;
+      }
+    }
+  }
+
   /**
    * Adds a record with new key or updates a record with existing key.
    */
@@ -150,6 +217,50 @@ public abstract class IndexedTable extends BaseTable {
     return existingRecord;
   }
 
+  /**
+   * Merges the records of the given table into this table. The given table should not be used afterward because its
+   * records can be reused by this table.
+   */
+  public void merge(IndexedTable indexedTable) {
+    indexedTable.mergeInto(this);
+    // The given table is discarded after the merge, release the memory reserved for it
+    indexedTable.releaseAllMemory();
+  }
+
+  /**
+   * Upserts the records of this table into the given table.
+   */
+  protected void mergeInto(IndexedTable indexedTable) {
+    int numMergedRecords = 0;
+    for (Map.Entry<Key, Record> entry : _lookupMap.entrySet()) {
+      indexedTable.upsert(entry.getKey(), entry.getValue());
+      Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(numMergedRecords++);
+    }
+  }
+
+  /**
+   * Returns the top records of the table for the order-by expressions, sorted if requested.
+   */
+  protected Collection<Record> getTopRecords(int size, boolean sort) {
+    return _tableResizer.getTopRecords(_lookupMap, size, sort);
+  }
+
+  /**
+   * Returns all the records of the table.
+   */
+  protected Collection<Record> getRecords() {
+    return _lookupMap.values();
+  }
+
+  /**
+   * Trims the table to the trim size if it has more records than the trim size. No-op for GROUP BY without ORDER BY.
+   */
+  public void trim() {
+    if (_hasOrderBy && _lookupMap.size() > _trimSize) {
+      resize();
+    }
+  }
+
   /**
    * Resizes the lookup map based on the trim size.
    */
@@ -160,18 +271,19 @@ public abstract class IndexedTable extends BaseTable {
     long resizeTimeNs = System.nanoTime() - startTimeNs;
     _numResizes++;
     _resizeTimeNs += resizeTimeNs;
+    releaseMemory(_lookupMap.size());
   }
 
   @Override
   public void finish(boolean sort, boolean storeFinalResult) {
     if (_hasOrderBy) {
       long startTimeNs = System.nanoTime();
-      _topRecords = _tableResizer.getTopRecords(_lookupMap, _resultSize, sort);
+      _topRecords = getTopRecords(_resultSize, sort);
       long resizeTimeNs = System.nanoTime() - startTimeNs;
       _numResizes++;
       _resizeTimeNs += resizeTimeNs;
     } else {
-      _topRecords = _lookupMap.values();
+      _topRecords = getRecords();
     }
     // TODO: Directly return final result in _tableResizer.getTopRecords to avoid extracting final result multiple times
     assert !(_hasFinalInput && !storeFinalResult);
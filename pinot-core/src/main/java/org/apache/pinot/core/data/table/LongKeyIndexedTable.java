@@ -0,0 +1,228 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.table;
+
+import com.google.common.base.Preconditions;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.pinot.common.request.context.ExpressionContext;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.spi.trace.Tracing;
+
+
+/**
+ * {@link IndexedTable} implementation specialized for a single INT or LONG group-by column. The group keys are kept in
+ * a primitive open addressing map and the aggregation states in columnar arrays, so that no {@link Key} or
+ * {@link Record} is created or looked up per upsert. When the table is trimmed or finished, records are only
+ * materialized for the groups that are kept.
+ * <p>Null group keys cannot be represented, so the table is not supported when null handling is enabled.
+ */
+@NotThreadSafe
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class LongKeyIndexedTable extends IndexedTable {
+  private static final int INITIAL_CAPACITY = 128;
+
+  private final boolean _isIntKey;
+  private final int _numAggregations;
+  private final int _numColumns;
+  private final Long2IntOpenHashMap _groupIdMap = new Long2IntOpenHashMap();
+  // Aggregation states indexed by aggregation function index and group id
+  private final Object[][] _aggregationStates;
+  private long[] _keys = new long[INITIAL_CAPACITY];
+  private int _numGroups;
+
+  public LongKeyIndexedTable(DataSchema dataSchema, QueryContext queryContext, int resultSize, int trimSize,
+      int trimThreshold) {
+    this(dataSchema, false, queryContext, resultSize, trimSize, trimThreshold);
+  }
+
+  public LongKeyIndexedTable(DataSchema dataSchema, boolean hasFinalInput, QueryContext queryContext, int resultSize,
+      int trimSize, int trimThreshold) {
+    super(dataSchema, hasFinalInput, queryContext, resultSize, trimSize, trimThreshold, Collections.emptyMap());
+    Preconditions.checkArgument(isSupported(dataSchema, queryContext),
+        "Unsupported group-by for LongKeyIndexedTable: %s", queryContext.getGroupByExpressions());
+    _isIntKey = dataSchema.getColumnDataType(0) == ColumnDataType.INT;
+    _numAggregations = _aggregationFunctions.length;
+    _numColumns = _numKeyColumns + _numAggregations;
+    _aggregationStates = new Object[_numAggregations][INITIAL_CAPACITY];
+    _groupIdMap.defaultReturnValue(-1);
+  }
+
+  /**
+   * Returns whether the query groups by a single INT or LONG column without null handling.
+   */
+  public static boolean isSupported(DataSchema dataSchema, QueryContext queryContext) {
+    List<ExpressionContext> groupByExpressions = queryContext.getGroupByExpressions();
+    if (groupByExpressions == null || groupByExpressions.size() != 1 || queryContext.isNullHandlingEnabled()) {
+      return false;
+    }
+    ColumnDataType keyType = dataSchema.getColumnDataType(0);
+    return keyType == ColumnDataType.INT || keyType == ColumnDataType.LONG;
+  }
+
+  @Override
+  public boolean upsert(Record record) {
+    Object[] values = record.getValues();
+    return upsert(((Number) values[0]).longValue(), values);
+  }
+
+  @Override
+  public boolean upsert(Key key, Record record) {
+    return upsert(((Number) key.getValues()[0]).longValue(), record.getValues());
+  }
+
+  /**
+   * Adds a group with new key or updates the group with existing key. The values should have the group key in the
+   * front followed by the aggregation values, and can be reused by the caller after this call.
+   */
+  public boolean upsert(long key, Object[] values) {
+    int groupId = _groupIdMap.get(key);
+    if (groupId >= 0) {
+      updateGroup(groupId, values);
+    } else if (_hasOrderBy) {
+      addGroup(key, values);
+      if (reserveMemory(_numGroups) || _numGroups >= _trimThreshold) {
+        resize();
+      }
+    } else if (_numGroups < _resultSize) {
+      addGroup(key, values);
+      reserveMemory(_numGroups);
+    }
+    return true;
+  }
+
+  private void addGroup(long key, Object[] values) {
+    int groupId = _numGroups++;
+    if (groupId == _keys.length) {
+      int newCapacity = _keys.length * 2;
+      _keys = Arrays.copyOf(_keys, newCapacity);
+      for (int i = 0; i < _numAggregations; i++) {
+        _aggregationStates[i] = Arrays.copyOf(_aggregationStates[i], newCapacity);
+      }
+    }
+    _keys[groupId] = key;
+    for (int i = 0; i < _numAggregations; i++) {
+      _aggregationStates[i][groupId] = values[_numKeyColumns + i];
+    }
+    _groupIdMap.put(key, groupId);
+  }
+
+  private void updateGroup(int groupId, Object[] values) {
+    for (int i = 0; i < _numAggregations; i++) {
+      Object[] states = _aggregationStates[i];
+      Object value = values[_numKeyColumns + i];
+      if (_hasFinalInput) {
+        states[groupId] = _aggregationFunctions[i].mergeFinalResult((Comparable) states[groupId], (Comparable) value);
+      } else {
+        states[groupId] = _aggregationFunctions[i].merge(states[groupId], value);
+      }
+    }
+  }
+
+  @Override
+  protected void resize() {
+    assert _hasOrderBy;
+    long startTimeNs = System.nanoTime();
+    if (_numGroups > _trimSize) {
+      // Only the retained groups are materialized as records
+      Collection<Record> recordsToRetain =
+          _tableResizer.getTopRecords(_numGroups, _numColumns, this::readRecord, _trimSize, false);
+      int numGroupsBeforeResize = _numGroups;
+      _groupIdMap.clear();
+      _numGroups = 0;
+      for (Record record : recordsToRetain) {
+        Object[] values = record.getValues();
+        addGroup(((Number) values[0]).longValue(), values);
+      }
+      for (int i = 0; i < _numAggregations; i++) {
+        Arrays.fill(_aggregationStates[i], _numGroups, numGroupsBeforeResize, null);
+      }
+    }
+    _numResizes++;
+    _resizeTimeNs += System.nanoTime() - startTimeNs;
+    releaseMemory(_numGroups);
+  }
+
+  @Override
+  public void trim() {
+    if (_hasOrderBy && _numGroups > _trimSize) {
+      resize();
+    }
+  }
+
+  @Override
+  protected void mergeInto(IndexedTable indexedTable) {
+    if (indexedTable instanceof LongKeyIndexedTable) {
+      LongKeyIndexedTable longKeyIndexedTable = (LongKeyIndexedTable) indexedTable;
+      Object[] values = new Object[_numColumns];
+      for (int groupId = 0; groupId < _numGroups; groupId++) {
+        for (int i = 0; i < _numAggregations; i++) {
+          values[_numKeyColumns + i] = _aggregationStates[i][groupId];
+        }
+        longKeyIndexedTable.upsert(_keys[groupId], values);
+        Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(groupId);
+      }
+    } else {
+      for (int groupId = 0; groupId < _numGroups; groupId++) {
+        Object[] values = new Object[_numColumns];
+        readRecord(groupId, values);
+        indexedTable.upsert(new Key(new Object[]{values[0]}), new Record(values));
+        Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(groupId);
+      }
+    }
+  }
+
+  @Override
+  protected Collection<Record> getTopRecords(int size, boolean sort) {
+    return _tableResizer.getTopRecords(_numGroups, _numColumns, this::readRecord, size, sort);
+  }
+
+  @Override
+  protected Collection<Record> getRecords() {
+    Record[] records = new Record[_numGroups];
+    for (int groupId = 0; groupId < _numGroups; groupId++) {
+      Object[] values = new Object[_numColumns];
+      readRecord(groupId, values);
+      records[groupId] = new Record(values);
+    }
+    return Arrays.asList(records);
+  }
+
+  /**
+   * Reads the group key and the aggregation states of the given group into the given values.
+   */
+  private void readRecord(int groupId, Object[] values) {
+    long key = _keys[groupId];
+    values[0] = _isIntKey ? (Object) (int) key : (Object) key;
+    for (int i = 0; i < _numAggregations; i++) {
+      values[_numKeyColumns + i] = _aggregationStates[i][groupId];
+    }
+  }
+
+  @Override
+  public int size() {
+    return _topRecords != null ? _topRecords.size() : _numGroups;
+  }
+}
@@ -47,12 +47,14 @@ public class SimpleIndexedTable extends IndexedTable {
   public boolean upsert(Key key, Record record) {
     if (_hasOrderBy) {
       addOrUpdateRecord(key, record);
-      if (_lookupMap.size() >= _trimThreshold) {
+      int size = _lookupMap.size();
+      if (reserveMemory(size) || size >= _trimThreshold) {
         resize();
       }
     } else {
       if (_lookupMap.size() < _resultSize) {
         addOrUpdateRecord(key, record);
+        reserveMemory(_lookupMap.size());
       } else {
         updateExistingRecord(key, record);
       }
@@ -320,6 +320,78 @@ public class TableResizer {
     }
   }
 
+  /**
+   * Returns the top records out of the records with ids from 0 to {@code numRecords - 1}, which are read with the given
+   * {@link RecordReader}. This is used by the tables that do not keep their records as {@link Record}s: a record is
+   * created only when it enters the heap, and the other records are read into a reused values array.
+   */
+  public Collection<Record> getTopRecords(int numRecords, int numColumns, RecordReader recordReader, int size,
+      boolean sort) {
+    if (numRecords == 0) {
+      return Collections.emptyList();
+    }
+    if (numRecords <= size) {
+      // All the records are top records
+      if (!sort) {
+        Record[] records = new Record[numRecords];
+        for (int i = 0; i < numRecords; i++) {
+          records[i] = readRecord(recordReader, i, numColumns);
+        }
+        return Arrays.asList(records);
+      }
+      IntermediateRecord[] intermediateRecords = new IntermediateRecord[numRecords];
+      for (int i = 0; i < numRecords; i++) {
+        intermediateRecords[i] = getIntermediateRecord(null, readRecord(recordReader, i, numColumns));
+      }
+      Arrays.sort(intermediateRecords, _intermediateRecordComparator);
+      Record[] sortedTopRecords = new Record[numRecords];
+      for (int i = 0; i < numRecords; i++) {
+        sortedTopRecords[i] = intermediateRecords[i]._record;
+      }
+      return Arrays.asList(sortedTopRecords);
+    }
+
+    // Initialize a heap with the first 'size' records
+    Comparator<IntermediateRecord> comparator = _intermediateRecordComparator.reversed();
+    IntermediateRecord[] heap = new IntermediateRecord[size];
+    for (int i = 0; i < size; i++) {
+      heap[i] = getIntermediateRecord(null, readRecord(recordReader, i, numColumns));
+    }
+    makeHeap(heap, size, comparator);
+
+    // Keep updating the heap with the remaining records
+    Object[] reusedValues = new Object[numColumns];
+    Record reusedRecord = new Record(reusedValues);
+    for (int i = size; i < numRecords; i++) {
+      recordReader.read(i, reusedValues);
+      IntermediateRecord intermediateRecord = getIntermediateRecord(null, reusedRecord);
+      if (comparator.compare(intermediateRecord, heap[0]) > 0) {
+        heap[0] = new IntermediateRecord(null, new Record(reusedValues.clone()), intermediateRecord._values);
+        downHeap(heap, size, 0, comparator);
+      }
+    }
+
+    Record[] topRecords = new Record[size];
+    if (sort) {
+      while (size-- > 0) {
+        topRecords[size] = heap[0]._record;
+        heap[0] = heap[size];
+        downHeap(heap, size, 0, comparator);
+      }
+    } else {
+      for (int i = 0; i < size; i++) {
+        topRecords[i] = heap[i]._record;
+      }
+    }
+    return Arrays.asList(topRecords);
+  }
+
+  private static Record readRecord(RecordReader recordReader, int recordId, int numColumns) {
+    Object[] values = new Object[numColumns];
+    recordReader.read(recordId, values);
+    return new Record(values);
+  }
+
   /**
    * Trims the aggregation results using a heap and returns the top records.
    * This method is to be called from individual segment if the intermediate results need to be trimmed.
@@ -367,6 +439,17 @@ public class TableResizer {
     return getIntermediateRecord(new Key(keys), new Record(values));
   }
 
+  /**
+   * Reads the records of a table by their ids, see {@link #getTopRecords(int, int, RecordReader, int, boolean)}.
+   */
+  public interface RecordReader {
+
+    /**
+     * Reads the values of the record with the given id into the given array.
+     */
+    void read(int recordId, Object[] values);
+  }
+
   /**
    * Extractor for the order-by value from a Record.
    */
@@ -47,5 +47,6 @@ public class UnboundedConcurrentIndexedTable extends ConcurrentIndexedTable {
   @Override
   protected void upsertWithOrderBy(Key key, Record record) {
     addOrUpdateRecord(key, record);
+    reserveMemory(_lookupMap.size());
   }
 }
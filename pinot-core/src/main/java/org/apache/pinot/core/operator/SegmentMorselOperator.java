@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator;
+
+import java.util.Collections;
+import java.util.List;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.SegmentContext;
+
+
+/**
+ * A wrapper around the segment-level operator which processes a morsel (the docIds within [start, end)) of a large
+ * segment. Multiple morsels of the same segment are processed in parallel by the combine operator, and are counted as
+ * a single segment in the execution statistics.
+ */
+public class SegmentMorselOperator extends BaseOperator<BaseResultsBlock> {
+  private static final String EXPLAIN_NAME = "SEGMENT_MORSEL";
+
+  private final Operator<BaseResultsBlock> _childOperator;
+  private final SegmentContext _segmentContext;
+  private final int _docIdRangeStart;
+  private final int _docIdRangeEnd;
+
+  public SegmentMorselOperator(Operator<BaseResultsBlock> childOperator, SegmentContext segmentContext,
+      int docIdRangeStart, int docIdRangeEnd) {
+    _childOperator = childOperator;
+    _segmentContext = segmentContext;
+    _docIdRangeStart = docIdRangeStart;
+    _docIdRangeEnd = docIdRangeEnd;
+  }
+
+  @Override
+  protected BaseResultsBlock getNextBlock() {
+    return _childOperator.nextBlock();
+  }
+
+  @Override
+  public String toExplainString() {
+    return EXPLAIN_NAME;
+  }
+
+  @Override
+  protected void explainAttributes(ExplainAttributeBuilder attributeBuilder) {
+    super.explainAttributes(attributeBuilder);
+    attributeBuilder.putLong("docIdRangeStart", _docIdRangeStart);
+    attributeBuilder.putLong("docIdRangeEnd", _docIdRangeEnd);
+  }
+
+  @Override
+  public List<Operator> getChildOperators() {
+    return Collections.singletonList(_childOperator);
+  }
+
+  /**
+   * Returns the context of the whole segment, which is shared by all the morsels of the segment.
+   */
+  public SegmentContext getSegmentContext() {
+    return _segmentContext;
+  }
+
+  @Override
+  public IndexSegment getIndexSegment() {
+    return _segmentContext.getIndexSegment();
+  }
+
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    ExecutionStatistics executionStatistics = _childOperator.getExecutionStatistics();
+    return new ExecutionStatistics(executionStatistics.getNumDocsScanned(),
+        executionStatistics.getNumEntriesScannedInFilter(), executionStatistics.getNumEntriesScannedPostFilter(),
+        _docIdRangeEnd - _docIdRangeStart);
+  }
+}
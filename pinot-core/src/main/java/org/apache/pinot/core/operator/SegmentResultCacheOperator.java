@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator;
+
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.segment.spi.IndexSegment;
+
+
+/**
+ * Segment level operator that serves the results block from the {@link SegmentResultCache} on a cache hit, or runs the
+ * child operator and caches its results block on a cache miss.
+ */
+@SuppressWarnings("rawtypes")
+public class SegmentResultCacheOperator extends BaseOperator<BaseResultsBlock> {
+  private static final String EXPLAIN_NAME = "SEGMENT_RESULT_CACHE";
+
+  private final SegmentResultCache _segmentResultCache;
+  private final SegmentResultCache.CacheKey _cacheKey;
+  private final SegmentResultCache.CachedResult _cachedResult;
+  private final Operator<BaseResultsBlock> _childOperator;
+  private final IndexSegment _indexSegment;
+  private final QueryContext _queryContext;
+
+  /**
+   * Either the cached result (cache hit) or the child operator (cache miss) should be provided.
+   */
+  public SegmentResultCacheOperator(SegmentResultCache segmentResultCache, SegmentResultCache.CacheKey cacheKey,
+      @Nullable SegmentResultCache.CachedResult cachedResult, @Nullable Operator<BaseResultsBlock> childOperator,
+      IndexSegment indexSegment, QueryContext queryContext) {
+    assert cachedResult != null || childOperator != null;
+    _segmentResultCache = segmentResultCache;
+    _cacheKey = cacheKey;
+    _cachedResult = cachedResult;
+    _childOperator = childOperator;
+    _indexSegment = indexSegment;
+    _queryContext = queryContext;
+  }
+
+  @Override
+  protected BaseResultsBlock getNextBlock() {
+    if (_cachedResult != null) {
+      return _cachedResult.toResultsBlock(_queryContext);
+    }
+    BaseResultsBlock resultsBlock = _childOperator.nextBlock();
+    // NOTE: Cache the results block before returning it because the combine operator might modify it when merging
+    _segmentResultCache.put(_cacheKey, resultsBlock, _childOperator.getExecutionStatistics());
+    return resultsBlock;
+  }
+
+  @Override
+  public String toExplainString() {
+    return EXPLAIN_NAME;
+  }
+
+  @Override
+  public List<Operator> getChildOperators() {
+    return _childOperator != null ? Collections.singletonList(_childOperator) : Collections.emptyList();
+  }
+
+  @Override
+  public IndexSegment getIndexSegment() {
+    return _indexSegment;
+  }
+
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    return _cachedResult != null ? _cachedResult.getExecutionStatistics() : _childOperator.getExecutionStatistics();
+  }
+}
@@ -61,6 +61,8 @@ public class GroupByResultsBlock extends BaseResultsBlock {
   private boolean _numGroupsLimitReached;
   private int _numResizes;
   private long _resizeTimeMs;
+  // Memory reserved from the query memory budget for the segment level results, released after merging
+  private long _reservedMemoryBytes;
 
   /**
    * For segment level group-by results.
@@ -136,6 +138,14 @@ public class GroupByResultsBlock extends BaseResultsBlock {
     _numResizes = numResizes;
   }
 
+  public long getReservedMemoryBytes() {
+    return _reservedMemoryBytes;
+  }
+
+  public void setReservedMemoryBytes(long reservedMemoryBytes) {
+    _reservedMemoryBytes = reservedMemoryBytes;
+  }
+
   public long getResizeTimeMs() {
     return _resizeTimeMs;
   }
@@ -18,11 +18,15 @@
  */
 package org.apache.pinot.core.operator.combine;
 
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import org.apache.pinot.core.common.Operator;
 import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.SegmentMorselOperator;
 import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
 import org.apache.pinot.segment.spi.MutableSegment;
+import org.apache.pinot.segment.spi.SegmentContext;
 
 
 @SuppressWarnings("rawtypes")
@@ -35,8 +39,10 @@ public class CombineOperatorUtils {
    */
   public static void setExecutionStatistics(BaseResultsBlock resultsBlock, List<Operator> operators,
       long threadCpuTimeNs, int numServerThreads) {
-    int numSegmentsProcessed = operators.size();
+    int numSegmentsProcessed = 0;
     int numSegmentsMatched = 0;
+    // Morsels of the same segment are counted as a single segment, which is matched if any of its morsels matches
+    Map<SegmentContext, Boolean> morselSegmentsMatched = null;
     int numConsumingSegmentsProcessed = 0;
     int numConsumingSegmentsMatched = 0;
     long numDocsScanned = 0;
@@ -45,8 +51,17 @@ public class CombineOperatorUtils {
     long numTotalDocs = 0;
     for (Operator operator : operators) {
       ExecutionStatistics executionStatistics = operator.getExecutionStatistics();
-      if (executionStatistics.getNumDocsScanned() > 0) {
-        numSegmentsMatched++;
+      if (operator instanceof SegmentMorselOperator) {
+        if (morselSegmentsMatched == null) {
+          morselSegmentsMatched = new IdentityHashMap<>();
+        }
+        morselSegmentsMatched.merge(((SegmentMorselOperator) operator).getSegmentContext(),
+            executionStatistics.getNumDocsScanned() > 0, Boolean::logicalOr);
+      } else {
+        numSegmentsProcessed++;
+        if (executionStatistics.getNumDocsScanned() > 0) {
+          numSegmentsMatched++;
+        }
       }
 
       // TODO: Check all operators and properly implement the getIndexSegment.
@@ -62,6 +77,14 @@ public class CombineOperatorUtils {
       numEntriesScannedPostFilter += executionStatistics.getNumEntriesScannedPostFilter();
       numTotalDocs += executionStatistics.getNumTotalDocs();
     }
+    if (morselSegmentsMatched != null) {
+      numSegmentsProcessed += morselSegmentsMatched.size();
+      for (boolean matched : morselSegmentsMatched.values()) {
+        if (matched) {
+          numSegmentsMatched++;
+        }
+      }
+    }
     resultsBlock.setNumSegmentsProcessed(numSegmentsProcessed);
     resultsBlock.setNumSegmentsMatched(numSegmentsMatched);
     resultsBlock.setNumConsumingSegmentsProcessed(numConsumingSegmentsProcessed);
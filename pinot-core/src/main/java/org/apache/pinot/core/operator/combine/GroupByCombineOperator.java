@@ -20,8 +20,11 @@ package org.apache.pinot.core.operator.combine;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -29,20 +32,26 @@ import java.util.concurrent.TimeoutException;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.core.common.Operator;
 import org.apache.pinot.core.data.table.ConcurrentIndexedTable;
+import org.apache.pinot.core.data.table.DictIdGroupByTable;
 import org.apache.pinot.core.data.table.IndexedTable;
 import org.apache.pinot.core.data.table.IntermediateRecord;
 import org.apache.pinot.core.data.table.Key;
+import org.apache.pinot.core.data.table.LongKeyIndexedTable;
 import org.apache.pinot.core.data.table.Record;
 import org.apache.pinot.core.data.table.UnboundedConcurrentIndexedTable;
 import org.apache.pinot.core.operator.AcquireReleaseColumnsSegmentOperator;
+import org.apache.pinot.core.operator.SegmentMorselOperator;
 import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
 import org.apache.pinot.core.operator.blocks.results.ExceptionResultsBlock;
 import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
 import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import org.apache.pinot.core.query.aggregation.groupby.DictionaryBasedGroupKeyGenerator;
 import org.apache.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.core.util.GroupByUtils;
+import org.apache.pinot.core.util.QueryMemoryBudget;
+import org.apache.pinot.segment.spi.SegmentContext;
 import org.apache.pinot.spi.trace.Tracing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,17 +69,22 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
   private static final Logger LOGGER = LoggerFactory.getLogger(GroupByCombineOperator.class);
   private static final String EXPLAIN_NAME = "COMBINE_GROUP_BY";
 
-  private final int _trimSize;
-  private final int _trimThreshold;
-  private final int _numAggregationFunctions;
-  private final int _numGroupByExpressions;
-  private final int _numColumns;
+  protected final int _trimSize;
+  protected final int _trimThreshold;
+  protected final int _numAggregationFunctions;
+  protected final int _numGroupByExpressions;
+  protected final int _numColumns;
   // We use a CountDownLatch to track if all Futures are finished by the query timeout, and cancel the unfinished
   // _futures (try to interrupt the execution if it already started).
-  private final CountDownLatch _operatorLatch;
+  protected final CountDownLatch _operatorLatch;
+
+  // Number of morsels for each segment split into morsels
+  protected final Map<SegmentContext, Integer> _numMorselsMap;
+  // Results of the morsels of each segment merged by the dictionary ids of the group-by columns
+  protected final Map<SegmentContext, DictIdGroupByTable> _dictIdGroupByTables = new ConcurrentHashMap<>();
 
   private volatile IndexedTable _indexedTable;
-  private volatile boolean _numGroupsLimitReached;
+  protected volatile boolean _numGroupsLimitReached;
 
   public GroupByCombineOperator(List<Operator> operators, QueryContext queryContext, ExecutorService executorService) {
     super(null, operators, overrideMaxExecutionThreads(queryContext, operators.size()), executorService);
@@ -100,6 +114,13 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
     _numGroupByExpressions = _queryContext.getGroupByExpressions().size();
     _numColumns = _numGroupByExpressions + _numAggregationFunctions;
     _operatorLatch = new CountDownLatch(_numTasks);
+
+    _numMorselsMap = new HashMap<>();
+    for (Operator operator : operators) {
+      if (operator instanceof SegmentMorselOperator) {
+        _numMorselsMap.merge(((SegmentMorselOperator) operator).getSegmentContext(), 1, Integer::sum);
+      }
+    }
   }
 
   /**
@@ -136,7 +157,11 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
             if (_indexedTable == null) {
               DataSchema dataSchema = resultsBlock.getDataSchema();
               // NOTE: Use trimSize as resultSize on server size.
-              if (_trimThreshold >= MAX_TRIM_THRESHOLD) {
+              if (_numTasks == 1 && LongKeyIndexedTable.isSupported(dataSchema, _queryContext)) {
+                // Single worker thread, so the table does not need to be thread-safe
+                _indexedTable =
+                    new LongKeyIndexedTable(dataSchema, _queryContext, _trimSize, _trimSize, _trimThreshold);
+              } else if (_trimThreshold >= MAX_TRIM_THRESHOLD) {
                 // special case of trim threshold where it is set to max value.
                 // there won't be any trimming during upsert in this case.
                 // thus we can avoid the overhead of read-lock and write-lock
@@ -164,18 +189,26 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
         if (intermediateRecords == null) {
           // Merge aggregation group-by result.
           AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
-          if (aggregationGroupByResult != null) {
+          if (aggregationGroupByResult != null && !mergeByDictIds(operator, aggregationGroupByResult)) {
             // Iterate over the group-by keys, for each key, update the group-by result in the indexedTable
             Iterator<GroupKeyGenerator.GroupKey> dicGroupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
+            // LongKeyIndexedTable does not keep the upserted values, so the same values can be reused for all the keys
+            LongKeyIndexedTable longKeyIndexedTable =
+                _indexedTable instanceof LongKeyIndexedTable ? (LongKeyIndexedTable) _indexedTable : null;
+            Object[] reusedValues = longKeyIndexedTable != null ? new Object[_numColumns] : null;
             while (dicGroupKeyIterator.hasNext()) {
               GroupKeyGenerator.GroupKey groupKey = dicGroupKeyIterator.next();
               Object[] keys = groupKey._keys;
-              Object[] values = Arrays.copyOf(keys, _numColumns);
+              Object[] values = reusedValues != null ? reusedValues : Arrays.copyOf(keys, _numColumns);
               int groupId = groupKey._groupId;
               for (int i = 0; i < _numAggregationFunctions; i++) {
                 values[_numGroupByExpressions + i] = aggregationGroupByResult.getResultForGroupId(i, groupId);
               }
-              _indexedTable.upsert(new Key(keys), new Record(values));
+              if (longKeyIndexedTable != null) {
+                longKeyIndexedTable.upsert(((Number) keys[0]).longValue(), values);
+              } else {
+                _indexedTable.upsert(new Key(keys), new Record(values));
+              }
               Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(mergedKeys);
               mergedKeys++;
             }
@@ -188,6 +221,9 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
             mergedKeys++;
           }
         }
+
+        // The segment level results are merged into the indexed table, release the memory reserved for them
+        releaseReservedMemory(resultsBlock);
       } finally {
         if (operator instanceof AcquireReleaseColumnsSegmentOperator) {
           ((AcquireReleaseColumnsSegmentOperator) operator).release();
@@ -196,6 +232,45 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
     }
   }
 
+  /**
+   * Releases the memory reserved from the query memory budget for the segment level results, once they are merged.
+   */
+  protected void releaseReservedMemory(GroupByResultsBlock resultsBlock) {
+    QueryMemoryBudget memoryBudget = _queryContext.getMemoryBudget();
+    if (memoryBudget != null) {
+      memoryBudget.release(resultsBlock.getReservedMemoryBytes());
+    }
+  }
+
+  /**
+   * Merges the results of a morsel by the dictionary ids of the group-by columns when possible. The morsels of the same
+   * segment share the dictionaries, so their results can be merged without decoding the group key values. The values
+   * are decoded only once per group after all the morsels of the segment are merged. Returns {@code false} if the
+   * results should be merged into the indexed table directly.
+   */
+  private boolean mergeByDictIds(Operator operator, AggregationGroupByResult aggregationGroupByResult) {
+    if (!(operator instanceof SegmentMorselOperator)) {
+      return false;
+    }
+    GroupKeyGenerator groupKeyGenerator = aggregationGroupByResult.getGroupKeyGenerator();
+    if (!(groupKeyGenerator instanceof DictionaryBasedGroupKeyGenerator)
+        || !((DictionaryBasedGroupKeyGenerator) groupKeyGenerator).hasLongRawKeys()) {
+      return false;
+    }
+    DictionaryBasedGroupKeyGenerator dictionaryBasedGroupKeyGenerator =
+        (DictionaryBasedGroupKeyGenerator) groupKeyGenerator;
+    SegmentContext segmentContext = ((SegmentMorselOperator) operator).getSegmentContext();
+    DictIdGroupByTable dictIdGroupByTable = _dictIdGroupByTables.computeIfAbsent(segmentContext,
+        k -> new DictIdGroupByTable(_queryContext.getAggregationFunctions(), dictionaryBasedGroupKeyGenerator,
+            _numMorselsMap.get(k)));
+    if (dictIdGroupByTable.merge(dictionaryBasedGroupKeyGenerator, aggregationGroupByResult)) {
+      // All the morsels of the segment are merged
+      _dictIdGroupByTables.remove(segmentContext);
+      dictIdGroupByTable.upsertInto(_indexedTable);
+    }
+    return true;
+  }
+
   @Override
   public void onProcessSegmentsException(Throwable t) {
     _processingException.compareAndSet(null, t);
@@ -239,6 +314,11 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
     }
 
     IndexedTable indexedTable = _indexedTable;
+    // Some morsels of a segment might have been merged into the indexed table directly (e.g. when trimmed in the
+    // segment), so upsert the remaining results merged by dictionary ids
+    for (DictIdGroupByTable dictIdGroupByTable : _dictIdGroupByTables.values()) {
+      dictIdGroupByTable.upsertInto(indexedTable);
+    }
     if (_queryContext.isServerReturnFinalResult()) {
       indexedTable.finish(true, true);
     } else if (_queryContext.isServerReturnFinalResultKeyUnpartitioned()) {
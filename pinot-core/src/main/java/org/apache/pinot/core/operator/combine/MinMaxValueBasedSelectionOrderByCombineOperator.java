@@ -37,6 +37,7 @@ import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
 import org.apache.pinot.core.operator.blocks.results.ExceptionResultsBlock;
 import org.apache.pinot.core.operator.blocks.results.MetadataResultsBlock;
 import org.apache.pinot.core.operator.blocks.results.SelectionResultsBlock;
+import org.apache.pinot.core.operator.query.SelectionOrderByOperator;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.core.query.selection.SelectionOperatorUtils;
 import org.apache.pinot.segment.spi.datasource.DataSourceMetadata;
@@ -255,6 +256,9 @@ public class MinMaxValueBasedSelectionOrderByCombineOperator
    *   <li>
    *     Set all exceptions encountered during execution into the merged result block
    *   </li>
+   *   <li>
+   *     Fetches the non-order-by values of the merged rows when the selection materialization is deferred
+   *   </li>
    * </ul>
    */
   @Override
@@ -295,6 +299,9 @@ public class MinMaxValueBasedSelectionOrderByCombineOperator
         _globalBoundaryValue.set((Comparable) rows.get(_numRowsToKeep - 1)[0]);
       }
     }
+    if (mergedBlock != null) {
+      SelectionOrderByOperator.materializeDeferredRows(mergedBlock);
+    }
     return mergedBlock;
   }
 
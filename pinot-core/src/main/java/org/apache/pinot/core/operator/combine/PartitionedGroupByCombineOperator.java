@@ -0,0 +1,332 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.combine;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.data.table.IndexedTable;
+import org.apache.pinot.core.data.table.IntermediateRecord;
+import org.apache.pinot.core.data.table.Key;
+import org.apache.pinot.core.data.table.LongKeyIndexedTable;
+import org.apache.pinot.core.data.table.Record;
+import org.apache.pinot.core.data.table.SimpleIndexedTable;
+import org.apache.pinot.core.operator.AcquireReleaseColumnsSegmentOperator;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.ExceptionResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
+import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import org.apache.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.util.trace.TraceRunnable;
+import org.apache.pinot.spi.accounting.ThreadExecutionContext;
+import org.apache.pinot.spi.accounting.ThreadResourceUsageProvider;
+import org.apache.pinot.spi.trace.Tracing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Combine operator for group-by queries that avoids sharing a concurrent indexed table among the worker threads.
+ * <ul>
+ *   <li>
+ *     Each worker thread hash-partitions the groups from its segments into thread-local {@link SimpleIndexedTable}s
+ *     ({@link LongKeyIndexedTable}s for a single INT or LONG group key), one per partition, which are trimmed
+ *     independently.
+ *   </li>
+ *   <li>
+ *     Once all the segments are processed, the tables of the same partition are merged and trimmed in parallel. The
+ *     partitions have disjoint keys, so each one is merged by a single thread without any lock.
+ *   </li>
+ *   <li>
+ *     The trimmed partitions are finally concatenated into the table of the results block.
+ *   </li>
+ * </ul>
+ * Only used for GROUP BY with ORDER BY when the {@code usePartitionedGroupByCombine} query option is enabled.
+ */
+@SuppressWarnings("rawtypes")
+public class PartitionedGroupByCombineOperator extends GroupByCombineOperator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PartitionedGroupByCombineOperator.class);
+  private static final String EXPLAIN_NAME = "COMBINE_GROUP_BY_PARTITIONED";
+  private static final int MAX_NUM_PARTITIONS = 128;
+
+  private final int _numPartitions;
+  private final int _partitionShift;
+  // Thread-local tables of each worker thread, indexed by worker id and partition id
+  private final IndexedTable[][] _localTables;
+  private final AtomicInteger _nextWorkerId = new AtomicInteger();
+  // Resizes done on the tables merged into other tables
+  private final AtomicInteger _numResizes = new AtomicInteger();
+  private final AtomicLong _resizeTimeMs = new AtomicLong();
+
+  private volatile DataSchema _dataSchema;
+
+  public PartitionedGroupByCombineOperator(List<Operator> operators, QueryContext queryContext,
+      ExecutorService executorService) {
+    super(operators, queryContext, executorService);
+    // Use more partitions than worker threads to balance the parallel merge
+    _numPartitions = Math.min(Integer.highestOneBit(Math.max(_numTasks, 1) * 4 - 1), MAX_NUM_PARTITIONS);
+    _partitionShift = Integer.SIZE - Integer.numberOfTrailingZeros(_numPartitions);
+    _localTables = new IndexedTable[_numTasks][];
+  }
+
+  @Override
+  public String toExplainString() {
+    return EXPLAIN_NAME;
+  }
+
+  /**
+   * Executes query on the segments in a worker thread and merges the results into the thread-local tables.
+   */
+  @Override
+  protected void processSegments() {
+    IndexedTable[] localTables = new IndexedTable[_numPartitions];
+    _localTables[_nextWorkerId.getAndIncrement()] = localTables;
+    int operatorId;
+    while (_processingException.get() == null && (operatorId = _nextOperatorId.getAndIncrement()) < _numOperators) {
+      Operator operator = _operators.get(operatorId);
+      try {
+        if (operator instanceof AcquireReleaseColumnsSegmentOperator) {
+          ((AcquireReleaseColumnsSegmentOperator) operator).acquire();
+        }
+        GroupByResultsBlock resultsBlock = (GroupByResultsBlock) operator.nextBlock();
+        if (_dataSchema == null) {
+          _dataSchema = resultsBlock.getDataSchema();
+        }
+
+        // Set groups limit reached flag.
+        if (resultsBlock.isNumGroupsLimitReached()) {
+          _numGroupsLimitReached = true;
+        }
+
+        Collection<IntermediateRecord> intermediateRecords = resultsBlock.getIntermediateRecords();
+        int mergedKeys = 0;
+        if (intermediateRecords == null) {
+          AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
+          if (aggregationGroupByResult != null) {
+            Iterator<GroupKeyGenerator.GroupKey> dicGroupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
+            while (dicGroupKeyIterator.hasNext()) {
+              GroupKeyGenerator.GroupKey groupKey = dicGroupKeyIterator.next();
+              Object[] keys = groupKey._keys;
+              Object[] values = Arrays.copyOf(keys, _numColumns);
+              int groupId = groupKey._groupId;
+              for (int i = 0; i < _numAggregationFunctions; i++) {
+                values[_numGroupByExpressions + i] = aggregationGroupByResult.getResultForGroupId(i, groupId);
+              }
+              upsert(localTables, resultsBlock.getDataSchema(), new Key(keys), new Record(values));
+              Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(mergedKeys);
+              mergedKeys++;
+            }
+          }
+        } else {
+          for (IntermediateRecord intermediateResult : intermediateRecords) {
+            upsert(localTables, resultsBlock.getDataSchema(), intermediateResult._key, intermediateResult._record);
+            Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(mergedKeys);
+            mergedKeys++;
+          }
+        }
+
+        // The segment level results are merged into the local tables, release the memory reserved for them
+        releaseReservedMemory(resultsBlock);
+      } finally {
+        if (operator instanceof AcquireReleaseColumnsSegmentOperator) {
+          ((AcquireReleaseColumnsSegmentOperator) operator).release();
+        }
+      }
+    }
+  }
+
+  private void upsert(IndexedTable[] localTables, DataSchema dataSchema, Key key, Record record) {
+    int partitionId = getPartitionId(key);
+    IndexedTable localTable = localTables[partitionId];
+    if (localTable == null) {
+      localTable = createTable(dataSchema);
+      localTables[partitionId] = localTable;
+    }
+    localTable.upsert(key, record);
+  }
+
+  /**
+   * Uses the high bits of the scrambled hash code as the partition id, so that the keys within a partition are still
+   * evenly distributed across the buckets of the hash map, which are picked by the low bits.
+   */
+  private int getPartitionId(Key key) {
+    return _numPartitions == 1 ? 0 : (key.hashCode() * 0x9E3779B9) >>> _partitionShift;
+  }
+
+  private IndexedTable createTable(DataSchema dataSchema) {
+    // NOTE: Use trimSize as resultSize on server size.
+    if (LongKeyIndexedTable.isSupported(dataSchema, _queryContext)) {
+      return new LongKeyIndexedTable(dataSchema, _queryContext, _trimSize, _trimSize, _trimThreshold);
+    }
+    return new SimpleIndexedTable(dataSchema, _queryContext, _trimSize, _trimSize, _trimThreshold);
+  }
+
+  @Override
+  public BaseResultsBlock mergeResults()
+      throws Exception {
+    long timeoutMs = _queryContext.getEndTimeMs() - System.currentTimeMillis();
+    boolean opCompleted = _operatorLatch.await(timeoutMs, TimeUnit.MILLISECONDS);
+    if (!opCompleted) {
+      // If this happens, the broker side should already timed out, just log the error and return
+      String errorMessage =
+          String.format("Timed out while combining group-by order-by results after %dms, queryContext = %s", timeoutMs,
+              _queryContext);
+      LOGGER.error(errorMessage);
+      return new ExceptionResultsBlock(new TimeoutException(errorMessage));
+    }
+
+    Throwable processingException = _processingException.get();
+    if (processingException != null) {
+      return new ExceptionResultsBlock(processingException);
+    }
+
+    // Merge and trim the partitions in parallel. The main thread also merges partitions so that the merge can make
+    // progress even if the executor is saturated.
+    IndexedTable[] partitionTables = new IndexedTable[_numPartitions];
+    AtomicInteger nextPartitionId = new AtomicInteger();
+    // NOTE: Track the merged partitions instead of the merge tasks because FutureTask.cancel() also succeeds on the
+    //       running tasks, which might still be merging a partition
+    CountDownLatch mergedPartitionsLatch = new CountDownLatch(_numPartitions);
+    AtomicReference<Throwable> mergeException = new AtomicReference<>();
+    int numMergeTasks = Math.min(_numTasks, _numPartitions) - 1;
+    Future[] futures = new Future[numMergeTasks];
+    ThreadExecutionContext parentContext = Tracing.getThreadAccountant().getThreadExecutionContext();
+    for (int i = 0; i < numMergeTasks; i++) {
+      int taskId = i;
+      futures[i] = _executorService.submit(new TraceRunnable() {
+        @Override
+        public void runJob() {
+          Tracing.ThreadAccountantOps.setupWorker(taskId, new ThreadResourceUsageProvider(), parentContext);
+          try {
+            mergePartitions(partitionTables, nextPartitionId, mergedPartitionsLatch, mergeException);
+          } catch (Throwable t) {
+            mergeException.compareAndSet(null, t);
+          } finally {
+            Tracing.ThreadAccountantOps.clear();
+          }
+        }
+      });
+    }
+    try {
+      mergePartitions(partitionTables, nextPartitionId, mergedPartitionsLatch, mergeException);
+      timeoutMs = _queryContext.getEndTimeMs() - System.currentTimeMillis();
+      if (!mergedPartitionsLatch.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+        String errorMessage =
+            String.format("Timed out while merging group-by partitions after %dms, queryContext = %s", timeoutMs,
+                _queryContext);
+        LOGGER.error(errorMessage);
+        return new ExceptionResultsBlock(new TimeoutException(errorMessage));
+      }
+    } finally {
+      // Tasks not started yet have nothing left to merge, and the running tasks are interrupted on timeout
+      for (Future future : futures) {
+        if (!future.isDone()) {
+          future.cancel(true);
+        }
+      }
+    }
+    if (mergeException.get() != null) {
+      return new ExceptionResultsBlock(mergeException.get());
+    }
+
+    IndexedTable indexedTable = null;
+    for (IndexedTable partitionTable : partitionTables) {
+      if (partitionTable == null) {
+        continue;
+      }
+      if (indexedTable == null) {
+        indexedTable = partitionTable;
+      } else {
+        merge(indexedTable, partitionTable);
+      }
+    }
+    if (indexedTable == null) {
+      // All the segments are pruned or have no group
+      indexedTable = createTable(_dataSchema);
+    }
+    if (_queryContext.isServerReturnFinalResult()) {
+      indexedTable.finish(true, true);
+    } else if (_queryContext.isServerReturnFinalResultKeyUnpartitioned()) {
+      indexedTable.finish(false, true);
+    } else {
+      indexedTable.finish(false);
+    }
+    GroupByResultsBlock mergedBlock = new GroupByResultsBlock(indexedTable, _queryContext);
+    mergedBlock.setNumGroupsLimitReached(_numGroupsLimitReached);
+    mergedBlock.setNumResizes(_numResizes.get() + indexedTable.getNumResizes());
+    mergedBlock.setResizeTimeMs(_resizeTimeMs.get() + indexedTable.getResizeTimeMs());
+    return mergedBlock;
+  }
+
+  /**
+   * Merges and trims the partitions until all of them are claimed. Each claimed partition is counted down on the latch
+   * even when the merge fails, in which case the remaining partitions are skipped.
+   */
+  private void mergePartitions(IndexedTable[] partitionTables, AtomicInteger nextPartitionId,
+      CountDownLatch mergedPartitionsLatch, AtomicReference<Throwable> mergeException) {
+    int partitionId;
+    while ((partitionId = nextPartitionId.getAndIncrement()) < _numPartitions) {
+      try {
+        if (mergeException.get() != null) {
+          continue;
+        }
+        IndexedTable partitionTable = null;
+        for (IndexedTable[] localTables : _localTables) {
+          if (localTables == null || localTables[partitionId] == null) {
+            continue;
+          }
+          if (partitionTable == null) {
+            partitionTable = localTables[partitionId];
+          } else {
+            merge(partitionTable, localTables[partitionId]);
+          }
+        }
+        if (partitionTable != null) {
+          partitionTable.trim();
+          partitionTables[partitionId] = partitionTable;
+        }
+      } catch (Throwable t) {
+        mergeException.compareAndSet(null, t);
+      } finally {
+        mergedPartitionsLatch.countDown();
+      }
+    }
+  }
+
+  /**
+   * Merges the source table into the target table, and keeps track of the resizes done on the source table.
+   */
+  private void merge(IndexedTable targetTable, IndexedTable sourceTable) {
+    _numResizes.addAndGet(sourceTable.getNumResizes());
+    _resizeTimeMs.addAndGet(sourceTable.getResizeTimeMs());
+    targetTable.merge(sourceTable);
+  }
+}
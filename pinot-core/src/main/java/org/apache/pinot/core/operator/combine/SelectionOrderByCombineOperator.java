@@ -21,8 +21,10 @@ package org.apache.pinot.core.operator.combine;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
 import org.apache.pinot.core.operator.blocks.results.SelectionResultsBlock;
 import org.apache.pinot.core.operator.combine.merger.SelectionOrderByResultsBlockMerger;
+import org.apache.pinot.core.operator.query.SelectionOrderByOperator;
 import org.apache.pinot.core.query.request.context.QueryContext;
 
 /**
@@ -31,6 +33,8 @@ import org.apache.pinot.core.query.request.context.QueryContext;
  * {@link org.apache.pinot.core.operator.combine.MinMaxValueBasedSelectionOrderByCombineOperator} first, which will
  * skip processing some segments based on the column min/max value. Otherwise fall back to the default combine
  * (process all segments).
+ * <p>When {@link QueryContext#isDeferSelectionMaterialization()} is enabled, the non-order-by values of the merged rows
+ * are fetched after the merge.
  */
 @SuppressWarnings("rawtypes")
 public class SelectionOrderByCombineOperator extends BaseSingleBlockCombineOperator<SelectionResultsBlock> {
@@ -41,6 +45,16 @@ public class SelectionOrderByCombineOperator extends BaseSingleBlockCombineOpera
     super(new SelectionOrderByResultsBlockMerger(queryContext), operators, queryContext, executorService);
   }
 
+  @Override
+  protected BaseResultsBlock mergeResults()
+      throws Exception {
+    BaseResultsBlock mergedBlock = super.mergeResults();
+    if (mergedBlock instanceof SelectionResultsBlock) {
+      SelectionOrderByOperator.materializeDeferredRows((SelectionResultsBlock) mergedBlock);
+    }
+    return mergedBlock;
+  }
+
   @Override
   public String toExplainString() {
     return EXPLAIN_NAME;
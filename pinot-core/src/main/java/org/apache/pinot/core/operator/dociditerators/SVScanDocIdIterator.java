@@ -19,7 +19,9 @@
 package org.apache.pinot.core.operator.dociditerators;
 
 import java.util.OptionalInt;
+import javax.annotation.Nullable;
 import org.apache.pinot.core.common.BlockDocIdIterator;
+import org.apache.pinot.core.operator.filter.FilterSelectivityStats;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import org.apache.pinot.segment.spi.Constants;
 import org.apache.pinot.segment.spi.datasource.DataSource;
@@ -50,8 +52,17 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
 
   private int _nextDocId = 0;
   private long _numEntriesScanned = 0L;
+  private long _numEntriesMatched = 0L;
+  // Records the observed selectivity once the scan is done, null when not tracked
+  private FilterSelectivityStats.Recorder _selectivityRecorder;
 
   public SVScanDocIdIterator(PredicateEvaluator predicateEvaluator, DataSource dataSource, int numDocs, int batchSize) {
+    this(predicateEvaluator, dataSource, numDocs, batchSize, null);
+  }
+
+  public SVScanDocIdIterator(PredicateEvaluator predicateEvaluator, DataSource dataSource, int numDocs, int batchSize,
+      @Nullable FilterSelectivityStats.Recorder selectivityRecorder) {
+    _selectivityRecorder = selectivityRecorder;
     _batch = new int[batchSize];
     _predicateEvaluator = predicateEvaluator;
     _reader = dataSource.getForwardIndex();
@@ -86,11 +97,13 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
           batchSize = _valueMatcher.matchValues(limit, _batch);
           _nextDocId += limit;
           _numEntriesScanned += limit;
+          _numEntriesMatched += batchSize;
         }
       } while (limit > 0 & batchSize == 0);
       _firstMismatch = batchSize;
       _cursor = 0;
       if (_firstMismatch == 0) {
+        recordSelectivity();
         return Constants.EOF;
       }
     }
@@ -105,9 +118,11 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
       int nextDocId = _nextDocId++;
       _numEntriesScanned++;
       if (_valueMatcher.doesValueMatch(nextDocId)) {
+        _numEntriesMatched++;
         return nextDocId;
       }
     }
+    recordSelectivity();
     return Constants.EOF;
   }
 
@@ -135,14 +150,26 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
         for (int i = 0; i < firstMismatch; i++) {
           result.add(buffer[i]);
         }
+        _numEntriesMatched += firstMismatch;
       }
       _numEntriesScanned += limit;
     }
+    recordSelectivity();
     return result.get();
   }
 
+  private void recordSelectivity() {
+    if (_selectivityRecorder != null) {
+      _selectivityRecorder.record(_numEntriesScanned, _numEntriesMatched);
+      _selectivityRecorder = null;
+    }
+  }
+
   @Override
   public long getNumEntriesScanned() {
+    // The iteration might not reach the end (e.g. within an AND or with early termination), record the docs evaluated
+    // so far since this method is called after the iteration is done
+    recordSelectivity();
     return _numEntriesScanned;
   }
 
@@ -21,9 +21,11 @@ package org.apache.pinot.core.operator.filter;
 import java.util.Arrays;
 import javax.annotation.Nullable;
 import org.apache.pinot.core.common.BlockDocIdSet;
+import org.apache.pinot.core.operator.ExplainAttributeBuilder;
 import org.apache.pinot.core.operator.docidsets.AndDocIdSet;
 import org.apache.pinot.core.operator.docidsets.BitmapDocIdSet;
 import org.apache.pinot.core.operator.docidsets.EmptyDocIdSet;
+import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.segment.spi.datasource.DataSource;
 import org.apache.pinot.segment.spi.index.reader.NullValueVectorReader;
@@ -33,6 +35,8 @@ import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 public abstract class BaseColumnFilterOperator extends BaseFilterOperator {
   protected final QueryContext _queryContext;
   protected final DataSource _dataSource;
+  // Selectivity of the predicate observed by the previous queries, set when adaptive filter reordering is enabled
+  protected double _observedSelectivity = Double.NaN;
 
   protected BaseColumnFilterOperator(QueryContext queryContext, DataSource dataSource, int numDocs) {
     super(numDocs, queryContext.isNullHandlingEnabled());
@@ -40,6 +44,65 @@ public abstract class BaseColumnFilterOperator extends BaseFilterOperator {
     _dataSource = dataSource;
   }
 
+  /**
+   * Returns the predicate evaluator of the operator, or {@code null} if the operator does not evaluate the predicate
+   * with a {@link PredicateEvaluator}.
+   */
+  @Nullable
+  public PredicateEvaluator getPredicateEvaluator() {
+    return null;
+  }
+
+  /**
+   * Returns the selectivity of the predicate observed by the previous queries, or {@code NaN} if unknown.
+   */
+  public double getObservedSelectivity() {
+    return _observedSelectivity;
+  }
+
+  public void setObservedSelectivity(double observedSelectivity) {
+    _observedSelectivity = observedSelectivity;
+  }
+
+  /**
+   * Returns the recorder of the selectivity observed when evaluating the predicate, or {@code null} if adaptive filter
+   * reordering is not enabled.
+   */
+  @Nullable
+  protected FilterSelectivityStats.Recorder getSelectivityRecorder(PredicateEvaluator predicateEvaluator) {
+    FilterSelectivityStats filterSelectivityStats = _queryContext.getFilterSelectivityStats();
+    return filterSelectivityStats != null ? new FilterSelectivityStats.Recorder(filterSelectivityStats,
+        FilterSelectivityStats.getKey(_queryContext.getTableName(), predicateEvaluator)) : null;
+  }
+
+  /**
+   * Records the selectivity of an index based evaluation matching the given doc ids.
+   */
+  protected void recordSelectivity(PredicateEvaluator predicateEvaluator, @Nullable ImmutableRoaringBitmap docIds) {
+    FilterSelectivityStats.Recorder recorder = getSelectivityRecorder(predicateEvaluator);
+    if (recorder != null) {
+      recorder.record(_numDocs, docIds != null ? docIds.getCardinality() : 0);
+    }
+  }
+
+  protected void appendObservedSelectivity(StringBuilder stringBuilder) {
+    if (!Double.isNaN(_observedSelectivity)) {
+      stringBuilder.append(",observedSelectivity:").append(formatSelectivity(_observedSelectivity));
+    }
+  }
+
+  @Override
+  protected void explainAttributes(ExplainAttributeBuilder attributeBuilder) {
+    super.explainAttributes(attributeBuilder);
+    if (!Double.isNaN(_observedSelectivity)) {
+      attributeBuilder.putString("observedSelectivity", formatSelectivity(_observedSelectivity));
+    }
+  }
+
+  private static String formatSelectivity(double selectivity) {
+    return Double.toString(Math.round(selectivity * 10_000) / 10_000.0);
+  }
+
   protected abstract BlockDocIdSet getNextBlockWithoutNullHandling();
 
   @Override
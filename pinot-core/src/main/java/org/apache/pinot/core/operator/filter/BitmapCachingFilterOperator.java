@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter;
+
+import java.util.Collections;
+import java.util.List;
+import org.apache.pinot.core.common.BlockDocIdIterator;
+import org.apache.pinot.core.common.BlockDocIdSet;
+import org.apache.pinot.core.common.ExplainPlanRows;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.dociditerators.BitmapBasedDocIdIterator;
+import org.apache.pinot.core.operator.dociditerators.BitmapDocIdIterator;
+import org.apache.pinot.core.operator.dociditerators.SortedDocIdIterator;
+import org.apache.pinot.core.plan.ExplainInfo;
+import org.apache.pinot.core.query.cache.FilterBitmapCache;
+import org.apache.pinot.segment.spi.Constants;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.spi.utils.Pairs.IntPair;
+import org.roaringbitmap.RoaringBitmapWriter;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * The {@code BitmapCachingFilterOperator} wraps a leaf filter operator whose result is not in the
+ * {@link FilterBitmapCache}. It materializes the matching doc ids of the wrapped operator into a bitmap and caches it,
+ * so that the following queries with the same predicate on the segment can use a {@link BitmapBasedFilterOperator}.
+ * <p>The operator is transparent in the query plan and in the AND reordering, where it takes the priority of the
+ * wrapped operator.
+ */
+public class BitmapCachingFilterOperator extends BaseFilterOperator {
+  private final BaseFilterOperator _filterOperator;
+  private final FilterBitmapCache _filterBitmapCache;
+  private final IndexSegment _indexSegment;
+  private final String _cacheKey;
+
+  public BitmapCachingFilterOperator(BaseFilterOperator filterOperator, FilterBitmapCache filterBitmapCache,
+      IndexSegment indexSegment, String cacheKey, int numDocs) {
+    super(numDocs, false);
+    _filterOperator = filterOperator;
+    _filterBitmapCache = filterBitmapCache;
+    _indexSegment = indexSegment;
+    _cacheKey = cacheKey;
+  }
+
+  public BaseFilterOperator getFilterOperator() {
+    return _filterOperator;
+  }
+
+  @Override
+  protected BlockDocIdSet getTrues() {
+    BlockDocIdSet docIdSet = _filterOperator.nextBlock().getBlockDocIdSet();
+    ImmutableRoaringBitmap docIds = materialize(docIdSet.iterator());
+    _filterBitmapCache.put(_indexSegment, _cacheKey, docIds);
+    return new MaterializedDocIdSet(new BitmapDocIdIterator(docIds, _numDocs), docIdSet);
+  }
+
+  private static ImmutableRoaringBitmap materialize(BlockDocIdIterator docIdIterator) {
+    if (docIdIterator instanceof BitmapBasedDocIdIterator) {
+      return ((BitmapBasedDocIdIterator) docIdIterator).getDocIds();
+    }
+    if (docIdIterator instanceof SortedDocIdIterator) {
+      MutableRoaringBitmap docIds = new MutableRoaringBitmap();
+      for (IntPair docIdRange : ((SortedDocIdIterator) docIdIterator).getDocIdRanges()) {
+        docIds.add(docIdRange.getLeft(), docIdRange.getRight() + 1L);
+      }
+      return docIds;
+    }
+    RoaringBitmapWriter<MutableRoaringBitmap> bitmapWriter = RoaringBitmapWriter.bufferWriter().get();
+    int docId;
+    while ((docId = docIdIterator.next()) != Constants.EOF) {
+      bitmapWriter.add(docId);
+    }
+    return bitmapWriter.get();
+  }
+
+  @Override
+  public boolean canOptimizeCount() {
+    return _filterOperator.canOptimizeCount();
+  }
+
+  @Override
+  public int getNumMatchingDocs() {
+    return _filterOperator.getNumMatchingDocs();
+  }
+
+  @Override
+  public boolean canProduceBitmaps() {
+    return _filterOperator.canProduceBitmaps();
+  }
+
+  @Override
+  public BitmapCollection getBitmaps() {
+    return _filterOperator.getBitmaps();
+  }
+
+  @SuppressWarnings("rawtypes")
+  @Override
+  public List<Operator> getChildOperators() {
+    return Collections.singletonList(_filterOperator);
+  }
+
+  @Override
+  public String toExplainString() {
+    return _filterOperator.toExplainString();
+  }
+
+  @Override
+  public void explainPlan(ExplainPlanRows explainPlanRows, int[] globalId, int parentId) {
+    _filterOperator.explainPlan(explainPlanRows, globalId, parentId);
+  }
+
+  @Override
+  public ExplainInfo getExplainInfo() {
+    return _filterOperator.getExplainInfo();
+  }
+
+  /**
+   * Bitmap based doc id set over the materialized doc ids, which keeps the number of entries scanned by the wrapped
+   * operator.
+   */
+  private static class MaterializedDocIdSet implements BlockDocIdSet {
+    private final BitmapDocIdIterator _iterator;
+    private final BlockDocIdSet _docIdSet;
+
+    MaterializedDocIdSet(BitmapDocIdIterator iterator, BlockDocIdSet docIdSet) {
+      _iterator = iterator;
+      _docIdSet = docIdSet;
+    }
+
+    @Override
+    public BitmapDocIdIterator iterator() {
+      return _iterator;
+    }
+
+    @Override
+    public long getNumEntriesScannedInFilter() {
+      return _docIdSet.getNumEntriesScannedInFilter();
+    }
+  }
+}
@@ -70,6 +70,12 @@ public class FilterOperatorUtils {
   }
 
   public static class DefaultImplementation implements Implementation {
+    // Minimum observed selectivity of a predicate to consider scanning instead of looking up an index within an AND
+    public static final double MIN_SELECTIVITY_TO_SKIP_INDEX = 0.5;
+    // Minimum ratio between the observed selectivity of a predicate and the most selective other child of the AND to
+    // scan instead of looking up an index
+    public static final double MIN_SELECTIVITY_RATIO_TO_SKIP_INDEX = 10;
+
     @Override
     public BaseFilterOperator getLeafFilterOperator(QueryContext queryContext, PredicateEvaluator predicateEvaluator,
         DataSource dataSource, int numDocs) {
@@ -152,6 +158,9 @@ public class FilterOperatorUtils {
         return childFilterOperators.get(0);
       } else {
         // Return the AND filter operator with re-ordered child filter operators
+        if (queryContext.getFilterSelectivityStats() != null) {
+          applyObservedSelectivities(queryContext, childFilterOperators);
+        }
         reorderAndFilterChildOperators(queryContext, childFilterOperators);
         return new AndFilterOperator(childFilterOperators, queryContext.getQueryOptions(), numDocs,
             queryContext.isNullHandlingEnabled());
@@ -196,9 +205,71 @@ public class FilterOperatorUtils {
     }
 
 
+    /**
+     * For AND filter operator, sets the selectivities observed by the previous queries on its child filter operators,
+     * and replaces the inverted/range index lookups matching most of the documents with scans when another child is
+     * much more selective: the scan only evaluates the documents matching the other children, while the index lookup
+     * materializes a large bitmap.
+     */
+    protected void applyObservedSelectivities(QueryContext queryContext, List<BaseFilterOperator> filterOperators) {
+      FilterSelectivityStats filterSelectivityStats = queryContext.getFilterSelectivityStats();
+      assert filterSelectivityStats != null;
+      int numFilterOperators = filterOperators.size();
+      double[] selectivities = new double[numFilterOperators];
+      for (int i = 0; i < numFilterOperators; i++) {
+        selectivities[i] = Double.NaN;
+        BaseFilterOperator filterOperator = filterOperators.get(i);
+        if (filterOperator instanceof BaseColumnFilterOperator) {
+          BaseColumnFilterOperator columnFilterOperator = (BaseColumnFilterOperator) filterOperator;
+          PredicateEvaluator predicateEvaluator = columnFilterOperator.getPredicateEvaluator();
+          if (predicateEvaluator != null) {
+            Double selectivity = filterSelectivityStats.getSelectivity(
+                FilterSelectivityStats.getKey(queryContext.getTableName(), predicateEvaluator));
+            if (selectivity != null) {
+              selectivities[i] = selectivity;
+              columnFilterOperator.setObservedSelectivity(selectivity);
+            }
+          }
+        }
+      }
+      for (int i = 0; i < numFilterOperators; i++) {
+        BaseFilterOperator filterOperator = filterOperators.get(i);
+        String index;
+        if (filterOperator instanceof InvertedIndexFilterOperator) {
+          index = "inverted_index";
+        } else if (filterOperator instanceof RangeIndexBasedFilterOperator) {
+          index = "range_index";
+        } else {
+          continue;
+        }
+        double selectivity = selectivities[i];
+        if (!(selectivity >= MIN_SELECTIVITY_TO_SKIP_INDEX)) {
+          continue;
+        }
+        double minSelectivityOfOthers = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < numFilterOperators; j++) {
+          if (j != i && !Double.isNaN(selectivities[j])) {
+            minSelectivityOfOthers = Math.min(minSelectivityOfOthers, selectivities[j]);
+          }
+        }
+        BaseColumnFilterOperator columnFilterOperator = (BaseColumnFilterOperator) filterOperator;
+        if (minSelectivityOfOthers * MIN_SELECTIVITY_RATIO_TO_SKIP_INDEX <= selectivity
+            && columnFilterOperator._dataSource.getForwardIndex() != null) {
+          PredicateEvaluator predicateEvaluator = columnFilterOperator.getPredicateEvaluator();
+          assert predicateEvaluator != null;
+          ScanBasedFilterOperator scanBasedFilterOperator =
+              new ScanBasedFilterOperator(queryContext, predicateEvaluator, columnFilterOperator._dataSource,
+                  columnFilterOperator._numDocs, index);
+          scanBasedFilterOperator.setObservedSelectivity(selectivity);
+          filterOperators.set(i, scanBasedFilterOperator);
+        }
+      }
+    }
+
     /**
      * For AND filter operator, reorders its child filter operators based on their cost and puts the ones with
-     * inverted index first in order to reduce the number of documents to be processed.
+     * inverted index first in order to reduce the number of documents to be processed. Child filter operators with the
+     * same cost are ordered by their observed selectivity (most selective first) when it is known.
      * <p>Special filter operators such as {@link MatchAllFilterOperator} and {@link EmptyFilterOperator} should be
      * removed from the list before calling this method.
      */
@@ -206,7 +277,19 @@ public class FilterOperatorUtils {
       filterOperators.sort(new Comparator<BaseFilterOperator>() {
         @Override
         public int compare(BaseFilterOperator o1, BaseFilterOperator o2) {
-          return getPriority(o1) - getPriority(o2);
+          int result = getPriority(o1) - getPriority(o2);
+          return result != 0 ? result : Double.compare(getSelectivity(o1), getSelectivity(o2));
+        }
+
+        double getSelectivity(BaseFilterOperator filterOperator) {
+          if (filterOperator instanceof BaseColumnFilterOperator) {
+            double selectivity = ((BaseColumnFilterOperator) filterOperator).getObservedSelectivity();
+            if (!Double.isNaN(selectivity)) {
+              return selectivity;
+            }
+          }
+          // Unknown selectivity, keep the original order
+          return 1;
         }
 
         int getPriority(BaseFilterOperator filterOperator) {
@@ -238,6 +321,9 @@ public class FilterOperatorUtils {
           if (filterOperator instanceof NotFilterOperator) {
             return getPriority(((NotFilterOperator) filterOperator).getChildFilterOperator());
           }
+          if (filterOperator instanceof BitmapCachingFilterOperator) {
+            return getPriority(((BitmapCachingFilterOperator) filterOperator).getFilterOperator());
+          }
           if (filterOperator instanceof ScanBasedFilterOperator) {
             int basePriority = PrioritizedFilterOperator.SCAN_PRIORITY;
             return getScanBasedFilterPriority(queryContext, (ScanBasedFilterOperator) filterOperator, basePriority);
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.common.request.context.predicate.Predicate;
+import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
+
+
+/**
+ * The {@code FilterSelectivityStats} keeps track of the selectivity (fraction of the evaluated docs matching the
+ * predicate) observed at runtime for the leaf predicates, keyed by the table and the shape of the predicate (filtered
+ * expression and predicate type). The observed selectivities are used by the following queries to reorder the children
+ * of the AND filters, and to scan instead of looking up an index for the predicates matching most of the docs when the
+ * AND has a much more selective child.
+ * <p>The selectivity is tracked as an exponential moving average of the observations, so that it follows the changes
+ * of the data and the queries. Scans within an AND only evaluate the docs matching the previous children, so the
+ * observations are conditional selectivities, which is what matters to order the scans. Scans replacing an index
+ * lookup do not record their observations, so that the selectivity used to skip the index is only observed by the
+ * index lookups over all the docs, and does not change because the index was skipped.
+ * <p>The number of tracked predicate shapes is bounded: new shapes are not tracked once the limit is reached.
+ */
+@ThreadSafe
+public class FilterSelectivityStats {
+  public static final int DEFAULT_MAX_NUM_ENTRIES = 10_000;
+  // Weight of the latest observation in the moving average
+  static final double SMOOTHING_FACTOR = 0.3;
+  // Observations on fewer docs are too noisy to be recorded
+  static final long MIN_NUM_DOCS_EVALUATED = 100;
+
+  private final int _maxNumEntries;
+  private final Map<String, Double> _selectivities = new ConcurrentHashMap<>();
+
+  public FilterSelectivityStats() {
+    this(DEFAULT_MAX_NUM_ENTRIES);
+  }
+
+  public FilterSelectivityStats(int maxNumEntries) {
+    _maxNumEntries = maxNumEntries;
+  }
+
+  /**
+   * Returns the key of the predicate shape evaluated by the given predicate evaluator.
+   */
+  public static String getKey(@Nullable String tableName, PredicateEvaluator predicateEvaluator) {
+    Predicate predicate = predicateEvaluator.getPredicate();
+    return tableName + '\0' + predicate.getLhs() + '\0' + predicate.getType();
+  }
+
+  /**
+   * Returns the observed selectivity for the given key, or {@code null} if it has not been observed yet.
+   */
+  @Nullable
+  public Double getSelectivity(String key) {
+    return _selectivities.get(key);
+  }
+
+  public void record(String key, long numDocsEvaluated, long numDocsMatched) {
+    if (numDocsEvaluated < MIN_NUM_DOCS_EVALUATED) {
+      return;
+    }
+    double selectivity = (double) numDocsMatched / numDocsEvaluated;
+    if (_selectivities.size() >= _maxNumEntries && !_selectivities.containsKey(key)) {
+      return;
+    }
+    _selectivities.merge(key, selectivity,
+        (oldValue, newValue) -> oldValue + SMOOTHING_FACTOR * (newValue - oldValue));
+  }
+
+  public int size() {
+    return _selectivities.size();
+  }
+
+  /**
+   * Records the selectivity observed by a filter operator once its evaluation is done.
+   */
+  public static class Recorder {
+    private final FilterSelectivityStats _stats;
+    private final String _key;
+
+    public Recorder(FilterSelectivityStats stats, String key) {
+      _stats = stats;
+      _key = key;
+    }
+
+    public void record(long numDocsEvaluated, long numDocsMatched) {
+      _stats.record(_key, numDocsEvaluated, numDocsMatched);
+    }
+  }
+}
@@ -69,13 +69,13 @@ public class InvertedIndexFilterOperator extends BaseColumnFilterOperator {
         if (docIds instanceof MutableRoaringBitmap) {
           MutableRoaringBitmap mutableRoaringBitmap = (MutableRoaringBitmap) docIds;
           mutableRoaringBitmap.flip(0L, _numDocs);
-          return new BitmapDocIdSet(mutableRoaringBitmap, _numDocs);
+          docIds = mutableRoaringBitmap;
         } else {
-          return new BitmapDocIdSet(ImmutableRoaringBitmap.flip(docIds, 0L, _numDocs), _numDocs);
+          docIds = ImmutableRoaringBitmap.flip(docIds, 0L, _numDocs);
         }
-      } else {
-        return new BitmapDocIdSet(docIds, _numDocs);
       }
+      recordSelectivity(_predicateEvaluator, docIds);
+      return new BitmapDocIdSet(docIds, _numDocs);
     } else {
       ImmutableRoaringBitmap[] bitmaps = new ImmutableRoaringBitmap[numDictIds];
       for (int i = 0; i < numDictIds; i++) {
@@ -91,6 +91,7 @@ public class InvertedIndexFilterOperator extends BaseColumnFilterOperator {
         recording.setNumDocsMatchingAfterFilter(docIds.getCardinality());
         recording.setFilter(FilterType.INDEX, String.valueOf(_predicateEvaluator.getPredicateType()));
       }
+      recordSelectivity(_predicateEvaluator, docIds);
       return new BitmapDocIdSet(docIds, _numDocs);
     }
   }
@@ -150,12 +151,18 @@ public class InvertedIndexFilterOperator extends BaseColumnFilterOperator {
     return Collections.emptyList();
   }
 
+  @Override
+  public PredicateEvaluator getPredicateEvaluator() {
+    return _predicateEvaluator;
+  }
+
   @Override
   public String toExplainString() {
     StringBuilder stringBuilder = new StringBuilder(EXPLAIN_NAME).append("(indexLookUp:inverted_index");
     Predicate predicate = _predicateEvaluator.getPredicate();
     stringBuilder.append(",operator:").append(predicate.getType());
     stringBuilder.append(",predicate:").append(predicate);
+    appendObservedSelectivity(stringBuilder);
     return stringBuilder.append(')').toString();
   }
 
@@ -19,14 +19,18 @@
 package org.apache.pinot.core.operator.filter;
 
 import com.google.common.base.CaseFormat;
+import com.google.common.base.Preconditions;
 import java.util.Collections;
 import java.util.List;
 import org.apache.pinot.common.request.context.predicate.Predicate;
+import org.apache.pinot.core.common.BlockDocIdIterator;
 import org.apache.pinot.core.common.BlockDocIdSet;
 import org.apache.pinot.core.common.Operator;
 import org.apache.pinot.core.operator.ExplainAttributeBuilder;
 import org.apache.pinot.core.operator.dociditerators.ScanBasedDocIdIterator;
 import org.apache.pinot.core.operator.docidsets.BitmapDocIdSet;
+import org.apache.pinot.core.operator.docidsets.MVScanDocIdSet;
+import org.apache.pinot.core.operator.docidsets.SVScanDocIdSet;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import org.apache.pinot.core.operator.filter.predicate.traits.DoubleRange;
 import org.apache.pinot.core.operator.filter.predicate.traits.DoubleValue;
@@ -76,6 +80,7 @@ public class RangeIndexBasedFilterOperator extends BaseColumnFilterOperator {
     if (_rangeIndexReader.isExact()) {
       ImmutableRoaringBitmap matches = getMatchingDocIds();
       recordFilter(matches);
+      recordSelectivity(_predicateEvaluator, matches);
       return new BitmapDocIdSet(matches, _numDocs);
     }
     return evaluateLegacyRangeFilter();
@@ -91,15 +96,20 @@ public class RangeIndexBasedFilterOperator extends BaseColumnFilterOperator {
     if (partialMatches == null) {
       return new BitmapDocIdSet(matches == null ? new MutableRoaringBitmap() : matches, _numDocs);
     }
-    // Need to scan the first and last range as they might be partially matched
-    ScanBasedFilterOperator scanBasedFilterOperator =
-        new ScanBasedFilterOperator(_queryContext, _predicateEvaluator, _dataSource, _numDocs);
-    BlockDocIdSet scanBasedDocIdSet = scanBasedFilterOperator.getTrues();
+    // Need to scan the first and last range as they might be partially matched. Scan the docs directly so that the
+    // selectivity of the partial matches is not recorded.
+    Preconditions.checkState(_dataSource.getForwardIndex() != null,
+        "Forward index disabled for column: %s, scan based filtering not supported!",
+        _dataSource.getDataSourceMetadata().getFieldSpec().getName());
+    BlockDocIdSet scanBasedDocIdSet = _dataSource.getDataSourceMetadata().isSingleValue()
+        ? new SVScanDocIdSet(_predicateEvaluator, _dataSource, _numDocs, BlockDocIdIterator.OPTIMAL_ITERATOR_BATCH_SIZE)
+        : new MVScanDocIdSet(_predicateEvaluator, _dataSource, _numDocs);
     MutableRoaringBitmap docIds = ((ScanBasedDocIdIterator) scanBasedDocIdSet.iterator()).applyAnd(partialMatches);
     if (matches != null) {
       docIds.or(matches);
     }
     recordFilter(matches);
+    recordSelectivity(_predicateEvaluator, docIds);
     return new BitmapDocIdSet(docIds, _numDocs) {
       // Override this method to reflect the entries scanned
       @Override
@@ -224,10 +234,18 @@ public class RangeIndexBasedFilterOperator extends BaseColumnFilterOperator {
     return Collections.emptyList();
   }
 
+  @Override
+  public PredicateEvaluator getPredicateEvaluator() {
+    return _predicateEvaluator;
+  }
+
   @Override
   public String toExplainString() {
-    return EXPLAIN_NAME + "(indexLookUp:range_index" + ",operator:" + _predicateEvaluator.getPredicateType()
-        + ",predicate:" + _predicateEvaluator.getPredicate().toString() + ')';
+    StringBuilder stringBuilder = new StringBuilder(EXPLAIN_NAME).append("(indexLookUp:range_index");
+    stringBuilder.append(",operator:").append(_predicateEvaluator.getPredicateType());
+    stringBuilder.append(",predicate:").append(_predicateEvaluator.getPredicate().toString());
+    appendObservedSelectivity(stringBuilder);
+    return stringBuilder.append(')').toString();
   }
 
   @Override
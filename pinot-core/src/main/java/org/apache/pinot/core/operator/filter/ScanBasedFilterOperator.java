@@ -22,6 +22,7 @@ import com.google.common.base.CaseFormat;
 import com.google.common.base.Preconditions;
 import java.util.Collections;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.apache.pinot.core.common.BlockDocIdIterator;
 import org.apache.pinot.core.common.BlockDocIdSet;
 import org.apache.pinot.core.common.Operator;
@@ -39,6 +40,8 @@ public class ScanBasedFilterOperator extends BaseColumnFilterOperator {
 
   private final PredicateEvaluator _predicateEvaluator;
   private final int _batchSize;
+  // Index not used because of the observed selectivity of the predicate, null if not applicable
+  private final String _skippedIndex;
 
   public ScanBasedFilterOperator(QueryContext queryContext, PredicateEvaluator predicateEvaluator,
       DataSource dataSource, int numDocs) {
@@ -47,19 +50,39 @@ public class ScanBasedFilterOperator extends BaseColumnFilterOperator {
 
   public ScanBasedFilterOperator(QueryContext queryContext, PredicateEvaluator predicateEvaluator,
       DataSource dataSource, int numDocs, int batchSize) {
+    this(queryContext, predicateEvaluator, dataSource, numDocs, batchSize, null);
+  }
+
+  ScanBasedFilterOperator(QueryContext queryContext, PredicateEvaluator predicateEvaluator, DataSource dataSource,
+      int numDocs, @Nullable String skippedIndex) {
+    this(queryContext, predicateEvaluator, dataSource, numDocs, BlockDocIdIterator.OPTIMAL_ITERATOR_BATCH_SIZE,
+        skippedIndex);
+  }
+
+  private ScanBasedFilterOperator(QueryContext queryContext, PredicateEvaluator predicateEvaluator,
+      DataSource dataSource, int numDocs, int batchSize, @Nullable String skippedIndex) {
     super(queryContext, dataSource, numDocs);
     _predicateEvaluator = predicateEvaluator;
     Preconditions.checkState(_dataSource.getForwardIndex() != null,
         "Forward index disabled for column: %s, scan based filtering not supported!",
         _dataSource.getDataSourceMetadata().getFieldSpec().getName());
     _batchSize = batchSize;
+    _skippedIndex = skippedIndex;
+  }
+
+  @Override
+  public PredicateEvaluator getPredicateEvaluator() {
+    return _predicateEvaluator;
   }
 
   @Override
   protected BlockDocIdSet getNextBlockWithoutNullHandling() {
     DataSourceMetadata dataSourceMetadata = _dataSource.getDataSourceMetadata();
     if (dataSourceMetadata.isSingleValue()) {
-      return new SVScanDocIdSet(_predicateEvaluator, _dataSource, _numDocs, _batchSize);
+      // A scan replacing an index lookup only evaluates the docs matching the other children of the AND, so do not
+      // record its conditional selectivity under the same key as the (unconditional) selectivity of the index lookups
+      return new SVScanDocIdSet(_predicateEvaluator, _dataSource, _numDocs, _batchSize,
+          _skippedIndex == null ? getSelectivityRecorder(_predicateEvaluator) : null);
     } else {
       return new MVScanDocIdSet(_predicateEvaluator, _dataSource, _numDocs);
     }
@@ -76,6 +99,10 @@ public class ScanBasedFilterOperator extends BaseColumnFilterOperator {
     StringBuilder stringBuilder =
         new StringBuilder(EXPLAIN_NAME).append("(operator:").append(_predicateEvaluator.getPredicateType());
     stringBuilder.append(",predicate:").append(_predicateEvaluator.getPredicate().toString());
+    appendObservedSelectivity(stringBuilder);
+    if (_skippedIndex != null) {
+      stringBuilder.append(",skippedIndex:").append(_skippedIndex);
+    }
     return stringBuilder.append(')').toString();
   }
 
@@ -89,6 +116,9 @@ public class ScanBasedFilterOperator extends BaseColumnFilterOperator {
     super.explainAttributes(attributeBuilder);
     attributeBuilder.putString("operator", _predicateEvaluator.getPredicateType().name());
     attributeBuilder.putString("predicate", _predicateEvaluator.getPredicate().toString());
+    if (_skippedIndex != null) {
+      attributeBuilder.putString("skippedIndex", _skippedIndex);
+    }
   }
 
   /**
@@ -155,8 +155,25 @@ public class InPredicateEvaluatorFactory {
     }
   }
 
+  /**
+   * Returns the matching values to be evaluated with the vectorized kernel, or {@code null} if the kernels are not
+   * vectorized or there are too many values, in which case the hash set lookup is cheaper.
+   */
+  @Nullable
+  private static int[] getVectorizedMatchingValues(IntSet matchingValues) {
+    int numMatchingValues = matchingValues.size();
+    if (PredicateKernels.isVectorized() && numMatchingValues > 0
+        && numMatchingValues <= PredicateKernels.MAX_VECTORIZED_IN_VALUES) {
+      return matchingValues.toIntArray();
+    }
+    return null;
+  }
+
   private static final class DictionaryBasedInPredicateEvaluator extends BaseDictionaryBasedPredicateEvaluator {
     final IntSet _matchingDictIdSet;
+    // Matching dictIds compared with the vectorized kernel when there are only a few of them
+    @Nullable
+    final int[] _vectorizedMatchingDictIds;
 
     DictionaryBasedInPredicateEvaluator(InPredicate inPredicate, Dictionary dictionary, DataType dataType,
         @Nullable QueryContext queryContext) {
@@ -168,6 +185,7 @@ public class InPredicateEvaluatorFactory {
       } else if (dictionary.length() == numMatchingDictIds) {
         _alwaysTrue = true;
       }
+      _vectorizedMatchingDictIds = getVectorizedMatchingValues(_matchingDictIdSet);
     }
 
     @Override
@@ -189,6 +207,9 @@ public class InPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
+      if (_vectorizedMatchingDictIds != null) {
+        return PredicateKernels.applyIntIn(limit, docIds, values, _vectorizedMatchingDictIds);
+      }
       // reimplemented here to ensure applySV can be inlined
       int matches = 0;
       for (int i = 0; i < limit; i++) {
@@ -214,10 +235,14 @@ public class InPredicateEvaluatorFactory {
 
   private static final class IntRawValueBasedInPredicateEvaluator extends InRawPredicateEvaluator {
     final IntSet _matchingValues;
+    // Matching values compared with the vectorized kernel when there are only a few of them
+    @Nullable
+    final int[] _vectorizedMatchingValues;
 
     IntRawValueBasedInPredicateEvaluator(InPredicate inPredicate, IntSet matchingValues) {
       super(inPredicate);
       _matchingValues = matchingValues;
+      _vectorizedMatchingValues = getVectorizedMatchingValues(matchingValues);
     }
 
     @Override
@@ -237,6 +262,9 @@ public class InPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
+      if (_vectorizedMatchingValues != null) {
+        return PredicateKernels.applyIntIn(limit, docIds, values, _vectorizedMatchingValues);
+      }
       // reimplemented here to ensure applySV can be inlined
       int matches = 0;
       for (int i = 0; i < limit; i++) {
@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter.predicate;
+
+/**
+ * Batch kernels used by the predicate evaluators to evaluate a block of dictIds or raw values, and compact the docIds
+ * of the matching values to the front of the docIds array. Returns the number of matching docs.
+ * <p>This class is shipped as a multi-release class: this version is used on JDK 11 and evaluates one value at a time,
+ * while the JDK 17+ version under {@code src/main/java17} uses the Vector API when the {@code jdk.incubator.vector}
+ * module is added to the JVM ({@code --add-modules jdk.incubator.vector}), and falls back to this implementation
+ * otherwise.
+ */
+public final class PredicateKernels {
+  // Maximum number of values to evaluate IN predicates with the vectorized comparisons instead of a hash set lookup
+  public static final int MAX_VECTORIZED_IN_VALUES = 8;
+  public static final String DISABLE_VECTORIZATION_PROPERTY = "pinot.query.vectorizedPredicates.disabled";
+
+  private PredicateKernels() {
+  }
+
+  /**
+   * Returns {@code true} if the kernels are vectorized.
+   */
+  public static boolean isVectorized() {
+    return false;
+  }
+
+  public static int applyIntRange(int limit, int[] docIds, int[] values, int inclusiveLowerBound,
+      int inclusiveUpperBound) {
+    return ScalarPredicateKernels.applyIntRange(limit, docIds, values, inclusiveLowerBound, inclusiveUpperBound);
+  }
+
+  public static int applyLongRange(int limit, int[] docIds, long[] values, long inclusiveLowerBound,
+      long inclusiveUpperBound) {
+    return ScalarPredicateKernels.applyLongRange(limit, docIds, values, inclusiveLowerBound, inclusiveUpperBound);
+  }
+
+  public static int applyFloatRange(int limit, int[] docIds, float[] values, float inclusiveLowerBound,
+      float inclusiveUpperBound) {
+    return ScalarPredicateKernels.applyFloatRange(limit, docIds, values, inclusiveLowerBound, inclusiveUpperBound);
+  }
+
+  public static int applyDoubleRange(int limit, int[] docIds, double[] values, double inclusiveLowerBound,
+      double inclusiveUpperBound) {
+    return ScalarPredicateKernels.applyDoubleRange(limit, docIds, values, inclusiveLowerBound, inclusiveUpperBound);
+  }
+
+  /**
+   * Evaluates an IN predicate with a few matching values (at most {@link #MAX_VECTORIZED_IN_VALUES}).
+   */
+  public static int applyIntIn(int limit, int[] docIds, int[] values, int[] matchingValues) {
+    return ScalarPredicateKernels.applyIntIn(limit, docIds, values, matchingValues);
+  }
+}
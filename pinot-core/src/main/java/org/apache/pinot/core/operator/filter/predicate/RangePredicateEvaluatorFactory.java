@@ -223,15 +223,7 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] dictIds) {
-      // reimplemented here to ensure applySV can be inlined
-      int matches = 0;
-      for (int i = 0; i < limit; i++) {
-        int dictId = dictIds[i];
-        if (applySV(dictId)) {
-          docIds[matches++] = docIds[i];
-        }
-      }
-      return matches;
+      return PredicateKernels.applyIntRange(limit, docIds, dictIds, _startDictId, _endDictId - 1);
     }
 
     @Override
@@ -367,15 +359,7 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
-      // reimplemented here to ensure applySV can be inlined
-      int matches = 0;
-      for (int i = 0; i < limit; i++) {
-        int value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
-      }
-      return matches;
+      return PredicateKernels.applyIntRange(limit, docIds, values, _inclusiveLowerBound, _inclusiveUpperBound);
     }
   }
 
@@ -423,15 +407,7 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, long[] values) {
-      // reimplemented here to ensure applySV can be inlined
-      int matches = 0;
-      for (int i = 0; i < limit; i++) {
-        long value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
-      }
-      return matches;
+      return PredicateKernels.applyLongRange(limit, docIds, values, _inclusiveLowerBound, _inclusiveUpperBound);
     }
   }
 
@@ -479,15 +455,7 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, float[] values) {
-      // reimplemented here to ensure applySV can be inlined
-      int matches = 0;
-      for (int i = 0; i < limit; i++) {
-        float value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
-      }
-      return matches;
+      return PredicateKernels.applyFloatRange(limit, docIds, values, _inclusiveLowerBound, _inclusiveUpperBound);
     }
   }
 
@@ -535,15 +503,7 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, double[] values) {
-      // reimplemented here to ensure applySV can be inlined
-      int matches = 0;
-      for (int i = 0; i < limit; i++) {
-        double value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
-      }
-      return matches;
+      return PredicateKernels.applyDoubleRange(limit, docIds, values, _inclusiveLowerBound, _inclusiveUpperBound);
     }
   }
 
@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter.predicate;
+
+/**
+ * Scalar implementation of the {@link PredicateKernels}, which evaluates one value at a time.
+ */
+final class ScalarPredicateKernels {
+  private ScalarPredicateKernels() {
+  }
+
+  static int applyIntRange(int limit, int[] docIds, int[] values, int inclusiveLowerBound, int inclusiveUpperBound) {
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      int value = values[i];
+      if (value >= inclusiveLowerBound && value <= inclusiveUpperBound) {
+        docIds[matches++] = docIds[i];
+      }
+    }
+    return matches;
+  }
+
+  static int applyLongRange(int limit, int[] docIds, long[] values, long inclusiveLowerBound,
+      long inclusiveUpperBound) {
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      long value = values[i];
+      if (value >= inclusiveLowerBound && value <= inclusiveUpperBound) {
+        docIds[matches++] = docIds[i];
+      }
+    }
+    return matches;
+  }
+
+  static int applyFloatRange(int limit, int[] docIds, float[] values, float inclusiveLowerBound,
+      float inclusiveUpperBound) {
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      float value = values[i];
+      if (value >= inclusiveLowerBound && value <= inclusiveUpperBound) {
+        docIds[matches++] = docIds[i];
+      }
+    }
+    return matches;
+  }
+
+  static int applyDoubleRange(int limit, int[] docIds, double[] values, double inclusiveLowerBound,
+      double inclusiveUpperBound) {
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      double value = values[i];
+      if (value >= inclusiveLowerBound && value <= inclusiveUpperBound) {
+        docIds[matches++] = docIds[i];
+      }
+    }
+    return matches;
+  }
+
+  static int applyIntIn(int limit, int[] docIds, int[] values, int[] matchingValues) {
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      int value = values[i];
+      for (int matchingValue : matchingValues) {
+        if (value == matchingValue) {
+          docIds[matches++] = docIds[i];
+          break;
+        }
+      }
+    }
+    return matches;
+  }
+}
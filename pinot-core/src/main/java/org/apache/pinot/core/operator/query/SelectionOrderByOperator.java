@@ -25,6 +25,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
@@ -256,13 +257,34 @@ public class SelectionOrderByOperator extends BaseOperator<SelectionResultsBlock
     }
     _numEntriesScannedPostFilter = (long) _numDocsScanned * numColumnsProjected;
 
-    // Copy the rows (shallow copy so that any modification will also be reflected to the priority queue) into a list,
-    // and store the document ids into a bitmap
-    int numRows = _rows.size();
-    List<Object[]> rowList = new ArrayList<>(numRows);
+    if (_queryContext.isDeferSelectionMaterialization()) {
+      // Defer the fetch of the non-order-by expressions until the rows from all the segments are merged, only the
+      // rows surviving the merge are fetched. Keep a reference to this operator with the docId to fetch them.
+      for (Object[] row : _rows) {
+        row[numOrderByExpressions] = new DeferredDocId(this, (int) row[numOrderByExpressions]);
+      }
+      DataSchema dataSchema = getDataSchema(getNonOrderByTransformOperator(new RoaringBitmap(), 1));
+      return new SelectionResultsBlock(dataSchema, getSortedRows(), _comparator, _queryContext);
+    }
+
+    // Copy the rows (shallow copy so that any modification will also be reflected to the priority queue) into a list
+    // and fetch the non-order-by expressions
+    TransformOperator transformOperator = fetchNonOrderByValues(new ArrayList<>(_rows));
+    return new SelectionResultsBlock(getDataSchema(transformOperator), getSortedRows(), _comparator, _queryContext);
+  }
+
+  /**
+   * Fetches the non-order-by expression values for the given rows, which have the docId stored after the order-by
+   * expression values, and returns the transform operator used to fetch them.
+   */
+  private TransformOperator fetchNonOrderByValues(List<Object[]> rowList) {
+    int numExpressions = _expressions.size();
+    int numOrderByExpressions = _orderByExpressions.size();
+
+    // Store the document ids into a bitmap
+    int numRows = rowList.size();
     RoaringBitmap docIds = new RoaringBitmap();
-    for (Object[] row : _rows) {
-      rowList.add(row);
+    for (Object[] row : rowList) {
       int docId = (int) row[numOrderByExpressions];
       docIds.add(docId);
     }
@@ -271,25 +293,15 @@ public class SelectionOrderByOperator extends BaseOperator<SelectionResultsBlock
     rowList.sort(Comparator.comparingInt(o -> (int) o[numOrderByExpressions]));
 
     // Construct a new TransformOperator to fetch the non-order-by expressions for the top rows
+    TransformOperator transformOperator = getNonOrderByTransformOperator(docIds, numRows);
     List<ExpressionContext> nonOrderByExpressions = _expressions.subList(numOrderByExpressions, numExpressions);
-    Set<String> columns = new HashSet<>();
-    for (ExpressionContext expressionContext : nonOrderByExpressions) {
-      expressionContext.getColumns(columns);
-    }
-    int numColumns = columns.size();
-    Map<String, DataSource> dataSourceMap = new HashMap<>();
-    for (String column : columns) {
-      dataSourceMap.put(column, _indexSegment.getDataSource(column));
-    }
-    ProjectionOperator projectionOperator =
-        ProjectionOperatorUtils.getProjectionOperator(dataSourceMap, new BitmapDocIdSetOperator(docIds, numRows));
-    TransformOperator transformOperator =
-        new TransformOperator(_queryContext, projectionOperator, nonOrderByExpressions);
+    int numColumns = transformOperator.getNumColumnsProjected();
 
     // Fill the non-order-by expression values
     int numNonOrderByExpressions = nonOrderByExpressions.size();
-    blockValSets = new BlockValSet[numNonOrderByExpressions];
+    BlockValSet[] blockValSets = new BlockValSet[numNonOrderByExpressions];
     int rowBaseId = 0;
+    ValueBlock valueBlock;
     while ((valueBlock = transformOperator.nextBlock()) != null) {
       for (int i = 0; i < numNonOrderByExpressions; i++) {
         ExpressionContext expression = nonOrderByExpressions.get(i);
@@ -318,8 +330,29 @@ public class SelectionOrderByOperator extends BaseOperator<SelectionResultsBlock
       _numEntriesScannedPostFilter += (long) numDocsFetched * numColumns;
       rowBaseId += numDocsFetched;
     }
+    return transformOperator;
+  }
 
-    // Create the data schema
+  private TransformOperator getNonOrderByTransformOperator(RoaringBitmap docIds, int numDocs) {
+    int numExpressions = _expressions.size();
+    int numOrderByExpressions = _orderByExpressions.size();
+    List<ExpressionContext> nonOrderByExpressions = _expressions.subList(numOrderByExpressions, numExpressions);
+    Set<String> columns = new HashSet<>();
+    for (ExpressionContext expressionContext : nonOrderByExpressions) {
+      expressionContext.getColumns(columns);
+    }
+    Map<String, DataSource> dataSourceMap = new HashMap<>();
+    for (String column : columns) {
+      dataSourceMap.put(column, _indexSegment.getDataSource(column));
+    }
+    ProjectionOperator projectionOperator =
+        ProjectionOperatorUtils.getProjectionOperator(dataSourceMap, new BitmapDocIdSetOperator(docIds, numDocs));
+    return new TransformOperator(_queryContext, projectionOperator, nonOrderByExpressions);
+  }
+
+  private DataSchema getDataSchema(TransformOperator nonOrderByTransformOperator) {
+    int numExpressions = _expressions.size();
+    int numOrderByExpressions = _orderByExpressions.size();
     String[] columnNames = new String[numExpressions];
     DataSchema.ColumnDataType[] columnDataTypes = new DataSchema.ColumnDataType[numExpressions];
     for (int i = 0; i < numExpressions; i++) {
@@ -329,14 +362,38 @@ public class SelectionOrderByOperator extends BaseOperator<SelectionResultsBlock
       columnDataTypes[i] = DataSchema.ColumnDataType.fromDataType(_orderByColumnContexts[i].getDataType(),
           _orderByColumnContexts[i].isSingleValue());
     }
-    for (int i = 0; i < numNonOrderByExpressions; i++) {
-      ColumnContext columnContext = transformOperator.getResultColumnContext(nonOrderByExpressions.get(i));
-      columnDataTypes[numOrderByExpressions + i] =
+    for (int i = numOrderByExpressions; i < numExpressions; i++) {
+      ColumnContext columnContext = nonOrderByTransformOperator.getResultColumnContext(_expressions.get(i));
+      columnDataTypes[i] =
           DataSchema.ColumnDataType.fromDataType(columnContext.getDataType(), columnContext.isSingleValue());
     }
-    DataSchema dataSchema = new DataSchema(columnNames, columnDataTypes);
+    return new DataSchema(columnNames, columnDataTypes);
+  }
 
-    return new SelectionResultsBlock(dataSchema, getSortedRows(), _comparator, _queryContext);
+  /**
+   * Fetches the non-order-by expression values of the rows returned with
+   * {@link QueryContext#isDeferSelectionMaterialization()} enabled. The rows can come from different segments, and are
+   * fetched from the segment they come from. Rows already materialized are skipped.
+   */
+  public static void materializeDeferredRows(SelectionResultsBlock resultsBlock) {
+    QueryContext queryContext = resultsBlock.getQueryContext();
+    if (!queryContext.isDeferSelectionMaterialization()) {
+      return;
+    }
+    List<OrderByExpressionContext> orderByExpressions = queryContext.getOrderByExpressions();
+    assert orderByExpressions != null;
+    int numOrderByExpressions = orderByExpressions.size();
+    Map<SelectionOrderByOperator, List<Object[]>> rowsByOperator = new IdentityHashMap<>();
+    for (Object[] row : resultsBlock.getRows()) {
+      if (row.length > numOrderByExpressions && row[numOrderByExpressions] instanceof DeferredDocId) {
+        DeferredDocId deferredDocId = (DeferredDocId) row[numOrderByExpressions];
+        row[numOrderByExpressions] = deferredDocId._docId;
+        rowsByOperator.computeIfAbsent(deferredDocId._operator, k -> new ArrayList<>()).add(row);
+      }
+    }
+    for (Map.Entry<SelectionOrderByOperator, List<Object[]>> entry : rowsByOperator.entrySet()) {
+      entry.getKey().fetchNonOrderByValues(entry.getValue());
+    }
   }
 
   private List<Object[]> getSortedRows() {
@@ -365,4 +422,18 @@ public class SelectionOrderByOperator extends BaseOperator<SelectionResultsBlock
     return new ExecutionStatistics(_numDocsScanned, numEntriesScannedInFilter, _numEntriesScannedPostFilter,
         numTotalDocs);
   }
+
+  /**
+   * Placeholder of the non-order-by expression values in the rows whose fetch is deferred, referencing the operator
+   * and the docId to fetch them from.
+   */
+  private static final class DeferredDocId {
+    final SelectionOrderByOperator _operator;
+    final int _docId;
+
+    DeferredDocId(SelectionOrderByOperator operator, int docId) {
+      _operator = operator;
+      _docId = docId;
+    }
+  }
 }
@@ -24,12 +24,14 @@ import java.util.concurrent.ExecutorService;
 import javax.annotation.Nullable;
 import org.apache.pinot.common.request.context.ExpressionContext;
 import org.apache.pinot.common.request.context.OrderByExpressionContext;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.core.common.Operator;
 import org.apache.pinot.core.operator.combine.AggregationCombineOperator;
 import org.apache.pinot.core.operator.combine.BaseCombineOperator;
 import org.apache.pinot.core.operator.combine.DistinctCombineOperator;
 import org.apache.pinot.core.operator.combine.GroupByCombineOperator;
 import org.apache.pinot.core.operator.combine.MinMaxValueBasedSelectionOrderByCombineOperator;
+import org.apache.pinot.core.operator.combine.PartitionedGroupByCombineOperator;
 import org.apache.pinot.core.operator.combine.SelectionOnlyCombineOperator;
 import org.apache.pinot.core.operator.combine.SelectionOrderByCombineOperator;
 import org.apache.pinot.core.operator.combine.TimeSeriesCombineOperator;
@@ -140,6 +142,10 @@ public class CombinePlanNode implements PlanNode {
           return new AggregationCombineOperator(operators, _queryContext, _executorService);
         } else {
           // Aggregation group-by
+          if (_queryContext.getOrderByExpressions() != null
+              && QueryOptionsUtils.isUsePartitionedGroupByCombine(_queryContext.getQueryOptions())) {
+            return new PartitionedGroupByCombineOperator(operators, _queryContext, _executorService);
+          }
           return new GroupByCombineOperator(operators, _queryContext, _executorService);
         }
       } else if (QueryContextUtils.isSelectionQuery(_queryContext)) {
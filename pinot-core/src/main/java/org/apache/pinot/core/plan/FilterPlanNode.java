@@ -20,10 +20,11 @@ package org.apache.pinot.core.plan;
 
 import com.google.common.base.Preconditions;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.common.metrics.ServerMetrics;
 import org.apache.pinot.common.request.context.ExpressionContext;
 import org.apache.pinot.common.request.context.FilterContext;
 import org.apache.pinot.common.request.context.FunctionContext;
@@ -36,19 +37,25 @@ import org.apache.pinot.common.request.context.predicate.VectorSimilarityPredica
 import org.apache.pinot.core.geospatial.transform.function.StDistanceFunction;
 import org.apache.pinot.core.operator.filter.BaseFilterOperator;
 import org.apache.pinot.core.operator.filter.BitmapBasedFilterOperator;
+import org.apache.pinot.core.operator.filter.BitmapCachingFilterOperator;
 import org.apache.pinot.core.operator.filter.EmptyFilterOperator;
 import org.apache.pinot.core.operator.filter.ExpressionFilterOperator;
 import org.apache.pinot.core.operator.filter.FilterOperatorUtils;
 import org.apache.pinot.core.operator.filter.H3InclusionIndexFilterOperator;
 import org.apache.pinot.core.operator.filter.H3IndexFilterOperator;
+import org.apache.pinot.core.operator.filter.InvertedIndexFilterOperator;
 import org.apache.pinot.core.operator.filter.JsonMatchFilterOperator;
 import org.apache.pinot.core.operator.filter.MatchAllFilterOperator;
+import org.apache.pinot.core.operator.filter.RangeIndexBasedFilterOperator;
+import org.apache.pinot.core.operator.filter.ScanBasedFilterOperator;
+import org.apache.pinot.core.operator.filter.SortedIndexBasedFilterOperator;
 import org.apache.pinot.core.operator.filter.TextContainsFilterOperator;
 import org.apache.pinot.core.operator.filter.TextMatchFilterOperator;
 import org.apache.pinot.core.operator.filter.VectorSimilarityFilterOperator;
 import org.apache.pinot.core.operator.filter.predicate.FSTBasedRegexpPredicateEvaluatorFactory;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluatorProvider;
+import org.apache.pinot.core.query.cache.FilterBitmapCache;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.segment.local.realtime.impl.invertedindex.NativeMutableTextIndex;
 import org.apache.pinot.segment.local.segment.index.readers.text.NativeTextIndexReader;
@@ -61,6 +68,7 @@ import org.apache.pinot.segment.spi.index.reader.TextIndexReader;
 import org.apache.pinot.segment.spi.index.reader.VectorIndexReader;
 import org.apache.pinot.spi.config.table.FieldConfig;
 import org.apache.pinot.spi.exception.BadQueryRequestException;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
 
@@ -89,19 +97,26 @@ public class FilterPlanNode implements PlanNode {
     MutableRoaringBitmap queryableDocIdsSnapshot = _segmentContext.getQueryableDocIdsSnapshot();
     int numDocs = _indexSegment.getSegmentMetadata().getTotalDocs();
 
+    List<BaseFilterOperator> filterOperators = new ArrayList<>(3);
     if (_filter != null) {
-      BaseFilterOperator filterOperator = constructPhysicalOperator(_filter, numDocs);
-      if (queryableDocIdsSnapshot != null) {
-        BaseFilterOperator validDocFilter = new BitmapBasedFilterOperator(queryableDocIdsSnapshot, false, numDocs);
-        return FilterOperatorUtils.getAndFilterOperator(_queryContext, Arrays.asList(filterOperator, validDocFilter),
-            numDocs);
-      } else {
-        return filterOperator;
-      }
-    } else if (queryableDocIdsSnapshot != null) {
-      return new BitmapBasedFilterOperator(queryableDocIdsSnapshot, false, numDocs);
-    } else {
-      return new MatchAllFilterOperator(numDocs);
+      filterOperators.add(constructPhysicalOperator(_filter, numDocs));
+    }
+    if (queryableDocIdsSnapshot != null) {
+      filterOperators.add(new BitmapBasedFilterOperator(queryableDocIdsSnapshot, false, numDocs));
+    }
+    if (_segmentContext.hasDocIdRange()) {
+      // Only process the docs within the morsel
+      MutableRoaringBitmap docIdRange = new MutableRoaringBitmap();
+      docIdRange.add((long) _segmentContext.getDocIdRangeStart(), _segmentContext.getDocIdRangeEnd());
+      filterOperators.add(new BitmapBasedFilterOperator(docIdRange, false, numDocs));
+    }
+    switch (filterOperators.size()) {
+      case 0:
+        return new MatchAllFilterOperator(numDocs);
+      case 1:
+        return filterOperators.get(0);
+      default:
+        return FilterOperatorUtils.getAndFilterOperator(_queryContext, filterOperators, numDocs);
     }
   }
 
@@ -189,6 +204,44 @@ public class FilterPlanNode implements PlanNode {
     }
   }
 
+  /**
+   * Returns the leaf filter operator for the predicate, backed by the {@link FilterBitmapCache} when enabled.
+   */
+  private BaseFilterOperator getLeafFilterOperator(Predicate predicate, PredicateEvaluator predicateEvaluator,
+      DataSource dataSource, int numDocs) {
+    FilterBitmapCache filterBitmapCache = _queryContext.getFilterBitmapCache();
+    String cacheKey =
+        filterBitmapCache != null ? FilterBitmapCache.getKey(_indexSegment, _queryContext, predicate) : null;
+    if (cacheKey != null) {
+      ImmutableRoaringBitmap docIds = filterBitmapCache.get(_indexSegment, cacheKey);
+      if (docIds != null) {
+        ServerMetrics.get().addMeteredGlobalValue(ServerMeter.FILTER_BITMAP_CACHE_HITS, 1);
+        return new BitmapBasedFilterOperator(docIds, false, numDocs);
+      }
+      ServerMetrics.get().addMeteredGlobalValue(ServerMeter.FILTER_BITMAP_CACHE_MISSES, 1);
+    }
+    BaseFilterOperator filterOperator =
+        FilterOperatorUtils.getLeafFilterOperator(_queryContext, predicateEvaluator, dataSource, numDocs);
+    if (cacheKey == null) {
+      return filterOperator;
+    }
+    boolean cacheable;
+    if (filterOperator instanceof ScanBasedFilterOperator) {
+      cacheable = filterBitmapCache.admitScan(_indexSegment, cacheKey);
+      if (!cacheable) {
+        ServerMetrics.get().addMeteredGlobalValue(ServerMeter.FILTER_BITMAP_CACHE_ADMISSION_REJECTIONS, 1);
+      }
+    } else {
+      cacheable = filterOperator instanceof InvertedIndexFilterOperator
+          || filterOperator instanceof SortedIndexBasedFilterOperator
+          || filterOperator instanceof RangeIndexBasedFilterOperator;
+    }
+    if (!cacheable) {
+      return filterOperator;
+    }
+    return new BitmapCachingFilterOperator(filterOperator, filterBitmapCache, _indexSegment, cacheKey, numDocs);
+  }
+
   /**
    * Helper method to build the operator tree from the filter.
    */
@@ -280,7 +333,7 @@ public class FilterPlanNode implements PlanNode {
                         dataSource.getDataSourceMetadata().getDataType());
               }
               _predicateEvaluators.add(Pair.of(predicate, predicateEvaluator));
-              return FilterOperatorUtils.getLeafFilterOperator(_queryContext, predicateEvaluator, dataSource, numDocs);
+              return getLeafFilterOperator(predicate, predicateEvaluator, dataSource, numDocs);
             case JSON_MATCH:
               JsonIndexReader jsonIndex = dataSource.getJsonIndex();
               Preconditions.checkState(jsonIndex != null, "Cannot apply JSON_MATCH on column: %s without json index",
@@ -309,7 +362,7 @@ public class FilterPlanNode implements PlanNode {
               predicateEvaluator =
                   PredicateEvaluatorProvider.getPredicateEvaluator(predicate, dataSource, _queryContext);
               _predicateEvaluators.add(Pair.of(predicate, predicateEvaluator));
-              return FilterOperatorUtils.getLeafFilterOperator(_queryContext, predicateEvaluator, dataSource, numDocs);
+              return getLeafFilterOperator(predicate, predicateEvaluator, dataSource, numDocs);
           }
         }
       case CONSTANT:
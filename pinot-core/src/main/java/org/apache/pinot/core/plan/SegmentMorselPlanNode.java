@@ -0,0 +1,54 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan;
+
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.SegmentMorselOperator;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.segment.spi.SegmentContext;
+
+
+/**
+ * A wrapper for the segment-level plan node which processes a morsel (a docId range) of the segment. The docId range is
+ * applied by the {@link FilterPlanNode} based on the {@link SegmentContext}.
+ */
+public class SegmentMorselPlanNode implements PlanNode {
+  private final PlanNode _childPlanNode;
+  private final SegmentContext _segmentContext;
+  private final SegmentContext _morselContext;
+
+  /**
+   * @param childPlanNode Plan node for the morsel
+   * @param segmentContext Context of the whole segment, shared by all the morsels of the segment
+   * @param morselContext Context of the morsel with the docId range
+   */
+  public SegmentMorselPlanNode(PlanNode childPlanNode, SegmentContext segmentContext, SegmentContext morselContext) {
+    assert morselContext.hasDocIdRange();
+    _childPlanNode = childPlanNode;
+    _segmentContext = segmentContext;
+    _morselContext = morselContext;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public SegmentMorselOperator run() {
+    return new SegmentMorselOperator((Operator<BaseResultsBlock>) _childPlanNode.run(), _segmentContext,
+        _morselContext.getDocIdRangeStart(), _morselContext.getDocIdRangeEnd());
+  }
+}
@@ -0,0 +1,61 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan;
+
+import javax.annotation.Nullable;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.SegmentResultCacheOperator;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.segment.spi.SegmentContext;
+
+
+/**
+ * The {@code SegmentResultCachePlanNode} wraps the segment level plan node of a cacheable segment. On a cache hit, the
+ * segment is not planned at all and the child plan node is {@code null}.
+ */
+public class SegmentResultCachePlanNode implements PlanNode {
+  private final SegmentResultCache _segmentResultCache;
+  private final SegmentResultCache.CacheKey _cacheKey;
+  private final SegmentResultCache.CachedResult _cachedResult;
+  private final PlanNode _childPlanNode;
+  private final SegmentContext _segmentContext;
+  private final QueryContext _queryContext;
+
+  public SegmentResultCachePlanNode(SegmentResultCache segmentResultCache, SegmentResultCache.CacheKey cacheKey,
+      @Nullable SegmentResultCache.CachedResult cachedResult, @Nullable PlanNode childPlanNode,
+      SegmentContext segmentContext, QueryContext queryContext) {
+    _segmentResultCache = segmentResultCache;
+    _cacheKey = cacheKey;
+    _cachedResult = cachedResult;
+    _childPlanNode = childPlanNode;
+    _segmentContext = segmentContext;
+    _queryContext = queryContext;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public SegmentResultCacheOperator run() {
+    Operator<BaseResultsBlock> childOperator =
+        _childPlanNode != null ? (Operator<BaseResultsBlock>) _childPlanNode.run() : null;
+    return new SegmentResultCacheOperator(_segmentResultCache, _cacheKey, _cachedResult, childOperator,
+        _segmentContext.getIndexSegment(), _queryContext);
+  }
+}
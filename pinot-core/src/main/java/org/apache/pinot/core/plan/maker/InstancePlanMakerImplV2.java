@@ -25,14 +25,17 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.MapUtils;
+import org.apache.pinot.common.metrics.ServerMeter;
 import org.apache.pinot.common.metrics.ServerMetrics;
 import org.apache.pinot.common.request.context.ExpressionContext;
 import org.apache.pinot.common.request.context.FilterContext;
 import org.apache.pinot.common.request.context.OrderByExpressionContext;
 import org.apache.pinot.common.request.context.predicate.Predicate;
 import org.apache.pinot.common.utils.config.QueryOptionsUtils;
+import org.apache.pinot.core.operator.filter.FilterSelectivityStats;
 import org.apache.pinot.core.plan.AcquireReleaseColumnsSegmentPlanNode;
 import org.apache.pinot.core.plan.AggregationPlanNode;
 import org.apache.pinot.core.plan.CombinePlanNode;
@@ -42,17 +45,23 @@ import org.apache.pinot.core.plan.GroupByPlanNode;
 import org.apache.pinot.core.plan.InstanceResponsePlanNode;
 import org.apache.pinot.core.plan.Plan;
 import org.apache.pinot.core.plan.PlanNode;
+import org.apache.pinot.core.plan.SegmentMorselPlanNode;
+import org.apache.pinot.core.plan.SegmentResultCachePlanNode;
 import org.apache.pinot.core.plan.SelectionPlanNode;
 import org.apache.pinot.core.plan.StreamingInstanceResponsePlanNode;
 import org.apache.pinot.core.plan.StreamingSelectionPlanNode;
 import org.apache.pinot.core.plan.TimeSeriesPlanNode;
+import org.apache.pinot.core.query.cache.FilterBitmapCache;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
 import org.apache.pinot.core.query.executor.ResultsBlockStreamer;
 import org.apache.pinot.core.query.prefetch.FetchPlanner;
 import org.apache.pinot.core.query.prefetch.FetchPlannerRegistry;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.core.query.request.context.utils.QueryContextUtils;
 import org.apache.pinot.core.util.GroupByUtils;
+import org.apache.pinot.core.util.QueryMemoryBudget;
 import org.apache.pinot.segment.spi.FetchContext;
+import org.apache.pinot.segment.spi.ImmutableSegment;
 import org.apache.pinot.segment.spi.IndexSegment;
 import org.apache.pinot.segment.spi.SegmentContext;
 import org.apache.pinot.spi.env.PinotConfiguration;
@@ -87,6 +96,35 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
   // set as pinot.server.query.executor.groupby.trim.threshold
   public static final String GROUPBY_TRIM_THRESHOLD_KEY = "groupby.trim.threshold";
   public static final int DEFAULT_GROUPBY_TRIM_THRESHOLD = 1_000_000;
+  // Instance config key for the maximum estimated size of the segment level results cached for immutable segments
+  // Set as pinot.server.query.executor.segment.result.cache.max.size.bytes (0 disables the cache)
+  public static final String SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES_KEY = "segment.result.cache.max.size.bytes";
+  public static final long DEFAULT_SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES = 0L;
+  // Instance config key for the maximum size of the predicate bitmaps cached for each immutable segment
+  // Set as pinot.server.query.executor.filter.bitmap.cache.max.size.bytes.per.segment (0 disables the cache)
+  public static final String FILTER_BITMAP_CACHE_MAX_SIZE_BYTES_PER_SEGMENT_KEY =
+      "filter.bitmap.cache.max.size.bytes.per.segment";
+  public static final long DEFAULT_FILTER_BITMAP_CACHE_MAX_SIZE_BYTES_PER_SEGMENT = 0L;
+  // Instance config key for the number of docs per morsel when splitting large immutable segments to process them in
+  // parallel, which can be overridden by the query option
+  // Set as pinot.server.query.executor.morsel.size (0 disables the splitting)
+  public static final String MORSEL_SIZE_KEY = "morsel.size";
+  public static final int DEFAULT_MORSEL_SIZE = 0;
+  // Instance config key for whether to reorder the AND filter children and choose between index and scan based on the
+  // selectivity of the predicates observed at runtime, which can be overridden by the query option
+  // Set as pinot.server.query.executor.adaptive.filter.reordering.enabled
+  public static final String ADAPTIVE_FILTER_REORDERING_ENABLED_KEY = "adaptive.filter.reordering.enabled";
+  public static final boolean DEFAULT_ADAPTIVE_FILTER_REORDERING_ENABLED = false;
+  // Instance config key for whether to fetch the non-order-by selected values of the selection order-by queries after
+  // merging the rows of all the segments, which can be overridden by the query option
+  // Set as pinot.server.query.executor.defer.selection.materialization.enabled
+  public static final String DEFER_SELECTION_MATERIALIZATION_ENABLED_KEY = "defer.selection.materialization.enabled";
+  public static final boolean DEFAULT_DEFER_SELECTION_MATERIALIZATION_ENABLED = false;
+  // Instance config key for the maximum memory the group-by operators of a query can reserve, beyond which the query is
+  // failed, which can be overridden by the query option
+  // Set as pinot.server.query.executor.groupby.memory.budget.bytes (0 disables the budget)
+  public static final String GROUPBY_MEMORY_BUDGET_BYTES_KEY = "groupby.memory.budget.bytes";
+  public static final long DEFAULT_GROUPBY_MEMORY_BUDGET_BYTES = 0L;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(InstancePlanMakerImplV2.class);
 
@@ -99,6 +137,13 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
   private int _minSegmentGroupTrimSize = DEFAULT_MIN_SEGMENT_GROUP_TRIM_SIZE;
   private int _minServerGroupTrimSize = DEFAULT_MIN_SERVER_GROUP_TRIM_SIZE;
   private int _groupByTrimThreshold = DEFAULT_GROUPBY_TRIM_THRESHOLD;
+  private SegmentResultCache _segmentResultCache;
+  private FilterBitmapCache _filterBitmapCache;
+  private int _morselSize = DEFAULT_MORSEL_SIZE;
+  private boolean _adaptiveFilterReorderingEnabled = DEFAULT_ADAPTIVE_FILTER_REORDERING_ENABLED;
+  private final FilterSelectivityStats _filterSelectivityStats = new FilterSelectivityStats();
+  private boolean _deferSelectionMaterializationEnabled = DEFAULT_DEFER_SELECTION_MATERIALIZATION_ENABLED;
+  private long _groupByMemoryBudgetBytes = DEFAULT_GROUPBY_MEMORY_BUDGET_BYTES;
 
   public InstancePlanMakerImplV2() {
   }
@@ -129,15 +174,56 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     _groupByTrimThreshold = queryExecutorConfig.getProperty(GROUPBY_TRIM_THRESHOLD_KEY, DEFAULT_GROUPBY_TRIM_THRESHOLD);
     Preconditions.checkState(_groupByTrimThreshold > 0,
         "Invalid configurable: groupByTrimThreshold: %d must be positive", _groupByTrimThreshold);
+    long segmentResultCacheMaxSizeBytes = queryExecutorConfig.getProperty(SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES_KEY,
+        DEFAULT_SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES);
+    if (segmentResultCacheMaxSizeBytes > 0) {
+      _segmentResultCache = new SegmentResultCache(segmentResultCacheMaxSizeBytes);
+    }
+    long filterBitmapCacheMaxSizeBytesPerSegment =
+        queryExecutorConfig.getProperty(FILTER_BITMAP_CACHE_MAX_SIZE_BYTES_PER_SEGMENT_KEY,
+            DEFAULT_FILTER_BITMAP_CACHE_MAX_SIZE_BYTES_PER_SEGMENT);
+    if (filterBitmapCacheMaxSizeBytesPerSegment > 0) {
+      _filterBitmapCache = new FilterBitmapCache(filterBitmapCacheMaxSizeBytesPerSegment);
+    }
+    _morselSize = queryExecutorConfig.getProperty(MORSEL_SIZE_KEY, DEFAULT_MORSEL_SIZE);
+    _adaptiveFilterReorderingEnabled = queryExecutorConfig.getProperty(ADAPTIVE_FILTER_REORDERING_ENABLED_KEY,
+        DEFAULT_ADAPTIVE_FILTER_REORDERING_ENABLED);
+    _deferSelectionMaterializationEnabled = queryExecutorConfig.getProperty(DEFER_SELECTION_MATERIALIZATION_ENABLED_KEY,
+        DEFAULT_DEFER_SELECTION_MATERIALIZATION_ENABLED);
+    _groupByMemoryBudgetBytes =
+        queryExecutorConfig.getProperty(GROUPBY_MEMORY_BUDGET_BYTES_KEY, DEFAULT_GROUPBY_MEMORY_BUDGET_BYTES);
     LOGGER.info("Initialized plan maker with maxExecutionThreads: {}, maxInitialResultHolderCapacity: {}, "
-            + "numGroupsLimit: {}, minSegmentGroupTrimSize: {}, minServerGroupTrimSize: {}, groupByTrimThreshold: {}",
-        _maxExecutionThreads, _maxInitialResultHolderCapacity, _numGroupsLimit, _minSegmentGroupTrimSize,
-        _minServerGroupTrimSize, _groupByTrimThreshold);
+            + "numGroupsLimit: {}, minSegmentGroupTrimSize: {}, minServerGroupTrimSize: {}, groupByTrimThreshold: {}, "
+            + "segmentResultCacheMaxSizeBytes: {}, filterBitmapCacheMaxSizeBytesPerSegment: {}, morselSize: {}, "
+            + "adaptiveFilterReorderingEnabled: {}, deferSelectionMaterializationEnabled: {}, "
+            + "groupByMemoryBudgetBytes: {}", _maxExecutionThreads, _maxInitialResultHolderCapacity, _numGroupsLimit,
+        _minSegmentGroupTrimSize, _minServerGroupTrimSize, _groupByTrimThreshold, segmentResultCacheMaxSizeBytes,
+        filterBitmapCacheMaxSizeBytesPerSegment, _morselSize, _adaptiveFilterReorderingEnabled,
+        _deferSelectionMaterializationEnabled, _groupByMemoryBudgetBytes);
+  }
+
+  @VisibleForTesting
+  @Nullable
+  public SegmentResultCache getSegmentResultCache() {
+    return _segmentResultCache;
+  }
+
+  @VisibleForTesting
+  @Nullable
+  public FilterBitmapCache getFilterBitmapCache() {
+    return _filterBitmapCache;
+  }
+
+  @VisibleForTesting
+  public FilterSelectivityStats getFilterSelectivityStats() {
+    return _filterSelectivityStats;
   }
 
   public Plan makeInstancePlan(List<SegmentContext> segmentContexts, QueryContext queryContext,
       ExecutorService executorService, ServerMetrics serverMetrics) {
     applyQueryOptions(queryContext);
+    String queryFingerprint =
+        _segmentResultCache != null ? SegmentResultCache.getQueryFingerprint(queryContext) : null;
 
     int numSegments = segmentContexts.size();
     List<PlanNode> planNodes = new ArrayList<>(numSegments);
@@ -149,13 +235,19 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
             _fetchPlanner.planFetchForProcessing(segmentContext.getIndexSegment(), queryContext);
         fetchContexts.add(fetchContext);
         planNodes.add(
-            new AcquireReleaseColumnsSegmentPlanNode(makeSegmentPlanNode(segmentContext, queryContext), segmentContext,
+            new AcquireReleaseColumnsSegmentPlanNode(
+                makeSegmentPlanNode(segmentContext, queryContext, queryFingerprint), segmentContext,
                 fetchContext));
       }
     } else {
       fetchContexts = Collections.emptyList();
+      int morselSize = getMorselSize(queryContext);
       for (SegmentContext segmentContext : segmentContexts) {
-        planNodes.add(makeSegmentPlanNode(segmentContext, queryContext));
+        if (canSplitIntoMorsels(segmentContext.getIndexSegment(), queryContext, morselSize)) {
+          addMorselPlanNodes(planNodes, segmentContext, queryContext, morselSize);
+        } else {
+          planNodes.add(makeSegmentPlanNode(segmentContext, queryContext, queryFingerprint));
+        }
       }
     }
 
@@ -164,6 +256,47 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
         new InstanceResponsePlanNode(combinePlanNode, segmentContexts, fetchContexts, queryContext));
   }
 
+  private int getMorselSize(QueryContext queryContext) {
+    Integer morselSizeFromQuery = QueryOptionsUtils.getMorselSize(queryContext.getQueryOptions());
+    return morselSizeFromQuery != null ? morselSizeFromQuery : _morselSize;
+  }
+
+  /**
+   * Returns {@code true} if the segment can be split into morsels processed in parallel. Only immutable segments larger
+   * than the morsel size are split, and only for aggregation, group-by and selection queries whose per-morsel results
+   * are merged by the combine operator. Segments with star-trees are not split because the star-tree based operators
+   * always process the whole segment.
+   */
+  private static boolean canSplitIntoMorsels(IndexSegment indexSegment, QueryContext queryContext, int morselSize) {
+    if (morselSize <= 0 || !(indexSegment instanceof ImmutableSegment)
+        || indexSegment.getSegmentMetadata().getTotalDocs() <= morselSize) {
+      return false;
+    }
+    if (QueryContextUtils.isTimeSeriesQuery(queryContext) || (!QueryContextUtils.isAggregationQuery(queryContext)
+        && !QueryContextUtils.isSelectionQuery(queryContext))) {
+      return false;
+    }
+    return indexSegment.getStarTrees() == null || queryContext.isSkipStarTree();
+  }
+
+  /**
+   * Splits the segment into morsels of {@code morselSize} docs, and adds a plan node for each of them. The combine
+   * operator hands out the plan nodes to the query workers on demand, so that the morsels of large segments are
+   * balanced across the workers. The segment result cache is bypassed because the results only cover a morsel.
+   */
+  private void addMorselPlanNodes(List<PlanNode> planNodes, SegmentContext segmentContext, QueryContext queryContext,
+      int morselSize) {
+    IndexSegment indexSegment = segmentContext.getIndexSegment();
+    int numDocs = indexSegment.getSegmentMetadata().getTotalDocs();
+    for (int start = 0; start < numDocs; start += morselSize) {
+      SegmentContext morselContext = new SegmentContext(indexSegment);
+      morselContext.setQueryableDocIdsSnapshot(segmentContext.getQueryableDocIdsSnapshot());
+      morselContext.setDocIdRange(start, Math.min(start + morselSize, numDocs));
+      planNodes.add(
+          new SegmentMorselPlanNode(makeSegmentPlanNode(morselContext, queryContext), segmentContext, morselContext));
+    }
+  }
+
   private void applyQueryOptions(QueryContext queryContext) {
     Map<String, String> queryOptions = queryContext.getQueryOptions();
 
@@ -178,6 +311,22 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
 
     queryContext.setSkipIndexes(QueryOptionsUtils.getSkipIndexes(queryOptions));
 
+    queryContext.setFilterBitmapCache(_filterBitmapCache);
+
+    // Set filterSelectivityStats
+    Boolean useAdaptiveFilterReordering = QueryOptionsUtils.isUseAdaptiveFilterReordering(queryOptions);
+    if (useAdaptiveFilterReordering != null ? useAdaptiveFilterReordering : _adaptiveFilterReorderingEnabled) {
+      queryContext.setFilterSelectivityStats(_filterSelectivityStats);
+    }
+
+    // Set deferSelectionMaterialization
+    // NOTE: Not supported with prefetch because the columns are released right after each segment is processed
+    if (!queryContext.isEnablePrefetch()) {
+      Boolean deferMaterialization = QueryOptionsUtils.isDeferSelectionMaterialization(queryOptions);
+      queryContext.setDeferSelectionMaterialization(
+          deferMaterialization != null ? deferMaterialization : _deferSelectionMaterializationEnabled);
+    }
+
     // Set maxExecutionThreads
     int maxExecutionThreads;
     Integer maxExecutionThreadsFromQuery = QueryOptionsUtils.getMaxExecutionThreads(queryOptions);
@@ -228,7 +377,37 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
       } else {
         queryContext.setGroupTrimThreshold(_groupByTrimThreshold);
       }
+      // Set memoryBudget
+      Long groupByMemoryBudgetBytesFromQuery = QueryOptionsUtils.getGroupByMemoryBudgetBytes(queryOptions);
+      long groupByMemoryBudgetBytes =
+          groupByMemoryBudgetBytesFromQuery != null ? groupByMemoryBudgetBytesFromQuery : _groupByMemoryBudgetBytes;
+      if (groupByMemoryBudgetBytes > 0) {
+        queryContext.setMemoryBudget(new QueryMemoryBudget(groupByMemoryBudgetBytes));
+      }
+    }
+  }
+
+  /**
+   * Makes the segment level plan node, and serves the segment from the segment result cache when possible. On a cache
+   * hit, the segment is not planned.
+   */
+  private PlanNode makeSegmentPlanNode(SegmentContext segmentContext, QueryContext queryContext,
+      @Nullable String queryFingerprint) {
+    if (queryFingerprint != null) {
+      SegmentResultCache.CacheKey cacheKey = SegmentResultCache.getKey(queryFingerprint, segmentContext);
+      if (cacheKey != null) {
+        SegmentResultCache.CachedResult cachedResult = _segmentResultCache.get(cacheKey);
+        if (cachedResult != null) {
+          ServerMetrics.get().addMeteredGlobalValue(ServerMeter.SEGMENT_RESULT_CACHE_HITS, 1);
+          return new SegmentResultCachePlanNode(_segmentResultCache, cacheKey, cachedResult, null, segmentContext,
+              queryContext);
+        }
+        ServerMetrics.get().addMeteredGlobalValue(ServerMeter.SEGMENT_RESULT_CACHE_MISSES, 1);
+        return new SegmentResultCachePlanNode(_segmentResultCache, cacheKey, null,
+            makeSegmentPlanNode(segmentContext, queryContext), segmentContext, queryContext);
+      }
     }
+    return makeSegmentPlanNode(segmentContext, queryContext);
   }
 
   @Override
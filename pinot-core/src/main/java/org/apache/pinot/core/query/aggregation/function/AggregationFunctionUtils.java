@@ -332,6 +332,15 @@ public class AggregationFunctionUtils {
     Map<FilterContext, FilteredAggregationContext> filteredAggregationContexts = new HashMap<>();
     List<AggregationFunction> nonFilteredFunctions = new ArrayList<>();
     FilterContext mainFilter = queryContext.getFilter();
+    // The docId range of the morsel is already applied by the main filter, so it is not applied to the sub-filters to
+    // keep the sub-filters matching all the docs mergeable into the main filter
+    SegmentContext subFilterSegmentContext;
+    if (segmentContext.hasDocIdRange()) {
+      subFilterSegmentContext = new SegmentContext(segmentContext.getIndexSegment());
+      subFilterSegmentContext.setQueryableDocIdsSnapshot(segmentContext.getQueryableDocIdsSnapshot());
+    } else {
+      subFilterSegmentContext = segmentContext;
+    }
     for (Pair<AggregationFunction, FilterContext> functionFilterPair : queryContext.getFilteredAggregationFunctions()) {
       AggregationFunction aggregationFunction = functionFilterPair.getLeft();
       FilterContext filter = functionFilterPair.getRight();
@@ -344,7 +353,7 @@ public class AggregationFunctionUtils {
             combinedFilter = FilterContext.forAnd(List.of(mainFilter, filter));
           }
 
-          FilterPlanNode subFilterPlan = new FilterPlanNode(segmentContext, queryContext, filter);
+          FilterPlanNode subFilterPlan = new FilterPlanNode(subFilterSegmentContext, queryContext, filter);
           BaseFilterOperator subFilterOperator = subFilterPlan.run();
           BaseFilterOperator combinedFilterOperator;
           if (mainFilterOperator.isResultMatchingAll() || subFilterOperator.isResultEmpty()) {
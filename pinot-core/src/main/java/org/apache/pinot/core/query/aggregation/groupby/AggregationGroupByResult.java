@@ -40,6 +40,10 @@ public class AggregationGroupByResult {
     _resultHolders = resultHolders;
   }
 
+  public GroupKeyGenerator getGroupKeyGenerator() {
+    return _groupKeyGenerator;
+  }
+
   /**
    * Returns an iterator of {@link GroupKeyGenerator.GroupKey}.
    */
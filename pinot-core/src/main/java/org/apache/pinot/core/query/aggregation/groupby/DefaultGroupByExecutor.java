@@ -32,6 +32,7 @@ import org.apache.pinot.core.plan.DocIdSetPlanNode;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunctionUtils;
 import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.util.QueryMemoryBudget;
 
 
 /**
@@ -58,6 +59,11 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
   protected final boolean _hasMVGroupByExpression;
   protected final int[] _svGroupKeys;
   protected final int[][] _mvGroupKeys;
+  protected final QueryMemoryBudget _memoryBudget;
+  protected final long _groupSizeInBytes;
+
+  // Number of groups reserved from the memory budget, tracked as the result holders grow
+  protected int _numReservedGroups;
 
   public DefaultGroupByExecutor(QueryContext queryContext, ExpressionContext[] groupByExpressions,
       BaseProjectOperator<?> projectOperator) {
@@ -125,6 +131,10 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
       _svGroupKeys = THREAD_LOCAL_SV_GROUP_KEYS.get();
       _mvGroupKeys = null;
     }
+
+    _memoryBudget = queryContext.getMemoryBudget();
+    _groupSizeInBytes =
+        _memoryBudget != null ? QueryMemoryBudget.estimateGroupSizeInBytes(_aggregationFunctions) : 0;
   }
 
   @Override
@@ -138,6 +148,7 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
     }
 
     int capacityNeeded = _groupKeyGenerator.getCurrentGroupKeyUpperBound();
+    reserveMemory(capacityNeeded);
     int length = valueBlock.getNumDocs();
     int numAggregationFunctions = _aggregationFunctions.length;
     for (int i = 0; i < numAggregationFunctions; i++) {
@@ -147,6 +158,17 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
     }
   }
 
+  /**
+   * Reserves the memory for the groups added to the result holders from the query memory budget, if configured. Throws
+   * {@link org.apache.pinot.spi.exception.QueryMemoryBudgetExceededException} when the budget is exceeded.
+   */
+  protected void reserveMemory(int numGroups) {
+    if (_memoryBudget != null && numGroups > _numReservedGroups) {
+      _memoryBudget.reserve((numGroups - _numReservedGroups) * _groupSizeInBytes, "grouping segment results");
+      _numReservedGroups = numGroups;
+    }
+  }
+
   protected void aggregate(ValueBlock valueBlock, int length, int functionIndex) {
     AggregationFunction aggregationFunction = _aggregationFunctions[functionIndex];
     Map<ExpressionContext, BlockValSet> blockValSetMap =
@@ -174,6 +196,11 @@ public class DefaultGroupByExecutor implements GroupByExecutor {
     return tableResizer.trimInSegmentResults(_groupKeyGenerator, _groupByResultHolders, trimSize);
   }
 
+  @Override
+  public long getReservedMemoryBytes() {
+    return _numReservedGroups * _groupSizeInBytes;
+  }
+
   @Override
   public GroupKeyGenerator getGroupKeyGenerator() {
     return _groupKeyGenerator;
@@ -19,6 +19,7 @@
 package org.apache.pinot.core.query.aggregation.groupby;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.longs.Long2IntMap;
 import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
@@ -215,6 +216,43 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     return _rawKeyHolder.getNumKeys();
   }
 
+  public Dictionary[] getDictionaries() {
+    return _dictionaries;
+  }
+
+  public int[] getCardinalities() {
+    return _cardinalities;
+  }
+
+  /**
+   * Returns {@code true} if the raw keys fit into long (all the cases except ARRAY_MAP_BASED), in which case they can
+   * be iterated with {@link #getRawGroupKeys()}.
+   * <p>The raw key is encoded from the dictionary ids of the group-by columns as
+   * {@code sum(dictId[i] * product(cardinality[j] for j < i))}, so generators with the same dictionaries (e.g. for the
+   * morsels of the same segment) produce consistent raw keys, and their results can be merged without decoding the
+   * group key values.
+   */
+  public boolean hasLongRawKeys() {
+    return _rawKeyHolder instanceof LongRawKeyHolder;
+  }
+
+  /**
+   * Returns an iterator of {@link RawGroupKey}, which holds the group id and the raw key of each group without decoding
+   * the group key values. Should be called only when {@link #hasLongRawKeys()} returns {@code true}.
+   */
+  public Iterator<RawGroupKey> getRawGroupKeys() {
+    Preconditions.checkState(hasLongRawKeys(), "Raw keys are not available when they cannot fit into long");
+    return ((LongRawKeyHolder) _rawKeyHolder).getRawGroupKeys();
+  }
+
+  /**
+   * Group id and the raw key (encoded from the dictionary ids) of a group.
+   */
+  public static class RawGroupKey {
+    public int _groupId;
+    public long _rawKey;
+  }
+
   private interface RawKeyHolder {
 
     /**
@@ -251,7 +289,18 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     int getNumKeys();
   }
 
-  private class ArrayBasedHolder implements RawKeyHolder {
+  /**
+   * Holder of the raw keys that fit into long, which can be iterated without decoding the group key values.
+   */
+  private interface LongRawKeyHolder extends RawKeyHolder {
+
+    /**
+     * Returns an iterator of {@link RawGroupKey}. Use this interface to iterate through all the raw keys.
+     */
+    Iterator<RawGroupKey> getRawGroupKeys();
+  }
+
+  private class ArrayBasedHolder implements LongRawKeyHolder {
     private final boolean[] _flags = new boolean[_globalGroupIdUpperBound];
     private int _numKeys = 0;
 
@@ -376,13 +425,44 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
       };
     }
 
+    @Override
+    public Iterator<RawGroupKey> getRawGroupKeys() {
+      return new Iterator<RawGroupKey>() {
+        private int _currentGroupId;
+        private final RawGroupKey _rawGroupKey = new RawGroupKey();
+
+        {
+          while (_currentGroupId < _globalGroupIdUpperBound && !_flags[_currentGroupId]) {
+            _currentGroupId++;
+          }
+        }
+
+        @Override
+        public boolean hasNext() {
+          return _currentGroupId < _globalGroupIdUpperBound;
+        }
+
+        @Override
+        public RawGroupKey next() {
+          // Raw key is used as the group id
+          _rawGroupKey._groupId = _currentGroupId;
+          _rawGroupKey._rawKey = _currentGroupId;
+          _currentGroupId++;
+          while (_currentGroupId < _globalGroupIdUpperBound && !_flags[_currentGroupId]) {
+            _currentGroupId++;
+          }
+          return _rawGroupKey;
+        }
+      };
+    }
+
     @Override
     public int getNumKeys() {
       return _numKeys;
     }
   }
 
-  private class IntMapBasedHolder implements RawKeyHolder {
+  private class IntMapBasedHolder implements LongRawKeyHolder {
     private final IntGroupIdMap _groupIdMap;
 
     public IntMapBasedHolder(IntGroupIdMap groupIdMap) {
@@ -457,6 +537,27 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
       };
     }
 
+    @Override
+    public Iterator<RawGroupKey> getRawGroupKeys() {
+      return new Iterator<RawGroupKey>() {
+        private final Iterator<IntGroupIdMap.Entry> _iterator = _groupIdMap.iterator();
+        private final RawGroupKey _rawGroupKey = new RawGroupKey();
+
+        @Override
+        public boolean hasNext() {
+          return _iterator.hasNext();
+        }
+
+        @Override
+        public RawGroupKey next() {
+          IntGroupIdMap.Entry entry = _iterator.next();
+          _rawGroupKey._groupId = entry._groupId;
+          _rawGroupKey._rawKey = entry._rawKey;
+          return _rawGroupKey;
+        }
+      };
+    }
+
     @Override
     public int getNumKeys() {
       return _groupIdMap.size();
@@ -595,7 +696,7 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     }
   }
 
-  private class LongMapBasedHolder implements RawKeyHolder {
+  private class LongMapBasedHolder implements LongRawKeyHolder {
     private final Long2IntOpenHashMap _groupIdMap;
 
     public LongMapBasedHolder(Long2IntOpenHashMap groupIdMap) {
@@ -667,6 +768,27 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
       };
     }
 
+    @Override
+    public Iterator<RawGroupKey> getRawGroupKeys() {
+      return new Iterator<RawGroupKey>() {
+        private final ObjectIterator<Long2IntMap.Entry> _iterator = _groupIdMap.long2IntEntrySet().fastIterator();
+        private final RawGroupKey _rawGroupKey = new RawGroupKey();
+
+        @Override
+        public boolean hasNext() {
+          return _iterator.hasNext();
+        }
+
+        @Override
+        public RawGroupKey next() {
+          Long2IntMap.Entry entry = _iterator.next();
+          _rawGroupKey._groupId = entry.getIntValue();
+          _rawGroupKey._rawKey = entry.getLongKey();
+          return _rawGroupKey;
+        }
+      };
+    }
+
     @Override
     public int getNumKeys() {
       return _groupIdMap.size();
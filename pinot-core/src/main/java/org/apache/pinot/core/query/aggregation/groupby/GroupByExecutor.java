@@ -57,6 +57,14 @@ public interface GroupByExecutor {
    */
   Collection<IntermediateRecord> trimGroupByResult(int trimSize, TableResizer tableResizer);
 
+  /**
+   * Returns the memory reserved from the query memory budget for the groups held by this executor, which should be
+   * released once the results are merged.
+   */
+  default long getReservedMemoryBytes() {
+    return 0;
+  }
+
   GroupKeyGenerator getGroupKeyGenerator();
 
   GroupByResultHolder[] getGroupByResultHolders();
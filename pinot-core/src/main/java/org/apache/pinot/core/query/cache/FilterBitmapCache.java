@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.cache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.common.request.context.predicate.Predicate;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+
+/**
+ * The {@code FilterBitmapCache} caches the matching doc ids of the leaf predicates evaluated on immutable segments, so
+ * that hot predicates (e.g. {@code tenantId = 'x'}) shared by many queries are only evaluated once per segment.
+ * <p>Each segment has its own LRU cache bounded by the serialized size of the cached bitmaps. The per-segment caches
+ * are weakly keyed on the segment instance: once a segment is unloaded or replaced by a reloaded instance, its cache is
+ * no longer reachable and gets dropped. Valid doc ids (upsert) are applied on top of the filter and are not part of the
+ * cached bitmaps.
+ * <p>Predicates evaluated with an index are cached on the first miss since the bitmap is built anyway. Predicates
+ * evaluated with a scan are only cached once they are seen again on the same segment, because materializing the full
+ * bitmap can cost more than the lazy scan within an AND.
+ */
+@ThreadSafe
+public class FilterBitmapCache {
+  // Max number of distinct scan-based predicates tracked per segment for admission
+  private static final int MAX_SCAN_PREDICATES_TRACKED = 1000;
+
+  private final long _maxSizeInBytesPerSegment;
+  private final Cache<IndexSegment, SegmentBitmapCache> _segmentCaches = CacheBuilder.newBuilder().weakKeys().build();
+
+  public FilterBitmapCache(long maxSizeInBytesPerSegment) {
+    _maxSizeInBytesPerSegment = maxSizeInBytesPerSegment;
+  }
+
+  /**
+   * Returns the cache key of the given predicate, or {@code null} if its result cannot be cached for the segment.
+   */
+  @Nullable
+  public static String getKey(IndexSegment indexSegment, QueryContext queryContext, Predicate predicate) {
+    if (!(indexSegment instanceof ImmutableSegment) || queryContext.isNullHandlingEnabled()) {
+      return null;
+    }
+    return predicate.toString();
+  }
+
+  @Nullable
+  public ImmutableRoaringBitmap get(IndexSegment indexSegment, String key) {
+    SegmentBitmapCache segmentCache = _segmentCaches.getIfPresent(indexSegment);
+    return segmentCache != null ? segmentCache._bitmaps.getIfPresent(key) : null;
+  }
+
+  /**
+   * Records a miss on a scan-based predicate, and returns {@code true} if its result should be cached (i.e. the
+   * predicate has been seen before on the segment).
+   */
+  public boolean admitScan(IndexSegment indexSegment, String key) {
+    Cache<String, Boolean> scanPredicates = getSegmentCache(indexSegment)._scanPredicates;
+    if (scanPredicates.getIfPresent(key) != null) {
+      scanPredicates.invalidate(key);
+      return true;
+    }
+    scanPredicates.put(key, Boolean.TRUE);
+    return false;
+  }
+
+  public void put(IndexSegment indexSegment, String key, ImmutableRoaringBitmap bitmap) {
+    getSegmentCache(indexSegment)._bitmaps.put(key, bitmap);
+  }
+
+  /**
+   * Returns the total number of cached bitmaps.
+   */
+  @VisibleForTesting
+  public long size() {
+    long size = 0;
+    for (SegmentBitmapCache segmentCache : _segmentCaches.asMap().values()) {
+      size += segmentCache._bitmaps.size();
+    }
+    return size;
+  }
+
+  private SegmentBitmapCache getSegmentCache(IndexSegment indexSegment) {
+    return _segmentCaches.asMap().computeIfAbsent(indexSegment, k -> new SegmentBitmapCache(_maxSizeInBytesPerSegment));
+  }
+
+  /**
+   * Holds the cached bitmaps of a segment. Must not reference the segment, otherwise it can never be garbage collected.
+   */
+  private static class SegmentBitmapCache {
+    final Cache<String, ImmutableRoaringBitmap> _bitmaps;
+    final Cache<String, Boolean> _scanPredicates;
+
+    SegmentBitmapCache(long maxSizeInBytes) {
+      _bitmaps = CacheBuilder.newBuilder().maximumWeight(maxSizeInBytes)
+          .weigher((String key, ImmutableRoaringBitmap bitmap) -> key.length() + bitmap.serializedSizeInBytes())
+          .build();
+      _scanPredicates = CacheBuilder.newBuilder().maximumSize(MAX_SCAN_PREDICATES_TRACKED).build();
+    }
+  }
+}
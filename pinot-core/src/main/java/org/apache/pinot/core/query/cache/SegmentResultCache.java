@@ -0,0 +1,344 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.cache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
+import org.apache.pinot.core.common.ObjectSerDeUtils;
+import org.apache.pinot.core.data.table.IntermediateRecord;
+import org.apache.pinot.core.data.table.Key;
+import org.apache.pinot.core.data.table.Record;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.results.AggregationResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
+import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import org.apache.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextUtils;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.SegmentContext;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.apache.pinot.spi.utils.CommonConstants.Broker.Request;
+import org.apache.pinot.spi.utils.CommonConstants.Broker.Request.QueryOptionKey;
+
+
+/**
+ * The {@code SegmentResultCache} caches the segment level results (the results blocks consumed by the combine operator)
+ * of the aggregation and group-by queries on immutable segments, so that repeated queries only process the segments
+ * they have not seen before.
+ * <p>The entries are keyed on a fingerprint of the query and the name and CRC of the segment, so that a segment
+ * reloaded with new data never reuses the results of its previous version. The intermediate results that can be
+ * modified when merged in the combine operator are kept serialized, and deserialized on each hit. The cache is bounded
+ * by the estimated size of the cached results.
+ * <p>Segments with valid doc ids (upsert) are not cached because their content changes without changing the CRC.
+ */
+@ThreadSafe
+public class SegmentResultCache {
+  // Query options that don't affect the segment level results
+  private static final Set<String> IGNORED_QUERY_OPTIONS =
+      Set.of(QueryOptionKey.TIMEOUT_MS, Request.TRACE, QueryOptionKey.MAX_EXECUTION_THREADS,
+          QueryOptionKey.MAX_SERVER_RESPONSE_SIZE_BYTES, QueryOptionKey.MAX_QUERY_RESPONSE_SIZE_BYTES,
+          QueryOptionKey.SERVER_RETURN_FINAL_RESULT);
+  // Rough estimate of the object header and reference overhead
+  private static final int OBJECT_OVERHEAD = 16;
+
+  private final Cache<CacheKey, CachedResult> _cache;
+
+  public SegmentResultCache(long maxSizeInBytes) {
+    _cache = CacheBuilder.newBuilder().maximumWeight(maxSizeInBytes)
+        .weigher((CacheKey key, CachedResult cachedResult) -> (int) Math.min(cachedResult._sizeInBytes,
+            Integer.MAX_VALUE)).build();
+  }
+
+  /**
+   * Returns the fingerprint of the query used in the cache key, or {@code null} if the segment level results of the
+   * query cannot be cached. Only aggregation and group-by queries without null handling are cached.
+   */
+  @Nullable
+  public static String getQueryFingerprint(QueryContext queryContext) {
+    if (!QueryContextUtils.isAggregationQuery(queryContext) || queryContext.isExplain()
+        || queryContext.isNullHandlingEnabled()) {
+      return null;
+    }
+    Map<String, String> queryOptions = queryContext.getQueryOptions();
+    Map<String, String> sortedQueryOptions = new TreeMap<>();
+    if (queryOptions != null) {
+      if (QueryOptionsUtils.isSkipSegmentResultCache(queryOptions)) {
+        return null;
+      }
+      for (Map.Entry<String, String> entry : queryOptions.entrySet()) {
+        if (!IGNORED_QUERY_OPTIONS.contains(entry.getKey())) {
+          sortedQueryOptions.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    return "table=" + queryContext.getTableName() + ", select=" + queryContext.getSelectExpressions() + ", filter="
+        + queryContext.getFilter() + ", groupBy=" + queryContext.getGroupByExpressions() + ", orderBy="
+        + queryContext.getOrderByExpressions() + ", limit=" + queryContext.getLimit() + ", options="
+        + sortedQueryOptions + ", expressionOverrideHints=" + queryContext.getExpressionOverrideHints();
+  }
+
+  /**
+   * Returns the cache key for the given query fingerprint and segment, or {@code null} if the segment is not cacheable.
+   */
+  @Nullable
+  public static CacheKey getKey(String queryFingerprint, SegmentContext segmentContext) {
+    IndexSegment indexSegment = segmentContext.getIndexSegment();
+    if (!(indexSegment instanceof ImmutableSegment) || indexSegment.getValidDocIds() != null
+        || segmentContext.getQueryableDocIdsSnapshot() != null) {
+      return null;
+    }
+    String crc = indexSegment.getSegmentMetadata().getCrc();
+    return crc != null ? new CacheKey(queryFingerprint, indexSegment.getSegmentName(), crc) : null;
+  }
+
+  @Nullable
+  public CachedResult get(CacheKey key) {
+    return _cache.getIfPresent(key);
+  }
+
+  /**
+   * Caches the given segment level results block. Results that cannot be serialized are not cached.
+   */
+  public void put(CacheKey key, BaseResultsBlock resultsBlock, ExecutionStatistics executionStatistics) {
+    CachedResult cachedResult;
+    try {
+      if (resultsBlock instanceof AggregationResultsBlock) {
+        cachedResult = CachedResult.of((AggregationResultsBlock) resultsBlock, executionStatistics);
+      } else if (resultsBlock instanceof GroupByResultsBlock) {
+        cachedResult = CachedResult.of((GroupByResultsBlock) resultsBlock, executionStatistics);
+      } else {
+        return;
+      }
+    } catch (IllegalArgumentException e) {
+      // Intermediate result not supported by ObjectSerDeUtils
+      return;
+    }
+    if (cachedResult != null) {
+      _cache.put(key, cachedResult);
+    }
+  }
+
+  @VisibleForTesting
+  public long size() {
+    return _cache.size();
+  }
+
+  /**
+   * Returns the value to be cached. Immutable values are cached as is, other values are serialized.
+   */
+  @Nullable
+  private static Object encode(@Nullable Object value) {
+    if (value == null || value instanceof Integer || value instanceof Long || value instanceof Float
+        || value instanceof Double || value instanceof BigDecimal || value instanceof String
+        || value instanceof ByteArray) {
+      return value;
+    }
+    ObjectSerDeUtils.ObjectType objectType = ObjectSerDeUtils.ObjectType.getObjectType(value);
+    return new SerializedValue(objectType, ObjectSerDeUtils.serialize(value, objectType.getValue()));
+  }
+
+  @Nullable
+  private static Object decode(@Nullable Object value) {
+    if (value instanceof SerializedValue) {
+      SerializedValue serializedValue = (SerializedValue) value;
+      return ObjectSerDeUtils.deserialize(serializedValue._bytes, serializedValue._objectType);
+    }
+    return value;
+  }
+
+  private static long estimateSize(@Nullable Object value) {
+    if (value instanceof SerializedValue) {
+      return OBJECT_OVERHEAD + ((SerializedValue) value)._bytes.length;
+    }
+    if (value instanceof String) {
+      return OBJECT_OVERHEAD + 2L * ((String) value).length();
+    }
+    if (value instanceof ByteArray) {
+      return OBJECT_OVERHEAD + ((ByteArray) value).length();
+    }
+    return OBJECT_OVERHEAD;
+  }
+
+  private static long estimateSize(Object[] values) {
+    long sizeInBytes = OBJECT_OVERHEAD;
+    for (Object value : values) {
+      sizeInBytes += estimateSize(value);
+    }
+    return sizeInBytes;
+  }
+
+  public static final class CacheKey {
+    private final String _queryFingerprint;
+    private final String _segmentName;
+    private final String _crc;
+
+    private CacheKey(String queryFingerprint, String segmentName, String crc) {
+      _queryFingerprint = queryFingerprint;
+      _segmentName = segmentName;
+      _crc = crc;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey key = (CacheKey) o;
+      return _queryFingerprint.equals(key._queryFingerprint) && _segmentName.equals(key._segmentName) && _crc.equals(
+          key._crc);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_queryFingerprint, _segmentName, _crc);
+    }
+  }
+
+  private static final class SerializedValue {
+    final ObjectSerDeUtils.ObjectType _objectType;
+    final byte[] _bytes;
+
+    SerializedValue(ObjectSerDeUtils.ObjectType objectType, byte[] bytes) {
+      _objectType = objectType;
+      _bytes = bytes;
+    }
+  }
+
+  /**
+   * Segment level result stored in the cache, along with the execution statistics of the segment.
+   */
+  public static final class CachedResult {
+    // For aggregation queries, the only row contains the aggregation results; for group-by queries, each row contains
+    // the group keys followed by the aggregation results
+    private final DataSchema _dataSchema;
+    private final List<Object[]> _rows;
+    private final boolean _groupBy;
+    private final boolean _numGroupsLimitReached;
+    private final ExecutionStatistics _executionStatistics;
+    private final long _sizeInBytes;
+
+    private CachedResult(@Nullable DataSchema dataSchema, List<Object[]> rows, boolean groupBy,
+        boolean numGroupsLimitReached, ExecutionStatistics executionStatistics) {
+      _dataSchema = dataSchema;
+      _rows = rows;
+      _groupBy = groupBy;
+      _numGroupsLimitReached = numGroupsLimitReached;
+      _executionStatistics = executionStatistics;
+      long sizeInBytes = OBJECT_OVERHEAD;
+      for (Object[] row : rows) {
+        sizeInBytes += estimateSize(row);
+      }
+      _sizeInBytes = sizeInBytes;
+    }
+
+    private static CachedResult of(AggregationResultsBlock resultsBlock, ExecutionStatistics executionStatistics) {
+      List<Object> results = resultsBlock.getResults();
+      Object[] row = new Object[results.size()];
+      for (int i = 0; i < row.length; i++) {
+        row[i] = encode(results.get(i));
+      }
+      return new CachedResult(null, List.<Object[]>of(row), false, false, executionStatistics);
+    }
+
+    @Nullable
+    private static CachedResult of(GroupByResultsBlock resultsBlock, ExecutionStatistics executionStatistics) {
+      DataSchema dataSchema = resultsBlock.getDataSchema();
+      int numColumns = dataSchema.size();
+      List<Object[]> rows = new ArrayList<>();
+      if (resultsBlock.getIntermediateRecords() != null) {
+        for (IntermediateRecord intermediateRecord : resultsBlock.getIntermediateRecords()) {
+          Object[] keys = intermediateRecord._key.getValues();
+          Object[] values = intermediateRecord._record.getValues();
+          Object[] row = Arrays.copyOf(keys, numColumns);
+          for (int i = keys.length; i < numColumns; i++) {
+            row[i] = encode(values[i]);
+          }
+          rows.add(row);
+        }
+      } else {
+        AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
+        if (aggregationGroupByResult == null) {
+          return null;
+        }
+        Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
+        while (groupKeyIterator.hasNext()) {
+          GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+          Object[] keys = groupKey._keys;
+          Object[] row = Arrays.copyOf(keys, numColumns);
+          for (int i = keys.length; i < numColumns; i++) {
+            row[i] = encode(aggregationGroupByResult.getResultForGroupId(i - keys.length, groupKey._groupId));
+          }
+          rows.add(row);
+        }
+      }
+      return new CachedResult(dataSchema, rows, true, resultsBlock.isNumGroupsLimitReached(), executionStatistics);
+    }
+
+    public ExecutionStatistics getExecutionStatistics() {
+      return _executionStatistics;
+    }
+
+    /**
+     * Returns a new results block for the given query. The returned block can be modified without affecting the cache.
+     */
+    public BaseResultsBlock toResultsBlock(QueryContext queryContext) {
+      if (!_groupBy) {
+        Object[] row = _rows.get(0);
+        List<Object> results = new ArrayList<>(row.length);
+        for (Object value : row) {
+          results.add(decode(value));
+        }
+        return new AggregationResultsBlock(queryContext.getAggregationFunctions(), results, queryContext);
+      }
+      int numKeys = queryContext.getGroupByExpressions().size();
+      List<IntermediateRecord> intermediateRecords = new ArrayList<>(_rows.size());
+      for (Object[] row : _rows) {
+        Object[] values = new Object[row.length];
+        for (int i = 0; i < row.length; i++) {
+          values[i] = i < numKeys ? row[i] : decode(row[i]);
+        }
+        intermediateRecords.add(
+            IntermediateRecord.create(new Key(Arrays.copyOf(row, numKeys)), new Record(values)));
+      }
+      GroupByResultsBlock resultsBlock = new GroupByResultsBlock(_dataSchema, intermediateRecords, queryContext);
+      resultsBlock.setNumGroupsLimitReached(_numGroupsLimitReached);
+      return resultsBlock;
+    }
+  }
+}
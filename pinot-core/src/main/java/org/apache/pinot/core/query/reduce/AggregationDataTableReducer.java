@@ -62,9 +62,7 @@ public class AggregationDataTableReducer implements DataTableReducer {
     dataSchema = ReducerDataSchemaUtils.canonicalizeDataSchemaForAggregation(_queryContext, dataSchema);
 
     if (dataTableMap.isEmpty()) {
-      DataSchema resultTableSchema =
-          new PostAggregationHandler(_queryContext, getPrePostAggregationDataSchema(dataSchema)).getResultDataSchema();
-      brokerResponseNative.setResultTable(new ResultTable(resultTableSchema, Collections.emptyList()));
+      setEmptyResults(dataSchema, brokerResponseNative);
       return;
     }
 
@@ -80,33 +78,54 @@ public class AggregationDataTableReducer implements DataTableReducer {
     }
   }
 
+  @Override
+  public IncrementalDataTableReducer getIncrementalReducer(DataTableReducerContext reducerContext) {
+    return new IncrementalReducer();
+  }
+
+  private void setEmptyResults(DataSchema dataSchema, BrokerResponseNative brokerResponseNative) {
+    DataSchema resultTableSchema =
+        new PostAggregationHandler(_queryContext, getPrePostAggregationDataSchema(dataSchema)).getResultDataSchema();
+    brokerResponseNative.setResultTable(new ResultTable(resultTableSchema, Collections.emptyList()));
+  }
+
   private void reduceWithIntermediateResult(DataSchema dataSchema, Collection<DataTable> dataTables,
       BrokerResponseNative brokerResponseNative) {
-    int numAggregationFunctions = _aggregationFunctions.length;
-    Object[] intermediateResults = new Object[numAggregationFunctions];
+    Object[] intermediateResults = new Object[_aggregationFunctions.length];
     for (DataTable dataTable : dataTables) {
-      Tracing.ThreadAccountantOps.sampleAndCheckInterruption();
-      for (int i = 0; i < numAggregationFunctions; i++) {
-        Object intermediateResultToMerge;
-        ColumnDataType columnDataType = dataSchema.getColumnDataType(i);
-        if (_queryContext.isNullHandlingEnabled()) {
-          RoaringBitmap nullBitmap = dataTable.getNullRowIds(i);
-          if (nullBitmap != null && nullBitmap.contains(0)) {
-            intermediateResultToMerge = null;
-          } else {
-            intermediateResultToMerge = AggregationFunctionUtils.getIntermediateResult(dataTable, columnDataType, 0, i);
-          }
+      mergeIntermediateResults(dataSchema, dataTable, intermediateResults);
+    }
+    setIntermediateResults(dataSchema, intermediateResults, brokerResponseNative);
+  }
+
+  private void mergeIntermediateResults(DataSchema dataSchema, DataTable dataTable, Object[] intermediateResults) {
+    Tracing.ThreadAccountantOps.sampleAndCheckInterruption();
+    int numAggregationFunctions = _aggregationFunctions.length;
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      Object intermediateResultToMerge;
+      ColumnDataType columnDataType = dataSchema.getColumnDataType(i);
+      if (_queryContext.isNullHandlingEnabled()) {
+        RoaringBitmap nullBitmap = dataTable.getNullRowIds(i);
+        if (nullBitmap != null && nullBitmap.contains(0)) {
+          intermediateResultToMerge = null;
         } else {
           intermediateResultToMerge = AggregationFunctionUtils.getIntermediateResult(dataTable, columnDataType, 0, i);
         }
-        Object mergedIntermediateResult = intermediateResults[i];
-        if (mergedIntermediateResult == null) {
-          intermediateResults[i] = intermediateResultToMerge;
-        } else {
-          intermediateResults[i] = _aggregationFunctions[i].merge(mergedIntermediateResult, intermediateResultToMerge);
-        }
+      } else {
+        intermediateResultToMerge = AggregationFunctionUtils.getIntermediateResult(dataTable, columnDataType, 0, i);
+      }
+      Object mergedIntermediateResult = intermediateResults[i];
+      if (mergedIntermediateResult == null) {
+        intermediateResults[i] = intermediateResultToMerge;
+      } else {
+        intermediateResults[i] = _aggregationFunctions[i].merge(mergedIntermediateResult, intermediateResultToMerge);
       }
     }
+  }
+
+  private void setIntermediateResults(DataSchema dataSchema, Object[] intermediateResults,
+      BrokerResponseNative brokerResponseNative) {
+    int numAggregationFunctions = _aggregationFunctions.length;
     Object[] finalResults = new Object[numAggregationFunctions];
     for (int i = 0; i < numAggregationFunctions; i++) {
       AggregationFunction aggregationFunction = _aggregationFunctions[i];
@@ -138,31 +157,41 @@ public class AggregationDataTableReducer implements DataTableReducer {
 
   private void reduceWithFinalResult(DataSchema dataSchema, Collection<DataTable> dataTables,
       BrokerResponseNative brokerResponseNative) {
-    int numAggregationFunctions = _aggregationFunctions.length;
-    Comparable[] finalResults = new Comparable[numAggregationFunctions];
+    Comparable[] finalResults = new Comparable[_aggregationFunctions.length];
     for (DataTable dataTable : dataTables) {
-      for (int i = 0; i < numAggregationFunctions; i++) {
-        Tracing.ThreadAccountantOps.sampleAndCheckInterruption();
-        Comparable finalResultToMerge;
-        ColumnDataType columnDataType = dataSchema.getColumnDataType(i);
-        if (_queryContext.isNullHandlingEnabled()) {
-          RoaringBitmap nullBitmap = dataTable.getNullRowIds(i);
-          if (nullBitmap != null && nullBitmap.contains(0)) {
-            finalResultToMerge = null;
-          } else {
-            finalResultToMerge = AggregationFunctionUtils.getFinalResult(dataTable, columnDataType, 0, i);
-          }
+      mergeFinalResults(dataSchema, dataTable, finalResults);
+    }
+    setFinalResults(dataSchema, finalResults, brokerResponseNative);
+  }
+
+  private void mergeFinalResults(DataSchema dataSchema, DataTable dataTable, Comparable[] finalResults) {
+    int numAggregationFunctions = _aggregationFunctions.length;
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      Tracing.ThreadAccountantOps.sampleAndCheckInterruption();
+      Comparable finalResultToMerge;
+      ColumnDataType columnDataType = dataSchema.getColumnDataType(i);
+      if (_queryContext.isNullHandlingEnabled()) {
+        RoaringBitmap nullBitmap = dataTable.getNullRowIds(i);
+        if (nullBitmap != null && nullBitmap.contains(0)) {
+          finalResultToMerge = null;
         } else {
           finalResultToMerge = AggregationFunctionUtils.getFinalResult(dataTable, columnDataType, 0, i);
         }
-        Comparable mergedFinalResult = finalResults[i];
-        if (mergedFinalResult == null) {
-          finalResults[i] = finalResultToMerge;
-        } else {
-          finalResults[i] = _aggregationFunctions[i].mergeFinalResult(mergedFinalResult, finalResultToMerge);
-        }
+      } else {
+        finalResultToMerge = AggregationFunctionUtils.getFinalResult(dataTable, columnDataType, 0, i);
+      }
+      Comparable mergedFinalResult = finalResults[i];
+      if (mergedFinalResult == null) {
+        finalResults[i] = finalResultToMerge;
+      } else {
+        finalResults[i] = _aggregationFunctions[i].mergeFinalResult(mergedFinalResult, finalResultToMerge);
       }
     }
+  }
+
+  private void setFinalResults(DataSchema dataSchema, Comparable[] finalResults,
+      BrokerResponseNative brokerResponseNative) {
+    int numAggregationFunctions = _aggregationFunctions.length;
     Object[] convertedFinalResults = new Object[numAggregationFunctions];
     for (int i = 0; i < numAggregationFunctions; i++) {
       AggregationFunction aggregationFunction = _aggregationFunctions[i];
@@ -208,4 +237,45 @@ public class AggregationDataTableReducer implements DataTableReducer {
     }
     return new DataSchema(dataSchema.getColumnNames(), columnDataTypes);
   }
+
+  /**
+   * Keeps the merged intermediate (or final, when the servers return final results) result of each aggregation
+   * function, and merges the single row of each data table into it.
+   */
+  private class IncrementalReducer implements IncrementalDataTableReducer {
+    private DataSchema _canonicalizedDataSchema;
+    private Object[] _intermediateResults;
+    private Comparable[] _finalResults;
+
+    @Override
+    public void reduce(DataSchema dataSchema, DataTable dataTable) {
+      if (_canonicalizedDataSchema == null) {
+        _canonicalizedDataSchema =
+            ReducerDataSchemaUtils.canonicalizeDataSchemaForAggregation(_queryContext, dataSchema);
+        if (_queryContext.isServerReturnFinalResult()) {
+          _finalResults = new Comparable[_aggregationFunctions.length];
+        } else {
+          _intermediateResults = new Object[_aggregationFunctions.length];
+        }
+      }
+      if (_finalResults != null) {
+        mergeFinalResults(_canonicalizedDataSchema, dataTable, _finalResults);
+      } else {
+        mergeIntermediateResults(_canonicalizedDataSchema, dataTable, _intermediateResults);
+      }
+    }
+
+    @Override
+    public void setResults(String tableName, DataSchema dataSchema, BrokerResponseNative brokerResponseNative,
+        BrokerMetrics brokerMetrics) {
+      if (_canonicalizedDataSchema == null) {
+        setEmptyResults(ReducerDataSchemaUtils.canonicalizeDataSchemaForAggregation(_queryContext, dataSchema),
+            brokerResponseNative);
+      } else if (_finalResults != null) {
+        setFinalResults(_canonicalizedDataSchema, _finalResults, brokerResponseNative);
+      } else {
+        setIntermediateResults(_canonicalizedDataSchema, _intermediateResults, brokerResponseNative);
+      }
+    }
+  }
 }
@@ -23,6 +23,7 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import org.apache.pinot.common.datatable.DataTable;
 import org.apache.pinot.common.exception.QueryException;
@@ -54,12 +55,53 @@ import org.slf4j.LoggerFactory;
 public class BrokerReduceService extends BaseReduceService {
   private static final Logger LOGGER = LoggerFactory.getLogger(BrokerReduceService.class);
 
+  private final boolean _enableIncrementalReduce;
+
   public BrokerReduceService(PinotConfiguration config) {
     super(config);
+    _enableIncrementalReduce = config.getProperty(CommonConstants.Broker.CONFIG_OF_BROKER_ENABLE_INCREMENTAL_REDUCE,
+        CommonConstants.Broker.DEFAULT_BROKER_ENABLE_INCREMENTAL_REDUCE);
+  }
+
+  /**
+   * Returns an {@link IncrementalBrokerReducer} to reduce the server responses as they arrive, or {@code null} if
+   * incremental reduce is not enabled or not supported for the query. Aggregation, group-by and selection order-by
+   * queries are supported, except for the explain and gapfill queries.
+   */
+  @Nullable
+  public IncrementalBrokerReducer getIncrementalReducer(BrokerRequest brokerRequest, BrokerRequest serverBrokerRequest,
+      long timeoutMs) {
+    Map<String, String> queryOptions = brokerRequest.getPinotQuery().getQueryOptions();
+    Boolean incrementalReduceQueryOption =
+        queryOptions != null ? QueryOptionsUtils.isIncrementalReduce(queryOptions) : null;
+    boolean incrementalReduce =
+        incrementalReduceQueryOption != null ? incrementalReduceQueryOption : _enableIncrementalReduce;
+    // Gapfill is processed on top of the complete reduced result
+    if (!incrementalReduce || brokerRequest != serverBrokerRequest) {
+      return null;
+    }
+    QueryContext serverQueryContext = QueryContextConverterUtils.getQueryContext(serverBrokerRequest.getPinotQuery());
+    if (serverQueryContext.isExplain()) {
+      return null;
+    }
+    IncrementalDataTableReducer dataTableReducer = ResultReducerFactory.getResultReducer(serverQueryContext)
+        .getIncrementalReducer(getReducerContext(queryOptions, timeoutMs));
+    return dataTableReducer != null ? new IncrementalBrokerReducer(serverQueryContext, dataTableReducer,
+        _reduceExecutorService, timeoutMs) : null;
   }
 
   public BrokerResponseNative reduceOnDataTable(BrokerRequest brokerRequest, BrokerRequest serverBrokerRequest,
       Map<ServerRoutingInstance, DataTable> dataTableMap, long reduceTimeOutMs, BrokerMetrics brokerMetrics) {
+    return reduceOnDataTable(brokerRequest, serverBrokerRequest, dataTableMap, reduceTimeOutMs, brokerMetrics, null);
+  }
+
+  /**
+   * Reduces the data tables gathered from the servers. When an {@link IncrementalBrokerReducer} is provided, the data
+   * rows are already reduced as the servers responded, and the data table map only contains the metadata.
+   */
+  public BrokerResponseNative reduceOnDataTable(BrokerRequest brokerRequest, BrokerRequest serverBrokerRequest,
+      Map<ServerRoutingInstance, DataTable> dataTableMap, long reduceTimeOutMs, BrokerMetrics brokerMetrics,
+      @Nullable IncrementalBrokerReducer incrementalReducer) {
     if (dataTableMap.isEmpty()) {
       // Empty response.
       return BrokerResponseNative.empty();
@@ -113,6 +155,12 @@ public class BrokerReduceService extends BaseReduceService {
       }
     }
 
+    if (incrementalReducer != null) {
+      incrementalReducer.seal();
+      serversWithConflictingDataSchema.addAll(incrementalReducer.getServersWithConflictingDataSchema());
+      dataSchemaFromNonEmptyDataTable = incrementalReducer.getDataSchema();
+    }
+
     String tableName = serverBrokerRequest.getQuerySource().getTableName();
     String rawTableName = TableNameBuilder.extractRawTableName(tableName);
 
@@ -138,23 +186,16 @@ public class BrokerReduceService extends BaseReduceService {
       return brokerResponseNative;
     }
 
-    QueryContext serverQueryContext = QueryContextConverterUtils.getQueryContext(serverBrokerRequest.getPinotQuery());
-    DataTableReducer dataTableReducer = ResultReducerFactory.getResultReducer(serverQueryContext);
-
-    Integer minGroupTrimSizeQueryOption = null;
-    Integer groupTrimThresholdQueryOption = null;
-    if (queryOptions != null) {
-      minGroupTrimSizeQueryOption = QueryOptionsUtils.getMinBrokerGroupTrimSize(queryOptions);
-      groupTrimThresholdQueryOption = QueryOptionsUtils.getGroupTrimThreshold(queryOptions);
-    }
-    int minGroupTrimSize = minGroupTrimSizeQueryOption != null ? minGroupTrimSizeQueryOption : _minGroupTrimSize;
-    int groupTrimThreshold =
-        groupTrimThresholdQueryOption != null ? groupTrimThresholdQueryOption : _groupByTrimThreshold;
-
+    QueryContext serverQueryContext = incrementalReducer != null ? incrementalReducer.getServerQueryContext()
+        : QueryContextConverterUtils.getQueryContext(serverBrokerRequest.getPinotQuery());
     try {
-      dataTableReducer.reduceAndSetResults(rawTableName, cachedDataSchema, dataTableMap, brokerResponseNative,
-          new DataTableReducerContext(_reduceExecutorService, _maxReduceThreadsPerQuery, reduceTimeOutMs,
-              groupTrimThreshold, minGroupTrimSize), brokerMetrics);
+      if (incrementalReducer != null) {
+        incrementalReducer.setResults(rawTableName, brokerResponseNative, brokerMetrics);
+      } else {
+        DataTableReducer dataTableReducer = ResultReducerFactory.getResultReducer(serverQueryContext);
+        dataTableReducer.reduceAndSetResults(rawTableName, cachedDataSchema, dataTableMap, brokerResponseNative,
+            getReducerContext(queryOptions, reduceTimeOutMs), brokerMetrics);
+      }
     } catch (EarlyTerminationException e) {
       brokerResponseNative.addException(
           new QueryProcessingException(QueryException.QUERY_CANCELLATION_ERROR_CODE, e.toString()));
@@ -178,6 +219,20 @@ public class BrokerReduceService extends BaseReduceService {
     return brokerResponseNative;
   }
 
+  private DataTableReducerContext getReducerContext(@Nullable Map<String, String> queryOptions, long reduceTimeOutMs) {
+    Integer minGroupTrimSizeQueryOption = null;
+    Integer groupTrimThresholdQueryOption = null;
+    if (queryOptions != null) {
+      minGroupTrimSizeQueryOption = QueryOptionsUtils.getMinBrokerGroupTrimSize(queryOptions);
+      groupTrimThresholdQueryOption = QueryOptionsUtils.getGroupTrimThreshold(queryOptions);
+    }
+    int minGroupTrimSize = minGroupTrimSizeQueryOption != null ? minGroupTrimSizeQueryOption : _minGroupTrimSize;
+    int groupTrimThreshold =
+        groupTrimThresholdQueryOption != null ? groupTrimThresholdQueryOption : _groupByTrimThreshold;
+    return new DataTableReducerContext(_reduceExecutorService, _maxReduceThreadsPerQuery, reduceTimeOutMs,
+        groupTrimThreshold, minGroupTrimSize);
+  }
+
   public void shutDown() {
     _reduceExecutorService.shutdownNow();
   }
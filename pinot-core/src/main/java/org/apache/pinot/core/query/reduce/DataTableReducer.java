@@ -19,6 +19,7 @@
 package org.apache.pinot.core.query.reduce;
 
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.apache.pinot.common.datatable.DataTable;
 import org.apache.pinot.common.metrics.BrokerMetrics;
 import org.apache.pinot.common.response.broker.BrokerResponseNative;
@@ -42,4 +43,14 @@ public interface DataTableReducer {
    */
   void reduceAndSetResults(String tableName, DataSchema dataSchema, Map<ServerRoutingInstance, DataTable> dataTableMap,
       BrokerResponseNative brokerResponseNative, DataTableReducerContext reducerContext, BrokerMetrics brokerMetrics);
+
+  /**
+   * Returns a reducer that reduces the data tables one at a time as the servers respond, or {@code null} if the query
+   * can only be reduced after all the data tables are gathered.
+   * @param reducerContext DataTableReducer context
+   */
+  @Nullable
+  default IncrementalDataTableReducer getIncrementalReducer(DataTableReducerContext reducerContext) {
+    return null;
+  }
 }
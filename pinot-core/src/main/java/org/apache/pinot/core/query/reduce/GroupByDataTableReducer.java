@@ -35,6 +35,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.pinot.common.CustomObject;
 import org.apache.pinot.common.Utils;
@@ -53,6 +54,7 @@ import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.core.common.ObjectSerDeUtils;
 import org.apache.pinot.core.data.table.ConcurrentIndexedTable;
 import org.apache.pinot.core.data.table.IndexedTable;
+import org.apache.pinot.core.data.table.LongKeyIndexedTable;
 import org.apache.pinot.core.data.table.Record;
 import org.apache.pinot.core.data.table.SimpleIndexedTable;
 import org.apache.pinot.core.data.table.UnboundedConcurrentIndexedTable;
@@ -106,11 +108,7 @@ public class GroupByDataTableReducer implements DataTableReducer {
     dataSchema = ReducerDataSchemaUtils.canonicalizeDataSchemaForGroupBy(_queryContext, dataSchema);
 
     if (dataTableMap.isEmpty()) {
-      PostAggregationHandler postAggregationHandler =
-          new PostAggregationHandler(_queryContext, getPrePostAggregationDataSchema(dataSchema));
-      DataSchema resultDataSchema = postAggregationHandler.getResultDataSchema();
-      RewriterResult rewriterResult = ResultRewriteUtils.rewriteResult(resultDataSchema, Collections.emptyList());
-      brokerResponse.setResultTable(new ResultTable(rewriterResult.getDataSchema(), rewriterResult.getRows()));
+      setEmptyResults(dataSchema, brokerResponse);
       return;
     }
 
@@ -128,6 +126,24 @@ public class GroupByDataTableReducer implements DataTableReducer {
       }
     }
 
+    addGroupBySizeMeter(tableName, brokerResponse, brokerMetrics);
+  }
+
+  @Override
+  public IncrementalDataTableReducer getIncrementalReducer(DataTableReducerContext reducerContext) {
+    return new IncrementalReducer(reducerContext);
+  }
+
+  private void setEmptyResults(DataSchema dataSchema, BrokerResponseNative brokerResponse) {
+    PostAggregationHandler postAggregationHandler =
+        new PostAggregationHandler(_queryContext, getPrePostAggregationDataSchema(dataSchema));
+    DataSchema resultDataSchema = postAggregationHandler.getResultDataSchema();
+    RewriterResult rewriterResult = ResultRewriteUtils.rewriteResult(resultDataSchema, Collections.emptyList());
+    brokerResponse.setResultTable(new ResultTable(rewriterResult.getDataSchema(), rewriterResult.getRows()));
+  }
+
+  private void addGroupBySizeMeter(String tableName, BrokerResponseNative brokerResponse,
+      BrokerMetrics brokerMetrics) {
     if (brokerMetrics != null && brokerResponse.getResultTable() != null) {
       brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.GROUP_BY_SIZE,
           brokerResponse.getResultTable().getRows().size());
@@ -150,6 +166,14 @@ public class GroupByDataTableReducer implements DataTableReducer {
       throws TimeoutException {
     // NOTE: This step will modify the data schema and also return final aggregate results.
     IndexedTable indexedTable = getIndexedTable(dataSchema, dataTables, reducerContext);
+    setResultTable(brokerResponseNative, dataSchema, indexedTable, rawTableName, brokerMetrics);
+  }
+
+  /**
+   * Extracts the results from the finished {@link IndexedTable} and sets them into {@link ResultTable}.
+   */
+  private void setResultTable(BrokerResponseNative brokerResponseNative, DataSchema dataSchema,
+      IndexedTable indexedTable, String rawTableName, BrokerMetrics brokerMetrics) {
     if (brokerMetrics != null) {
       brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.NUM_RESIZES, indexedTable.getNumResizes());
       brokerMetrics.addValueToTableGauge(rawTableName, BrokerGauge.RESIZE_TIME_MS, indexedTable.getResizeTimeMs());
@@ -237,30 +261,7 @@ public class GroupByDataTableReducer implements DataTableReducer {
     // Get the number of threads to use for reducing.
     // In case of single reduce thread, fall back to SimpleIndexedTable to avoid redundant locking/unlocking calls.
     int numReduceThreadsToUse = getNumReduceThreadsToUse(numDataTables, reducerContext.getMaxReduceThreadsPerQuery());
-    boolean hasFinalInput =
-        _queryContext.isServerReturnFinalResult() || _queryContext.isServerReturnFinalResultKeyUnpartitioned();
-    int limit = _queryContext.getLimit();
-    int trimSize = GroupByUtils.getTableCapacity(limit, reducerContext.getMinGroupTrimSize());
-    // NOTE: For query with HAVING clause, use trimSize as resultSize to ensure the result accuracy.
-    // TODO: Resolve the HAVING clause within the IndexedTable before returning the result
-    int resultSize = _queryContext.getHavingFilter() != null ? trimSize : limit;
-    int trimThreshold = reducerContext.getGroupByTrimThreshold();
-    IndexedTable indexedTable;
-    if (numReduceThreadsToUse == 1) {
-      indexedTable =
-          new SimpleIndexedTable(dataSchema, hasFinalInput, _queryContext, resultSize, trimSize, trimThreshold);
-    } else {
-      if (trimThreshold >= GroupByCombineOperator.MAX_TRIM_THRESHOLD) {
-        // special case of trim threshold where it is set to max value.
-        // there won't be any trimming during upsert in this case.
-        // thus we can avoid the overhead of read-lock and write-lock
-        // in the upsert method.
-        indexedTable = new UnboundedConcurrentIndexedTable(dataSchema, hasFinalInput, _queryContext, resultSize);
-      } else {
-        indexedTable =
-            new ConcurrentIndexedTable(dataSchema, hasFinalInput, _queryContext, resultSize, trimSize, trimThreshold);
-      }
-    }
+    IndexedTable indexedTable = createIndexedTable(dataSchema, numReduceThreadsToUse, reducerContext);
 
     // Create groups of data tables that each thread can process concurrently.
     // Given that numReduceThreads is <= numDataTables, each group will have at least one data table.
@@ -278,6 +279,9 @@ public class GroupByDataTableReducer implements DataTableReducer {
     CountDownLatch countDownLatch = new CountDownLatch(numReduceThreadsToUse);
     AtomicReference<Throwable> exception = new AtomicReference<>();
     ColumnDataType[] storedColumnDataTypes = dataSchema.getStoredColumnDataTypes();
+    // LongKeyIndexedTable does not keep the upserted values, so the same values can be reused for all the rows
+    LongKeyIndexedTable longKeyIndexedTable =
+        indexedTable instanceof LongKeyIndexedTable ? (LongKeyIndexedTable) indexedTable : null;
     for (int i = 0; i < numReduceThreadsToUse; i++) {
       List<DataTable> reduceGroup = reduceGroups.get(i);
       int taskId = i;
@@ -287,83 +291,9 @@ public class GroupByDataTableReducer implements DataTableReducer {
         public void runJob() {
           Tracing.ThreadAccountantOps.setupWorker(taskId, new ThreadResourceUsageProvider(), parentContext);
           try {
+            Object[] reusedValues = longKeyIndexedTable != null ? new Object[_numColumns] : null;
             for (DataTable dataTable : reduceGroup) {
-              boolean nullHandlingEnabled = _queryContext.isNullHandlingEnabled();
-              RoaringBitmap[] nullBitmaps = null;
-              if (nullHandlingEnabled) {
-                nullBitmaps = new RoaringBitmap[_numColumns];
-                for (int i = 0; i < _numColumns; i++) {
-                  nullBitmaps[i] = dataTable.getNullRowIds(i);
-                }
-              }
-
-              int numRows = dataTable.getNumberOfRows();
-              for (int rowId = 0; rowId < numRows; rowId++) {
-                // Terminate when thread is interrupted.
-                // This is expected when the query already fails in the main thread.
-                // The first check will always be performed when rowId = 0
-                Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(rowId);
-                Object[] values = new Object[_numColumns];
-                for (int colId = 0; colId < _numColumns; colId++) {
-                  // NOTE: We need to handle data types for group key, intermediate and final aggregate result.
-                  switch (storedColumnDataTypes[colId]) {
-                    case INT:
-                      values[colId] = dataTable.getInt(rowId, colId);
-                      break;
-                    case LONG:
-                      values[colId] = dataTable.getLong(rowId, colId);
-                      break;
-                    case FLOAT:
-                      values[colId] = dataTable.getFloat(rowId, colId);
-                      break;
-                    case DOUBLE:
-                      values[colId] = dataTable.getDouble(rowId, colId);
-                      break;
-                    case BIG_DECIMAL:
-                      values[colId] = dataTable.getBigDecimal(rowId, colId);
-                      break;
-                    case STRING:
-                      values[colId] = dataTable.getString(rowId, colId);
-                      break;
-                    case BYTES:
-                      values[colId] = dataTable.getBytes(rowId, colId);
-                      break;
-                    case INT_ARRAY:
-                      values[colId] = IntArrayList.wrap(dataTable.getIntArray(rowId, colId));
-                      break;
-                    case LONG_ARRAY:
-                      values[colId] = LongArrayList.wrap(dataTable.getLongArray(rowId, colId));
-                      break;
-                    case FLOAT_ARRAY:
-                      values[colId] = FloatArrayList.wrap(dataTable.getFloatArray(rowId, colId));
-                      break;
-                    case DOUBLE_ARRAY:
-                      values[colId] = DoubleArrayList.wrap(dataTable.getDoubleArray(rowId, colId));
-                      break;
-                    case STRING_ARRAY:
-                      values[colId] = ObjectArrayList.wrap(dataTable.getStringArray(rowId, colId));
-                      break;
-                    case OBJECT:
-                      // TODO: Move ser/de into AggregationFunction interface
-                      CustomObject customObject = dataTable.getCustomObject(rowId, colId);
-                      if (customObject != null) {
-                        values[colId] = ObjectSerDeUtils.deserialize(customObject);
-                      }
-                      break;
-                    // Add other aggregation intermediate result / group-by column type supports here
-                    default:
-                      throw new IllegalStateException();
-                  }
-                }
-                if (nullHandlingEnabled) {
-                  for (int colId = 0; colId < _numColumns; colId++) {
-                    if (nullBitmaps[colId] != null && nullBitmaps[colId].contains(rowId)) {
-                      values[colId] = null;
-                    }
-                  }
-                }
-                indexedTable.upsert(new Record(values));
-              }
+              upsertDataTable(indexedTable, longKeyIndexedTable, storedColumnDataTypes, dataTable, reusedValues);
             }
           } catch (Throwable t) {
             exception.compareAndSet(null, t);
@@ -401,6 +331,122 @@ public class GroupByDataTableReducer implements DataTableReducer {
     return indexedTable;
   }
 
+  private IndexedTable createIndexedTable(DataSchema dataSchema, int numReduceThreadsToUse,
+      DataTableReducerContext reducerContext) {
+    boolean hasFinalInput =
+        _queryContext.isServerReturnFinalResult() || _queryContext.isServerReturnFinalResultKeyUnpartitioned();
+    int limit = _queryContext.getLimit();
+    int trimSize = GroupByUtils.getTableCapacity(limit, reducerContext.getMinGroupTrimSize());
+    // NOTE: For query with HAVING clause, use trimSize as resultSize to ensure the result accuracy.
+    // TODO: Resolve the HAVING clause within the IndexedTable before returning the result
+    int resultSize = _queryContext.getHavingFilter() != null ? trimSize : limit;
+    int trimThreshold = reducerContext.getGroupByTrimThreshold();
+    IndexedTable indexedTable;
+    if (numReduceThreadsToUse == 1) {
+      if (LongKeyIndexedTable.isSupported(dataSchema, _queryContext)) {
+        indexedTable =
+            new LongKeyIndexedTable(dataSchema, hasFinalInput, _queryContext, resultSize, trimSize, trimThreshold);
+      } else {
+        indexedTable =
+            new SimpleIndexedTable(dataSchema, hasFinalInput, _queryContext, resultSize, trimSize, trimThreshold);
+      }
+    } else {
+      if (trimThreshold >= GroupByCombineOperator.MAX_TRIM_THRESHOLD) {
+        // special case of trim threshold where it is set to max value.
+        // there won't be any trimming during upsert in this case.
+        // thus we can avoid the overhead of read-lock and write-lock
+        // in the upsert method.
+        indexedTable = new UnboundedConcurrentIndexedTable(dataSchema, hasFinalInput, _queryContext, resultSize);
+      } else {
+        indexedTable =
+            new ConcurrentIndexedTable(dataSchema, hasFinalInput, _queryContext, resultSize, trimSize, trimThreshold);
+      }
+    }
+    return indexedTable;
+  }
+
+  private void upsertDataTable(IndexedTable indexedTable, @Nullable LongKeyIndexedTable longKeyIndexedTable,
+      ColumnDataType[] storedColumnDataTypes, DataTable dataTable, @Nullable Object[] reusedValues) {
+    boolean nullHandlingEnabled = _queryContext.isNullHandlingEnabled();
+    RoaringBitmap[] nullBitmaps = null;
+    if (nullHandlingEnabled) {
+      nullBitmaps = new RoaringBitmap[_numColumns];
+      for (int i = 0; i < _numColumns; i++) {
+        nullBitmaps[i] = dataTable.getNullRowIds(i);
+      }
+    }
+
+    int numRows = dataTable.getNumberOfRows();
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      // Terminate when thread is interrupted.
+      // This is expected when the query already fails in the main thread.
+      // The first check will always be performed when rowId = 0
+      Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(rowId);
+      Object[] values = reusedValues != null ? reusedValues : new Object[_numColumns];
+      for (int colId = 0; colId < _numColumns; colId++) {
+        // NOTE: We need to handle data types for group key, intermediate and final aggregate result.
+        switch (storedColumnDataTypes[colId]) {
+          case INT:
+            values[colId] = dataTable.getInt(rowId, colId);
+            break;
+          case LONG:
+            values[colId] = dataTable.getLong(rowId, colId);
+            break;
+          case FLOAT:
+            values[colId] = dataTable.getFloat(rowId, colId);
+            break;
+          case DOUBLE:
+            values[colId] = dataTable.getDouble(rowId, colId);
+            break;
+          case BIG_DECIMAL:
+            values[colId] = dataTable.getBigDecimal(rowId, colId);
+            break;
+          case STRING:
+            values[colId] = dataTable.getString(rowId, colId);
+            break;
+          case BYTES:
+            values[colId] = dataTable.getBytes(rowId, colId);
+            break;
+          case INT_ARRAY:
+            values[colId] = IntArrayList.wrap(dataTable.getIntArray(rowId, colId));
+            break;
+          case LONG_ARRAY:
+            values[colId] = LongArrayList.wrap(dataTable.getLongArray(rowId, colId));
+            break;
+          case FLOAT_ARRAY:
+            values[colId] = FloatArrayList.wrap(dataTable.getFloatArray(rowId, colId));
+            break;
+          case DOUBLE_ARRAY:
+            values[colId] = DoubleArrayList.wrap(dataTable.getDoubleArray(rowId, colId));
+            break;
+          case STRING_ARRAY:
+            values[colId] = ObjectArrayList.wrap(dataTable.getStringArray(rowId, colId));
+            break;
+          case OBJECT:
+            // TODO: Move ser/de into AggregationFunction interface
+            CustomObject customObject = dataTable.getCustomObject(rowId, colId);
+            values[colId] = customObject != null ? ObjectSerDeUtils.deserialize(customObject) : null;
+            break;
+          // Add other aggregation intermediate result / group-by column type supports here
+          default:
+            throw new IllegalStateException();
+        }
+      }
+      if (nullHandlingEnabled) {
+        for (int colId = 0; colId < _numColumns; colId++) {
+          if (nullBitmaps[colId] != null && nullBitmaps[colId].contains(rowId)) {
+            values[colId] = null;
+          }
+        }
+      }
+      if (longKeyIndexedTable != null) {
+        longKeyIndexedTable.upsert(((Number) values[0]).longValue(), values);
+      } else {
+        indexedTable.upsert(new Record(values));
+      }
+    }
+  }
+
   /**
    * Computes the number of reduce threads to use per query.
    * <ul>
@@ -522,4 +568,51 @@ public class GroupByDataTableReducer implements DataTableReducer {
         throw new IllegalStateException("Illegal column data type in group key: " + columnDataType);
     }
   }
+
+  /**
+   * Upserts the records of each data table into a single {@link IndexedTable} created on the first data table. The
+   * table is trimmed the same way as during the regular reduce, so the memory is bounded by the trim threshold instead
+   * of the total size of the server responses.
+   */
+  private class IncrementalReducer implements IncrementalDataTableReducer {
+    private final DataTableReducerContext _reducerContext;
+    private DataSchema _canonicalizedDataSchema;
+    private IndexedTable _indexedTable;
+    private LongKeyIndexedTable _longKeyIndexedTable;
+    private ColumnDataType[] _storedColumnDataTypes;
+    private Object[] _reusedValues;
+
+    IncrementalReducer(DataTableReducerContext reducerContext) {
+      _reducerContext = reducerContext;
+    }
+
+    @Override
+    public void reduce(DataSchema dataSchema, DataTable dataTable) {
+      if (_indexedTable == null) {
+        _canonicalizedDataSchema = ReducerDataSchemaUtils.canonicalizeDataSchemaForGroupBy(_queryContext, dataSchema);
+        _indexedTable = createIndexedTable(_canonicalizedDataSchema, 1, _reducerContext);
+        // LongKeyIndexedTable does not keep the upserted values, so the same values can be reused for all the rows
+        if (_indexedTable instanceof LongKeyIndexedTable) {
+          _longKeyIndexedTable = (LongKeyIndexedTable) _indexedTable;
+          _reusedValues = new Object[_numColumns];
+        }
+        _storedColumnDataTypes = _canonicalizedDataSchema.getStoredColumnDataTypes();
+      }
+      upsertDataTable(_indexedTable, _longKeyIndexedTable, _storedColumnDataTypes, dataTable, _reusedValues);
+    }
+
+    @Override
+    public void setResults(String tableName, DataSchema dataSchema, BrokerResponseNative brokerResponseNative,
+        BrokerMetrics brokerMetrics) {
+      if (_indexedTable == null) {
+        setEmptyResults(ReducerDataSchemaUtils.canonicalizeDataSchemaForGroupBy(_queryContext, dataSchema),
+            brokerResponseNative);
+        return;
+      }
+      // NOTE: This step will modify the data schema and also return final aggregate results.
+      _indexedTable.finish(true, true);
+      setResultTable(brokerResponseNative, _canonicalizedDataSchema, _indexedTable, tableName, brokerMetrics);
+      addGroupBySizeMeter(tableName, brokerResponseNative, brokerMetrics);
+    }
+  }
 }
@@ -0,0 +1,215 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.reduce;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.common.datatable.DataTable;
+import org.apache.pinot.common.exception.QueryException;
+import org.apache.pinot.common.metrics.BrokerMetrics;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.common.response.broker.QueryProcessingException;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.transport.ServerRoutingInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code IncrementalBrokerReducer} reduces the data tables of a query as the servers respond, instead of waiting
+ * for all the servers and then reducing the whole data table map. Each data table is reduced into the running result
+ * by an {@link IncrementalDataTableReducer}, and only its metadata is kept afterward so that the data can be released
+ * right away.
+ * <p>The threads receiving the server responses only queue the data tables with {@link #offer}, which never blocks.
+ * The queued data tables are reduced one at a time on the broker reduce executor, and are dropped once the reduce
+ * timeout is reached. Once {@link #seal()} is called, the data tables arriving late are dropped and the results can be
+ * set by the {@link BrokerReduceService}.
+ */
+@ThreadSafe
+public class IncrementalBrokerReducer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalBrokerReducer.class);
+
+  private final QueryContext _serverQueryContext;
+  private final IncrementalDataTableReducer _dataTableReducer;
+  private final ExecutorService _executorService;
+  private final long _endTimeMs;
+  private final List<ServerRoutingInstance> _serversWithConflictingDataSchema = new ArrayList<>();
+  private final Queue<PendingDataTable> _pendingDataTables = new ConcurrentLinkedQueue<>();
+  // Number of data tables queued but not processed yet, the queue is drained by a single task when it is not 0
+  private final AtomicInteger _numPendingDataTables = new AtomicInteger();
+
+  // Cache a data schema from data tables (try to cache one with data rows associated with it).
+  private DataSchema _dataSchemaFromEmptyDataTable;
+  private DataSchema _dataSchemaFromNonEmptyDataTable;
+  private Exception _reduceException;
+  private boolean _sealed;
+
+  public IncrementalBrokerReducer(QueryContext serverQueryContext, IncrementalDataTableReducer dataTableReducer,
+      ExecutorService executorService, long reduceTimeOutMs) {
+    _serverQueryContext = serverQueryContext;
+    _dataTableReducer = dataTableReducer;
+    _executorService = executorService;
+    _endTimeMs = System.currentTimeMillis() + reduceTimeOutMs;
+  }
+
+  public QueryContext getServerQueryContext() {
+    return _serverQueryContext;
+  }
+
+  /**
+   * Queues the given data table to be reduced on the reduce executor without blocking the calling thread. Once the data
+   * table is reduced, the callback is invoked with the metadata only data table to be kept for the server while holding
+   * the reducer lock, so that the data table is either reduced and recorded before {@link #seal()} returns, or dropped.
+   * The callback is not invoked if the data table is dropped.
+   */
+  public void offer(ServerRoutingInstance serverRoutingInstance, DataTable dataTable, Consumer<DataTable> callback) {
+    _pendingDataTables.offer(new PendingDataTable(serverRoutingInstance, dataTable, callback));
+    if (_numPendingDataTables.getAndIncrement() == 0) {
+      try {
+        _executorService.submit(this::reducePendingDataTables);
+      } catch (RejectedExecutionException e) {
+        // The reduce executor is shut down, reduce on the calling thread instead of leaving the data tables pending
+        reducePendingDataTables();
+      }
+    }
+  }
+
+  private void reducePendingDataTables() {
+    do {
+      PendingDataTable pendingDataTable = _pendingDataTables.poll();
+      assert pendingDataTable != null;
+      // NOTE: Always move on to the next data table, otherwise the pending data tables would never be drained again
+      try {
+        synchronized (this) {
+          DataTable metadataOnlyDataTable =
+              reduce(pendingDataTable._serverRoutingInstance, pendingDataTable._dataTable);
+          if (metadataOnlyDataTable != null) {
+            pendingDataTable._callback.accept(metadataOnlyDataTable);
+          }
+        }
+      } catch (Exception e) {
+        LOGGER.warn("Caught exception while processing data table from server: {}",
+            pendingDataTable._serverRoutingInstance, e);
+        synchronized (this) {
+          if (_reduceException == null) {
+            _reduceException = e;
+          }
+        }
+      }
+    } while (_numPendingDataTables.decrementAndGet() > 0);
+  }
+
+  /**
+   * Reduces the data rows of the given data table, and returns a metadata only data table to be kept for the server,
+   * or {@code null} if the reducer is already sealed or timed out and the data table is dropped.
+   */
+  @Nullable
+  public synchronized DataTable reduce(ServerRoutingInstance serverRoutingInstance, DataTable dataTable) {
+    if (_sealed) {
+      return null;
+    }
+    if (System.currentTimeMillis() > _endTimeMs) {
+      LOGGER.warn("Dropping data table from server: {} after the reduce timed out", serverRoutingInstance);
+      return null;
+    }
+    DataSchema dataSchema = dataTable.getDataSchema();
+    if (dataSchema == null) {
+      return dataTable;
+    }
+    if (dataTable.getNumberOfRows() == 0) {
+      if (_dataSchemaFromEmptyDataTable == null) {
+        _dataSchemaFromEmptyDataTable = dataSchema;
+      }
+    } else {
+      if (_dataSchemaFromNonEmptyDataTable == null) {
+        _dataSchemaFromNonEmptyDataTable = dataSchema;
+      }
+      // NOTE: Only compare the column data types, since the column names (string representation of expression) can
+      //       change across different versions.
+      if (!Arrays.equals(dataSchema.getColumnDataTypes(), _dataSchemaFromNonEmptyDataTable.getColumnDataTypes())) {
+        _serversWithConflictingDataSchema.add(serverRoutingInstance);
+      } else if (_reduceException == null) {
+        try {
+          _dataTableReducer.reduce(_dataSchemaFromNonEmptyDataTable, dataTable);
+        } catch (Exception e) {
+          LOGGER.warn("Caught exception while reducing data table from server: {}", serverRoutingInstance, e);
+          _reduceException = e;
+        }
+      }
+    }
+    return dataTable.toMetadataOnlyDataTable();
+  }
+
+  /**
+   * Stops reducing the data tables. The data tables arriving after this call are dropped.
+   */
+  public synchronized void seal() {
+    _sealed = true;
+  }
+
+  public synchronized List<ServerRoutingInstance> getServersWithConflictingDataSchema() {
+    return _serversWithConflictingDataSchema;
+  }
+
+  /**
+   * Returns the data schema of the reduced data tables, or {@code null} if no data table with data schema is reduced.
+   */
+  @Nullable
+  public synchronized DataSchema getDataSchema() {
+    return _dataSchemaFromNonEmptyDataTable != null ? _dataSchemaFromNonEmptyDataTable : _dataSchemaFromEmptyDataTable;
+  }
+
+  /**
+   * Seals the reducer and sets the results of the reduced data tables into the BrokerResponseNative.
+   */
+  public synchronized void setResults(String tableName, BrokerResponseNative brokerResponseNative,
+      BrokerMetrics brokerMetrics) {
+    _sealed = true;
+    DataSchema dataSchema = getDataSchema();
+    assert dataSchema != null;
+    if (_reduceException != null) {
+      brokerResponseNative.addException(
+          new QueryProcessingException(QueryException.MERGE_RESPONSE_ERROR_CODE, _reduceException.toString()));
+      return;
+    }
+    _dataTableReducer.setResults(tableName, dataSchema, brokerResponseNative, brokerMetrics);
+  }
+
+  private static class PendingDataTable {
+    final ServerRoutingInstance _serverRoutingInstance;
+    final DataTable _dataTable;
+    final Consumer<DataTable> _callback;
+
+    PendingDataTable(ServerRoutingInstance serverRoutingInstance, DataTable dataTable, Consumer<DataTable> callback) {
+      _serverRoutingInstance = serverRoutingInstance;
+      _dataTable = dataTable;
+      _callback = callback;
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.reduce;
+
+import org.apache.pinot.common.datatable.DataTable;
+import org.apache.pinot.common.metrics.BrokerMetrics;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.common.utils.DataSchema;
+
+
+/**
+ * Interface for data table reducers that fold the data tables into the running result one at a time, so that each data
+ * table can be released right after being reduced instead of being kept until all the servers responded.
+ * <p>Implementations are not required to be thread-safe, the caller should not reduce data tables concurrently.
+ */
+public interface IncrementalDataTableReducer {
+
+  /**
+   * Reduces a data table with data rows into the running result.
+   * @param dataSchema data schema shared by all the reduced data tables
+   * @param dataTable data table to reduce
+   */
+  void reduce(DataSchema dataSchema, DataTable dataTable);
+
+  /**
+   * Sets the results of the reduced data tables into the BrokerResponseNative. Invoked once after the last data table
+   * is reduced, possibly without any data table reduced when none of them has data rows inside.
+   * @param tableName table name
+   * @param dataSchema schema from broker reduce service
+   * @param brokerResponseNative broker response
+   * @param brokerMetrics broker metrics
+   */
+  void setResults(String tableName, DataSchema dataSchema, BrokerResponseNative brokerResponseNative,
+      BrokerMetrics brokerMetrics);
+}
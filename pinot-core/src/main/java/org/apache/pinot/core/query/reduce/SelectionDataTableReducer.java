@@ -21,6 +21,7 @@ package org.apache.pinot.core.query.reduce;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.pinot.common.datatable.DataTable;
 import org.apache.pinot.common.metrics.BrokerMetrics;
@@ -71,4 +72,45 @@ public class SelectionDataTableReducer implements DataTableReducer {
       brokerResponseNative.setResultTable(selectionService.renderResultTableWithOrdering());
     }
   }
+
+  /**
+   * Returns an incremental reducer for selection order-by queries, or {@code null} for selection only queries which are
+   * cheap to reduce and can stop early once enough rows are gathered.
+   */
+  @Nullable
+  @Override
+  public IncrementalDataTableReducer getIncrementalReducer(DataTableReducerContext reducerContext) {
+    return _queryContext.getOrderByExpressions() != null && _queryContext.getLimit() > 0
+        ? new IncrementalOrderByReducer() : null;
+  }
+
+  /**
+   * Keeps the top rows of the data tables in the priority queue of the {@link SelectionOperatorService}, which holds
+   * at most offset + limit rows.
+   */
+  private class IncrementalOrderByReducer implements IncrementalDataTableReducer {
+    private SelectionOperatorService _selectionService;
+
+    @Override
+    public void reduce(DataSchema dataSchema, DataTable dataTable) {
+      if (_selectionService == null) {
+        Pair<DataSchema, int[]> pair =
+            SelectionOperatorUtils.getResultTableDataSchemaAndColumnIndices(_queryContext, dataSchema);
+        _selectionService = new SelectionOperatorService(_queryContext, pair.getLeft(), pair.getRight());
+      }
+      _selectionService.reduceWithOrdering(Collections.singletonList(dataTable));
+    }
+
+    @Override
+    public void setResults(String tableName, DataSchema dataSchema, BrokerResponseNative brokerResponseNative,
+        BrokerMetrics brokerMetrics) {
+      if (_selectionService == null) {
+        Pair<DataSchema, int[]> pair =
+            SelectionOperatorUtils.getResultTableDataSchemaAndColumnIndices(_queryContext, dataSchema);
+        brokerResponseNative.setResultTable(new ResultTable(pair.getLeft(), Collections.emptyList()));
+      } else {
+        brokerResponseNative.setResultTable(_selectionService.renderResultTableWithOrdering());
+      }
+    }
+  }
 }
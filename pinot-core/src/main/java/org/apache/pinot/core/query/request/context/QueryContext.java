@@ -37,10 +37,13 @@ import org.apache.pinot.common.request.context.OrderByExpressionContext;
 import org.apache.pinot.common.request.context.RequestContextUtils;
 import org.apache.pinot.common.request.context.TimeSeriesContext;
 import org.apache.pinot.common.utils.config.QueryOptionsUtils;
+import org.apache.pinot.core.operator.filter.FilterSelectivityStats;
 import org.apache.pinot.core.plan.maker.InstancePlanMakerImplV2;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunctionFactory;
+import org.apache.pinot.core.query.cache.FilterBitmapCache;
 import org.apache.pinot.core.util.MemoizedClassAssociation;
+import org.apache.pinot.core.util.QueryMemoryBudget;
 import org.apache.pinot.segment.spi.datasource.DataSource;
 import org.apache.pinot.spi.config.table.FieldConfig;
 
@@ -130,6 +133,14 @@ public class QueryContext {
   private boolean _serverReturnFinalResultKeyUnpartitioned;
   // Collection of index types to skip per column
   private Map<String, Set<FieldConfig.IndexType>> _skipIndexes;
+  // Cache of the leaf predicate results on immutable segments, null when disabled
+  private FilterBitmapCache _filterBitmapCache;
+  // Selectivities of the leaf predicates observed at runtime, null when adaptive filter reordering is disabled
+  private FilterSelectivityStats _filterSelectivityStats;
+  // Whether to fetch the non-order-by selected values after merging the rows of all the segments
+  private boolean _deferSelectionMaterialization;
+  // Memory budget of the group-by operators of the query, null when disabled
+  private QueryMemoryBudget _memoryBudget;
 
   private QueryContext(@Nullable String tableName, @Nullable QueryContext subquery,
       @Nullable TimeSeriesContext timeSeriesContext, List<ExpressionContext> selectExpressions, boolean distinct,
@@ -465,6 +476,41 @@ public class QueryContext {
     return isIndexUseAllowed(dataSource.getColumnName(), indexType);
   }
 
+  @Nullable
+  public FilterBitmapCache getFilterBitmapCache() {
+    return _filterBitmapCache;
+  }
+
+  public void setFilterBitmapCache(@Nullable FilterBitmapCache filterBitmapCache) {
+    _filterBitmapCache = filterBitmapCache;
+  }
+
+  @Nullable
+  public FilterSelectivityStats getFilterSelectivityStats() {
+    return _filterSelectivityStats;
+  }
+
+  public void setFilterSelectivityStats(@Nullable FilterSelectivityStats filterSelectivityStats) {
+    _filterSelectivityStats = filterSelectivityStats;
+  }
+
+  public boolean isDeferSelectionMaterialization() {
+    return _deferSelectionMaterialization;
+  }
+
+  public void setDeferSelectionMaterialization(boolean deferSelectionMaterialization) {
+    _deferSelectionMaterialization = deferSelectionMaterialization;
+  }
+
+  @Nullable
+  public QueryMemoryBudget getMemoryBudget() {
+    return _memoryBudget;
+  }
+
+  public void setMemoryBudget(@Nullable QueryMemoryBudget memoryBudget) {
+    _memoryBudget = memoryBudget;
+  }
+
   public static class Builder {
     private String _tableName;
     private QueryContext _subquery;
@@ -30,6 +30,7 @@ import javax.annotation.concurrent.ThreadSafe;
 import org.apache.pinot.common.datatable.DataTable;
 import org.apache.pinot.common.exception.QueryException;
 import org.apache.pinot.common.utils.HashUtil;
+import org.apache.pinot.core.query.reduce.IncrementalBrokerReducer;
 import org.apache.pinot.core.transport.server.routing.stats.ServerRoutingStatsManager;
 
 
@@ -47,12 +48,23 @@ public class AsyncQueryResponse implements QueryResponse {
   private final long _maxEndTimeMs;
   private final long _timeoutMs;
   private final ServerRoutingStatsManager _serverRoutingStatsManager;
+  private final IncrementalBrokerReducer _incrementalReducer;
 
   private volatile ServerRoutingInstance _failedServer;
   private volatile Exception _exception;
 
   public AsyncQueryResponse(QueryRouter queryRouter, long requestId, Set<ServerRoutingInstance> serversQueried,
       long startTimeMs, long timeoutMs, ServerRoutingStatsManager serverRoutingStatsManager) {
+    this(queryRouter, requestId, serversQueried, startTimeMs, timeoutMs, serverRoutingStatsManager, null);
+  }
+
+  /**
+   * When an {@link IncrementalBrokerReducer} is provided, each data table is reduced on the broker reduce executor as
+   * it is received, and only its metadata is kept in the {@link ServerResponse}.
+   */
+  public AsyncQueryResponse(QueryRouter queryRouter, long requestId, Set<ServerRoutingInstance> serversQueried,
+      long startTimeMs, long timeoutMs, ServerRoutingStatsManager serverRoutingStatsManager,
+      @Nullable IncrementalBrokerReducer incrementalReducer) {
     _queryRouter = queryRouter;
     _requestId = requestId;
     int numServersQueried = serversQueried.size();
@@ -68,6 +80,7 @@ public class AsyncQueryResponse implements QueryResponse {
     _countDownLatch = new CountDownLatch(numServersQueried);
     _timeoutMs = timeoutMs;
     _maxEndTimeMs = startTimeMs + timeoutMs;
+    _incrementalReducer = incrementalReducer;
   }
 
   @Override
@@ -91,6 +104,10 @@ public class AsyncQueryResponse implements QueryResponse {
     try {
       boolean finish = _countDownLatch.await(_maxEndTimeMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
       _status.compareAndSet(Status.IN_PROGRESS, finish ? Status.COMPLETED : Status.TIMED_OUT);
+      if (_incrementalReducer != null) {
+        // Stop reducing so that the responses arriving late are neither reduced nor counted as responded
+        _incrementalReducer.seal();
+      }
       return _responseMap;
     } finally {
       // Update ServerRoutingStats for query completion. This is done here to ensure that the stats are updated for
@@ -182,8 +199,21 @@ public class AsyncQueryResponse implements QueryResponse {
   void receiveDataTable(ServerRoutingInstance serverRoutingInstance, DataTable dataTable, int responseSize,
       int deserializationTimeMs) {
     ServerResponse response = _responseMap.get(serverRoutingInstance);
-    response.receiveDataTable(dataTable, responseSize, deserializationTimeMs);
+    if (_incrementalReducer != null) {
+      // Reduce the data table on the broker reduce executor to not block the network thread. The server is counted as
+      // responded once the data table is reduced, and only the metadata of the data table is kept.
+      long receiveDataTableTimeMs = System.currentTimeMillis();
+      _incrementalReducer.offer(serverRoutingInstance, dataTable, metadataOnlyDataTable -> {
+        response.receiveDataTable(metadataOnlyDataTable, responseSize, deserializationTimeMs, receiveDataTableTimeMs);
+        markServerResponded();
+      });
+    } else {
+      response.receiveDataTable(dataTable, responseSize, deserializationTimeMs);
+      markServerResponded();
+    }
+  }
 
+  private void markServerResponded() {
     _numServersResponded.getAndIncrement();
     _countDownLatch.countDown();
   }
@@ -19,8 +19,10 @@
 package org.apache.pinot.core.transport;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import java.nio.ByteBuffer;
 import org.apache.pinot.common.datatable.DataTable;
 import org.apache.pinot.common.datatable.DataTableFactory;
 import org.apache.pinot.common.metrics.BrokerMeter;
@@ -67,7 +69,13 @@ public class DataTableHandler extends SimpleChannelInboundHandler<ByteBuf> {
     _brokerMetrics.addMeteredGlobalValue(BrokerMeter.NETTY_CONNECTION_BYTES_RECEIVED, responseSize);
     try {
       long deserializationStartTimeMs = System.currentTimeMillis();
-      DataTable dataTable = DataTableFactory.getDataTable(msg.nioBuffer());
+      ByteBuffer byteBuffer = msg.nioBuffer();
+      if (DataTableFactory.getVersion(byteBuffer) >= DataTableFactory.VERSION_5) {
+        // Since V5, the data table references the sections of the buffer without copying them. Copy the message out of
+        // the Netty buffer, which is released after this method returns, with a single bulk copy.
+        byteBuffer = ByteBuffer.wrap(ByteBufUtil.getBytes(msg));
+      }
+      DataTable dataTable = DataTableFactory.getDataTable(byteBuffer);
       _queryRouter.receiveDataTable(_serverRoutingInstance, dataTable, responseSize,
           (int) (System.currentTimeMillis() - deserializationStartTimeMs));
       long requestID = Long.parseLong(dataTable.getMetadata().get(DataTable.MetadataKey.REQUEST_ID.getName()));
@@ -94,7 +94,11 @@ public class ServerResponse {
   }
 
   void receiveDataTable(DataTable dataTable, int responseSize, int deserializationTimeMs) {
-    _receiveDataTableTimeMs = System.currentTimeMillis();
+    receiveDataTable(dataTable, responseSize, deserializationTimeMs, System.currentTimeMillis());
+  }
+
+  void receiveDataTable(DataTable dataTable, int responseSize, int deserializationTimeMs, long receiveDataTableTimeMs) {
+    _receiveDataTableTimeMs = receiveDataTableTimeMs;
     _dataTable = dataTable;
     _responseSize = responseSize;
     _deserializationTimeMs = deserializationTimeMs;
@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.spi.exception.QueryMemoryBudgetExceededException;
+
+
+/**
+ * The {@code QueryMemoryBudget} tracks the memory reserved by a single query against a per-query budget, so that a
+ * query growing too large can be degraded or failed on its own instead of being picked by the heap-wide query killer.
+ * <p>The group-by executors and the indexed tables reserve the estimated size of the groups as they grow, and release
+ * it when the groups are trimmed or merged. Once the reserved memory crosses {@link #TRIM_RATIO} of the budget, the
+ * indexed tables trim early to the trim size; a reservation exceeding the budget fails the query with a
+ * {@link QueryMemoryBudgetExceededException}.
+ * <p>The sizes are estimations based on the value types and are not meant to be accurate.
+ */
+@ThreadSafe
+public class QueryMemoryBudget {
+  public static final double TRIM_RATIO = 0.8;
+
+  // Estimated overhead of a group in the indexed table (key, record, value arrays and map entry)
+  private static final int RECORD_OVERHEAD_BYTES = 96;
+  // Estimated overhead of a group in the segment level group key generator
+  private static final int GROUP_KEY_OVERHEAD_BYTES = 32;
+  // Estimated size of a boxed number or a reference to it
+  private static final int NUMBER_VALUE_BYTES = 24;
+  // Estimated size of a variable length value such as STRING or BYTES
+  private static final int VARIABLE_LENGTH_VALUE_BYTES = 64;
+  // Estimated size of a custom object such as a sketch or a set
+  private static final int OBJECT_VALUE_BYTES = 256;
+
+  private final long _maxBytes;
+  private final long _trimBytes;
+  private final AtomicLong _reservedBytes = new AtomicLong();
+
+  public QueryMemoryBudget(long maxBytes) {
+    _maxBytes = maxBytes;
+    _trimBytes = (long) (maxBytes * TRIM_RATIO);
+  }
+
+  /**
+   * Reserves the given bytes from the budget.
+   *
+   * @throws QueryMemoryBudgetExceededException if the reservation exceeds the budget, in which case nothing is reserved
+   */
+  public void reserve(long bytes, String operation) {
+    long reservedBytes = _reservedBytes.addAndGet(bytes);
+    if (reservedBytes > _maxBytes) {
+      _reservedBytes.addAndGet(-bytes);
+      throw new QueryMemoryBudgetExceededException(
+          String.format("Query exceeded its memory budget of %d bytes while %s (reserved: %d bytes, requested: %d "
+              + "bytes). Consider adding filters or limiting the number of groups", _maxBytes, operation,
+              reservedBytes - bytes, bytes));
+    }
+  }
+
+  public void release(long bytes) {
+    _reservedBytes.addAndGet(-bytes);
+  }
+
+  /**
+   * Returns {@code true} when the reserved memory is close to the budget, where the operators should trim early.
+   */
+  public boolean isNearLimit() {
+    return _reservedBytes.get() >= _trimBytes;
+  }
+
+  public long getMaxBytes() {
+    return _maxBytes;
+  }
+
+  public long getReservedBytes() {
+    return _reservedBytes.get();
+  }
+
+  /**
+   * Returns the estimated size of a record in the indexed table with the given data schema.
+   */
+  public static long estimateRecordSizeInBytes(DataSchema dataSchema) {
+    long size = RECORD_OVERHEAD_BYTES;
+    for (ColumnDataType columnDataType : dataSchema.getStoredColumnDataTypes()) {
+      size += estimateValueSizeInBytes(columnDataType);
+    }
+    return size;
+  }
+
+  /**
+   * Returns the estimated size of a group in the segment level group-by executor, including the group key and the
+   * results of the aggregation functions in the result holders.
+   */
+  public static long estimateGroupSizeInBytes(AggregationFunction[] aggregationFunctions) {
+    long size = GROUP_KEY_OVERHEAD_BYTES;
+    for (AggregationFunction aggregationFunction : aggregationFunctions) {
+      size += estimateValueSizeInBytes(aggregationFunction.getIntermediateResultColumnType().getStoredType());
+    }
+    return size;
+  }
+
+  private static int estimateValueSizeInBytes(ColumnDataType storedType) {
+    switch (storedType) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        return NUMBER_VALUE_BYTES;
+      case OBJECT:
+        return OBJECT_VALUE_BYTES;
+      default:
+        return VARIABLE_LENGTH_VALUE_BYTES;
+    }
+  }
+}
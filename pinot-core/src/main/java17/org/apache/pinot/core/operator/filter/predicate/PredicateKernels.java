@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter.predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * JDK 17+ version of the batch kernels used by the predicate evaluators, which evaluates a block of values with the
+ * Vector API when the {@code jdk.incubator.vector} module is added to the JVM
+ * ({@code --add-modules jdk.incubator.vector}). Otherwise, or when disabled with the system property
+ * {@code pinot.query.vectorizedPredicates.disabled}, it falls back to the scalar kernels.
+ */
+public final class PredicateKernels {
+  // Maximum number of values to evaluate IN predicates with the vectorized comparisons instead of a hash set lookup
+  public static final int MAX_VECTORIZED_IN_VALUES = 8;
+  public static final String DISABLE_VECTORIZATION_PROPERTY = "pinot.query.vectorizedPredicates.disabled";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PredicateKernels.class);
+  private static final boolean VECTORIZED = isVectorApiAvailable();
+
+  private PredicateKernels() {
+  }
+
+  private static boolean isVectorApiAvailable() {
+    if (Boolean.getBoolean(DISABLE_VECTORIZATION_PROPERTY)
+        || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+      return false;
+    }
+    try {
+      int laneCount = VectorizedPredicateKernels.getIntLaneCount();
+      LOGGER.info("Using vectorized predicate evaluation with {} int lanes", laneCount);
+      return laneCount > 1;
+    } catch (Throwable t) {
+      LOGGER.warn("Failed to initialize the Vector API, falling back to scalar predicate evaluation", t);
+      return false;
+    }
+  }
+
+  /**
+   * Returns {@code true} if the kernels are vectorized.
+   */
+  public static boolean isVectorized() {
+    return VECTORIZED;
+  }
+
+  public static int applyIntRange(int limit, int[] docIds, int[] values, int inclusiveLowerBound,
+      int inclusiveUpperBound) {
+    if (VECTORIZED) {
+      return VectorizedPredicateKernels.applyIntRange(limit, docIds, values, inclusiveLowerBound, inclusiveUpperBound);
+    }
+    return ScalarPredicateKernels.applyIntRange(limit, docIds, values, inclusiveLowerBound, inclusiveUpperBound);
+  }
+
+  public static int applyLongRange(int limit, int[] docIds, long[] values, long inclusiveLowerBound,
+      long inclusiveUpperBound) {
+    if (VECTORIZED) {
+      return VectorizedPredicateKernels.applyLongRange(limit, docIds, values, inclusiveLowerBound,
+          inclusiveUpperBound);
+    }
+    return ScalarPredicateKernels.applyLongRange(limit, docIds, values, inclusiveLowerBound, inclusiveUpperBound);
+  }
+
+  public static int applyFloatRange(int limit, int[] docIds, float[] values, float inclusiveLowerBound,
+      float inclusiveUpperBound) {
+    if (VECTORIZED) {
+      return VectorizedPredicateKernels.applyFloatRange(limit, docIds, values, inclusiveLowerBound,
+          inclusiveUpperBound);
+    }
+    return ScalarPredicateKernels.applyFloatRange(limit, docIds, values, inclusiveLowerBound, inclusiveUpperBound);
+  }
+
+  public static int applyDoubleRange(int limit, int[] docIds, double[] values, double inclusiveLowerBound,
+      double inclusiveUpperBound) {
+    if (VECTORIZED) {
+      return VectorizedPredicateKernels.applyDoubleRange(limit, docIds, values, inclusiveLowerBound,
+          inclusiveUpperBound);
+    }
+    return ScalarPredicateKernels.applyDoubleRange(limit, docIds, values, inclusiveLowerBound, inclusiveUpperBound);
+  }
+
+  /**
+   * Evaluates an IN predicate with a few matching values (at most {@link #MAX_VECTORIZED_IN_VALUES}).
+   */
+  public static int applyIntIn(int limit, int[] docIds, int[] values, int[] matchingValues) {
+    if (VECTORIZED) {
+      return VectorizedPredicateKernels.applyIntIn(limit, docIds, values, matchingValues);
+    }
+    return ScalarPredicateKernels.applyIntIn(limit, docIds, values, matchingValues);
+  }
+}
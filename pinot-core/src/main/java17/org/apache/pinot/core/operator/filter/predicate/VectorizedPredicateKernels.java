@@ -0,0 +1,164 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter.predicate;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+
+/**
+ * Vector API implementation of the {@link PredicateKernels}. Each block of values is compared in lanes of the preferred
+ * vector size, and the docIds of the matching lanes are compacted with the bits of the comparison mask. The remaining
+ * values that do not fill a vector are evaluated one at a time.
+ * <p>This class must only be loaded when the {@code jdk.incubator.vector} module is available.
+ */
+final class VectorizedPredicateKernels {
+  private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Long> LONG_SPECIES = LongVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Double> DOUBLE_SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+  private VectorizedPredicateKernels() {
+  }
+
+  static int getIntLaneCount() {
+    return INT_SPECIES.length();
+  }
+
+  static int applyIntRange(int limit, int[] docIds, int[] values, int inclusiveLowerBound, int inclusiveUpperBound) {
+    int matches = 0;
+    int i = 0;
+    int loopBound = INT_SPECIES.loopBound(limit);
+    for (; i < loopBound; i += INT_SPECIES.length()) {
+      IntVector vector = IntVector.fromArray(INT_SPECIES, values, i);
+      VectorMask<Integer> mask = vector.compare(VectorOperators.GE, inclusiveLowerBound)
+          .and(vector.compare(VectorOperators.LE, inclusiveUpperBound));
+      matches = compact(docIds, i, mask.toLong(), matches);
+    }
+    for (; i < limit; i++) {
+      int value = values[i];
+      if (value >= inclusiveLowerBound && value <= inclusiveUpperBound) {
+        docIds[matches++] = docIds[i];
+      }
+    }
+    return matches;
+  }
+
+  static int applyLongRange(int limit, int[] docIds, long[] values, long inclusiveLowerBound,
+      long inclusiveUpperBound) {
+    int matches = 0;
+    int i = 0;
+    int loopBound = LONG_SPECIES.loopBound(limit);
+    for (; i < loopBound; i += LONG_SPECIES.length()) {
+      LongVector vector = LongVector.fromArray(LONG_SPECIES, values, i);
+      VectorMask<Long> mask = vector.compare(VectorOperators.GE, inclusiveLowerBound)
+          .and(vector.compare(VectorOperators.LE, inclusiveUpperBound));
+      matches = compact(docIds, i, mask.toLong(), matches);
+    }
+    for (; i < limit; i++) {
+      long value = values[i];
+      if (value >= inclusiveLowerBound && value <= inclusiveUpperBound) {
+        docIds[matches++] = docIds[i];
+      }
+    }
+    return matches;
+  }
+
+  static int applyFloatRange(int limit, int[] docIds, float[] values, float inclusiveLowerBound,
+      float inclusiveUpperBound) {
+    int matches = 0;
+    int i = 0;
+    int loopBound = FLOAT_SPECIES.loopBound(limit);
+    for (; i < loopBound; i += FLOAT_SPECIES.length()) {
+      FloatVector vector = FloatVector.fromArray(FLOAT_SPECIES, values, i);
+      VectorMask<Float> mask = vector.compare(VectorOperators.GE, inclusiveLowerBound)
+          .and(vector.compare(VectorOperators.LE, inclusiveUpperBound));
+      matches = compact(docIds, i, mask.toLong(), matches);
+    }
+    for (; i < limit; i++) {
+      float value = values[i];
+      if (value >= inclusiveLowerBound && value <= inclusiveUpperBound) {
+        docIds[matches++] = docIds[i];
+      }
+    }
+    return matches;
+  }
+
+  static int applyDoubleRange(int limit, int[] docIds, double[] values, double inclusiveLowerBound,
+      double inclusiveUpperBound) {
+    int matches = 0;
+    int i = 0;
+    int loopBound = DOUBLE_SPECIES.loopBound(limit);
+    for (; i < loopBound; i += DOUBLE_SPECIES.length()) {
+      DoubleVector vector = DoubleVector.fromArray(DOUBLE_SPECIES, values, i);
+      VectorMask<Double> mask = vector.compare(VectorOperators.GE, inclusiveLowerBound)
+          .and(vector.compare(VectorOperators.LE, inclusiveUpperBound));
+      matches = compact(docIds, i, mask.toLong(), matches);
+    }
+    for (; i < limit; i++) {
+      double value = values[i];
+      if (value >= inclusiveLowerBound && value <= inclusiveUpperBound) {
+        docIds[matches++] = docIds[i];
+      }
+    }
+    return matches;
+  }
+
+  static int applyIntIn(int limit, int[] docIds, int[] values, int[] matchingValues) {
+    int matches = 0;
+    int i = 0;
+    int loopBound = INT_SPECIES.loopBound(limit);
+    for (; i < loopBound; i += INT_SPECIES.length()) {
+      IntVector vector = IntVector.fromArray(INT_SPECIES, values, i);
+      VectorMask<Integer> mask = vector.eq(matchingValues[0]);
+      for (int j = 1; j < matchingValues.length; j++) {
+        mask = mask.or(vector.eq(matchingValues[j]));
+      }
+      matches = compact(docIds, i, mask.toLong(), matches);
+    }
+    for (; i < limit; i++) {
+      int value = values[i];
+      for (int matchingValue : matchingValues) {
+        if (value == matchingValue) {
+          docIds[matches++] = docIds[i];
+          break;
+        }
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Moves the docIds of the matching lanes (set bits) within the block starting at the given offset to the front of the
+   * docIds array. The docIds are read before being overwritten because the write position never passes the read
+   * position.
+   */
+  private static int compact(int[] docIds, int offset, long matchingLanes, int matches) {
+    while (matchingLanes != 0) {
+      docIds[matches++] = docIds[offset + Long.numberOfTrailingZeros(matchingLanes)];
+      matchingLanes &= matchingLanes - 1;
+    }
+    return matches;
+  }
+}
@@ -33,6 +33,7 @@ import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -508,6 +509,35 @@ public class ObjectSerDeUtilsTest {
     }
   }
 
+  @Test
+  public void testSerializeIntoByteBuffer() {
+    for (int i = 0; i < NUM_ITERATIONS; i++) {
+      TDigest tDigest = TDigest.createMergingDigest(PercentileTDigestAggregationFunction.DEFAULT_TDIGEST_COMPRESSION);
+      UpdateSketch updateSketch = Sketches.updateSketchBuilder().build();
+      int size = RANDOM.nextInt(100) + 10;
+      for (int j = 0; j < size; j++) {
+        tDigest.add(RANDOM.nextDouble());
+        updateSketch.update(j);
+      }
+      Sketch compactSketch = updateSketch.compact(RANDOM.nextBoolean(), null);
+      Object[] values = new Object[]{RANDOM.nextLong(), RANDOM.nextDouble(), tDigest, updateSketch, compactSketch};
+      for (Object value : values) {
+        int objectTypeValue = ObjectSerDeUtils.ObjectType.getObjectType(value).getValue();
+        byte[] expected = ObjectSerDeUtils.serialize(value, objectTypeValue);
+        int serializedSize = ObjectSerDeUtils.getSerializedSize(value, objectTypeValue);
+        assertEquals(serializedSize, expected.length, ERROR_MESSAGE);
+
+        // Serialize after some existing bytes to verify the position is respected
+        ByteBuffer byteBuffer = ByteBuffer.allocate(Integer.BYTES + serializedSize);
+        byteBuffer.putInt(size);
+        ObjectSerDeUtils.serialize(value, objectTypeValue, byteBuffer);
+        assertEquals(byteBuffer.position(), byteBuffer.capacity(), ERROR_MESSAGE);
+        assertEquals(Arrays.copyOfRange(byteBuffer.array(), Integer.BYTES, byteBuffer.capacity()), expected,
+            ERROR_MESSAGE);
+      }
+    }
+  }
+
   @Test
   public void testThetaSketchAccumulator() {
     for (int i = 0; i < NUM_ITERATIONS; i++) {
@@ -38,6 +38,7 @@ import org.apache.pinot.spi.accounting.ThreadResourceUsageProvider;
 import org.apache.pinot.spi.utils.ByteArray;
 import org.roaringbitmap.RoaringBitmap;
 import org.testng.Assert;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -72,6 +73,11 @@ public class DataTableSerDeTest {
   private static final String[][] STRING_ARRAYS = new String[NUM_ROWS][];
   private static final Map<String, Object>[] MAPS = new Map[NUM_ROWS];
 
+  @AfterClass
+  public void tearDown() {
+    DataTableBuilderFactory.setDataTableVersion(DataTableBuilderFactory.DEFAULT_VERSION);
+  }
+
   @Test(dataProvider = "versionProvider")
   public void testException(int dataTableVersion)
       throws IOException {
@@ -241,9 +247,15 @@ public class DataTableSerDeTest {
 
     DataTable dataTable = dataTableBuilder.build();
     DataTable newDataTable = DataTableFactory.getDataTable(dataTable.toBytes());
+    Assert.assertEquals(newDataTable.getVersion(), dataTableVersion, ERROR_MESSAGE);
     Assert.assertEquals(newDataTable.getDataSchema(), dataSchema, ERROR_MESSAGE);
     Assert.assertEquals(newDataTable.getNumberOfRows(), NUM_ROWS, ERROR_MESSAGE);
     verifyDataIsSame(newDataTable, columnDataTypes, numColumns);
+
+    // Data only data table should be serialized the same way
+    newDataTable = DataTableFactory.getDataTable(newDataTable.toDataOnlyDataTable().toBytes());
+    Assert.assertEquals(newDataTable.getNumberOfRows(), NUM_ROWS, ERROR_MESSAGE);
+    verifyDataIsSame(newDataTable, columnDataTypes, numColumns);
   }
 
   @Test(dataProvider = "versionProvider")
@@ -563,7 +575,8 @@ public class DataTableSerDeTest {
   @DataProvider(name = "versionProvider")
   public Object[][] provideVersion() {
     return new Object[][]{
-        new Object[]{DataTableFactory.VERSION_4}
+        new Object[]{DataTableFactory.VERSION_4},
+        new Object[]{DataTableFactory.VERSION_5}
     };
   }
 }
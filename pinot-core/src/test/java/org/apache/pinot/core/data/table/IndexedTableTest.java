@@ -20,8 +20,11 @@ package org.apache.pinot.core.data.table;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -33,6 +36,8 @@ import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUtils;
+import org.apache.pinot.core.util.QueryMemoryBudget;
+import org.apache.pinot.spi.exception.QueryMemoryBudgetExceededException;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -339,4 +344,117 @@ public class IndexedTableTest {
     // If 2 * trimSize exceeds the max integer value, the trim threshold should be bounded to the max integer value
     Assert.assertEquals(indexedTable._trimThreshold, Integer.MAX_VALUE);
   }
+
+  @Test
+  public void testLongKeyIndexedTable() {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext(
+        "SELECT SUM(m1), MAX(m2) FROM testTable GROUP BY d1 ORDER BY SUM(m1) DESC, d1 LIMIT 5");
+    DataSchema dataSchema = new DataSchema(new String[]{"d1", "sum(m1)", "max(m2)"},
+        new ColumnDataType[]{ColumnDataType.LONG, ColumnDataType.DOUBLE, ColumnDataType.DOUBLE});
+    Assert.assertTrue(LongKeyIndexedTable.isSupported(dataSchema, queryContext));
+    Assert.assertFalse(LongKeyIndexedTable.isSupported(new DataSchema(new String[]{"d1", "sum(m1)", "max(m2)"},
+        new ColumnDataType[]{ColumnDataType.STRING, ColumnDataType.DOUBLE, ColumnDataType.DOUBLE}), queryContext));
+
+    // Upsert the same records into both tables, with enough groups to grow the arrays
+    IndexedTable expectedTable = new SimpleIndexedTable(dataSchema, queryContext, 5, 200, 10_000);
+    IndexedTable longKeyTable = new LongKeyIndexedTable(dataSchema, queryContext, 5, 200, 10_000);
+    IndexedTable mergeTable = new LongKeyIndexedTable(dataSchema, queryContext, 5, 200, 10_000);
+    Random random = new Random(42);
+    for (int i = 0; i < 5000; i++) {
+      long key = random.nextInt(1000);
+      double m1 = random.nextInt(100);
+      double m2 = random.nextInt(100);
+      expectedTable.upsert(getRecord(new Object[]{key, m1, m2}));
+      if (i % 2 == 0) {
+        longKeyTable.upsert(getRecord(new Object[]{key, m1, m2}));
+      } else {
+        mergeTable.upsert(new Key(new Object[]{key}), getRecord(new Object[]{key, m1, m2}));
+      }
+    }
+    longKeyTable.merge(mergeTable);
+    Assert.assertEquals(longKeyTable.size(), expectedTable.size());
+
+    // Trimming after all the upserts should keep the top records
+    longKeyTable.trim();
+    Assert.assertEquals(longKeyTable.size(), 200);
+    Assert.assertEquals(longKeyTable.getNumResizes(), 1);
+
+    expectedTable.finish(true);
+    longKeyTable.finish(true);
+    Assert.assertEquals(longKeyTable.size(), expectedTable.size());
+    Iterator<Record> expectedIterator = expectedTable.iterator();
+    Iterator<Record> iterator = longKeyTable.iterator();
+    while (expectedIterator.hasNext()) {
+      Assert.assertEquals(iterator.next().getValues(), expectedIterator.next().getValues());
+    }
+  }
+
+  @Test
+  public void testLongKeyIndexedTableWithoutOrderBy() {
+    QueryContext queryContext =
+        QueryContextConverterUtils.getQueryContext("SELECT SUM(m1) FROM testTable GROUP BY d1 LIMIT 3");
+    DataSchema dataSchema =
+        new DataSchema(new String[]{"d1", "sum(m1)"}, new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.DOUBLE});
+    LongKeyIndexedTable indexedTable = new LongKeyIndexedTable(dataSchema, queryContext, 3, TRIM_SIZE, TRIM_THRESHOLD);
+
+    // Values can be reused across upserts, and no new group is added once the result size is reached
+    Object[] values = new Object[2];
+    for (int i = 0; i < 5; i++) {
+      values[0] = i;
+      values[1] = 1d;
+      indexedTable.upsert(i, values);
+    }
+    values[0] = 0;
+    values[1] = 2d;
+    indexedTable.upsert(0, values);
+    Assert.assertEquals(indexedTable.size(), 3);
+
+    indexedTable.finish(false);
+    Map<Integer, Double> results = new HashMap<>();
+    Iterator<Record> iterator = indexedTable.iterator();
+    while (iterator.hasNext()) {
+      Object[] row = iterator.next().getValues();
+      results.put((Integer) row[0], (Double) row[1]);
+    }
+    Assert.assertEquals(results, Map.of(0, 3d, 1, 1d, 2, 1d));
+  }
+
+  @Test
+  public void testMemoryBudget() {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext(
+        "SELECT SUM(m1) FROM testTable GROUP BY d1 ORDER BY SUM(m1) DESC LIMIT 5");
+    DataSchema dataSchema =
+        new DataSchema(new String[]{"d1", "sum(m1)"}, new ColumnDataType[]{ColumnDataType.LONG, ColumnDataType.DOUBLE});
+    long recordSizeInBytes = QueryMemoryBudget.estimateRecordSizeInBytes(dataSchema);
+
+    // Other operators of the query already hold 7 chunks of records, so the table gets close to the budget once it
+    // reserves its first chunk, and would exceed the budget if it kept all the records
+    QueryMemoryBudget memoryBudget = new QueryMemoryBudget(10 * 1024 * recordSizeInBytes);
+    memoryBudget.reserve(7 * 1024 * recordSizeInBytes, "testing");
+    queryContext.setMemoryBudget(memoryBudget);
+    IndexedTable indexedTable = new SimpleIndexedTable(dataSchema, queryContext, 5, TRIM_SIZE, 1_000_000);
+    for (int i = 0; i < 5000; i++) {
+      indexedTable.upsert(getRecord(new Object[]{(long) i, (double) i}));
+    }
+    // The table should be trimmed early instead of waiting for the trim threshold
+    Assert.assertTrue(indexedTable.getNumResizes() > 0);
+    Assert.assertTrue(memoryBudget.getReservedBytes() <= 9 * 1024 * recordSizeInBytes);
+    indexedTable.finish(true);
+    Iterator<Record> iterator = indexedTable.iterator();
+    for (int i = 4999; i >= 4995; i--) {
+      Assert.assertEquals(iterator.next().getValues(), new Object[]{(long) i, (double) i});
+    }
+
+    // Without ORDER BY, the table cannot be trimmed and the query should fail once the budget is exceeded
+    queryContext = QueryContextConverterUtils.getQueryContext("SELECT SUM(m1) FROM testTable GROUP BY d1 LIMIT 5000");
+    memoryBudget = new QueryMemoryBudget(2 * 1024 * recordSizeInBytes);
+    queryContext.setMemoryBudget(memoryBudget);
+    IndexedTable unorderedTable = new SimpleIndexedTable(dataSchema, queryContext, 5000, TRIM_SIZE, TRIM_THRESHOLD);
+    Assert.assertThrows(QueryMemoryBudgetExceededException.class, () -> {
+      for (int i = 0; i < 5000; i++) {
+        unorderedTable.upsert(getRecord(new Object[]{(long) i, (double) i}));
+      }
+    });
+    Assert.assertTrue(unorderedTable.size() > 1024 && unorderedTable.size() < 5000);
+  }
 }
@@ -21,7 +21,9 @@ package org.apache.pinot.core.data.table;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import org.apache.pinot.common.utils.DataSchema;
@@ -330,6 +332,39 @@ public class TableResizerTest {
     assertEquals(sortedRecords.get(2), _records.get(3));
   }
 
+  @Test
+  public void testGetTopRecordsWithRecordReader() {
+    int numRecords = _records.size();
+    int numColumns = DATA_SCHEMA.size();
+    TableResizer.RecordReader recordReader = (recordId, values) -> {
+      Object[] recordValues = _records.get(recordId).getValues();
+      System.arraycopy(recordValues, 0, values, 0, numColumns);
+    };
+    // Order-by expressions without ties, so that the order of the top records is deterministic
+    String[] orderBys = new String[]{
+        "d1, d3 DESC", "d1, SUM(m1) DESC, max(m2) DESC", "AVG(m4), d3", "DISTINCTCOUNT(m3) DESC, d1",
+        "d2 / (DISTINCTCOUNT(m3) + 1), d1 DESC"
+    };
+    for (String orderBy : orderBys) {
+      TableResizer tableResizer =
+          new TableResizer(DATA_SCHEMA, QueryContextConverterUtils.getQueryContext(QUERY_PREFIX + orderBy));
+      for (int size : new int[]{1, TRIM_TO_SIZE, numRecords, numRecords + 1}) {
+        // Sorted top records should match the ones from the records map
+        List<Record> expectedRecords = tableResizer.getSortedTopRecords(new HashMap<>(_recordsMap), size);
+        List<Record> sortedRecords =
+            new ArrayList<>(tableResizer.getTopRecords(numRecords, numColumns, recordReader, size, true));
+        assertEquals(sortedRecords, expectedRecords, orderBy);
+
+        // Unsorted top records should contain the same records
+        Collection<Record> unsortedRecords =
+            tableResizer.getTopRecords(numRecords, numColumns, recordReader, size, false);
+        assertEquals(new HashSet<>(unsortedRecords), new HashSet<>(expectedRecords), orderBy);
+      }
+    }
+    assertTrue(new TableResizer(DATA_SCHEMA, QueryContextConverterUtils.getQueryContext(QUERY_PREFIX + "d1"))
+        .getTopRecords(0, numColumns, recordReader, TRIM_TO_SIZE, true).isEmpty());
+  }
+
   /**
    * Tests in-segment trim from 15 records to 10 records
    */
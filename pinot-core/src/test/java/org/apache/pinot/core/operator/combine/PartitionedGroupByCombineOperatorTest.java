@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.combine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.data.table.IntermediateRecord;
+import org.apache.pinot.core.data.table.Key;
+import org.apache.pinot.core.data.table.Record;
+import org.apache.pinot.core.operator.BaseOperator;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUtils;
+import org.apache.pinot.core.util.QueryMemoryBudget;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Tests that the memory reserved for the segment level results is released once they are merged into the partitioned
+ * tables, so that it does not accumulate against the query memory budget.
+ */
+@SuppressWarnings("rawtypes")
+public class PartitionedGroupByCombineOperatorTest {
+  private static final int NUM_OPERATORS = 20;
+  private static final int NUM_GROUPS_PER_OPERATOR = 10;
+  private static final int NUM_THREADS = 2;
+  private static final long SEGMENT_RESERVED_BYTES = 10_000_000L;
+  private static final DataSchema DATA_SCHEMA = new DataSchema(new String[]{"column", "count(*)"},
+      new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.LONG});
+
+  private ExecutorService _executorService;
+
+  @BeforeClass
+  public void setUp() {
+    _executorService = Executors.newFixedThreadPool(NUM_THREADS);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _executorService.shutdownNow();
+  }
+
+  @Test
+  public void testReleaseSegmentReservedMemory()
+      throws Exception {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext(
+        "SELECT column, COUNT(*) FROM testTable GROUP BY column ORDER BY column LIMIT 1000");
+    queryContext.setEndTimeMs(System.currentTimeMillis() + 10_000L);
+    // The budget can hold the results of the segments being processed at the same time, but not of all the segments
+    QueryMemoryBudget memoryBudget = new QueryMemoryBudget(NUM_OPERATORS * SEGMENT_RESERVED_BYTES / 2);
+    queryContext.setMemoryBudget(memoryBudget);
+    List<Operator> operators = new ArrayList<>(NUM_OPERATORS);
+    for (int i = 0; i < NUM_OPERATORS; i++) {
+      operators.add(new ReservingOperator(queryContext, i));
+    }
+
+    PartitionedGroupByCombineOperator combineOperator =
+        new PartitionedGroupByCombineOperator(operators, queryContext, _executorService);
+    BaseResultsBlock resultsBlock = combineOperator.nextBlock();
+    assertTrue(resultsBlock instanceof GroupByResultsBlock, String.valueOf(resultsBlock.getProcessingExceptions()));
+    assertEquals(((GroupByResultsBlock) resultsBlock).getNumRows(), NUM_OPERATORS * NUM_GROUPS_PER_OPERATOR);
+    // Only the memory reserved for the merged table is left
+    assertTrue(memoryBudget.getReservedBytes() < SEGMENT_RESERVED_BYTES, memoryBudget.getReservedBytes() + "");
+  }
+
+  /**
+   * Mimics the group-by operator, which reserves the memory for its results before returning them.
+   */
+  private static class ReservingOperator extends BaseOperator<GroupByResultsBlock> {
+    private static final String EXPLAIN_NAME = "RESERVING";
+
+    private final QueryContext _queryContext;
+    private final int _operatorId;
+
+    ReservingOperator(QueryContext queryContext, int operatorId) {
+      _queryContext = queryContext;
+      _operatorId = operatorId;
+    }
+
+    @Override
+    protected GroupByResultsBlock getNextBlock() {
+      _queryContext.getMemoryBudget().reserve(SEGMENT_RESERVED_BYTES, "grouping segment results");
+      List<IntermediateRecord> intermediateRecords = new ArrayList<>(NUM_GROUPS_PER_OPERATOR);
+      for (int i = 0; i < NUM_GROUPS_PER_OPERATOR; i++) {
+        int value = _operatorId * NUM_GROUPS_PER_OPERATOR + i;
+        intermediateRecords.add(
+            IntermediateRecord.create(new Key(new Object[]{value}), new Record(new Object[]{value, 1L})));
+      }
+      GroupByResultsBlock resultsBlock = new GroupByResultsBlock(DATA_SCHEMA, intermediateRecords, _queryContext);
+      resultsBlock.setReservedMemoryBytes(SEGMENT_RESERVED_BYTES);
+      return resultsBlock;
+    }
+
+    @Override
+    public String toExplainString() {
+      return EXPLAIN_NAME;
+    }
+
+    @Override
+    public List<Operator> getChildOperators() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public ExecutionStatistics getExecutionStatistics() {
+      return new ExecutionStatistics(0, 0, 0, 0);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter.predicate;
+
+import java.util.Random;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+public class PredicateKernelsTest {
+  private static final Random RANDOM = new Random();
+  private static final int NUM_VALUES = 1000;
+  // Covers all the tail lengths (limit not a multiple of the vector width) for vectors of up to 64 lanes
+  private static final int[] LIMITS = getLimits();
+
+  @Test
+  public void testVectorized() {
+    // Set by the surefire execution running the tests against the JDK 17+ classes with the Vector API module added
+    if (Boolean.getBoolean("pinot.test.vectorizedPredicates")) {
+      assertTrue(PredicateKernels.isVectorized());
+    }
+  }
+
+  @Test
+  public void testIntRange() {
+    int[] values = new int[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      values[i] = RANDOM.nextInt(100) - 50;
+    }
+    for (int limit : LIMITS) {
+      for (int[] bounds : new int[][]{{-10, 10}, {5, 5}, {Integer.MIN_VALUE, 0}, {0, Integer.MAX_VALUE}, {10, -10}}) {
+        int[] docIds = getDocIds();
+        int numMatches = PredicateKernels.applyIntRange(limit, docIds, values, bounds[0], bounds[1]);
+        int[] scalarDocIds = getDocIds();
+        assertMatches(docIds, numMatches, scalarDocIds,
+            ScalarPredicateKernels.applyIntRange(limit, scalarDocIds, values, bounds[0], bounds[1]));
+        int expected = 0;
+        for (int i = 0; i < limit; i++) {
+          if (values[i] >= bounds[0] && values[i] <= bounds[1]) {
+            assertEquals(docIds[expected++], 2 * i);
+          }
+        }
+        assertEquals(numMatches, expected);
+      }
+    }
+  }
+
+  @Test
+  public void testLongRange() {
+    long[] values = new long[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      values[i] = RANDOM.nextInt(100) - 50 + (long) Integer.MAX_VALUE;
+    }
+    long lowerBound = Integer.MAX_VALUE - 10L;
+    long upperBound = Integer.MAX_VALUE + 10L;
+    for (int limit : LIMITS) {
+      int[] docIds = getDocIds();
+      int numMatches = PredicateKernels.applyLongRange(limit, docIds, values, lowerBound, upperBound);
+      int[] scalarDocIds = getDocIds();
+      assertMatches(docIds, numMatches, scalarDocIds,
+          ScalarPredicateKernels.applyLongRange(limit, scalarDocIds, values, lowerBound, upperBound));
+      int expected = 0;
+      for (int i = 0; i < limit; i++) {
+        if (values[i] >= lowerBound && values[i] <= upperBound) {
+          assertEquals(docIds[expected++], 2 * i);
+        }
+      }
+      assertEquals(numMatches, expected);
+    }
+  }
+
+  @Test
+  public void testFloatAndDoubleRange() {
+    float[] floatValues = new float[NUM_VALUES];
+    double[] doubleValues = new double[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      floatValues[i] = RANDOM.nextFloat() * 2 - 1;
+      doubleValues[i] = RANDOM.nextDouble() * 2 - 1;
+    }
+    floatValues[3] = Float.NaN;
+    doubleValues[3] = Double.NaN;
+    for (int limit : LIMITS) {
+      int[] docIds = getDocIds();
+      int numMatches = PredicateKernels.applyFloatRange(limit, docIds, floatValues, -0.5f, 0.25f);
+      int[] scalarDocIds = getDocIds();
+      assertMatches(docIds, numMatches, scalarDocIds,
+          ScalarPredicateKernels.applyFloatRange(limit, scalarDocIds, floatValues, -0.5f, 0.25f));
+      int expected = 0;
+      for (int i = 0; i < limit; i++) {
+        if (floatValues[i] >= -0.5f && floatValues[i] <= 0.25f) {
+          assertEquals(docIds[expected++], 2 * i);
+        }
+      }
+      assertEquals(numMatches, expected);
+
+      docIds = getDocIds();
+      numMatches = PredicateKernels.applyDoubleRange(limit, docIds, doubleValues, -0.5, 0.25);
+      scalarDocIds = getDocIds();
+      assertMatches(docIds, numMatches, scalarDocIds,
+          ScalarPredicateKernels.applyDoubleRange(limit, scalarDocIds, doubleValues, -0.5, 0.25));
+      expected = 0;
+      for (int i = 0; i < limit; i++) {
+        if (doubleValues[i] >= -0.5 && doubleValues[i] <= 0.25) {
+          assertEquals(docIds[expected++], 2 * i);
+        }
+      }
+      assertEquals(numMatches, expected);
+    }
+  }
+
+  @Test
+  public void testIntIn() {
+    int[] values = new int[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      values[i] = RANDOM.nextInt(20);
+    }
+    for (int[] matchingValues : new int[][]{{3}, {1, 5, 19}, {0, 2, 4, 6, 8, 10, 12, 14}, {-1, 100}}) {
+      for (int limit : LIMITS) {
+        int[] docIds = getDocIds();
+        int numMatches = PredicateKernels.applyIntIn(limit, docIds, values, matchingValues);
+        int[] scalarDocIds = getDocIds();
+        assertMatches(docIds, numMatches, scalarDocIds,
+            ScalarPredicateKernels.applyIntIn(limit, scalarDocIds, values, matchingValues));
+        int expected = 0;
+        for (int i = 0; i < limit; i++) {
+          for (int matchingValue : matchingValues) {
+            if (values[i] == matchingValue) {
+              assertEquals(docIds[expected++], 2 * i);
+              break;
+            }
+          }
+        }
+        assertEquals(numMatches, expected);
+      }
+    }
+  }
+
+  private static void assertMatches(int[] docIds, int numMatches, int[] scalarDocIds, int numScalarMatches) {
+    assertEquals(numMatches, numScalarMatches);
+    for (int i = 0; i < numMatches; i++) {
+      assertEquals(docIds[i], scalarDocIds[i]);
+    }
+  }
+
+  private static int[] getLimits() {
+    int[] limits = new int[131];
+    for (int i = 0; i < 129; i++) {
+      limits[i] = i;
+    }
+    limits[129] = 333;
+    limits[130] = NUM_VALUES;
+    return limits;
+  }
+
+  private static int[] getDocIds() {
+    int[] docIds = new int[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      docIds[i] = 2 * i;
+    }
+    return docIds;
+  }
+}
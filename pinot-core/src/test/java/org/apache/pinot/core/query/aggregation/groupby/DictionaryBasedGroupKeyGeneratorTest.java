@@ -59,6 +59,7 @@ import org.testng.annotations.Test;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
 
 
 public class DictionaryBasedGroupKeyGeneratorTest {
@@ -218,6 +219,16 @@ public class DictionaryBasedGroupKeyGeneratorTest {
     assertEquals(dictionaryBasedGroupKeyGenerator.getCurrentGroupKeyUpperBound(), 2, _errorMessage);
     compareSingleValueBuffer();
     testGetGroupKeys(dictionaryBasedGroupKeyGenerator.getGroupKeys(), 2);
+
+    // Test raw group key iteration
+    assertTrue(dictionaryBasedGroupKeyGenerator.hasLongRawKeys(), _errorMessage);
+    Iterator<DictionaryBasedGroupKeyGenerator.RawGroupKey> rawGroupKeys =
+        dictionaryBasedGroupKeyGenerator.getRawGroupKeys();
+    Set<Integer> groupIds = new HashSet<>();
+    while (rawGroupKeys.hasNext()) {
+      groupIds.add(rawGroupKeys.next()._groupId);
+    }
+    assertEquals(groupIds, Set.of(0, 1), _errorMessage);
   }
 
   @Test
@@ -239,6 +250,10 @@ public class DictionaryBasedGroupKeyGeneratorTest {
     assertEquals(dictionaryBasedGroupKeyGenerator.getCurrentGroupKeyUpperBound(), 2, _errorMessage);
     compareSingleValueBuffer();
     testGetGroupKeys(dictionaryBasedGroupKeyGenerator.getGroupKeys(), 2);
+
+    // Raw keys cannot fit into long
+    assertFalse(dictionaryBasedGroupKeyGenerator.hasLongRawKeys(), _errorMessage);
+    expectThrows(IllegalStateException.class, dictionaryBasedGroupKeyGenerator::getRawGroupKeys);
   }
 
   /**
@@ -22,12 +22,16 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.apache.pinot.common.datatable.DataTable;
 import org.apache.pinot.common.exception.QueryException;
 import org.apache.pinot.common.metrics.BrokerMetrics;
 import org.apache.pinot.common.request.BrokerRequest;
 import org.apache.pinot.common.response.broker.BrokerResponseNative;
 import org.apache.pinot.common.response.broker.QueryProcessingException;
+import org.apache.pinot.common.response.broker.ResultTable;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.core.common.datatable.DataTableBuilder;
@@ -41,6 +45,9 @@ import org.testng.annotations.Test;
 
 import static org.mockito.Mockito.mock;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 
 public class BrokerReduceServiceTest {
@@ -79,4 +86,158 @@ public class BrokerReduceServiceTest {
     assertEquals(exceptions.size(), 1);
     assertEquals(exceptions.get(0).getErrorCode(), QueryException.BROKER_TIMEOUT_ERROR_CODE);
   }
+
+  @Test
+  public void testIncrementalReduce()
+      throws IOException, InterruptedException {
+    BrokerReduceService brokerReduceService = new BrokerReduceService(
+        new PinotConfiguration(Map.of(Broker.CONFIG_OF_BROKER_ENABLE_INCREMENTAL_REDUCE, true)));
+    DataSchema aggregationDataSchema =
+        new DataSchema(new String[]{"sum(col2)"}, new ColumnDataType[]{ColumnDataType.DOUBLE});
+    testIncrementalReduce(brokerReduceService, "SELECT SUM(col2) FROM testTable", aggregationDataSchema,
+        (serverId, rowId) -> new Object[]{(double) serverId});
+    DataSchema groupByDataSchema =
+        new DataSchema(new String[]{"col1", "count(*)"}, new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.LONG});
+    testIncrementalReduce(brokerReduceService,
+        "SELECT col1, COUNT(*) FROM testTable GROUP BY col1 ORDER BY COUNT(*) DESC, col1 LIMIT 20", groupByDataSchema,
+        (serverId, rowId) -> new Object[]{(serverId + rowId) % 50, (long) rowId});
+    DataSchema selectionDataSchema =
+        new DataSchema(new String[]{"col2", "col1"}, new ColumnDataType[]{ColumnDataType.LONG, ColumnDataType.INT});
+    testIncrementalReduce(brokerReduceService, "SELECT col1, col2 FROM testTable ORDER BY col2 DESC LIMIT 20",
+        selectionDataSchema, (serverId, rowId) -> new Object[]{(long) rowId * 100 + serverId, rowId});
+
+    // Selection only and explain queries are not reduced incrementally
+    long timeoutMs = Broker.DEFAULT_BROKER_TIMEOUT_MS;
+    BrokerRequest brokerRequest = CalciteSqlCompiler.compileToBrokerRequest("SELECT col1 FROM testTable LIMIT 10");
+    assertNull(brokerReduceService.getIncrementalReducer(brokerRequest, brokerRequest, timeoutMs));
+    brokerRequest = CalciteSqlCompiler.compileToBrokerRequest("EXPLAIN PLAN FOR SELECT COUNT(*) FROM testTable");
+    assertNull(brokerReduceService.getIncrementalReducer(brokerRequest, brokerRequest, timeoutMs));
+    // Query option overrides the broker config
+    brokerRequest = CalciteSqlCompiler.compileToBrokerRequest(
+        "SET incrementalReduce = false; SELECT COUNT(*) FROM testTable");
+    assertNull(brokerReduceService.getIncrementalReducer(brokerRequest, brokerRequest, timeoutMs));
+
+    // Data tables arriving after the reduce timed out are dropped
+    brokerRequest = CalciteSqlCompiler.compileToBrokerRequest("SELECT SUM(col2) FROM testTable");
+    IncrementalBrokerReducer incrementalReducer = brokerReduceService.getIncrementalReducer(brokerRequest,
+        brokerRequest, 0);
+    assertNotNull(incrementalReducer);
+    Thread.sleep(10);
+    assertNull(incrementalReducer.reduce(new ServerRoutingInstance("localhost", 0, TableType.OFFLINE),
+        DataTableBuilderFactory.getDataTableBuilder(aggregationDataSchema).build()));
+    brokerReduceService.shutDown();
+  }
+
+  @Test
+  public void testIncrementalReduceFailures()
+      throws IOException, InterruptedException {
+    BrokerReduceService brokerReduceService = new BrokerReduceService(
+        new PinotConfiguration(Map.of(Broker.CONFIG_OF_BROKER_ENABLE_INCREMENTAL_REDUCE, true)));
+    BrokerRequest brokerRequest = CalciteSqlCompiler.compileToBrokerRequest("SELECT SUM(col2) FROM testTable");
+    DataSchema dataSchema = new DataSchema(new String[]{"sum(col2)"}, new ColumnDataType[]{ColumnDataType.DOUBLE});
+    DataTableBuilder dataTableBuilder = DataTableBuilderFactory.getDataTableBuilder(dataSchema);
+    dataTableBuilder.startRow();
+    dataTableBuilder.setColumn(0, 1.0);
+    dataTableBuilder.finishRow();
+    DataTable dataTable = dataTableBuilder.build();
+
+    // A failing callback does not prevent the following data tables from being reduced
+    IncrementalBrokerReducer incrementalReducer =
+        brokerReduceService.getIncrementalReducer(brokerRequest, brokerRequest, Broker.DEFAULT_BROKER_TIMEOUT_MS);
+    assertNotNull(incrementalReducer);
+    incrementalReducer.offer(new ServerRoutingInstance("localhost", 0, TableType.OFFLINE), dataTable,
+        metadataOnlyDataTable -> {
+          throw new IllegalStateException("Failed to record the response");
+        });
+    CountDownLatch reducedLatch = new CountDownLatch(1);
+    incrementalReducer.offer(new ServerRoutingInstance("localhost", 1, TableType.OFFLINE), dataTable,
+        metadataOnlyDataTable -> reducedLatch.countDown());
+    assertTrue(reducedLatch.await(10, TimeUnit.SECONDS));
+    BrokerResponseNative brokerResponse = new BrokerResponseNative();
+    incrementalReducer.setResults("testTable", brokerResponse, mock(BrokerMetrics.class));
+    List<QueryProcessingException> exceptions = brokerResponse.getExceptions();
+    assertEquals(exceptions.size(), 1);
+    assertEquals(exceptions.get(0).getErrorCode(), QueryException.MERGE_RESPONSE_ERROR_CODE);
+
+    // Data tables are reduced on the calling thread once the reduce executor is shut down
+    incrementalReducer =
+        brokerReduceService.getIncrementalReducer(brokerRequest, brokerRequest, Broker.DEFAULT_BROKER_TIMEOUT_MS);
+    assertNotNull(incrementalReducer);
+    brokerReduceService.shutDown();
+    CountDownLatch inlineReducedLatch = new CountDownLatch(1);
+    incrementalReducer.offer(new ServerRoutingInstance("localhost", 0, TableType.OFFLINE), dataTable,
+        metadataOnlyDataTable -> inlineReducedLatch.countDown());
+    assertEquals(inlineReducedLatch.getCount(), 0);
+  }
+
+  private void testIncrementalReduce(BrokerReduceService brokerReduceService, String query, DataSchema dataSchema,
+      RowGenerator rowGenerator)
+      throws IOException, InterruptedException {
+    BrokerRequest brokerRequest = CalciteSqlCompiler.compileToBrokerRequest(query);
+    BrokerMetrics brokerMetrics = mock(BrokerMetrics.class);
+    IncrementalBrokerReducer incrementalReducer =
+        brokerReduceService.getIncrementalReducer(brokerRequest, brokerRequest, Broker.DEFAULT_BROKER_TIMEOUT_MS);
+    assertNotNull(incrementalReducer);
+
+    int numServers = 10;
+    int numRowsPerServer = 100;
+    Map<ServerRoutingInstance, DataTable> dataTableMap = new HashMap<>();
+    Map<ServerRoutingInstance, DataTable> metadataOnlyDataTableMap = new ConcurrentHashMap<>();
+    CountDownLatch reducedLatch = new CountDownLatch(numServers);
+    for (int serverId = 0; serverId < numServers; serverId++) {
+      DataTableBuilder dataTableBuilder = DataTableBuilderFactory.getDataTableBuilder(dataSchema);
+      // Aggregation data table always has a single row
+      int numRows = dataSchema.size() == 1 ? 1 : numRowsPerServer;
+      for (int rowId = 0; rowId < numRows; rowId++) {
+        Object[] row = rowGenerator.generate(serverId, rowId);
+        dataTableBuilder.startRow();
+        for (int colId = 0; colId < row.length; colId++) {
+          if (row[colId] instanceof Integer) {
+            dataTableBuilder.setColumn(colId, (int) row[colId]);
+          } else if (row[colId] instanceof Long) {
+            dataTableBuilder.setColumn(colId, (long) row[colId]);
+          } else {
+            dataTableBuilder.setColumn(colId, (double) row[colId]);
+          }
+        }
+        dataTableBuilder.finishRow();
+      }
+      DataTable dataTable = dataTableBuilder.build();
+      ServerRoutingInstance serverRoutingInstance = new ServerRoutingInstance("localhost", serverId, TableType.OFFLINE);
+      dataTableMap.put(serverRoutingInstance, dataTable);
+      incrementalReducer.offer(serverRoutingInstance, dataTable, metadataOnlyDataTable -> {
+        assertNull(metadataOnlyDataTable.getDataSchema());
+        metadataOnlyDataTableMap.put(serverRoutingInstance, metadataOnlyDataTable);
+        reducedLatch.countDown();
+      });
+    }
+    // The data tables are reduced on the reduce executor
+    assertTrue(reducedLatch.await(10, TimeUnit.SECONDS));
+    incrementalReducer.seal();
+    // Data tables arriving after the reducer is sealed are dropped
+    assertNull(incrementalReducer.reduce(new ServerRoutingInstance("localhost", numServers, TableType.OFFLINE),
+        dataTableMap.values().iterator().next()));
+
+    BrokerResponseNative expectedResponse =
+        brokerReduceService.reduceOnDataTable(brokerRequest, brokerRequest, dataTableMap,
+            Broker.DEFAULT_BROKER_TIMEOUT_MS, brokerMetrics);
+    BrokerResponseNative brokerResponse =
+        brokerReduceService.reduceOnDataTable(brokerRequest, brokerRequest, metadataOnlyDataTableMap,
+            Broker.DEFAULT_BROKER_TIMEOUT_MS, brokerMetrics, incrementalReducer);
+    assertEquals(brokerResponse.getExceptions(), expectedResponse.getExceptions());
+    ResultTable expectedResultTable = expectedResponse.getResultTable();
+    ResultTable resultTable = brokerResponse.getResultTable();
+    assertNotNull(resultTable);
+    assertEquals(resultTable.getDataSchema(), expectedResultTable.getDataSchema());
+    List<Object[]> expectedRows = expectedResultTable.getRows();
+    List<Object[]> rows = resultTable.getRows();
+    assertEquals(rows.size(), expectedRows.size());
+    for (int i = 0; i < rows.size(); i++) {
+      assertEquals(rows.get(i), expectedRows.get(i));
+    }
+  }
+
+  private interface RowGenerator {
+    Object[] generate(int serverId, int rowId);
+  }
 }
@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.queries;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Tests the AND filters reordered and the index lookups replaced with scans based on the selectivity of the predicates
+ * observed by the previous queries.
+ */
+public class AdaptiveFilterReorderingQueriesTest extends BaseSingleValueQueriesTest {
+
+  @Test
+  public void testReorderScans() {
+    InstancePlanMakerImplV2 planMaker = getPlanMaker();
+    // column1 > 500000000 matches ~75% of the docs, column3 < 10000000 matches ~0.5% of the docs
+    String query = "SELECT COUNT(*) FROM testTable WHERE column1 > 500000000 AND column3 < 10000000";
+    List<String> explainPlan = getExplainPlan(query, planMaker);
+    assertTrue(explainPlan.get(explainPlan.size() - 2).startsWith("FILTER_FULL_SCAN(operator:RANGE,predicate:column1"),
+        explainPlan.toString());
+
+    BrokerResponseNative expected = getBrokerResponse(query, planMaker);
+    BrokerResponseNative brokerResponse = getBrokerResponse(query, planMaker);
+    assertEquals(brokerResponse.getResultTable().getRows().get(0), expected.getResultTable().getRows().get(0));
+    assertTrue(brokerResponse.getNumEntriesScannedInFilter() < expected.getNumEntriesScannedInFilter());
+
+    // The most selective scan is evaluated first
+    explainPlan = getExplainPlan(query, planMaker);
+    String firstScan = explainPlan.get(explainPlan.size() - 2);
+    assertTrue(firstScan.startsWith("FILTER_FULL_SCAN(operator:RANGE,predicate:column3 < '10000000'"), firstScan);
+    assertTrue(firstScan.contains(",observedSelectivity:0.004"), firstScan);
+
+    // Disabled through the query option
+    explainPlan = getExplainPlan("SET useAdaptiveFilterReordering = false; " + query, planMaker);
+    assertEquals(explainPlan.get(explainPlan.size() - 2),
+        "FILTER_FULL_SCAN(operator:RANGE,predicate:column1 > '500000000')");
+  }
+
+  @Test
+  public void testSkipIndex() {
+    InstancePlanMakerImplV2 planMaker = getPlanMaker();
+    // column6 <> 319376192 matches ~96% of the docs with the inverted index
+    String query = "SELECT COUNT(*) FROM testTable WHERE column6 <> 319376192 AND column3 < 10000000";
+    BrokerResponseNative expected = getBrokerResponse(query);
+    List<String> explainPlan = getExplainPlan(query, planMaker);
+    assertTrue(explainPlan.toString().contains("FILTER_INVERTED_INDEX(indexLookUp:inverted_index"),
+        explainPlan.toString());
+
+    for (int i = 0; i < 2; i++) {
+      BrokerResponseNative brokerResponse = getBrokerResponse(query, planMaker);
+      assertEquals(brokerResponse.getResultTable().getRows().get(0), expected.getResultTable().getRows().get(0));
+    }
+
+    // The scan on column3 only matches a few docs, so column6 is evaluated on them instead of looking up the index
+    explainPlan = getExplainPlan(query, planMaker);
+    assertTrue(explainPlan.get(explainPlan.size() - 2).startsWith("FILTER_FULL_SCAN(operator:RANGE,predicate:column3"),
+        explainPlan.toString());
+    String skippedIndexScan = explainPlan.get(explainPlan.size() - 1);
+    assertTrue(skippedIndexScan.startsWith("FILTER_FULL_SCAN(operator:NOT_EQ,predicate:column6 != '319376192'"),
+        skippedIndexScan);
+    assertTrue(skippedIndexScan.endsWith(",skippedIndex:inverted_index)"), skippedIndexScan);
+
+    BrokerResponseNative brokerResponse = getBrokerResponse(query, planMaker);
+    assertEquals(brokerResponse.getResultTable().getRows().get(0), expected.getResultTable().getRows().get(0));
+    assertEquals(brokerResponse.getNumDocsScanned(), expected.getNumDocsScanned());
+
+    // The scan replacing the index lookup does not record its selectivity, so the plan stays the same
+    for (int i = 0; i < 2; i++) {
+      getBrokerResponse(query, planMaker);
+    }
+    assertEquals(getExplainPlan(query, planMaker), explainPlan);
+  }
+
+  private List<String> getExplainPlan(String query, InstancePlanMakerImplV2 planMaker) {
+    String explainQuery = query.startsWith("SET ") ? query.replace("; ", "; EXPLAIN PLAN FOR ")
+        : "EXPLAIN PLAN FOR " + query;
+    List<String> explainPlan = new ArrayList<>();
+    for (Object[] row : getBrokerResponse(explainQuery, planMaker).getResultTable().getRows()) {
+      explainPlan.add(row[0].toString());
+    }
+    return explainPlan;
+  }
+
+  private static InstancePlanMakerImplV2 getPlanMaker() {
+    InstancePlanMakerImplV2 planMaker = new InstancePlanMakerImplV2();
+    planMaker.init(
+        new PinotConfiguration(Map.of(InstancePlanMakerImplV2.ADAPTIVE_FILTER_REORDERING_ENABLED_KEY, true)));
+    return planMaker;
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.queries;
+
+import java.util.List;
+import java.util.Map;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Tests the selection order-by queries fetching the non-order-by values after merging the rows of all the segments.
+ */
+public class DeferredSelectionMaterializationQueriesTest extends BaseSingleValueQueriesTest {
+
+  @Test
+  public void testDeferredMaterialization() {
+    InstancePlanMakerImplV2 planMaker = new InstancePlanMakerImplV2();
+    planMaker.init(new PinotConfiguration(
+        Map.of(InstancePlanMakerImplV2.DEFER_SELECTION_MATERIALIZATION_ENABLED_KEY, true)));
+    String[] queries = new String[]{
+        // Min/max value based combine
+        "SELECT column1, column5, column6, column11 FROM testTable ORDER BY column1 LIMIT 10",
+        "SELECT column5, column1, column11 FROM testTable WHERE column6 > 1000 ORDER BY column1 DESC LIMIT 5, 20",
+        // Regular combine
+        "SELECT column11, column1 + column3, column17 FROM testTable ORDER BY column1 + column3, column11 LIMIT 15",
+        "SELECT * FROM testTable ORDER BY column3 + 1 DESC LIMIT 5"
+    };
+    for (String query : queries) {
+      BrokerResponseNative expected = getBrokerResponse(query);
+      BrokerResponseNative brokerResponse = getBrokerResponse(query, planMaker);
+      assertEquals(brokerResponse.getResultTable().getDataSchema(), expected.getResultTable().getDataSchema(), query);
+      assertRowsEqual(brokerResponse, expected, query);
+      assertEquals(brokerResponse.getNumDocsScanned(), expected.getNumDocsScanned(), query);
+      assertTrue(brokerResponse.getNumEntriesScannedPostFilter() < expected.getNumEntriesScannedPostFilter(), query);
+
+      // Enabled through the query option
+      brokerResponse = getBrokerResponse("SET deferSelectionMaterialization = true; " + query);
+      assertRowsEqual(brokerResponse, expected, query);
+      assertTrue(brokerResponse.getNumEntriesScannedPostFilter() < expected.getNumEntriesScannedPostFilter(), query);
+    }
+  }
+
+  private static void assertRowsEqual(BrokerResponseNative brokerResponse, BrokerResponseNative expected,
+      String query) {
+    List<Object[]> rows = brokerResponse.getResultTable().getRows();
+    List<Object[]> expectedRows = expected.getResultTable().getRows();
+    assertEquals(rows.size(), expectedRows.size(), query);
+    for (int i = 0; i < rows.size(); i++) {
+      assertEquals(rows.get(i), expectedRows.get(i), query);
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.queries;
+
+import java.util.List;
+import java.util.Map;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import org.apache.pinot.core.query.cache.FilterBitmapCache;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Tests that the queries using the bitmaps from the {@link FilterBitmapCache} return the same results as the queries
+ * evaluating the filters on the segments.
+ */
+public class FilterBitmapCacheQueriesTest extends BaseSingleValueQueriesTest {
+  private static final String[] QUERIES = new String[]{
+      "SELECT COUNT(*), SUM(column1) FROM testTable" + FILTER,
+      "SELECT column11, MAX(column3) FROM testTable WHERE column6 IN (1, 2, 1689277, 2147483647) OR column7 = 675695 "
+          + "GROUP BY column11",
+      "SELECT column1, column6 FROM testTable WHERE column17 BETWEEN 5 AND 635553468 AND column9 > 100000000 "
+          + "ORDER BY column1, column6 LIMIT 20",
+      "SELECT COUNT(*) FROM testTable WHERE column11 NOT IN ('t', 'P') AND NOT column3 < 500000000",
+      "SELECT DISTINCT column12 FROM testTable WHERE column18 > 1000 OR column1 < 5000000 ORDER BY column12"
+  };
+
+  @Test
+  public void testCachedBitmaps() {
+    InstancePlanMakerImplV2 planMaker = getPlanMaker();
+    FilterBitmapCache filterBitmapCache = planMaker.getFilterBitmapCache();
+    assertNotNull(filterBitmapCache);
+
+    for (String query : QUERIES) {
+      BrokerResponseNative expected = getBrokerResponse(query);
+      // Run the query several times so that both the index and the scan based predicates are served from the cache
+      for (int i = 0; i < 3; i++) {
+        BrokerResponseNative actual = getBrokerResponse(query, planMaker);
+        assertTrue(actual.getExceptions().isEmpty(), query);
+        List<Object[]> actualRows = actual.getResultTable().getRows();
+        List<Object[]> expectedRows = expected.getResultTable().getRows();
+        assertEquals(actualRows.size(), expectedRows.size(), query);
+        for (int j = 0; j < actualRows.size(); j++) {
+          assertEquals(actualRows.get(j), expectedRows.get(j), query);
+        }
+        assertEquals(actual.getNumDocsScanned(), expected.getNumDocsScanned(), query);
+        assertEquals(actual.getTotalDocs(), expected.getTotalDocs(), query);
+      }
+    }
+    assertTrue(filterBitmapCache.size() > 0);
+  }
+
+  @Test
+  public void testScanAdmission() {
+    InstancePlanMakerImplV2 planMaker = getPlanMaker();
+    FilterBitmapCache filterBitmapCache = planMaker.getFilterBitmapCache();
+    assertNotNull(filterBitmapCache);
+
+    // Both the segments of the instance are the same segment, so the scan based predicate is seen twice by the first
+    // query and cached. The scan is still performed to materialize the bitmap.
+    String query = "SELECT SUM(column3) FROM testTable WHERE column1 > 100000000";
+    BrokerResponseNative expected = getBrokerResponse(query);
+    assertTrue(expected.getNumEntriesScannedInFilter() > 0);
+    BrokerResponseNative brokerResponse = getBrokerResponse(query, planMaker);
+    assertEquals(brokerResponse.getNumEntriesScannedInFilter(), expected.getNumEntriesScannedInFilter());
+    assertEquals(filterBitmapCache.size(), 1);
+
+    brokerResponse = getBrokerResponse(query, planMaker);
+    assertEquals(brokerResponse.getNumEntriesScannedInFilter(), 0);
+    assertEquals(brokerResponse.getNumDocsScanned(), expected.getNumDocsScanned());
+    assertEquals(brokerResponse.getResultTable().getRows().get(0), expected.getResultTable().getRows().get(0));
+
+    // Null handling changes the matching doc ids, so the cache is not used
+    brokerResponse = getBrokerResponse("SET enableNullHandling = true; " + query, planMaker);
+    assertEquals(brokerResponse.getNumEntriesScannedInFilter(), expected.getNumEntriesScannedInFilter());
+    assertEquals(filterBitmapCache.size(), 1);
+  }
+
+  private static InstancePlanMakerImplV2 getPlanMaker() {
+    InstancePlanMakerImplV2 planMaker = new InstancePlanMakerImplV2();
+    planMaker.init(new PinotConfiguration(
+        Map.of(InstancePlanMakerImplV2.FILTER_BITMAP_CACHE_MAX_SIZE_BYTES_PER_SEGMENT_KEY, 1_000_000L)));
+    return planMaker;
+  }
+}
@@ -0,0 +1,80 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.queries;
+
+import java.util.List;
+import java.util.Map;
+import org.apache.pinot.common.exception.QueryException;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.common.response.broker.QueryProcessingException;
+import org.apache.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Tests the group-by queries with a per-query memory budget.
+ */
+public class GroupByMemoryBudgetQueriesTest extends BaseSingleValueQueriesTest {
+  private static final String QUERY =
+      "SELECT column1, SUM(column3) FROM testTable GROUP BY column1 ORDER BY SUM(column3) DESC, column1 LIMIT 10";
+
+  @Test
+  public void testMemoryBudget() {
+    BrokerResponseNative expected = getBrokerResponse(QUERY);
+    assertTrue(expected.getExceptions().isEmpty());
+
+    // Large enough budget from the server config should not change the results
+    InstancePlanMakerImplV2 planMaker = new InstancePlanMakerImplV2();
+    planMaker.init(
+        new PinotConfiguration(Map.of(InstancePlanMakerImplV2.GROUPBY_MEMORY_BUDGET_BYTES_KEY, 100_000_000L)));
+    BrokerResponseNative brokerResponse = getBrokerResponse(QUERY, planMaker);
+    assertTrue(brokerResponse.getExceptions().isEmpty());
+    assertRowsEqual(brokerResponse.getResultTable().getRows(), expected.getResultTable().getRows());
+
+    // Same with the partitioned combine
+    brokerResponse = getBrokerResponse("SET usePartitionedGroupByCombine = true; " + QUERY, planMaker);
+    assertTrue(brokerResponse.getExceptions().isEmpty());
+    assertRowsEqual(brokerResponse.getResultTable().getRows(), expected.getResultTable().getRows());
+
+    // Budget too small for the query should fail only this query with a resource limit error
+    brokerResponse = getBrokerResponse("SET groupByMemoryBudgetBytes = 10000; " + QUERY);
+    List<QueryProcessingException> exceptions = brokerResponse.getExceptions();
+    assertTrue(!exceptions.isEmpty());
+    for (QueryProcessingException exception : exceptions) {
+      assertEquals(exception.getErrorCode(), QueryException.SERVER_RESOURCE_LIMIT_EXCEEDED_ERROR_CODE);
+      assertTrue(exception.getMessage().contains("memory budget"));
+    }
+
+    // Query option should override the server config
+    brokerResponse = getBrokerResponse("SET groupByMemoryBudgetBytes = 0; " + QUERY, planMaker);
+    assertTrue(brokerResponse.getExceptions().isEmpty());
+    assertRowsEqual(brokerResponse.getResultTable().getRows(), expected.getResultTable().getRows());
+  }
+
+  private static void assertRowsEqual(List<Object[]> rows, List<Object[]> expectedRows) {
+    assertEquals(rows.size(), expectedRows.size());
+    for (int i = 0; i < rows.size(); i++) {
+      assertEquals(rows.get(i), expectedRows.get(i));
+    }
+  }
+}
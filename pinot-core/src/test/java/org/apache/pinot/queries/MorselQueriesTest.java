@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.queries;
+
+import java.util.List;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Tests that the results of the queries processed with the segments split into morsels are identical to the results
+ * processed with whole segments.
+ */
+public class MorselQueriesTest extends BaseSingleValueQueriesTest {
+  private static final String OPTION = "SET morselSize = 4096; ";
+  private static final String[] QUERIES = new String[]{
+      "SELECT COUNT(*), SUM(column1), MIN(column3), MAX(column3) FROM testTable",
+      "SELECT COUNT(*), AVG(column18), DISTINCTCOUNT(column7) FROM testTable" + FILTER,
+      "SELECT COUNT(*) FILTER(WHERE column6 > 1000), SUM(column3) FROM testTable WHERE column1 < 500000000",
+      "SELECT column11, COUNT(*), SUM(column3) FROM testTable GROUP BY column11 ORDER BY column11",
+      "SELECT column5, column12, AVG(column18) FROM testTable" + FILTER
+          + " GROUP BY column5, column12 ORDER BY AVG(column18) DESC, column5, column12 LIMIT 3",
+      "SELECT column1, column11, COUNT(*), DISTINCTCOUNT(column5) FROM testTable GROUP BY column1, column11 "
+          + "ORDER BY COUNT(*) DESC, column1, column11 LIMIT 10",
+      "SELECT column9, MAX(column6) FROM testTable GROUP BY column9 ORDER BY MAX(column6), column9 LIMIT 15",
+      "SELECT column1 FROM testTable WHERE column6 > 1000 ORDER BY column1 DESC LIMIT 20",
+      "SELECT COUNT(*) FROM testTable WHERE column1 < 0"
+  };
+
+  @Test
+  public void testMorsels() {
+    for (String query : QUERIES) {
+      BrokerResponseNative expected = getBrokerResponse(query);
+      BrokerResponseNative actual = getBrokerResponse(OPTION + query);
+      assertTrue(actual.getExceptions().isEmpty(), query);
+      List<Object[]> actualRows = actual.getResultTable().getRows();
+      List<Object[]> expectedRows = expected.getResultTable().getRows();
+      assertEquals(actualRows.size(), expectedRows.size(), query);
+      for (int i = 0; i < actualRows.size(); i++) {
+        assertEquals(actualRows.get(i), expectedRows.get(i), query);
+      }
+      assertEquals(actual.getNumDocsScanned(), expected.getNumDocsScanned(), query);
+      assertEquals(actual.getNumSegmentsProcessed(), expected.getNumSegmentsProcessed(), query);
+      assertEquals(actual.getNumSegmentsMatched(), expected.getNumSegmentsMatched(), query);
+      assertEquals(actual.getTotalDocs(), expected.getTotalDocs(), query);
+    }
+  }
+
+  @Test
+  public void testSelectionOnly() {
+    BrokerResponseNative brokerResponse = getBrokerResponse(OPTION + "SELECT column1, column5 FROM testTable LIMIT 50");
+    assertTrue(brokerResponse.getExceptions().isEmpty());
+    assertEquals(brokerResponse.getResultTable().getRows().size(), 50);
+  }
+
+  @Test
+  public void testExplainPlan() {
+    BrokerResponseNative brokerResponse =
+        getBrokerResponse(OPTION + "EXPLAIN PLAN FOR SELECT column11, COUNT(*) FROM testTable GROUP BY column11");
+    boolean found = false;
+    for (Object[] row : brokerResponse.getResultTable().getRows()) {
+      found |= row[0].toString().startsWith("SEGMENT_MORSEL");
+    }
+    assertTrue(found);
+  }
+}
@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.queries;
+
+import java.util.List;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.core.operator.combine.PartitionedGroupByCombineOperator;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Tests that the group-by results combined with the {@link PartitionedGroupByCombineOperator} are identical to the
+ * results combined with the shared concurrent indexed table.
+ */
+public class PartitionedGroupByCombineQueriesTest extends BaseSingleValueQueriesTest {
+  private static final String OPTION = "SET usePartitionedGroupByCombine = true; ";
+  private static final String[] QUERIES = new String[]{
+      "SELECT column11, COUNT(*), SUM(column3) FROM testTable GROUP BY column11 ORDER BY column11",
+      "SELECT column5, column12, AVG(column18), MINMAXRANGE(column1) FROM testTable" + FILTER
+          + " GROUP BY column5, column12 ORDER BY AVG(column18) DESC, column5, column12 LIMIT 3",
+      "SELECT column6, SUM(column1), DISTINCTCOUNT(column7) FROM testTable GROUP BY column6 "
+          + "ORDER BY SUM(column1) DESC, column6 LIMIT 20",
+      "SELECT column6, column7, MAX(column3) FROM testTable GROUP BY column6, column7 "
+          + "ORDER BY MAX(column3), column6, column7 LIMIT 100",
+      "SELECT column6, COUNT(*) FROM testTable GROUP BY column6 HAVING COUNT(*) > 4 "
+          + "ORDER BY COUNT(*), column6 LIMIT 10",
+      "SELECT column11, COUNT(*) FROM testTable WHERE column1 < 0 GROUP BY column11 ORDER BY column11"
+  };
+
+  @Test
+  public void testPartitionedGroupByCombine() {
+    for (String query : QUERIES) {
+      BrokerResponseNative expected = getBrokerResponse(query);
+      BrokerResponseNative actual = getBrokerResponse(OPTION + query);
+      assertTrue(actual.getExceptions().isEmpty(), query);
+      assertEquals(actual.getResultTable().getDataSchema(), expected.getResultTable().getDataSchema(), query);
+      List<Object[]> actualRows = actual.getResultTable().getRows();
+      List<Object[]> expectedRows = expected.getResultTable().getRows();
+      assertEquals(actualRows.size(), expectedRows.size(), query);
+      for (int i = 0; i < actualRows.size(); i++) {
+        assertEquals(actualRows.get(i), expectedRows.get(i), query);
+      }
+      assertEquals(actual.getNumDocsScanned(), expected.getNumDocsScanned(), query);
+      assertEquals(actual.isNumGroupsLimitReached(), expected.isNumGroupsLimitReached(), query);
+    }
+  }
+
+  @Test
+  public void testExplainPlan() {
+    BrokerResponseNative brokerResponse = getBrokerResponse(
+        OPTION + "EXPLAIN PLAN FOR SELECT column11, COUNT(*) FROM testTable GROUP BY column11 ORDER BY column11");
+    boolean found = false;
+    for (Object[] row : brokerResponse.getResultTable().getRows()) {
+      found |= row[0].toString().startsWith("COMBINE_GROUP_BY_PARTITIONED");
+    }
+    assertTrue(found);
+  }
+}
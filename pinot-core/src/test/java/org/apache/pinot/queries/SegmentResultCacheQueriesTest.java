@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.queries;
+
+import java.util.List;
+import java.util.Map;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Tests that the aggregation and group-by results served from the {@link SegmentResultCache} are identical to the
+ * results computed on the segments.
+ */
+public class SegmentResultCacheQueriesTest extends BaseSingleValueQueriesTest {
+  private static final String[] QUERIES = new String[]{
+      "SELECT COUNT(*), SUM(column1), MAX(column3), AVG(column17) FROM testTable",
+      "SELECT COUNT(*), DISTINCTCOUNT(column6), PERCENTILETDIGEST90(column1) FROM testTable" + FILTER,
+      "SELECT column11, COUNT(*), SUM(column3), DISTINCTCOUNT(column7) FROM testTable GROUP BY column11",
+      "SELECT column5, column12, AVG(column18), MINMAXRANGE(column1) FROM testTable" + FILTER
+          + " GROUP BY column5, column12 ORDER BY AVG(column18) DESC LIMIT 3",
+      "SET minSegmentGroupTrimSize = 5; SELECT column6, SUM(column1) FROM testTable GROUP BY column6 "
+          + "ORDER BY SUM(column1) DESC LIMIT 5"
+  };
+
+  @Test
+  public void testCachedResults() {
+    InstancePlanMakerImplV2 planMaker = new InstancePlanMakerImplV2();
+    planMaker.init(new PinotConfiguration(
+        Map.of(InstancePlanMakerImplV2.SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES_KEY, 10_000_000L)));
+    SegmentResultCache segmentResultCache = planMaker.getSegmentResultCache();
+    assertNotNull(segmentResultCache);
+
+    for (String query : QUERIES) {
+      BrokerResponseNative expected = getBrokerResponse(query);
+      long numCachedResults = segmentResultCache.size();
+      // The first run populates the cache, the second run is served from the cache
+      for (int i = 0; i < 2; i++) {
+        BrokerResponseNative actual = getBrokerResponse(query, planMaker);
+        assertTrue(actual.getExceptions().isEmpty(), query);
+        assertEquals(actual.getResultTable().getDataSchema(), expected.getResultTable().getDataSchema(), query);
+        List<Object[]> actualRows = actual.getResultTable().getRows();
+        List<Object[]> expectedRows = expected.getResultTable().getRows();
+        assertEquals(actualRows.size(), expectedRows.size(), query);
+        for (int j = 0; j < actualRows.size(); j++) {
+          assertEquals(actualRows.get(j), expectedRows.get(j), query);
+        }
+        assertEquals(actual.getNumDocsScanned(), expected.getNumDocsScanned(), query);
+        assertEquals(actual.getNumEntriesScannedInFilter(), expected.getNumEntriesScannedInFilter(), query);
+        assertEquals(actual.getTotalDocs(), expected.getTotalDocs(), query);
+        // Both the segments of the instance are the same segment, so there is only one cached result per query
+        assertEquals(segmentResultCache.size(), numCachedResults + 1, query);
+      }
+    }
+  }
+
+  @Test
+  public void testNonCacheableQueries() {
+    InstancePlanMakerImplV2 planMaker = new InstancePlanMakerImplV2();
+    planMaker.init(new PinotConfiguration(
+        Map.of(InstancePlanMakerImplV2.SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES_KEY, 10_000_000L)));
+    SegmentResultCache segmentResultCache = planMaker.getSegmentResultCache();
+    assertNotNull(segmentResultCache);
+
+    getBrokerResponse("SELECT column1, column3 FROM testTable ORDER BY column1 LIMIT 10", planMaker);
+    getBrokerResponse("SET skipSegmentResultCache = true; SELECT COUNT(*) FROM testTable", planMaker);
+    getBrokerResponse("SET enableNullHandling = true; SELECT COUNT(*) FROM testTable", planMaker);
+    assertEquals(segmentResultCache.size(), 0);
+
+    // Options that don't affect the segment results should share the same cached result
+    getBrokerResponse("SELECT COUNT(*) FROM testTable", planMaker);
+    getBrokerResponse("SET timeoutMs = 10000; SELECT COUNT(*) FROM testTable", planMaker);
+    assertEquals(segmentResultCache.size(), 1);
+  }
+}
@@ -34,7 +34,9 @@ import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.core.data.table.ConcurrentIndexedTable;
 import org.apache.pinot.core.data.table.IndexedTable;
+import org.apache.pinot.core.data.table.Key;
 import org.apache.pinot.core.data.table.Record;
+import org.apache.pinot.core.data.table.SimpleIndexedTable;
 import org.apache.pinot.core.plan.maker.InstancePlanMakerImplV2;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUtils;
@@ -44,6 +46,7 @@ import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -60,9 +63,13 @@ public class BenchmarkCombineGroupBy {
   private static final int NUM_SEGMENTS = 4;
   private static final int NUM_RECORDS_PER_SEGMENT = 100_000;
   private static final int CARDINALITY_D1 = 500;
-  private static final int CARDINALITY_D2 = 500;
+  private static final int NUM_PARTITIONS = 16;
   private static final Random RANDOM = new Random();
 
+  // Cardinality of d2, where the high cardinality triggers trimming in the combine
+  @Param({"500", "20000"})
+  private int _cardinalityD2;
+
   private QueryContext _queryContext;
   private DataSchema _dataSchema;
 
@@ -82,8 +89,8 @@ public class BenchmarkCombineGroupBy {
     _d1 = new ArrayList<>(CARDINALITY_D1);
     _d1.addAll(d1);
 
-    _d2 = new ArrayList<>(CARDINALITY_D2);
-    for (int i = 0; i < CARDINALITY_D2; i++) {
+    _d2 = new ArrayList<>(_cardinalityD2);
+    for (int i = 0; i < _cardinalityD2; i++) {
       _d2.add(i);
     }
 
@@ -145,6 +152,61 @@ public class BenchmarkCombineGroupBy {
     concurrentIndexedTable.finish(false);
   }
 
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void partitionedIndexedTableForCombineGroupBy()
+      throws InterruptedException, ExecutionException, TimeoutException {
+    int trimSize = GroupByUtils.getTableCapacity(_queryContext.getLimit());
+
+    // each thread upserts into its own tables, one per partition
+    IndexedTable[][] localTables = new IndexedTable[NUM_SEGMENTS][NUM_PARTITIONS];
+    List<Callable<Void>> innerSegmentCallables = new ArrayList<>(NUM_SEGMENTS);
+    for (int i = 0; i < NUM_SEGMENTS; i++) {
+      IndexedTable[] partitionTables = localTables[i];
+      for (int p = 0; p < NUM_PARTITIONS; p++) {
+        partitionTables[p] = new SimpleIndexedTable(_dataSchema, _queryContext, trimSize, trimSize,
+            InstancePlanMakerImplV2.DEFAULT_GROUPBY_TRIM_THRESHOLD);
+      }
+      Callable<Void> callable = () -> {
+        for (int r = 0; r < NUM_RECORDS_PER_SEGMENT; r++) {
+          Record record = getRecord();
+          Key key = new Key(new Object[]{record.getValues()[0], record.getValues()[1]});
+          partitionTables[(key.hashCode() * 0x9E3779B9) >>> 28].upsert(key, record);
+        }
+        return null;
+      };
+      innerSegmentCallables.add(callable);
+    }
+    for (Future<Void> future : _executorService.invokeAll(innerSegmentCallables)) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+
+    // merge and trim the partitions in parallel
+    List<Callable<IndexedTable>> mergeCallables = new ArrayList<>(NUM_PARTITIONS);
+    for (int p = 0; p < NUM_PARTITIONS; p++) {
+      int partitionId = p;
+      mergeCallables.add(() -> {
+        IndexedTable partitionTable = localTables[0][partitionId];
+        for (int i = 1; i < NUM_SEGMENTS; i++) {
+          partitionTable.merge(localTables[i][partitionId]);
+        }
+        partitionTable.trim();
+        return partitionTable;
+      });
+    }
+    IndexedTable mergedTable = null;
+    for (Future<IndexedTable> future : _executorService.invokeAll(mergeCallables)) {
+      IndexedTable partitionTable = future.get(30, TimeUnit.SECONDS);
+      if (mergedTable == null) {
+        mergedTable = partitionTable;
+      } else {
+        mergedTable.merge(partitionTable);
+      }
+    }
+    mergedTable.finish(false);
+  }
+
   public static void main(String[] args)
       throws Exception {
     ChainedOptionsBuilder opt =
@@ -35,6 +35,7 @@ import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.core.data.table.ConcurrentIndexedTable;
 import org.apache.pinot.core.data.table.IndexedTable;
+import org.apache.pinot.core.data.table.Key;
 import org.apache.pinot.core.data.table.Record;
 import org.apache.pinot.core.data.table.SimpleIndexedTable;
 import org.apache.pinot.core.query.request.context.QueryContext;
@@ -59,6 +60,7 @@ public class BenchmarkIndexedTable {
   private static final int TRIM_SIZE = 800;
   private static final int TRIM_THRESHOLD = TRIM_SIZE * 4;
   private static final int NUM_RECORDS = 1000;
+  private static final int NUM_PARTITIONS = 16;
   private static final Random RANDOM = new Random();
 
   private QueryContext _queryContext;
@@ -198,6 +200,60 @@ public class BenchmarkIndexedTable {
     mergedTable.finish(false);
   }
 
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void partitionedIndexedTable()
+      throws InterruptedException, TimeoutException, ExecutionException {
+    int numSegments = 10;
+
+    // each thread upserts into its own tables, one per partition, without any shared lock
+    IndexedTable[][] localTables = new IndexedTable[numSegments][NUM_PARTITIONS];
+    List<Callable<Void>> innerSegmentCallables = new ArrayList<>(numSegments);
+    for (int i = 0; i < numSegments; i++) {
+      IndexedTable[] partitionTables = localTables[i];
+      for (int p = 0; p < NUM_PARTITIONS; p++) {
+        partitionTables[p] = new SimpleIndexedTable(_dataSchema, _queryContext, TRIM_SIZE, TRIM_SIZE, TRIM_THRESHOLD);
+      }
+      Callable<Void> callable = () -> {
+        for (int r = 0; r < NUM_RECORDS; r++) {
+          Record record = getNewRecord();
+          Key key = new Key(new Object[]{record.getValues()[0], record.getValues()[1]});
+          partitionTables[(key.hashCode() * 0x9E3779B9) >>> 28].upsert(key, record);
+        }
+        return null;
+      };
+      innerSegmentCallables.add(callable);
+    }
+    for (Future<Void> future : _executorService.invokeAll(innerSegmentCallables)) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+
+    // merge and trim the partitions in parallel, then concatenate them
+    List<Callable<IndexedTable>> mergeCallables = new ArrayList<>(NUM_PARTITIONS);
+    for (int p = 0; p < NUM_PARTITIONS; p++) {
+      int partitionId = p;
+      mergeCallables.add(() -> {
+        IndexedTable partitionTable = localTables[0][partitionId];
+        for (int i = 1; i < numSegments; i++) {
+          partitionTable.merge(localTables[i][partitionId]);
+        }
+        partitionTable.trim();
+        return partitionTable;
+      });
+    }
+    IndexedTable mergedTable = null;
+    for (Future<IndexedTable> future : _executorService.invokeAll(mergeCallables)) {
+      IndexedTable partitionTable = future.get(10, TimeUnit.SECONDS);
+      if (mergedTable == null) {
+        mergedTable = partitionTable;
+      } else {
+        mergedTable.merge(partitionTable);
+      }
+    }
+    mergedTable.finish(false);
+  }
+
   public static void main(String[] args)
       throws Exception {
     ChainedOptionsBuilder opt =
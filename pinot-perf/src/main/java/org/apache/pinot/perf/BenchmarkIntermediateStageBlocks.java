@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.common.datablock.DataBlockBuilder;
+import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.runtime.blocks.ColumnarContainer;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.operator.operands.FilterOperand;
+import org.apache.pinot.query.runtime.operator.operands.TransformOperand;
+import org.apache.pinot.query.runtime.operator.operands.TransformOperandFactory;
+import org.apache.pinot.spi.utils.BooleanUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.roaringbitmap.RoaringBitmap;
+
+
+/**
+ * Compares the intermediate stage processing of the data blocks received from the mailbox, filtering them with
+ * {@code intCol > ? AND longCol <= ?} and projecting {@code doubleCol, intCol}, either on the materialized
+ * {@code Object[]} rows or on the primitive arrays of the {@link ColumnarContainer}. This isolates the operator work
+ * measured end-to-end by {@link BenchmarkQueryEngine}.
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@State(Scope.Benchmark)
+public class BenchmarkIntermediateStageBlocks {
+  private static final int NUM_BLOCKS = 100;
+  private static final int NUM_ROWS_PER_BLOCK = 10_000;
+  private static final DataSchema DATA_SCHEMA =
+      new DataSchema(new String[]{"intCol", "longCol", "doubleCol", "stringCol"}, new ColumnDataType[]{
+          ColumnDataType.INT, ColumnDataType.LONG, ColumnDataType.DOUBLE, ColumnDataType.STRING
+      });
+  private static final DataSchema RESULT_SCHEMA = new DataSchema(new String[]{"doubleCol", "intCol"},
+      new ColumnDataType[]{ColumnDataType.DOUBLE, ColumnDataType.INT});
+
+  /** Percentage of the rows matching the filter */
+  @Param({"10", "50", "90"})
+  public int _selectivity;
+
+  private List<DataBlock> _dataBlocks;
+  private FilterOperand _filterOperand;
+  private List<TransformOperand> _projectOperands;
+
+  @Setup
+  public void setUp()
+      throws Exception {
+    Random random = new Random(42);
+    _dataBlocks = new ArrayList<>(NUM_BLOCKS);
+    for (int i = 0; i < NUM_BLOCKS; i++) {
+      List<Object[]> rows = new ArrayList<>(NUM_ROWS_PER_BLOCK);
+      for (int j = 0; j < NUM_ROWS_PER_BLOCK; j++) {
+        rows.add(new Object[]{random.nextInt(100), (long) random.nextInt(100), random.nextDouble(), "value_" + j % 10});
+      }
+      _dataBlocks.add(DataBlockBuilder.buildFromRows(rows, DATA_SCHEMA));
+    }
+    // Each predicate keeps sqrt(selectivity) of the rows so that the conjunction keeps the selectivity
+    int threshold = (int) Math.round(Math.sqrt(_selectivity / 100.0) * 100);
+    RexExpression condition = new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.AND.name(),
+        List.of(new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.GREATER_THAN_OR_EQUAL.name(),
+                List.of(new RexExpression.InputRef(0), new RexExpression.Literal(ColumnDataType.INT, 100 - threshold))),
+            new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.LESS_THAN.name(),
+                List.of(new RexExpression.InputRef(1), new RexExpression.Literal(ColumnDataType.LONG,
+                    (long) threshold)))));
+    _filterOperand = (FilterOperand) TransformOperandFactory.getTransformOperand(condition, DATA_SCHEMA);
+    _projectOperands = List.of(TransformOperandFactory.getTransformOperand(new RexExpression.InputRef(2), DATA_SCHEMA),
+        TransformOperandFactory.getTransformOperand(new RexExpression.InputRef(0), DATA_SCHEMA));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public double rowBased() {
+    double sum = 0;
+    for (DataBlock dataBlock : _dataBlocks) {
+      List<Object[]> matchedRows = new ArrayList<>();
+      for (Object[] row : new TransferableBlock(dataBlock).getContainer()) {
+        if (BooleanUtils.isTrueInternalValue(_filterOperand.apply(row))) {
+          matchedRows.add(row);
+        }
+      }
+      int numResultColumns = _projectOperands.size();
+      for (Object[] row : matchedRows) {
+        Object[] resultRow = new Object[numResultColumns];
+        for (int i = 0; i < numResultColumns; i++) {
+          resultRow[i] = _projectOperands.get(i).apply(row);
+        }
+        sum += (double) resultRow[0];
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public double columnar() {
+    double sum = 0;
+    for (DataBlock dataBlock : _dataBlocks) {
+      ColumnarContainer container = new TransferableBlock(dataBlock).getColumnarContainer();
+      RoaringBitmap matchedBitmap = _filterOperand.filterColumnar(container);
+      ColumnarContainer matched = container.select(matchedBitmap);
+      int numResultColumns = _projectOperands.size();
+      Object[] resultColumns = new Object[numResultColumns];
+      RoaringBitmap[] resultNullBitmaps = new RoaringBitmap[numResultColumns];
+      for (int i = 0; i < numResultColumns; i++) {
+        _projectOperands.get(i).applyColumnar(matched, resultColumns, resultNullBitmaps, i);
+      }
+      ColumnarContainer result =
+          new ColumnarContainer(RESULT_SCHEMA, matched.getNumRows(), resultColumns, resultNullBitmaps);
+      for (double value : result.getDoubleValues(0)) {
+        sum += value;
+      }
+    }
+    return sum;
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    new Runner(new OptionsBuilder().include(BenchmarkIntermediateStageBlocks.class.getSimpleName()).build()).run();
+  }
+}
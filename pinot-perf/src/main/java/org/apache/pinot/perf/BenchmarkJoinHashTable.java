@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.query.runtime.operator.join.JoinHashTable;
+import org.apache.pinot.query.runtime.operator.join.JoinHashTableFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Compares the generic {@code HashMap<Object, ArrayList<Object[]>>} previously used by the hash join operator against
+ * the key type specialized {@link JoinHashTable}, building the right table and probing it with the left rows.
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@State(Scope.Benchmark)
+public class BenchmarkJoinHashTable {
+  private static final int NUM_RIGHT_ROWS = 1_000_000;
+  private static final int NUM_LEFT_ROWS = 2_000_000;
+  private static final Random RANDOM = new Random(42);
+
+  @Param({"INT", "LONG", "STRING"})
+  public String _keyType;
+
+  @Param({"100000", "1000000"})
+  public int _cardinality;
+
+  private ColumnDataType _columnDataType;
+  private Object[][] _rightRows;
+  private Object[][] _leftRows;
+
+  @Setup
+  public void setUp() {
+    _columnDataType = ColumnDataType.valueOf(_keyType);
+    _rightRows = new Object[NUM_RIGHT_ROWS][];
+    for (int i = 0; i < NUM_RIGHT_ROWS; i++) {
+      _rightRows[i] = new Object[]{generateKey(), i};
+    }
+    _leftRows = new Object[NUM_LEFT_ROWS][];
+    for (int i = 0; i < NUM_LEFT_ROWS; i++) {
+      _leftRows[i] = new Object[]{generateKey(), i};
+    }
+  }
+
+  private Object generateKey() {
+    int value = RANDOM.nextInt(_cardinality);
+    switch (_columnDataType) {
+      case INT:
+        return value;
+      case LONG:
+        return (long) value;
+      default:
+        return "key_" + value;
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public long hashMap() {
+    Map<Object, ArrayList<Object[]>> table = new HashMap<>();
+    for (Object[] row : _rightRows) {
+      table.computeIfAbsent(row[0], k -> new ArrayList<>()).add(row);
+    }
+    long sum = 0;
+    for (Object[] row : _leftRows) {
+      List<Object[]> rightRows = table.get(row[0]);
+      if (rightRows != null) {
+        for (Object[] rightRow : rightRows) {
+          sum += (int) rightRow[1];
+        }
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public long joinHashTable() {
+    ColumnDataType[] keyTypes = new ColumnDataType[]{_columnDataType};
+    JoinHashTable table = JoinHashTableFactory.getJoinHashTable(keyTypes, keyTypes);
+    for (Object[] row : _rightRows) {
+      table.addRow(row[0], row);
+    }
+    long sum = 0;
+    for (Object[] row : _leftRows) {
+      for (int rowId = table.getFirstRowId(row[0]); rowId != JoinHashTable.INVALID_ROW_ID;
+          rowId = table.getNextRowId(rowId)) {
+        sum += (int) table.getRow(rowId)[1];
+      }
+    }
+    return sum;
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    new Runner(new OptionsBuilder().include(BenchmarkJoinHashTable.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,172 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.pinot.core.operator.filter.predicate.PredicateKernels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Compares the scalar loops used by the predicate evaluators with {@link PredicateKernels} on a batch of values.
+ * <p>The kernels are vectorized only on JDK 17+ when pinot-core is on the class path as a (multi-release) jar and the
+ * incubating Vector API module is added to the forked JVM, e.g. {@code -jvmArgsAppend
+ * --add-modules=jdk.incubator.vector}. Otherwise both benchmarks run the scalar implementation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class BenchmarkPredicateKernels {
+  private static final int BATCH_SIZE = 10_000;
+
+  // Percentage of the values matching the predicate
+  @Param({"1", "10", "50", "90"})
+  private int _selectivity;
+
+  @Param("42")
+  private long _seed;
+
+  private int[] _intValues;
+  private long[] _longValues;
+  private double[] _doubleValues;
+  private int[] _docIds;
+  private int _upperBound;
+  private int[] _inValues;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(_seed);
+    _intValues = new int[BATCH_SIZE];
+    _longValues = new long[BATCH_SIZE];
+    _doubleValues = new double[BATCH_SIZE];
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      int value = random.nextInt(100);
+      _intValues[i] = value;
+      _longValues[i] = value;
+      _doubleValues[i] = value;
+    }
+    _docIds = new int[BATCH_SIZE];
+    _upperBound = _selectivity - 1;
+    _inValues = new int[PredicateKernels.MAX_VECTORIZED_IN_VALUES];
+    for (int i = 0; i < _inValues.length; i++) {
+      // Only the first values can match, so that the selectivity is close to the configured one
+      _inValues[i] = i < Math.max(_selectivity * _inValues.length / 100, 1) ? i * 100 / _inValues.length : -1 - i;
+    }
+  }
+
+  private void resetDocIds() {
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      _docIds[i] = i;
+    }
+  }
+
+  @Benchmark
+  public int scalarIntRange() {
+    resetDocIds();
+    int matches = 0;
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      int value = _intValues[i];
+      if (value >= 0 && value <= _upperBound) {
+        _docIds[matches++] = _docIds[i];
+      }
+    }
+    return matches;
+  }
+
+  @Benchmark
+  public int kernelIntRange() {
+    resetDocIds();
+    return PredicateKernels.applyIntRange(BATCH_SIZE, _docIds, _intValues, 0, _upperBound);
+  }
+
+  @Benchmark
+  public int scalarLongRange() {
+    resetDocIds();
+    int matches = 0;
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      long value = _longValues[i];
+      if (value >= 0 && value <= _upperBound) {
+        _docIds[matches++] = _docIds[i];
+      }
+    }
+    return matches;
+  }
+
+  @Benchmark
+  public int kernelLongRange() {
+    resetDocIds();
+    return PredicateKernels.applyLongRange(BATCH_SIZE, _docIds, _longValues, 0, _upperBound);
+  }
+
+  @Benchmark
+  public int scalarDoubleRange() {
+    resetDocIds();
+    int matches = 0;
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      double value = _doubleValues[i];
+      if (value >= 0 && value <= _upperBound) {
+        _docIds[matches++] = _docIds[i];
+      }
+    }
+    return matches;
+  }
+
+  @Benchmark
+  public int kernelDoubleRange() {
+    resetDocIds();
+    return PredicateKernels.applyDoubleRange(BATCH_SIZE, _docIds, _doubleValues, 0, _upperBound);
+  }
+
+  @Benchmark
+  public int scalarIntIn() {
+    resetDocIds();
+    int matches = 0;
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      int value = _intValues[i];
+      for (int inValue : _inValues) {
+        if (value == inValue) {
+          _docIds[matches++] = _docIds[i];
+          break;
+        }
+      }
+    }
+    return matches;
+  }
+
+  @Benchmark
+  public int kernelIntIn() {
+    resetDocIds();
+    return PredicateKernels.applyIntIn(BATCH_SIZE, _docIds, _intValues, _inValues);
+  }
+}
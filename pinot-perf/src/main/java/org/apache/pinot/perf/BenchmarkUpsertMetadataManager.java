@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.common.utils.LLCSegmentName;
+import org.apache.pinot.segment.local.upsert.ConcurrentMapPartitionUpsertMetadataManager;
+import org.apache.pinot.segment.local.upsert.OffHeapPartitionUpsertMetadataManager;
+import org.apache.pinot.segment.local.upsert.PartitionUpsertMetadataManager;
+import org.apache.pinot.segment.local.upsert.RecordInfo;
+import org.apache.pinot.segment.local.upsert.UpsertContext;
+import org.apache.pinot.segment.spi.MutableSegment;
+import org.apache.pinot.segment.spi.index.mutable.ThreadSafeMutableRoaringBitmap;
+import org.apache.pinot.spi.config.table.HashFunction;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+/**
+ * Compares the on-heap {@link ConcurrentMapPartitionUpsertMetadataManager} against the
+ * {@link OffHeapPartitionUpsertMetadataManager} when ingesting records into a consuming segment.
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = {"-Xmx4G"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@State(Scope.Benchmark)
+public class BenchmarkUpsertMetadataManager {
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String REALTIME_TABLE_NAME = RAW_TABLE_NAME + "_REALTIME";
+  private static final int NUM_RECORDS = 2_000_000;
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "BenchmarkUpsertMetadataManager");
+
+  @Param({"100000", "1000000"})
+  public int _cardinality;
+
+  private RecordInfo[] _recordInfos;
+  private UpsertContext _upsertContext;
+  private MutableSegment _segment;
+
+  @Setup
+  public void setUp()
+      throws IOException {
+    FileUtils.forceMkdir(INDEX_DIR);
+    ServerMetrics.register(mock(ServerMetrics.class));
+    Random random = new Random(42);
+    _recordInfos = new RecordInfo[NUM_RECORDS];
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      PrimaryKey primaryKey = new PrimaryKey(new Object[]{"key_" + random.nextInt(_cardinality)});
+      _recordInfos[i] = new RecordInfo(primaryKey, i, (long) i, false);
+    }
+    List<String> primaryKeyColumns = Collections.singletonList("pk");
+    List<String> comparisonColumns = Collections.singletonList("ts");
+    _upsertContext = new UpsertContext.Builder().setTableConfig(mock(TableConfig.class)).setSchema(mock(Schema.class))
+        .setPrimaryKeyColumns(primaryKeyColumns).setComparisonColumns(comparisonColumns)
+        .setHashFunction(HashFunction.MURMUR3).setTableIndexDir(INDEX_DIR).build();
+    _segment = mock(MutableSegment.class);
+    when(_segment.getSegmentName()).thenReturn(
+        new LLCSegmentName(RAW_TABLE_NAME, 0, 0, System.currentTimeMillis()).toString());
+  }
+
+  @TearDown
+  public void tearDown() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public int concurrentMap()
+      throws IOException {
+    return addRecords(new ConcurrentMapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0, _upsertContext));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public int offHeap()
+      throws IOException {
+    return addRecords(new OffHeapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0, _upsertContext));
+  }
+
+  private int addRecords(PartitionUpsertMetadataManager upsertMetadataManager)
+      throws IOException {
+    ThreadSafeMutableRoaringBitmap validDocIds = new ThreadSafeMutableRoaringBitmap();
+    when(_segment.getValidDocIds()).thenReturn(validDocIds);
+    for (RecordInfo recordInfo : _recordInfos) {
+      upsertMetadataManager.addRecord(_segment, recordInfo);
+    }
+    upsertMetadataManager.stop();
+    upsertMetadataManager.close();
+    return validDocIds.getMutableRoaringBitmap().getCardinality();
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    new Runner(new OptionsBuilder().include(BenchmarkUpsertMetadataManager.class.getSimpleName()).build()).run();
+  }
+}
@@ -44,6 +44,13 @@ public class PinotHintOptions {
 
     public static final String NUM_GROUPS_LIMIT = "num_groups_limit";
     public static final String MAX_INITIAL_RESULT_HOLDER_CAPACITY = "max_initial_result_holder_capacity";
+
+    /**
+     * Whether to spill the group-by state to local disk once {@link #NUM_GROUPS_LIMIT} is reached, then aggregate the
+     * spilled groups partition by partition. When disabled (default), new groups are dropped once the limit is reached
+     * and results might be partial.
+     */
+    public static final String ENABLE_SPILL = "enable_spill";
   }
 
   public static class WindowHintOptions {
@@ -74,12 +81,36 @@ public class PinotHintOptions {
     public static final String MAX_ROWS_IN_JOIN = "max_rows_in_join";
 
     /**
-     * Mode when join overflow happens, supported values: THROW or BREAK.
+     * Mode when join overflow happens, supported values: THROW, BREAK or SPILL.
      *   THROW(default): Break right table build process, and throw exception, no JOIN with left table performed.
      *   BREAK: Break right table build process, continue to perform JOIN operation, results might be partial.
+     *   SPILL: Partition both tables to local disk and perform the JOIN partition by partition (grace hash join).
      */
     public static final String JOIN_OVERFLOW_MODE = "join_overflow_mode";
 
+    /**
+     * Whether to run the hash join in pipelined (symmetric) mode, where both inputs are read alternately and each row
+     * is probed against the rows already received from the other input. Joined rows are emitted without waiting for
+     * the right input to be fully built, and the input that can no longer produce joined rows is early terminated.
+     * Only applies to INNER and SEMI joins executed with the "hash" join strategy, and not to the SPILL overflow mode.
+     */
+    public static final String IS_PIPELINED = "is_pipelined";
+
+    /**
+     * Whether to filter the left leaf stage of an INNER, RIGHT or SEMI join with the join keys of the right side. The
+     * right join keys are broadcast to the left leaf stage, which waits for them and adds an IN (or range when there
+     * are too many distinct keys) filter on the left join keys before scanning the table. Only applies when both sides
+     * are leaf stages, and the right side is scanned twice, so it should be used when the right side is small.
+     */
+    public static final String USE_RUNTIME_FILTER = "use_runtime_filter";
+
+    /**
+     * Set by the planner on the SEMI join that applies the runtime filter to the left leaf stage, see
+     * {@link #USE_RUNTIME_FILTER}. The filter can match more rows than the join keys (e.g. range filter), which is fine
+     * because the actual join is still performed.
+     */
+    public static final String IS_RUNTIME_FILTER = "is_runtime_filter";
+
     /**
      * Indicates that the join operator(s) within a certain selection scope are colocated
      */
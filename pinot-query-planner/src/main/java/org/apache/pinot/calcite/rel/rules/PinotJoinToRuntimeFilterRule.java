@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.calcite.rel.rules;
+
+import java.util.List;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.rel.RelDistribution;
+import org.apache.calcite.rel.RelDistributions;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Exchange;
+import org.apache.calcite.rel.core.Filter;
+import org.apache.calcite.rel.core.Join;
+import org.apache.calcite.rel.core.JoinInfo;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.core.Project;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rel.hint.RelHint;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.tools.RelBuilder;
+import org.apache.calcite.tools.RelBuilderFactory;
+import org.apache.calcite.util.ImmutableIntList;
+import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
+import org.apache.pinot.calcite.rel.hint.PinotHintStrategyTable;
+import org.apache.pinot.calcite.rel.logical.PinotLogicalExchange;
+import org.apache.pinot.calcite.rel.logical.PinotRelExchangeType;
+
+
+/**
+ * Special rule for Pinot, this rule pushes a runtime filter built from the right join keys into the left leaf stage of
+ * a join, so that the left rows that cannot match are filtered out by the leaf stage scan instead of being shipped to
+ * the join stage.
+ *
+ *                 ...                                         ...
+ *                  |                                           |
+ *            [ Inner Join ]                              [ Inner Join ]
+ *            /            \                              /            \
+ *       [xChange]      [xChange]                   [xChange]       [xChange]
+ *          /                \                         /                 \
+ *    [Proj/Filter]     [Proj/Filter]          [ Semi Join ]         [Proj/Filter]
+ *         |                  |                  /        \                |
+ *    [Table Scan ]     [Table Scan ]    [Proj/Filter]   [Dyn. Broadcast]  [Table Scan ]
+ *                                             |               |
+ *                                       [Table Scan ]   [Project keys]
+ *                                                             |
+ *                                                       [Proj/Filter]
+ *                                                             |
+ *                                                       [Table Scan ]
+ *
+ * <p>The SEMI join is executed by the left leaf stage the same way as the dynamic broadcast SEMI join (see
+ * {@link PinotJoinToDynamicBroadcastRule}): the leaf stage waits for the right join keys from the pipeline breaker, and
+ * attaches them as a filter to the leaf query. Because the actual join is still performed, the filter doesn't need to
+ * be exact, and is marked with the {@link PinotHintOptions.JoinHintOptions#IS_RUNTIME_FILTER} hint.
+ *
+ * <p>This rule only applies when the {@link PinotHintOptions.JoinHintOptions#USE_RUNTIME_FILTER} hint is set, because
+ * the right side is scanned twice (once for the filter, once for the join) and all its join keys are held in memory
+ * by the left leaf stage. It also requires both sides to be leaf stages.
+ */
+public class PinotJoinToRuntimeFilterRule extends RelOptRule {
+  public static final PinotJoinToRuntimeFilterRule INSTANCE =
+      new PinotJoinToRuntimeFilterRule(PinotRuleUtils.PINOT_REL_FACTORY);
+
+  private static final RelHint RUNTIME_FILTER_HINT = RelHint.builder(PinotHintOptions.JOIN_HINT_OPTIONS)
+      .hintOption(PinotHintOptions.JoinHintOptions.IS_RUNTIME_FILTER, "true").build();
+
+  public PinotJoinToRuntimeFilterRule(RelBuilderFactory factory) {
+    super(operand(Join.class, any()), factory, null);
+  }
+
+  @Override
+  public boolean matches(RelOptRuleCall call) {
+    Join join = call.rel(0);
+    if (!PinotHintStrategyTable.isHintOptionTrue(join.getHints(), PinotHintOptions.JOIN_HINT_OPTIONS,
+        PinotHintOptions.JoinHintOptions.USE_RUNTIME_FILTER)) {
+      return false;
+    }
+
+    // Only apply to joins that drop the non-matching left rows
+    JoinRelType joinType = join.getJoinType();
+    if (joinType != JoinRelType.INNER && joinType != JoinRelType.RIGHT && joinType != JoinRelType.SEMI) {
+      return false;
+    }
+    if (join.analyzeCondition().leftKeys.isEmpty()) {
+      return false;
+    }
+
+    // Apply this rule if both sides are leaf stages. The left side is checked to not be a join, so that the rule
+    // doesn't apply again after the runtime filter is added.
+    RelNode left = PinotRuleUtils.unboxRel(join.getLeft());
+    RelNode right = PinotRuleUtils.unboxRel(join.getRight());
+    return left instanceof Exchange && right instanceof Exchange && isLeafStage(left.getInput(0)) && isLeafStage(
+        right.getInput(0));
+  }
+
+  @Override
+  public void onMatch(RelOptRuleCall call) {
+    Join join = call.rel(0);
+    Exchange left = (Exchange) PinotRuleUtils.unboxRel(join.getLeft());
+    Exchange right = (Exchange) PinotRuleUtils.unboxRel(join.getRight());
+    JoinInfo joinInfo = join.analyzeCondition();
+    ImmutableIntList rightKeys = joinInfo.rightKeys;
+
+    // Only the right join keys are sent to the left leaf stage
+    RelBuilder relBuilder = call.builder();
+    RelNode rightKeysProject = relBuilder.push(right.getInput()).project(relBuilder.fields(rightKeys)).build();
+    boolean isColocatedJoin =
+        PinotHintStrategyTable.isHintOptionTrue(join.getHints(), PinotHintOptions.JOIN_HINT_OPTIONS,
+            PinotHintOptions.JoinHintOptions.IS_COLOCATED_BY_JOIN_KEYS);
+    RelDistribution relDistribution =
+        isColocatedJoin ? RelDistributions.hash(ImmutableIntList.range(0, rightKeys.size()))
+            : RelDistributions.BROADCAST_DISTRIBUTED;
+    PinotLogicalExchange runtimeFilterExchange =
+        PinotLogicalExchange.create(rightKeysProject, relDistribution, PinotRelExchangeType.PIPELINE_BREAKER);
+
+    relBuilder.push(left.getInput()).push(runtimeFilterExchange);
+    RexNode condition =
+        RelOptUtil.createEquiJoinCondition(relBuilder.peek(2, 0), joinInfo.leftKeys, relBuilder.peek(2, 1),
+            ImmutableIntList.range(0, rightKeys.size()), relBuilder.getRexBuilder());
+    RelNode runtimeFilter = relBuilder.semiJoin(condition).hints(List.of(RUNTIME_FILTER_HINT)).build();
+
+    call.transformTo(join.copy(join.getTraitSet(), List.of(left.copy(left.getTraitSet(), List.of(runtimeFilter)),
+        join.getRight())));
+  }
+
+  /**
+   * Returns whether the given node can be fully planned in the leaf stage without any join, i.e. only consists of
+   * {@link Project} and {@link Filter} on top of a {@link TableScan}.
+   */
+  private static boolean isLeafStage(RelNode relNode) {
+    relNode = PinotRuleUtils.unboxRel(relNode);
+    if (relNode instanceof TableScan) {
+      return true;
+    } else if (relNode instanceof Project || relNode instanceof Filter) {
+      return isLeafStage(relNode.getInput(0));
+    } else {
+      return false;
+    }
+  }
+}
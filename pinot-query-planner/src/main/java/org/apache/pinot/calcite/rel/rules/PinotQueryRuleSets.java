@@ -135,6 +135,8 @@ public class PinotQueryRuleSets {
 
       // apply dynamic broadcast rule after exchange is inserted/
       PinotJoinToDynamicBroadcastRule.INSTANCE,
+      // push the join keys of the right side into the left leaf stage when runtime filter is requested
+      PinotJoinToRuntimeFilterRule.INSTANCE,
 
       // remove exchanges when there's duplicates
       PinotExchangeEliminationRule.INSTANCE,
@@ -79,6 +79,22 @@ public class InMemorySendingMailbox implements SendingMailbox {
     }
   }
 
+  @Override
+  public boolean isBackPressured(Runnable onWritable) {
+    if (isTerminated() || isEarlyTerminated()) {
+      return false;
+    }
+    if (_receivingMailbox == null) {
+      _receivingMailbox = _mailboxService.getReceivingMailbox(_id);
+    }
+    return _receivingMailbox.isFull(onWritable);
+  }
+
+  @Override
+  public boolean isLocal() {
+    return true;
+  }
+
   @Override
   public void complete() {
     _isTerminated = true;
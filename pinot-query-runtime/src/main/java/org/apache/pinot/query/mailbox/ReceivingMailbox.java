@@ -21,6 +21,8 @@ package org.apache.pinot.query.mailbox;
 import com.google.common.base.Preconditions;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
@@ -61,6 +63,8 @@ public class ReceivingMailbox {
 
   @Nullable
   private volatile Reader _reader;
+  // Callback of the sender waiting for the mailbox to be drained, see isFull()
+  private final AtomicReference<Runnable> _onWritable = new AtomicReference<>();
   private final StatMap<StatKey> _stats = new StatMap<>(StatKey.class);
 
   public ReceivingMailbox(String id) {
@@ -88,17 +92,25 @@ public class ReceivingMailbox {
    * Contrary to {@link #offer(TransferableBlock, long)}, the block may be an
    * {@link TransferableBlock#isErrorBlock() error block}.
    */
-  public ReceivingMailboxStatus offerRaw(ByteBuffer byteBuffer, long timeoutMs)
+  public ReceivingMailboxStatus offerRaw(List<ByteBuffer> byteBuffers, long timeoutMs)
       throws IOException {
     TransferableBlock block;
     long now = System.currentTimeMillis();
     _stats.merge(StatKey.WAIT_CPU_TIME_MS, now - _lastArriveTime);
     _lastArriveTime = now;
-    _stats.merge(StatKey.DESERIALIZED_BYTES, byteBuffer.remaining());
+    List<ByteBuffer> nonEmptyBuffers = new ArrayList<>(byteBuffers.size());
+    long numBytes = 0;
+    for (ByteBuffer byteBuffer : byteBuffers) {
+      if (byteBuffer.hasRemaining()) {
+        nonEmptyBuffers.add(byteBuffer);
+        numBytes += byteBuffer.remaining();
+      }
+    }
+    _stats.merge(StatKey.DESERIALIZED_BYTES, numBytes);
     _stats.merge(StatKey.DESERIALIZED_MESSAGES, 1);
 
     now = System.currentTimeMillis();
-    DataBlock dataBlock = DataBlockUtils.readFrom(byteBuffer);
+    DataBlock dataBlock = DataBlockUtils.deserialize(nonEmptyBuffers);
     _stats.merge(StatKey.DESERIALIZATION_TIME_MS, System.currentTimeMillis() - now);
 
     if (dataBlock instanceof MetadataBlock) {
@@ -178,6 +190,7 @@ public class ReceivingMailbox {
     if (_errorBlock.compareAndSet(null, errorBlock)) {
       _blocks.clear();
       notifyReader();
+      notifyWriter();
     }
   }
 
@@ -189,7 +202,28 @@ public class ReceivingMailbox {
   public TransferableBlock poll() {
     Preconditions.checkState(_reader != null, "A reader must be registered");
     TransferableBlock errorBlock = _errorBlock.get();
-    return errorBlock != null ? errorBlock : _blocks.poll();
+    if (errorBlock != null) {
+      return errorBlock;
+    }
+    TransferableBlock block = _blocks.poll();
+    if (block != null) {
+      notifyWriter();
+    }
+    return block;
+  }
+
+  /**
+   * Returns whether the mailbox cannot accept more blocks without blocking the sender. When {@code true} is returned,
+   * {@code onWritable} is called once a block is consumed from the mailbox, or the mailbox is cancelled or errored out.
+   * Only one sender is supported, and a new callback replaces the previous one.
+   */
+  public boolean isFull(Runnable onWritable) {
+    if (_blocks.remainingCapacity() > 0 || _errorBlock.get() != null) {
+      return false;
+    }
+    _onWritable.set(onWritable);
+    // Check again in case the mailbox was drained before the callback was registered
+    return _blocks.remainingCapacity() == 0 && _errorBlock.get() == null;
   }
 
   /**
@@ -207,6 +241,7 @@ public class ReceivingMailbox {
     LOGGER.debug("Cancelling mailbox: {}", _id);
     if (_errorBlock.compareAndSet(null, CANCELLED_ERROR_BLOCK)) {
       _blocks.clear();
+      notifyWriter();
     }
   }
 
@@ -224,6 +259,13 @@ public class ReceivingMailbox {
     }
   }
 
+  private void notifyWriter() {
+    Runnable onWritable = _onWritable.getAndSet(null);
+    if (onWritable != null) {
+      onWritable.run();
+    }
+  }
+
   public StatMap<StatKey> getStatMap() {
     return _stats;
   }
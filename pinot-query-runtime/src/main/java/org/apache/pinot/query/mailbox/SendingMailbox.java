@@ -68,4 +68,20 @@ public interface SendingMailbox {
    * statistics to be sent next.
    */
   boolean isEarlyTerminated();
+
+  /**
+   * Returns whether the receiver cannot accept more blocks without blocking the sender. When {@code true} is returned,
+   * {@code onWritable} is called once the receiver is able to accept blocks again.
+   */
+  default boolean isBackPressured(Runnable onWritable) {
+    return false;
+  }
+
+  /**
+   * Returns whether the receiver is in the same process. Blocks sent to a local mailbox are handed over to the receiver
+   * as is, so they don't need to be split to fit into the transport messages.
+   */
+  default boolean isLocal() {
+    return false;
+  }
 }
@@ -28,6 +28,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeoutException;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -40,6 +41,7 @@ import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.metrics.ServerMetrics;
 import org.apache.pinot.common.proto.Worker;
 import org.apache.pinot.common.response.PinotBrokerTimeSeriesResponse;
+import org.apache.pinot.common.utils.NamedThreadFactory;
 import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.core.data.manager.InstanceDataManager;
 import org.apache.pinot.core.query.executor.QueryExecutor;
@@ -98,6 +100,9 @@ public class QueryRunner {
   private ServerMetrics _serverMetrics;
 
   private ExecutorService _executorService;
+  // Only set when the yielding op-chain scheduler is enabled
+  @Nullable
+  private ExecutorService _opChainWorkerExecutorService;
   private OpChainSchedulerService _opChainScheduler;
   private MailboxService _mailboxService;
   private QueryExecutor _leafQueryExecutor;
@@ -114,6 +119,14 @@ public class QueryRunner {
   @Nullable
   private JoinOverFlowMode _joinOverflowMode;
 
+  // Sort spill settings
+  @Nullable
+  private Integer _maxRowsInSort;
+
+  // Local directory to spill intermediate state into
+  @Nullable
+  private String _spillDir;
+
   /**
    * Initializes the query executor.
    * <p>Should be called only once and before calling any other method.
@@ -142,11 +155,23 @@ public class QueryRunner {
     _maxRowsInJoin = maxRowsInJoinStr != null ? Integer.parseInt(maxRowsInJoinStr) : null;
     String joinOverflowModeStr = config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_JOIN_OVERFLOW_MODE);
     _joinOverflowMode = joinOverflowModeStr != null ? JoinOverFlowMode.valueOf(joinOverflowModeStr) : null;
+    String maxRowsInSortStr = config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_MAX_ROWS_IN_SORT);
+    _maxRowsInSort = maxRowsInSortStr != null ? Integer.parseInt(maxRowsInSortStr) : null;
+    _spillDir = config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_SPILL_DIR);
 
     _executorService = ExecutorServiceUtils.create(
         config, CommonConstants.Server.CONFIG_OF_QUERY_EXECUTOR_OPCHAIN_EXECUTOR, "query-runner-on-" + port,
         CommonConstants.Server.DEFAULT_QUERY_EXECUTOR_OPCHAIN_EXECUTOR);
-    _opChainScheduler = new OpChainSchedulerService(_executorService);
+    int numOpChainWorkers =
+        config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_YIELDING_SCHEDULER_NUM_WORKERS,
+            CommonConstants.MultiStageQueryRunner.DEFAULT_YIELDING_SCHEDULER_NUM_WORKERS);
+    if (numOpChainWorkers > 0) {
+      _opChainWorkerExecutorService =
+          Executors.newFixedThreadPool(numOpChainWorkers, new NamedThreadFactory("query-runner-worker-on-" + port));
+      _opChainScheduler = new OpChainSchedulerService(_opChainWorkerExecutorService, numOpChainWorkers);
+    } else {
+      _opChainScheduler = new OpChainSchedulerService(_executorService);
+    }
     _mailboxService = new MailboxService(hostname, port, config);
     try {
       _leafQueryExecutor = new ServerQueryExecutorV1Impl();
@@ -160,7 +185,8 @@ public class QueryRunner {
       TimeSeriesBuilderFactoryProvider.init(config);
     }
 
-    LOGGER.info("Initialized QueryRunner with hostname: {}, port: {}", hostname, port);
+    LOGGER.info("Initialized QueryRunner with hostname: {}, port: {}, op-chain workers: {}", hostname, port,
+        numOpChainWorkers);
   }
 
   @VisibleForTesting
@@ -176,6 +202,10 @@ public class QueryRunner {
   public void shutDown() {
     _leafQueryExecutor.shutDown();
     _mailboxService.shutdown();
+    _opChainScheduler.shutDown();
+    if (_opChainWorkerExecutorService != null) {
+      ExecutorServiceUtils.close(_opChainWorkerExecutorService);
+    }
     ExecutorServiceUtils.close(_executorService);
   }
 
@@ -346,6 +376,21 @@ public class QueryRunner {
     if (joinOverflowMode != null) {
       opChainMetadata.put(QueryOptionKey.JOIN_OVERFLOW_MODE, joinOverflowMode.name());
     }
+
+    Integer maxRowsInSort = QueryOptionsUtils.getMaxRowsInSort(opChainMetadata);
+    if (maxRowsInSort == null) {
+      maxRowsInSort = _maxRowsInSort;
+    }
+    if (maxRowsInSort != null) {
+      opChainMetadata.put(QueryOptionKey.MAX_ROWS_IN_SORT, Integer.toString(maxRowsInSort));
+    }
+
+    // 4. spill directory is a server side setting and must not be overridden by the request.
+    if (_spillDir != null) {
+      opChainMetadata.put(CommonConstants.MultiStageQueryRunner.KEY_OF_SPILL_DIR, _spillDir);
+    } else {
+      opChainMetadata.remove(CommonConstants.MultiStageQueryRunner.KEY_OF_SPILL_DIR);
+    }
     return opChainMetadata;
   }
 
@@ -0,0 +1,214 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.blocks;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.common.BlockValSet;
+import org.apache.pinot.segment.spi.index.reader.Dictionary;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.apache.pinot.spi.utils.CommonConstants.NullValuePlaceHolder;
+import org.roaringbitmap.RoaringBitmap;
+
+
+/**
+ * A {@link BlockValSet} implementation backed by a column of a {@link ColumnarContainer}. The numeric values are
+ * returned without copying when the requested type matches the backing primitive array.
+ *
+ * TODO: Support MV
+ */
+public class ColumnarBlockValSet implements BlockValSet {
+  private final DataType _dataType;
+  private final ColumnarContainer _container;
+  private final int _colId;
+  private final RoaringBitmap _nullBitmap;
+
+  public ColumnarBlockValSet(ColumnDataType columnDataType, ColumnarContainer container, int colId) {
+    _dataType = columnDataType.toDataType();
+    _container = container;
+    _colId = colId;
+    _nullBitmap = container.getNullBitmap(colId);
+  }
+
+  @Nullable
+  @Override
+  public RoaringBitmap getNullBitmap() {
+    return _nullBitmap;
+  }
+
+  @Override
+  public DataType getValueType() {
+    return _dataType;
+  }
+
+  @Override
+  public boolean isSingleValue() {
+    return true;
+  }
+
+  @Nullable
+  @Override
+  public Dictionary getDictionary() {
+    return null;
+  }
+
+  @Override
+  public int[] getDictionaryIdsSV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int[] getIntValuesSV() {
+    return _container.getIntValues(_colId);
+  }
+
+  @Override
+  public long[] getLongValuesSV() {
+    return _container.getLongValues(_colId);
+  }
+
+  @Override
+  public float[] getFloatValuesSV() {
+    return _container.getFloatValues(_colId);
+  }
+
+  @Override
+  public double[] getDoubleValuesSV() {
+    return _container.getDoubleValues(_colId);
+  }
+
+  @Override
+  public BigDecimal[] getBigDecimalValuesSV() {
+    int numRows = _container.getNumRows();
+    BigDecimal[] values = new BigDecimal[numRows];
+    Object column = _container.getColumn(_colId);
+    if (column instanceof int[] || column instanceof long[]) {
+      long[] longValues = _container.getLongValues(_colId);
+      for (int i = 0; i < numRows; i++) {
+        values[i] = BigDecimal.valueOf(longValues[i]);
+      }
+    } else if (column instanceof float[]) {
+      float[] floatValues = (float[]) column;
+      for (int i = 0; i < numRows; i++) {
+        values[i] = new BigDecimal(Float.toString(floatValues[i]));
+      }
+    } else if (column instanceof double[]) {
+      double[] doubleValues = (double[]) column;
+      for (int i = 0; i < numRows; i++) {
+        values[i] = new BigDecimal(Double.toString(doubleValues[i]));
+      }
+    } else {
+      Object[] objectValues = (Object[]) column;
+      for (int i = 0; i < numRows; i++) {
+        Object value = objectValues[i];
+        if (value == null) {
+          values[i] = NullValuePlaceHolder.BIG_DECIMAL;
+        } else if (value instanceof BigDecimal) {
+          values[i] = (BigDecimal) value;
+        } else if (value instanceof String) {
+          values[i] = new BigDecimal((String) value);
+        } else {
+          throw new IllegalStateException("Cannot read BigDecimal values from data type: " + _dataType);
+        }
+      }
+      return values;
+    }
+    if (_nullBitmap != null) {
+      _nullBitmap.forEach((int i) -> values[i] = NullValuePlaceHolder.BIG_DECIMAL);
+    }
+    return values;
+  }
+
+  @Override
+  public String[] getStringValuesSV() {
+    int numRows = _container.getNumRows();
+    String[] values = new String[numRows];
+    if (_dataType == DataType.UNKNOWN) {
+      Arrays.fill(values, NullValuePlaceHolder.STRING);
+      return values;
+    }
+    for (int i = 0; i < numRows; i++) {
+      Object value = _container.getValue(i, _colId);
+      values[i] = value != null ? value.toString() : NullValuePlaceHolder.STRING;
+    }
+    return values;
+  }
+
+  @Override
+  public byte[][] getBytesValuesSV() {
+    int numRows = _container.getNumRows();
+    byte[][] values = new byte[numRows][];
+    if (_dataType == DataType.UNKNOWN) {
+      Arrays.fill(values, NullValuePlaceHolder.BYTES);
+      return values;
+    }
+    if (_dataType.getStoredType() != DataType.BYTES) {
+      throw new IllegalStateException("Cannot read bytes values from data type: " + _dataType);
+    }
+    Object[] objectValues = (Object[]) _container.getColumn(_colId);
+    for (int i = 0; i < numRows; i++) {
+      ByteArray value = (ByteArray) objectValues[i];
+      values[i] = value != null ? value.getBytes() : NullValuePlaceHolder.BYTES;
+    }
+    return values;
+  }
+
+  @Override
+  public int[][] getDictionaryIdsMV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int[][] getIntValuesMV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public long[][] getLongValuesMV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public float[][] getFloatValuesMV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public double[][] getDoubleValuesMV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public String[][] getStringValuesMV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public byte[][][] getBytesValuesMV() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int[] getNumMVEntries() {
+    throw new UnsupportedOperationException();
+  }
+}
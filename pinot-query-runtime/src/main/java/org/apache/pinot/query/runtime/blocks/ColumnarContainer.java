@@ -0,0 +1,496 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.blocks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.util.DataBlockExtractUtils;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+
+/**
+ * A {@code ColumnarContainer} holds the rows of a {@link TransferableBlock} column by column so that the multi-stage
+ * operators can process them without boxing every value into an {@code Object[]} row.
+ * <p>Columns with a numeric stored type (INT, LONG, FLOAT, DOUBLE) are backed by a primitive array ({@code int[]},
+ * {@code long[]}, {@code float[]}, {@code double[]}) holding the default value (0) for the null rows. Columns of the
+ * other stored types are backed by an {@code Object[]} holding the same values as the row container (e.g.
+ * {@link org.apache.pinot.spi.utils.ByteArray} for BYTES) and {@code null} for the null rows.
+ * <p>The null rows of each column are tracked by a {@link RoaringBitmap}, which is {@code null} when the column has no
+ * null value. The column arrays might be shared across containers (e.g. when projecting columns), so they must not be
+ * modified once the container is created.
+ */
+public class ColumnarContainer {
+  private final DataSchema _dataSchema;
+  private final int _numRows;
+  private final Object[] _columns;
+  private final RoaringBitmap[] _nullBitmaps;
+
+  public ColumnarContainer(DataSchema dataSchema, int numRows, Object[] columns, RoaringBitmap[] nullBitmaps) {
+    _dataSchema = dataSchema;
+    _numRows = numRows;
+    _columns = columns;
+    _nullBitmaps = nullBitmaps;
+  }
+
+  /**
+   * Extracts the columns of the given data block without materializing its rows.
+   */
+  public static ColumnarContainer fromDataBlock(DataBlock dataBlock) {
+    DataSchema dataSchema = dataBlock.getDataSchema();
+    int numColumns = dataSchema.size();
+    int numRows = dataBlock.getNumberOfRows();
+    Object[] columns = new Object[numColumns];
+    RoaringBitmap[] nullBitmaps = new RoaringBitmap[numColumns];
+    for (int colId = 0; colId < numColumns; colId++) {
+      RoaringBitmap nullBitmap = dataBlock.getNullRowIds(colId);
+      if (nullBitmap != null && nullBitmap.isEmpty()) {
+        nullBitmap = null;
+      }
+      ColumnDataType storedType = dataSchema.getColumnDataType(colId).getStoredType();
+      switch (storedType) {
+        case INT:
+          columns[colId] = DataBlockExtractUtils.extractIntColumn(DataType.INT, dataBlock, colId, nullBitmap);
+          break;
+        case LONG:
+          columns[colId] = DataBlockExtractUtils.extractLongColumn(DataType.LONG, dataBlock, colId, nullBitmap);
+          break;
+        case FLOAT:
+          columns[colId] = DataBlockExtractUtils.extractFloatColumn(DataType.FLOAT, dataBlock, colId, nullBitmap);
+          break;
+        case DOUBLE:
+          columns[colId] = DataBlockExtractUtils.extractDoubleColumn(DataType.DOUBLE, dataBlock, colId, nullBitmap);
+          break;
+        case UNKNOWN:
+          columns[colId] = new Object[numRows];
+          if (numRows > 0) {
+            nullBitmap = new RoaringBitmap();
+            nullBitmap.add(0L, numRows);
+          }
+          break;
+        default:
+          columns[colId] = DataBlockExtractUtils.extractColumn(dataBlock, colId);
+          break;
+      }
+      nullBitmaps[colId] = nullBitmap;
+    }
+    return new ColumnarContainer(dataSchema, numRows, columns, nullBitmaps);
+  }
+
+  /**
+   * Transposes the given rows into columns.
+   */
+  public static ColumnarContainer fromRows(List<Object[]> rows, DataSchema dataSchema) {
+    int numColumns = dataSchema.size();
+    int numRows = rows.size();
+    Object[] columns = new Object[numColumns];
+    RoaringBitmap[] nullBitmaps = new RoaringBitmap[numColumns];
+    for (int colId = 0; colId < numColumns; colId++) {
+      RoaringBitmap nullBitmap = new RoaringBitmap();
+      switch (dataSchema.getColumnDataType(colId).getStoredType()) {
+        case INT: {
+          int[] values = new int[numRows];
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            Object value = rows.get(rowId)[colId];
+            if (value != null) {
+              values[rowId] = ((Number) value).intValue();
+            } else {
+              nullBitmap.add(rowId);
+            }
+          }
+          columns[colId] = values;
+          break;
+        }
+        case LONG: {
+          long[] values = new long[numRows];
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            Object value = rows.get(rowId)[colId];
+            if (value != null) {
+              values[rowId] = ((Number) value).longValue();
+            } else {
+              nullBitmap.add(rowId);
+            }
+          }
+          columns[colId] = values;
+          break;
+        }
+        case FLOAT: {
+          float[] values = new float[numRows];
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            Object value = rows.get(rowId)[colId];
+            if (value != null) {
+              values[rowId] = ((Number) value).floatValue();
+            } else {
+              nullBitmap.add(rowId);
+            }
+          }
+          columns[colId] = values;
+          break;
+        }
+        case DOUBLE: {
+          double[] values = new double[numRows];
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            Object value = rows.get(rowId)[colId];
+            if (value != null) {
+              values[rowId] = ((Number) value).doubleValue();
+            } else {
+              nullBitmap.add(rowId);
+            }
+          }
+          columns[colId] = values;
+          break;
+        }
+        default: {
+          Object[] values = new Object[numRows];
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            Object value = rows.get(rowId)[colId];
+            if (value != null) {
+              values[rowId] = value;
+            } else {
+              nullBitmap.add(rowId);
+            }
+          }
+          columns[colId] = values;
+          break;
+        }
+      }
+      nullBitmaps[colId] = nullBitmap.isEmpty() ? null : nullBitmap;
+    }
+    return new ColumnarContainer(dataSchema, numRows, columns, nullBitmaps);
+  }
+
+  public DataSchema getDataSchema() {
+    return _dataSchema;
+  }
+
+  public int getNumRows() {
+    return _numRows;
+  }
+
+  /**
+   * Returns the backing array of the given column, which is one of {@code int[]}, {@code long[]}, {@code float[]},
+   * {@code double[]} or {@code Object[]} (see the class level javadoc).
+   */
+  public Object getColumn(int colId) {
+    return _columns[colId];
+  }
+
+  @Nullable
+  public RoaringBitmap getNullBitmap(int colId) {
+    return _nullBitmaps[colId];
+  }
+
+  public boolean isNull(int rowId, int colId) {
+    RoaringBitmap nullBitmap = _nullBitmaps[colId];
+    return nullBitmap != null && nullBitmap.contains(rowId);
+  }
+
+  /**
+   * Returns the (boxed) value at the given position, or {@code null} for a null value.
+   */
+  @Nullable
+  public Object getValue(int rowId, int colId) {
+    if (isNull(rowId, colId)) {
+      return null;
+    }
+    Object column = _columns[colId];
+    if (column instanceof int[]) {
+      return ((int[]) column)[rowId];
+    } else if (column instanceof long[]) {
+      return ((long[]) column)[rowId];
+    } else if (column instanceof float[]) {
+      return ((float[]) column)[rowId];
+    } else if (column instanceof double[]) {
+      return ((double[]) column)[rowId];
+    } else {
+      return ((Object[]) column)[rowId];
+    }
+  }
+
+  /**
+   * Returns the values of the given column as an {@code int[]}, converting them when the column is not backed by an
+   * {@code int[]}. Null values are returned as 0.
+   */
+  public int[] getIntValues(int colId) {
+    Object column = _columns[colId];
+    if (column instanceof int[]) {
+      return (int[]) column;
+    }
+    int[] values = new int[_numRows];
+    if (column instanceof long[]) {
+      long[] longValues = (long[]) column;
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        values[rowId] = (int) longValues[rowId];
+      }
+    } else if (column instanceof float[]) {
+      float[] floatValues = (float[]) column;
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        values[rowId] = (int) floatValues[rowId];
+      }
+    } else if (column instanceof double[]) {
+      double[] doubleValues = (double[]) column;
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        values[rowId] = (int) doubleValues[rowId];
+      }
+    } else {
+      Object[] objectValues = (Object[]) column;
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        Object value = objectValues[rowId];
+        if (value != null) {
+          values[rowId] = toNumber(value, colId).intValue();
+        }
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Returns the values of the given column as a {@code long[]}, converting them when the column is not backed by a
+   * {@code long[]}. Null values are returned as 0.
+   */
+  public long[] getLongValues(int colId) {
+    Object column = _columns[colId];
+    if (column instanceof long[]) {
+      return (long[]) column;
+    }
+    long[] values = new long[_numRows];
+    if (column instanceof int[]) {
+      int[] intValues = (int[]) column;
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        values[rowId] = intValues[rowId];
+      }
+    } else if (column instanceof float[]) {
+      float[] floatValues = (float[]) column;
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        values[rowId] = (long) floatValues[rowId];
+      }
+    } else if (column instanceof double[]) {
+      double[] doubleValues = (double[]) column;
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        values[rowId] = (long) doubleValues[rowId];
+      }
+    } else {
+      Object[] objectValues = (Object[]) column;
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        Object value = objectValues[rowId];
+        if (value != null) {
+          values[rowId] = toNumber(value, colId).longValue();
+        }
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Returns the values of the given column as a {@code float[]}, converting them when the column is not backed by a
+   * {@code float[]}. Null values are returned as 0.
+   */
+  public float[] getFloatValues(int colId) {
+    Object column = _columns[colId];
+    if (column instanceof float[]) {
+      return (float[]) column;
+    }
+    float[] values = new float[_numRows];
+    if (column instanceof int[]) {
+      int[] intValues = (int[]) column;
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        values[rowId] = intValues[rowId];
+      }
+    } else if (column instanceof long[]) {
+      long[] longValues = (long[]) column;
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        values[rowId] = longValues[rowId];
+      }
+    } else if (column instanceof double[]) {
+      double[] doubleValues = (double[]) column;
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        values[rowId] = (float) doubleValues[rowId];
+      }
+    } else {
+      Object[] objectValues = (Object[]) column;
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        Object value = objectValues[rowId];
+        if (value != null) {
+          values[rowId] = toNumber(value, colId).floatValue();
+        }
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Returns the values of the given column as a {@code double[]}, converting them when the column is not backed by a
+   * {@code double[]}. Null values are returned as 0.
+   */
+  public double[] getDoubleValues(int colId) {
+    Object column = _columns[colId];
+    if (column instanceof double[]) {
+      return (double[]) column;
+    }
+    double[] values = new double[_numRows];
+    if (column instanceof int[]) {
+      int[] intValues = (int[]) column;
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        values[rowId] = intValues[rowId];
+      }
+    } else if (column instanceof long[]) {
+      long[] longValues = (long[]) column;
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        values[rowId] = longValues[rowId];
+      }
+    } else if (column instanceof float[]) {
+      float[] floatValues = (float[]) column;
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        values[rowId] = floatValues[rowId];
+      }
+    } else {
+      Object[] objectValues = (Object[]) column;
+      for (int rowId = 0; rowId < _numRows; rowId++) {
+        Object value = objectValues[rowId];
+        if (value != null) {
+          values[rowId] = toNumber(value, colId).doubleValue();
+        }
+      }
+    }
+    return values;
+  }
+
+  private Number toNumber(Object value, int colId) {
+    if (value instanceof Number) {
+      return (Number) value;
+    }
+    throw new IllegalStateException(
+        String.format("Cannot read numeric values from column: %s of type: %s", _dataSchema.getColumnName(colId),
+            _dataSchema.getColumnDataType(colId)));
+  }
+
+  /**
+   * Returns a new container with only the rows in the given bitmap, in the order of their row ids.
+   */
+  public ColumnarContainer select(RoaringBitmap rowIds) {
+    int numSelectedRows = rowIds.getCardinality();
+    int numColumns = _columns.length;
+    Object[] columns = new Object[numColumns];
+    RoaringBitmap[] nullBitmaps = new RoaringBitmap[numColumns];
+    for (int colId = 0; colId < numColumns; colId++) {
+      Object column = _columns[colId];
+      PeekableIntIterator iterator = rowIds.getIntIterator();
+      if (column instanceof int[]) {
+        int[] values = (int[]) column;
+        int[] selectedValues = new int[numSelectedRows];
+        for (int i = 0; i < numSelectedRows; i++) {
+          selectedValues[i] = values[iterator.next()];
+        }
+        columns[colId] = selectedValues;
+      } else if (column instanceof long[]) {
+        long[] values = (long[]) column;
+        long[] selectedValues = new long[numSelectedRows];
+        for (int i = 0; i < numSelectedRows; i++) {
+          selectedValues[i] = values[iterator.next()];
+        }
+        columns[colId] = selectedValues;
+      } else if (column instanceof float[]) {
+        float[] values = (float[]) column;
+        float[] selectedValues = new float[numSelectedRows];
+        for (int i = 0; i < numSelectedRows; i++) {
+          selectedValues[i] = values[iterator.next()];
+        }
+        columns[colId] = selectedValues;
+      } else if (column instanceof double[]) {
+        double[] values = (double[]) column;
+        double[] selectedValues = new double[numSelectedRows];
+        for (int i = 0; i < numSelectedRows; i++) {
+          selectedValues[i] = values[iterator.next()];
+        }
+        columns[colId] = selectedValues;
+      } else {
+        Object[] values = (Object[]) column;
+        Object[] selectedValues = new Object[numSelectedRows];
+        for (int i = 0; i < numSelectedRows; i++) {
+          selectedValues[i] = values[iterator.next()];
+        }
+        columns[colId] = selectedValues;
+      }
+      RoaringBitmap nullBitmap = _nullBitmaps[colId];
+      if (nullBitmap != null && RoaringBitmap.intersects(nullBitmap, rowIds)) {
+        RoaringBitmap selectedNullBitmap = new RoaringBitmap();
+        iterator = rowIds.getIntIterator();
+        for (int i = 0; i < numSelectedRows; i++) {
+          if (nullBitmap.contains(iterator.next())) {
+            selectedNullBitmap.add(i);
+          }
+        }
+        nullBitmaps[colId] = selectedNullBitmap;
+      }
+    }
+    return new ColumnarContainer(_dataSchema, numSelectedRows, columns, nullBitmaps);
+  }
+
+  /**
+   * Materializes the rows of the container. Only the operators that need to keep or re-arrange whole rows should call
+   * this method.
+   */
+  public List<Object[]> toRows() {
+    int numColumns = _columns.length;
+    Object[][] rows = new Object[_numRows][numColumns];
+    for (int colId = 0; colId < numColumns; colId++) {
+      Object column = _columns[colId];
+      if (column instanceof int[]) {
+        int[] values = (int[]) column;
+        for (int rowId = 0; rowId < _numRows; rowId++) {
+          rows[rowId][colId] = values[rowId];
+        }
+      } else if (column instanceof long[]) {
+        long[] values = (long[]) column;
+        for (int rowId = 0; rowId < _numRows; rowId++) {
+          rows[rowId][colId] = values[rowId];
+        }
+      } else if (column instanceof float[]) {
+        float[] values = (float[]) column;
+        for (int rowId = 0; rowId < _numRows; rowId++) {
+          rows[rowId][colId] = values[rowId];
+        }
+      } else if (column instanceof double[]) {
+        double[] values = (double[]) column;
+        for (int rowId = 0; rowId < _numRows; rowId++) {
+          rows[rowId][colId] = values[rowId];
+        }
+      } else {
+        Object[] values = (Object[]) column;
+        for (int rowId = 0; rowId < _numRows; rowId++) {
+          rows[rowId][colId] = values[rowId];
+        }
+      }
+      RoaringBitmap nullBitmap = _nullBitmaps[colId];
+      if (nullBitmap != null) {
+        PeekableIntIterator iterator = nullBitmap.getIntIterator();
+        while (iterator.hasNext()) {
+          rows[iterator.next()][colId] = null;
+        }
+      }
+    }
+    return new ArrayList<>(Arrays.asList(rows));
+  }
+}
@@ -45,16 +45,20 @@ import org.apache.pinot.segment.spi.memory.DataBuffer;
  * {@link org.apache.pinot.common.proto.Mailbox}.
  */
 public class TransferableBlock implements Block {
+  static final TransferableBlock YIELD_BLOCK = new TransferableBlock();
+
   private final DataBlock.Type _type;
   @Nullable
   private final DataSchema _dataSchema;
   private final int _numRows;
 
   private List<Object[]> _container;
+  private ColumnarContainer _columnarContainer;
   private DataBlock _dataBlock;
   private Map<Integer, String> _errCodeToExceptionMap;
   @Nullable
   private final MultiStageQueryStats _queryStats;
+  private final boolean _isYield;
 
   public TransferableBlock(List<Object[]> container, DataSchema dataSchema, DataBlock.Type type) {
     _container = container;
@@ -67,6 +71,19 @@ public class TransferableBlock implements Block {
     assert _numRows > 0 : "Container should not be empty";
     _errCodeToExceptionMap = new HashMap<>();
     _queryStats = null;
+    _isYield = false;
+  }
+
+  public TransferableBlock(ColumnarContainer columnarContainer) {
+    _columnarContainer = columnarContainer;
+    _dataSchema = columnarContainer.getDataSchema();
+    _type = DataBlock.Type.ROW;
+    _numRows = columnarContainer.getNumRows();
+    // NOTE: Use assert to avoid breaking production code.
+    assert _numRows > 0 : "Container should not be empty";
+    _errCodeToExceptionMap = new HashMap<>();
+    _queryStats = null;
+    _isYield = false;
   }
 
   public TransferableBlock(DataBlock dataBlock) {
@@ -77,6 +94,7 @@ public class TransferableBlock implements Block {
     _numRows = _dataBlock.getNumberOfRows();
     _errCodeToExceptionMap = null;
     _queryStats = null;
+    _isYield = false;
   }
 
   public TransferableBlock(MultiStageQueryStats stats) {
@@ -85,6 +103,16 @@ public class TransferableBlock implements Block {
     _numRows = 0;
     _dataSchema = null;
     _errCodeToExceptionMap = null;
+    _isYield = false;
+  }
+
+  private TransferableBlock() {
+    _type = DataBlock.Type.METADATA;
+    _numRows = 0;
+    _dataSchema = null;
+    _errCodeToExceptionMap = null;
+    _queryStats = null;
+    _isYield = true;
   }
 
   public List<DataBuffer> getSerializedStatsByStage() {
@@ -147,6 +175,10 @@ public class TransferableBlock implements Block {
    */
   public List<Object[]> getContainer() {
     if (_container == null) {
+      if (_columnarContainer != null) {
+        _container = _columnarContainer.toRows();
+        return _container;
+      }
       switch (_type) {
         case ROW:
           _container = DataBlockExtractUtils.extractRows(_dataBlock);
@@ -160,6 +192,41 @@ public class TransferableBlock implements Block {
     return _container;
   }
 
+  /**
+   * Returns whether the columnar container is already constructed.
+   */
+  public boolean isColumnarContainerConstructed() {
+    return _columnarContainer != null;
+  }
+
+  /**
+   * Returns whether the operators should prefer {@link #getColumnarContainer()} over {@link #getContainer()}, i.e.
+   * whether the rows are not already materialized so that the columns can be read without boxing the values.
+   */
+  public boolean isColumnarPreferred() {
+    return _container == null;
+  }
+
+  /**
+   * Retrieve the columnar version of the data, which keeps the values of the numeric columns in primitive arrays.
+   * If not already constructed, it is extracted from the binary-packed data block (without materializing the rows),
+   * or transposed from the {@link TransferableBlock#_container}.
+   *
+   * @return columnar container.
+   */
+  public ColumnarContainer getColumnarContainer() {
+    if (_columnarContainer == null) {
+      if (_container != null) {
+        _columnarContainer = ColumnarContainer.fromRows(_container, _dataSchema);
+      } else if (_type != DataBlock.Type.METADATA) {
+        _columnarContainer = ColumnarContainer.fromDataBlock(_dataBlock);
+      } else {
+        throw new UnsupportedOperationException("Unable to extract columns from block with type: " + _type);
+      }
+    }
+    return _columnarContainer;
+  }
+
   /**
    * Retrieve the binary-packed version of the data block.
    * If not already constructed. It will use {@link DataBlockBuilder} to construct the binary-packed format from
@@ -168,11 +235,12 @@ public class TransferableBlock implements Block {
    * @return data block.
    */
   public DataBlock getDataBlock() {
+    Preconditions.checkState(!_isYield, "Yield block cannot be converted into a data block");
     if (_dataBlock == null) {
       try {
         switch (_type) {
           case ROW:
-            _dataBlock = DataBlockBuilder.buildFromRows(_container, _dataSchema);
+            _dataBlock = DataBlockBuilder.buildFromRows(getContainer(), _dataSchema);
             break;
           case COLUMNAR:
             _dataBlock = DataBlockBuilder.buildFromColumns(_container, _dataSchema);
@@ -233,6 +301,19 @@ public class TransferableBlock implements Block {
     return _type != DataBlock.Type.METADATA;
   }
 
+  /**
+   * Return whether the block is a yield block, which carries no data and is returned by the operators when they cannot
+   * make progress without blocking (e.g. no block is available in the receiving mailboxes, or the sending mailbox is
+   * back-pressured). Yield blocks are only returned when the op-chain is driven by the cooperative scheduler, and
+   * operators receiving one from their input must return it as is, keeping their state so that the next call resumes
+   * from where they stopped.
+   *
+   * @return true if the block is a yield block.
+   */
+  public boolean isYieldBlock() {
+    return _isYield;
+  }
+
   /**
    * Return whether a transferable block contains exception.
    *
@@ -243,7 +324,7 @@ public class TransferableBlock implements Block {
   }
 
   private boolean isType(MetadataBlock.MetadataBlockType type) {
-    if (_type != DataBlock.Type.METADATA) {
+    if (_type != DataBlock.Type.METADATA || _isYield) {
       return false;
     }
 
@@ -256,7 +337,8 @@ public class TransferableBlock implements Block {
 
   @Override
   public String toString() {
-    String blockType = isErrorBlock() ? "error" : isSuccessfulEndOfStreamBlock() ? "eos" : "data";
+    String blockType =
+        isErrorBlock() ? "error" : isSuccessfulEndOfStreamBlock() ? "eos" : _isYield ? "yield" : "data";
     return "TransferableBlock{blockType=" + blockType + ", _numRows=" + _numRows + '}';
   }
 }
@@ -46,6 +46,14 @@ public final class TransferableBlockUtils {
     return new TransferableBlock(stats);
   }
 
+  /**
+   * Returns the block used to yield the op-chain when an operator cannot make progress without blocking. See
+   * {@link TransferableBlock#isYieldBlock()}.
+   */
+  public static TransferableBlock getYieldTransferableBlock() {
+    return TransferableBlock.YIELD_BLOCK;
+  }
+
   public static TransferableBlock wrap(DataBlock dataBlock) {
     return new TransferableBlock(dataBlock);
   }
@@ -23,12 +23,15 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import org.apache.pinot.core.util.trace.TraceRunnable;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.operator.OpChain;
 import org.apache.pinot.query.runtime.operator.OpChainId;
 import org.apache.pinot.spi.accounting.ThreadExecutionContext;
 import org.apache.pinot.spi.accounting.ThreadResourceUsageProvider;
+import org.apache.pinot.spi.exception.QueryCancelledException;
 import org.apache.pinot.spi.trace.Tracing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,16 +39,43 @@ import org.slf4j.LoggerFactory;
 
 public class OpChainSchedulerService {
   private static final Logger LOGGER = LoggerFactory.getLogger(OpChainSchedulerService.class);
+  private static final long WORKER_POLL_TIMEOUT_MS = 1000L;
 
   private final ExecutorService _executorService;
   private final ConcurrentHashMap<OpChainId, Future<?>> _submittedOpChainMap;
+  @Nullable
+  private final YieldingOpChainScheduler _yieldingScheduler;
 
+  /**
+   * Creates a scheduler service where each op-chain is submitted to the executor service, and holds a thread until it
+   * finishes.
+   */
   public OpChainSchedulerService(ExecutorService executorService) {
     _executorService = executorService;
     _submittedOpChainMap = new ConcurrentHashMap<>();
+    _yieldingScheduler = null;
+  }
+
+  /**
+   * Creates a scheduler service where the op-chains yield instead of blocking the thread, and are driven by
+   * {@code numWorkers} workers running on the executor service, which must be able to run all the workers concurrently.
+   */
+  public OpChainSchedulerService(ExecutorService executorService, int numWorkers) {
+    _executorService = executorService;
+    _submittedOpChainMap = new ConcurrentHashMap<>();
+    _yieldingScheduler = new YieldingOpChainScheduler();
+    for (int i = 0; i < numWorkers; i++) {
+      _executorService.submit(this::runWorker);
+    }
   }
 
   public void register(OpChain operatorChain) {
+    if (_yieldingScheduler != null) {
+      OpChainId opChainId = operatorChain.getId();
+      operatorChain.getContext().enableYield(() -> _yieldingScheduler.onDataAvailable(opChainId));
+      _yieldingScheduler.register(operatorChain);
+      return;
+    }
     Future<?> scheduledFuture = _executorService.submit(new TraceRunnable() {
       @Override
       public void runJob() {
@@ -91,6 +121,10 @@ public class OpChainSchedulerService {
   }
 
   public void cancel(long requestId) {
+    if (_yieldingScheduler != null) {
+      _yieldingScheduler.cancel(requestId);
+      return;
+    }
     // simple cancellation. for leaf stage this cannot be a dangling opchain b/c they will eventually be cleared up
     // via query timeout.
     Iterator<Map.Entry<OpChainId, Future<?>>> iterator = _submittedOpChainMap.entrySet().iterator();
@@ -102,4 +136,85 @@ public class OpChainSchedulerService {
       }
     }
   }
+
+  /**
+   * Stops the workers of the yielding scheduler. No-op when each op-chain holds a thread of the executor service.
+   */
+  public void shutDown() {
+    if (_yieldingScheduler != null) {
+      _yieldingScheduler.shutdownNow();
+    }
+  }
+
+  private void runWorker() {
+    assert _yieldingScheduler != null;
+    while (!_yieldingScheduler.isShutdown()) {
+      OpChain operatorChain;
+      try {
+        operatorChain = _yieldingScheduler.next(WORKER_POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        LOGGER.info("Interrupted while waiting for the next op-chain, stopping the worker");
+        return;
+      }
+      if (operatorChain != null) {
+        runUntilYield(operatorChain);
+      }
+    }
+  }
+
+  /**
+   * Runs the op-chain until it yields or finishes. A yielded op-chain is handed back to the scheduler, which resumes it
+   * on any worker once data is available.
+   */
+  private void runUntilYield(OpChain operatorChain) {
+    assert _yieldingScheduler != null;
+    if (_yieldingScheduler.isCancelled(operatorChain.getId())) {
+      LOGGER.debug("({}): Cancelled", operatorChain);
+      _yieldingScheduler.deregister(operatorChain);
+      operatorChain.cancel(new QueryCancelledException("Cancelled op-chain: " + operatorChain.getId()));
+      return;
+    }
+    boolean isFinished = false;
+    TransferableBlock returnedErrorBlock = null;
+    Throwable thrown = null;
+    try {
+      ThreadResourceUsageProvider threadResourceUsageProvider = new ThreadResourceUsageProvider();
+      Tracing.ThreadAccountantOps.setupWorker(operatorChain.getId().getStageId(), ThreadExecutionContext.TaskType.MSE,
+          threadResourceUsageProvider, operatorChain.getParentContext());
+      LOGGER.trace("({}): Executing", operatorChain);
+      TransferableBlock result = operatorChain.getRoot().nextBlock();
+      while (!result.isEndOfStreamBlock()) {
+        if (result.isYieldBlock()) {
+          LOGGER.trace("({}): Yielded", operatorChain);
+          _yieldingScheduler.yield(operatorChain);
+          return;
+        }
+        result = operatorChain.getRoot().nextBlock();
+      }
+      isFinished = true;
+      if (result.isErrorBlock()) {
+        returnedErrorBlock = result;
+        LOGGER.error("({}): Completed erroneously {} {}", operatorChain, result.getQueryStats(),
+            result.getExceptions());
+      } else {
+        LOGGER.debug("({}): Completed {}", operatorChain, result.getQueryStats());
+      }
+    } catch (Exception e) {
+      LOGGER.error("({}): Failed to execute operator chain!", operatorChain, e);
+      thrown = e;
+    } finally {
+      if (isFinished || thrown != null) {
+        _yieldingScheduler.deregister(operatorChain);
+        if (returnedErrorBlock != null || thrown != null) {
+          if (thrown == null) {
+            thrown = new RuntimeException("Error block " + returnedErrorBlock.getExceptions());
+          }
+          operatorChain.cancel(thrown);
+        } else {
+          operatorChain.close();
+        }
+      }
+      Tracing.ThreadAccountantOps.clear();
+    }
+  }
 }
@@ -0,0 +1,266 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.executor;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.query.runtime.operator.OpChain;
+import org.apache.pinot.query.runtime.operator.OpChainId;
+
+
+/**
+ * An {@link OpChainScheduler} for op-chains that yield instead of blocking the thread (see
+ * {@link org.apache.pinot.query.runtime.blocks.TransferableBlock#isYieldBlock()}).
+ *
+ * A yielded op-chain is suspended until {@link #onDataAvailable} is called for it, or its deadline is reached so that
+ * it can time out. Data notified while the op-chain is running is remembered, so the op-chain is rescheduled right away
+ * when it yields afterward instead of missing the notification.
+ */
+@ThreadSafe
+public class YieldingOpChainScheduler implements OpChainScheduler {
+  private final ReentrantLock _lock = new ReentrantLock();
+  private final Condition _readyCondition = _lock.newCondition();
+  private final Map<OpChainId, Entry> _entries = new HashMap<>();
+  private final ArrayDeque<Entry> _readyQueue = new ArrayDeque<>();
+  // Registered op-chains ordered by deadline
+  private final PriorityQueue<Entry> _deadlineQueue = new PriorityQueue<>(Comparator.comparingLong(e -> e._deadlineMs));
+  private boolean _isShutdown;
+
+  @Override
+  public void register(OpChain operatorChain) {
+    Entry entry = new Entry(operatorChain);
+    _lock.lock();
+    try {
+      Entry previous = _entries.putIfAbsent(operatorChain.getId(), entry);
+      if (previous != null) {
+        throw new IllegalStateException("OpChain: " + operatorChain.getId() + " is already registered");
+      }
+      _deadlineQueue.add(entry);
+      markReady(entry);
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  @Override
+  public void deregister(OpChain operatorChain) {
+    _lock.lock();
+    try {
+      Entry entry = _entries.remove(operatorChain.getId());
+      if (entry != null) {
+        entry._state = State.DONE;
+        // Remove the entry right away so that the finished op-chain is not kept reachable until its deadline
+        _deadlineQueue.remove(entry);
+      }
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  @Override
+  public void yield(OpChain opChain) {
+    _lock.lock();
+    try {
+      Entry entry = _entries.get(opChain.getId());
+      if (entry == null) {
+        return;
+      }
+      if (entry._hasPendingData || entry._isCancelled) {
+        markReady(entry);
+      } else {
+        entry._state = State.SUSPENDED;
+      }
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  @Override
+  public void onDataAvailable(OpChainId opChainId) {
+    _lock.lock();
+    try {
+      Entry entry = _entries.get(opChainId);
+      if (entry != null) {
+        wakeUp(entry);
+      }
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  /**
+   * Marks all the op-chains of the given request as cancelled, and wakes up the suspended ones. The op-chains are
+   * returned by {@link #next} as usual, and the caller should check {@link #isCancelled} before running them.
+   */
+  public void cancel(long requestId) {
+    _lock.lock();
+    try {
+      for (Entry entry : _entries.values()) {
+        if (entry._opChain.getId().getRequestId() == requestId) {
+          entry._isCancelled = true;
+          wakeUp(entry);
+        }
+      }
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  public boolean isCancelled(OpChainId opChainId) {
+    _lock.lock();
+    try {
+      Entry entry = _entries.get(opChainId);
+      return entry != null && entry._isCancelled;
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  @Nullable
+  @Override
+  public OpChain next(long time, TimeUnit timeUnit)
+      throws InterruptedException {
+    long deadlineNs = System.nanoTime() + timeUnit.toNanos(time);
+    _lock.lockInterruptibly();
+    try {
+      while (true) {
+        wakeUpExpired(System.currentTimeMillis());
+        Entry entry = _readyQueue.poll();
+        if (entry != null) {
+          entry._state = State.RUNNING;
+          entry._hasPendingData = false;
+          return entry._opChain;
+        }
+        if (_isShutdown) {
+          return null;
+        }
+        long waitNs = deadlineNs - System.nanoTime();
+        if (waitNs <= 0) {
+          return null;
+        }
+        Entry earliest = _deadlineQueue.peek();
+        if (earliest != null) {
+          long waitMs = Math.max(earliest._deadlineMs - System.currentTimeMillis(), 1);
+          waitNs = Math.min(waitNs, TimeUnit.MILLISECONDS.toNanos(waitMs));
+        }
+        _readyCondition.awaitNanos(waitNs);
+      }
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    _lock.lock();
+    try {
+      return _entries.size();
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  @Override
+  public void shutdownNow() {
+    _lock.lock();
+    try {
+      _isShutdown = true;
+      _readyCondition.signalAll();
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  public boolean isShutdown() {
+    _lock.lock();
+    try {
+      return _isShutdown;
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  @VisibleForTesting
+  int getNumDeadlineQueueEntries() {
+    _lock.lock();
+    try {
+      return _deadlineQueue.size();
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  private void wakeUp(Entry entry) {
+    switch (entry._state) {
+      case SUSPENDED:
+        markReady(entry);
+        break;
+      case RUNNING:
+        entry._hasPendingData = true;
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Wakes up the op-chains whose deadline is reached so that they can time out. Each op-chain is only woken up once
+   * because an op-chain never yields after its deadline.
+   */
+  private void wakeUpExpired(long nowMs) {
+    Entry entry = _deadlineQueue.peek();
+    while (entry != null && entry._deadlineMs <= nowMs) {
+      _deadlineQueue.poll();
+      wakeUp(entry);
+      entry = _deadlineQueue.peek();
+    }
+  }
+
+  private void markReady(Entry entry) {
+    entry._state = State.READY;
+    _readyQueue.add(entry);
+    _readyCondition.signal();
+  }
+
+  private enum State {
+    READY, RUNNING, SUSPENDED, DONE
+  }
+
+  private static class Entry {
+    final OpChain _opChain;
+    final long _deadlineMs;
+    State _state;
+    boolean _hasPendingData;
+    boolean _isCancelled;
+
+    Entry(OpChain opChain) {
+      _opChain = opChain;
+      _deadlineMs = opChain.getContext().getDeadlineMs();
+    }
+  }
+}
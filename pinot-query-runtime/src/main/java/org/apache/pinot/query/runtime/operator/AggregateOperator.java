@@ -19,6 +19,7 @@
 package org.apache.pinot.query.runtime.operator;
 
 import com.google.common.base.Preconditions;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -29,6 +30,7 @@ import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.request.context.ExpressionContext;
 import org.apache.pinot.common.request.context.FunctionContext;
+import org.apache.pinot.common.response.ProcessingException;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.core.common.BlockValSet;
 import org.apache.pinot.core.operator.docvalsets.DataBlockValSet;
@@ -42,7 +44,10 @@ import org.apache.pinot.core.util.DataBlockExtractUtils;
 import org.apache.pinot.query.parser.CalciteRexExpressionParser;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.planner.plannode.AggregateNode;
+import org.apache.pinot.query.runtime.blocks.ColumnarBlockValSet;
+import org.apache.pinot.query.runtime.blocks.ColumnarContainer;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.operator.spill.SpillUtils;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
 import org.roaringbitmap.RoaringBitmap;
 import org.slf4j.Logger;
@@ -53,6 +58,7 @@ import org.slf4j.LoggerFactory;
  * AggregateOperator is used to aggregate values over a set of group by keys.
  * Output data will be in the format of [group by key, aggregate result1, ... aggregate resultN]
  * When the list of aggregation calls is empty, this class is used to calculate distinct result based on group by keys.
+ * When the group-by state is spilled to disk, the result is returned as one block per spilled partition.
  */
 public class AggregateOperator extends MultiStageOperator {
   private static final Logger LOGGER = LoggerFactory.getLogger(AggregateOperator.class);
@@ -130,14 +136,30 @@ public class AggregateOperator extends MultiStageOperator {
   }
 
   @Override
-  protected TransferableBlock getNextBlock() {
+  public void close() {
+    super.close();
+    if (_groupByExecutor != null) {
+      try {
+        _groupByExecutor.close();
+      } catch (IOException e) {
+        LOGGER.warn("Failed to release the spilled groups", e);
+      }
+    }
+  }
+
+  @Override
+  protected TransferableBlock getNextBlock()
+      throws ProcessingException {
     if (_hasConstructedAggregateBlock) {
       assert _eosBlock != null;
+      if (_groupByExecutor != null && _groupByExecutor.isSpilled()) {
+        return produceSpilledBlock();
+      }
       return _eosBlock;
     }
     TransferableBlock finalBlock = _aggregationExecutor != null ? consumeAggregation() : consumeGroupBy();
-    // returning upstream error block if finalBlock contains error.
-    if (finalBlock.isErrorBlock()) {
+    // returning upstream error block if finalBlock contains error, or the yield block if the input yielded.
+    if (finalBlock.isErrorBlock() || finalBlock.isYieldBlock()) {
       return finalBlock;
     }
     assert finalBlock.isSuccessfulEndOfStreamBlock() : "Final block must be EOS block";
@@ -145,10 +167,13 @@ public class AggregateOperator extends MultiStageOperator {
     return produceAggregatedBlock();
   }
 
-  private TransferableBlock produceAggregatedBlock() {
+  private TransferableBlock produceAggregatedBlock()
+      throws ProcessingException {
     _hasConstructedAggregateBlock = true;
     if (_aggregationExecutor != null) {
       return new TransferableBlock(_aggregationExecutor.getResult(), _resultSchema, DataBlock.Type.ROW);
+    } else if (_groupByExecutor.isSpilled()) {
+      return produceSpilledBlock();
     } else {
       List<Object[]> rows = _groupByExecutor.getResult();
       if (rows.isEmpty()) {
@@ -164,15 +189,40 @@ public class AggregateOperator extends MultiStageOperator {
     }
   }
 
+  /**
+   * Produces the groups of the next spilled partition, or the EOS block once all the partitions are returned.
+   */
+  private TransferableBlock produceSpilledBlock()
+      throws ProcessingException {
+    List<Object[]> rows;
+    try {
+      rows = _groupByExecutor.getNextSpilledResult();
+    } catch (IOException e) {
+      throw SpillUtils.spillException("aggregate", e);
+    }
+    _statMap.merge(StatKey.SPILLED_ROWS,
+        _groupByExecutor.getNumSpilledRows() - _statMap.getLong(StatKey.SPILLED_ROWS));
+    if (rows == null) {
+      return _eosBlock;
+    }
+    sampleAndCheckInterruption();
+    return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+  }
+
   /**
    * Consumes the input blocks as a group by
    *
-   * @return the last block, which must always be either an error or the end of the stream
+   * @return the last block, which must always be either an error, a yield or the end of the stream
    */
-  private TransferableBlock consumeGroupBy() {
+  private TransferableBlock consumeGroupBy()
+      throws ProcessingException {
     TransferableBlock block = _input.nextBlock();
     while (block.isDataBlock()) {
-      _groupByExecutor.processBlock(block);
+      try {
+        _groupByExecutor.processBlock(block);
+      } catch (IOException e) {
+        throw SpillUtils.spillException("aggregate", e);
+      }
       sampleAndCheckInterruption();
       block = _input.nextBlock();
     }
@@ -182,7 +232,7 @@ public class AggregateOperator extends MultiStageOperator {
   /**
    * Consumes the input blocks as an aggregation
    *
-   * @return the last block, which must always be either an error or the end of the stream
+   * @return the last block, which must always be either an error, a yield or the end of the stream
    */
   private TransferableBlock consumeAggregation() {
     TransferableBlock block = _input.nextBlock();
@@ -257,6 +307,14 @@ public class AggregateOperator extends MultiStageOperator {
           matchedBitmap.add(rowId);
         }
       }
+    } else if (block.isColumnarContainerConstructed()) {
+      int[] values = block.getColumnarContainer().getIntValues(filterArgId);
+      int numRows = values.length;
+      for (int rowId = 0; rowId < numRows; rowId++) {
+        if (values[rowId] == 1) {
+          matchedBitmap.add(rowId);
+        }
+      }
     } else {
       DataBlock dataBlock = block.getDataBlock();
       int numRows = dataBlock.getNumberOfRows();
@@ -288,6 +346,16 @@ public class AggregateOperator extends MultiStageOperator {
               new RowBasedBlockValSet(dataSchema.getColumnDataType(colId), rows, colId, true));
         }
       }
+    } else if (block.isColumnarContainerConstructed()) {
+      ColumnarContainer container = block.getColumnarContainer();
+      for (ExpressionContext expression : expressions) {
+        String identifier = expression.getIdentifier();
+        if (identifier != null) {
+          int colId = fromIdentifierToColId(identifier);
+          blockValSetMap.put(expression,
+              new ColumnarBlockValSet(dataSchema.getColumnDataType(colId), container, colId));
+        }
+      }
     } else {
       DataBlock dataBlock = block.getDataBlock();
       for (ExpressionContext expression : expressions) {
@@ -310,7 +378,8 @@ public class AggregateOperator extends MultiStageOperator {
     }
     DataSchema dataSchema = block.getDataSchema();
     Map<ExpressionContext, BlockValSet> blockValSetMap = new HashMap<>();
-    if (block.isContainerConstructed()) {
+    // NOTE: Materialize the rows of the columnar blocks to avoid copying all the columns for each filtered aggregation
+    if (block.isContainerConstructed() || block.isColumnarContainerConstructed()) {
       List<Object[]> rows = block.getContainer();
       for (ExpressionContext expression : expressions) {
         String identifier = expression.getIdentifier();
@@ -349,6 +418,13 @@ public class AggregateOperator extends MultiStageOperator {
         values[rowId] = rows.get(rowId)[colId];
       }
       return values;
+    } else if (block.isColumnarContainerConstructed()) {
+      Object[] values = new Object[numRows];
+      ColumnarContainer container = block.getColumnarContainer();
+      for (int rowId = 0; rowId < numRows; rowId++) {
+        values[rowId] = container.getValue(rowId, colId);
+      }
+      return values;
     } else {
       return DataBlockExtractUtils.extractColumn(block.getDataBlock(), colId);
     }
@@ -368,7 +444,12 @@ public class AggregateOperator extends MultiStageOperator {
         return true;
       }
     },
-    NUM_GROUPS_LIMIT_REACHED(StatMap.Type.BOOLEAN);
+    NUM_GROUPS_LIMIT_REACHED(StatMap.Type.BOOLEAN),
+    /**
+     * Number of groups written to disk when the group-by state is spilled, including groups re-written when
+     * re-partitioning.
+     */
+    SPILLED_ROWS(StatMap.Type.LONG);
     //@formatter:on
 
     private final StatMap.Type _type;
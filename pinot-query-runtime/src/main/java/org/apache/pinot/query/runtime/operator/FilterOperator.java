@@ -26,11 +26,14 @@ import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.query.planner.plannode.FilterNode;
+import org.apache.pinot.query.runtime.blocks.ColumnarContainer;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.operator.operands.FilterOperand;
 import org.apache.pinot.query.runtime.operator.operands.TransformOperand;
 import org.apache.pinot.query.runtime.operator.operands.TransformOperandFactory;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
 import org.apache.pinot.spi.utils.BooleanUtils;
+import org.roaringbitmap.RoaringBitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,6 +50,9 @@ import org.slf4j.LoggerFactory;
     2) Binary Operand: equals, notEquals, greaterThan, greaterThanOrEqual, lessThan, lessThanOrEqual
     3) All boolean scalar functions we have that take tranformOperand.
     Note: Scalar functions are the ones we have in v1 engine and only do function name and arg # matching.
+   When the filter operand supports columnar evaluation (comparisons between a column and a literal combined with
+   AND, OR, IS TRUE and IS NOT TRUE) and the input rows are not materialized yet, the filter is evaluated on the
+   columnar container of the block without boxing the values, and the matched rows are emitted as a columnar block.
  */
 public class FilterOperator extends MultiStageOperator {
 
@@ -55,6 +61,7 @@ public class FilterOperator extends MultiStageOperator {
 
   private final MultiStageOperator _input;
   private final TransformOperand _filterOperand;
+  private final boolean _columnarFilterSupported;
   private final DataSchema _dataSchema;
   private final StatMap<StatKey> _statMap = new StatMap<>(StatKey.class);
 
@@ -65,6 +72,8 @@ public class FilterOperator extends MultiStageOperator {
     _filterOperand = TransformOperandFactory.getTransformOperand(node.getCondition(), _dataSchema);
     Preconditions.checkState(_filterOperand.getResultType() == ColumnDataType.BOOLEAN,
         "Filter operand must return BOOLEAN, got: %s", _filterOperand.getResultType());
+    _columnarFilterSupported =
+        _filterOperand instanceof FilterOperand && ((FilterOperand) _filterOperand).isColumnarFilterSupported();
   }
 
   @Override
@@ -99,13 +108,25 @@ public class FilterOperator extends MultiStageOperator {
     // TODO: Consider batching the rows to improve performance.
     while (true) {
       TransferableBlock block = _input.nextBlock();
-      if (block.isErrorBlock()) {
+      if (block.isErrorBlock() || block.isYieldBlock()) {
         return block;
       }
       if (block.isSuccessfulEndOfStreamBlock()) {
         return updateEosBlock(block, _statMap);
       }
       assert block.isDataBlock();
+      if (_columnarFilterSupported && block.isColumnarPreferred()) {
+        ColumnarContainer container = block.getColumnarContainer();
+        RoaringBitmap matchedBitmap = ((FilterOperand) _filterOperand).filterColumnar(container);
+        int numMatchedRows = matchedBitmap.getCardinality();
+        if (numMatchedRows == container.getNumRows()) {
+          return block;
+        }
+        if (numMatchedRows > 0) {
+          return new TransferableBlock(container.select(matchedBitmap));
+        }
+        continue;
+      }
       List<Object[]> rows = new ArrayList<>();
       for (Object[] row : block.getContainer()) {
         Object filterResult = _filterOperand.apply(row);
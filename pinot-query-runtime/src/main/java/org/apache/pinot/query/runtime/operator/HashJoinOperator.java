@@ -19,11 +19,16 @@
 package org.apache.pinot.query.runtime.operator;
 
 import com.google.common.base.Preconditions;
+import it.unimi.dsi.fastutil.HashCommon;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.HashMap;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import javax.annotation.Nullable;
 import org.apache.calcite.rel.core.JoinRelType;
@@ -33,6 +38,7 @@ import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.exception.QueryException;
 import org.apache.pinot.common.response.ProcessingException;
 import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.planner.partitioning.KeySelector;
@@ -41,8 +47,13 @@ import org.apache.pinot.query.planner.plannode.JoinNode;
 import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.join.JoinHashTable;
+import org.apache.pinot.query.runtime.operator.join.JoinHashTableFactory;
+import org.apache.pinot.query.runtime.operator.join.ObjectJoinHashTable;
 import org.apache.pinot.query.runtime.operator.operands.TransformOperand;
 import org.apache.pinot.query.runtime.operator.operands.TransformOperandFactory;
+import org.apache.pinot.query.runtime.operator.spill.SpillFile;
+import org.apache.pinot.query.runtime.operator.spill.SpillUtils;
 import org.apache.pinot.query.runtime.plan.MultiStageQueryStats;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
 import org.apache.pinot.spi.utils.BooleanUtils;
@@ -54,36 +65,51 @@ import org.slf4j.LoggerFactory;
 
 /**
  * This {@code HashJoinOperator} implements the hash join algorithm.
- * <p>This algorithm assumes that the right table has to fit in memory since we are not supporting any spilling. It
- * reads the complete hash partitioned right table and materialize the data into a hash table. Then for each of the left
- * table row, it looks up for the corresponding row(s) from the hash table and create a joint row.
+ * <p>It reads the complete hash partitioned right table and materialize the data into a {@link JoinHashTable}, which is
+ * specialized for single numeric join keys to avoid boxing. Then for each of the left table row, it looks up for the
+ * corresponding row(s) from the hash table and create a joint row.
  * <p>For each of the data block received from the left table, it generates a joint data block. The output is in the
  * format of [left_row, right_row].
+ * <p>When the right table does not fit in memory and the overflow mode is {@link JoinOverFlowMode#SPILL}, it falls back
+ * to a grace hash join: both tables are hash partitioned into {@link SpillFile}s on local disk, then each partition is
+ * joined independently with an in-memory hash table built from its right side. Partitions that are still too large
+ * are recursively re-partitioned with a different hash.
+ * <p>When the {@link PinotHintOptions.JoinHintOptions#IS_PIPELINED} hint is set on an INNER or SEMI join, it runs as a
+ * pipelined (symmetric) hash join instead: both inputs are read alternately, each row is probed against the rows
+ * already received from the other input, and joined rows are emitted without waiting for the right input to finish.
+ * Once an input cannot produce any more joined rows, the other input is early terminated.
  */
 // TODO: Move inequi out of hashjoin. (https://github.com/apache/pinot/issues/9728)
 // TODO: Support memory size based resource limit.
 public class HashJoinOperator extends MultiStageOperator {
   private static final Logger LOGGER = LoggerFactory.getLogger(HashJoinOperator.class);
   private static final String EXPLAIN_NAME = "HASH_JOIN";
-  private static final int INITIAL_HEURISTIC_SIZE = 16;
   private static final int DEFAULT_MAX_ROWS_IN_JOIN = 1024 * 1024; // 2^20, around 1MM rows
   private static final JoinOverFlowMode DEFAULT_JOIN_OVERFLOW_MODE = JoinOverFlowMode.THROW;
+  // Number of partitions (must be power of 2) created each time the spilled rows are (re-)partitioned
+  private static final int NUM_SPILL_PARTITIONS = 16;
+  // Max number of times a spilled partition can be re-partitioned before giving up (e.g. on heavily skewed keys)
+  private static final int MAX_SPILL_LEVEL = 3;
 
   private static final Set<JoinRelType> SUPPORTED_JOIN_TYPES =
       Set.of(JoinRelType.INNER, JoinRelType.LEFT, JoinRelType.RIGHT, JoinRelType.FULL, JoinRelType.SEMI,
           JoinRelType.ANTI);
 
-  private final Map<Object, ArrayList<Object[]>> _broadcastRightTable;
+  // Created when the first right block is received, specialized based on the join key types.
+  private JoinHashTable _rightTable;
 
-  // Used to track matched right rows.
+  // Used to track matched right rows by row id in the right table.
   // Only used for right join and full join to output non-matched right rows.
-  private final Map<Object, BitSet> _matchedRightRows;
+  private final BitSet _matchedRightRows;
 
   private final MultiStageOperator _leftInput;
   private final MultiStageOperator _rightInput;
+  private final DataSchema _leftSchema;
   private final JoinRelType _joinType;
   private final KeySelector<?> _leftKeySelector;
   private final KeySelector<?> _rightKeySelector;
+  private final List<Integer> _rightKeys;
+  private final ColumnDataType[] _leftKeyTypes;
   private final DataSchema _resultSchema;
   private final int _leftColumnSize;
   private final int _resultColumnSize;
@@ -99,31 +125,56 @@ public class HashJoinOperator extends MultiStageOperator {
    */
   private final int _maxRowsInJoin;
   /**
-   * Mode when join overflow happens, supported values: THROW or BREAK.
+   * Mode when join overflow happens, supported values: THROW, BREAK or SPILL.
    *   THROW(default): Break right table build process, and throw exception, no JOIN with left table performed.
    *   BREAK: Break right table build process, continue to perform JOIN operation, results might be partial.
+   *   SPILL: Spill both tables to disk and perform JOIN partition by partition. The max rows limit is applied to the
+   *          in-memory hash table of each partition, but not to the joined rows.
    */
   private final JoinOverFlowMode _joinOverflowMode;
 
+  // Below are used only when the right table is spilled to disk in SPILL mode.
+  private final List<SpillFile> _spillFiles = new ArrayList<>();
+  private SpillFile[] _rightSpillPartitions;
+  private SpillFile[] _leftSpillPartitions;
+  private final Deque<SpilledPartition> _pendingSpilledPartitions = new ArrayDeque<>();
+  private SpillFile.Reader _currentLeftSpillReader;
+
   private boolean _isHashTableBuilt;
+  private int _numRowsInHashTable;
   private TransferableBlock _upstreamErrorBlock;
   private MultiStageQueryStats _leftSideStats;
   private MultiStageQueryStats _rightSideStats;
   // Used by non-inner join.
   // Needed to indicate we have finished processing all results after returning last block.
   private boolean _isTerminated;
+  private boolean _isLeftInputEarlyTerminated;
+
+  // Below are used only by the pipelined hash join, see getNextPipelinedBlock().
+  private final boolean _isPipelined;
+  // INNER join: left rows received so far. SEMI join: left rows received before any right row with the same key.
+  private JoinHashTable _leftTable;
+  private boolean _isLeftInputFinished;
+  private boolean _isRightInputFinished;
+  private boolean _isRightInputEarlyTerminated;
+  private boolean _readLeftInputNext;
+  // SEMI join: number of left rows in the left table that are not emitted yet
+  private int _numPendingLeftRows;
 
   public HashJoinOperator(OpChainExecutionContext context, MultiStageOperator leftInput, DataSchema leftSchema,
       MultiStageOperator rightInput, JoinNode node) {
     super(context);
     _leftInput = leftInput;
     _rightInput = rightInput;
+    _leftSchema = leftSchema;
     _joinType = node.getJoinType();
     Preconditions.checkState(SUPPORTED_JOIN_TYPES.contains(_joinType), "Join type: % is not supported for hash join",
         _joinType);
 
     _leftKeySelector = KeySelectorFactory.getKeySelector(node.getLeftKeys());
     _rightKeySelector = KeySelectorFactory.getKeySelector(node.getRightKeys());
+    _rightKeys = node.getRightKeys();
+    _leftKeyTypes = getKeyTypes(leftSchema, node.getLeftKeys());
     _leftColumnSize = leftSchema.size();
     _resultSchema = node.getDataSchema();
     _resultColumnSize = _resultSchema.size();
@@ -132,9 +183,8 @@ public class HashJoinOperator extends MultiStageOperator {
     for (RexExpression nonEquiCondition : nonEquiConditions) {
       _nonEquiEvaluators.add(TransformOperandFactory.getTransformOperand(nonEquiCondition, _resultSchema));
     }
-    _broadcastRightTable = new HashMap<>();
     if (needUnmatchedRightRows()) {
-      _matchedRightRows = new HashMap<>();
+      _matchedRightRows = new BitSet();
     } else {
       _matchedRightRows = null;
     }
@@ -142,6 +192,29 @@ public class HashJoinOperator extends MultiStageOperator {
     PlanNode.NodeHint nodeHint = node.getNodeHint();
     _maxRowsInJoin = getMaxRowsInJoin(metadata, nodeHint);
     _joinOverflowMode = getJoinOverflowMode(metadata, nodeHint);
+    _isPipelined = isPipelined(nodeHint);
+    if (_isPipelined) {
+      // The hash tables are created upfront because rows from both inputs are added as soon as they are received. Fall
+      // back to the generic hash table when the right schema is not available.
+      List<PlanNode> inputs = node.getInputs();
+      if (inputs.size() == 2) {
+        ColumnDataType[] rightKeyTypes = getKeyTypes(inputs.get(1).getDataSchema(), _rightKeys);
+        _leftTable = JoinHashTableFactory.getJoinHashTable(rightKeyTypes, _leftKeyTypes);
+        _rightTable = JoinHashTableFactory.getJoinHashTable(_leftKeyTypes, rightKeyTypes);
+      } else {
+        _leftTable = new ObjectJoinHashTable();
+        _rightTable = new ObjectJoinHashTable();
+      }
+    }
+  }
+
+  private static ColumnDataType[] getKeyTypes(DataSchema dataSchema, List<Integer> keys) {
+    int numKeys = keys.size();
+    ColumnDataType[] keyTypes = new ColumnDataType[numKeys];
+    for (int i = 0; i < numKeys; i++) {
+      keyTypes[i] = dataSchema.getColumnDataType(keys.get(i));
+    }
+    return keyTypes;
   }
 
   @Override
@@ -189,6 +262,22 @@ public class HashJoinOperator extends MultiStageOperator {
     return joinOverflowMode != null ? joinOverflowMode : DEFAULT_JOIN_OVERFLOW_MODE;
   }
 
+  private boolean isPipelined(@Nullable PlanNode.NodeHint nodeHint) {
+    if (nodeHint == null) {
+      return false;
+    }
+    Map<String, String> joinOptions = nodeHint.getHintOptions().get(PinotHintOptions.JOIN_HINT_OPTIONS);
+    if (joinOptions == null || !Boolean.parseBoolean(joinOptions.get(PinotHintOptions.JoinHintOptions.IS_PIPELINED))) {
+      return false;
+    }
+    if ((_joinType != JoinRelType.INNER && _joinType != JoinRelType.SEMI)
+        || _joinOverflowMode == JoinOverFlowMode.SPILL) {
+      LOGGER.warn("Ignoring pipelined hint for join type: {} with overflow mode: {}", _joinType, _joinOverflowMode);
+      return false;
+    }
+    return true;
+  }
+
   @Override
   public List<MultiStageOperator> getChildOperators() {
     return List.of(_leftInput, _rightInput);
@@ -199,9 +288,24 @@ public class HashJoinOperator extends MultiStageOperator {
     return EXPLAIN_NAME;
   }
 
+  @Override
+  public void close() {
+    super.close();
+    closeSpillFiles();
+  }
+
+  @Override
+  public void cancel(Throwable e) {
+    super.cancel(e);
+    closeSpillFiles();
+  }
+
   @Override
   protected TransferableBlock getNextBlock()
       throws ProcessingException {
+    if (_isPipelined) {
+      return getNextPipelinedBlock();
+    }
     if (!_isHashTableBuilt) {
       // Build JOIN hash table
       buildBroadcastHashTable();
@@ -209,69 +313,176 @@ public class HashJoinOperator extends MultiStageOperator {
     if (_upstreamErrorBlock != null) {
       return _upstreamErrorBlock;
     }
+    if (!_isHashTableBuilt) {
+      // The right input yielded before reaching the end of stream
+      return TransferableBlockUtils.getYieldTransferableBlock();
+    }
     return buildJoinedDataBlock();
   }
 
   private void buildBroadcastHashTable()
       throws ProcessingException {
     long startTime = System.currentTimeMillis();
-    int numRowsInHashTable = 0;
     TransferableBlock rightBlock = _rightInput.nextBlock();
     while (!TransferableBlockUtils.isEndOfStream(rightBlock)) {
+      if (rightBlock.isYieldBlock()) {
+        _statMap.merge(StatKey.TIME_BUILDING_HASH_TABLE_MS, System.currentTimeMillis() - startTime);
+        return;
+      }
+      if (_rightTable == null) {
+        _rightTable = JoinHashTableFactory.getJoinHashTable(_leftKeyTypes,
+            getKeyTypes(rightBlock.getDataSchema(), _rightKeys));
+      }
       List<Object[]> container = rightBlock.getContainer();
       // Row based overflow check.
-      if (container.size() + numRowsInHashTable > _maxRowsInJoin) {
+      if (_rightSpillPartitions == null && container.size() + _numRowsInHashTable > _maxRowsInJoin) {
         if (_joinOverflowMode == JoinOverFlowMode.THROW) {
           throwProcessingExceptionForJoinRowLimitExceeded(
               "Cannot build in memory hash table for join operator, reached number of rows limit: " + _maxRowsInJoin);
+        } else if (_joinOverflowMode == JoinOverFlowMode.SPILL) {
+          spillRightTable(rightBlock.getDataSchema());
         } else {
           // Just fill up the buffer.
-          int remainingRows = _maxRowsInJoin - numRowsInHashTable;
+          int remainingRows = _maxRowsInJoin - _numRowsInHashTable;
           container = container.subList(0, remainingRows);
           _statMap.merge(StatKey.MAX_ROWS_IN_JOIN_REACHED, true);
           // setting only the rightTableOperator to be early terminated and awaits EOS block next.
           _rightInput.earlyTerminate();
         }
       }
-      // put all the rows into corresponding hash collections keyed by the key selector function.
-      for (Object[] row : container) {
-        ArrayList<Object[]> hashCollection = _broadcastRightTable.computeIfAbsent(_rightKeySelector.getKey(row),
-            k -> new ArrayList<>(INITIAL_HEURISTIC_SIZE));
-        int size = hashCollection.size();
-        if ((size & size - 1) == 0 && size < _maxRowsInJoin && size < Integer.MAX_VALUE / 2) { // is power of 2
-          hashCollection.ensureCapacity(Math.min(size << 1, _maxRowsInJoin));
-        }
-        hashCollection.add(row);
+      if (_rightSpillPartitions != null) {
+        spillRows(container, _rightKeySelector, _rightSpillPartitions, 0);
+      } else {
+        addToHashTable(container);
       }
-      numRowsInHashTable += container.size();
+      _numRowsInHashTable += container.size();
       sampleAndCheckInterruption();
       rightBlock = _rightInput.nextBlock();
     }
+    if (_rightTable == null) {
+      _rightTable = new ObjectJoinHashTable();
+    }
     if (rightBlock.isErrorBlock()) {
       _upstreamErrorBlock = rightBlock;
     } else {
       _isHashTableBuilt = true;
       _rightSideStats = rightBlock.getQueryStats();
       assert _rightSideStats != null;
+      if (_rightSpillPartitions != null) {
+        finishSpillFiles(_rightSpillPartitions);
+      }
     }
     _statMap.merge(StatKey.TIME_BUILDING_HASH_TABLE_MS, System.currentTimeMillis() - startTime);
   }
 
+  /**
+   * Puts all the rows into the right table keyed by the key selector function.
+   */
+  private void addToHashTable(List<Object[]> rows) {
+    for (Object[] row : rows) {
+      _rightTable.addRow(_rightKeySelector.getKey(row), row);
+    }
+  }
+
+  /**
+   * Switches to grace hash join by moving the rows already in the hash table into the right side spill partitions.
+   */
+  private void spillRightTable(DataSchema rightSchema)
+      throws ProcessingException {
+    logger().info("Spilling right table of join operator to disk as the maximum number of rows limit was reached: {}",
+        _maxRowsInJoin);
+    _rightSpillPartitions = createSpillPartitions(rightSchema, "right");
+    spillRows(_rightTable.getRows(), _rightKeySelector, _rightSpillPartitions, 0);
+    _rightTable.clear();
+  }
+
+  private SpillFile[] createSpillPartitions(DataSchema dataSchema, String side)
+      throws ProcessingException {
+    File spillDir = SpillFile.getSpillDir(_context.getOpChainMetadata());
+    String prefix = "join_" + _context.getId() + "_" + side + "_";
+    SpillFile[] partitions = new SpillFile[NUM_SPILL_PARTITIONS];
+    try {
+      for (int i = 0; i < NUM_SPILL_PARTITIONS; i++) {
+        partitions[i] = new SpillFile(spillDir, prefix, dataSchema);
+        _spillFiles.add(partitions[i]);
+      }
+    } catch (IOException e) {
+      throw SpillUtils.spillException("join", e);
+    }
+    return partitions;
+  }
+
+  private void spillRows(List<Object[]> rows, KeySelector<?> keySelector, SpillFile[] partitions, int level)
+      throws ProcessingException {
+    try {
+      for (Object[] row : rows) {
+        partitions[getSpillPartition(keySelector.getKey(row), level)].add(row);
+      }
+    } catch (IOException e) {
+      throw SpillUtils.spillException("join", e);
+    }
+    _statMap.merge(StatKey.SPILLED_ROWS, rows.size());
+  }
+
+  private static int getSpillPartition(@Nullable Object key, int level) {
+    // Mix in the level so that rows of the same partition are redistributed when re-partitioning
+    return HashCommon.murmurHash3(Objects.hashCode(key) + level) & (NUM_SPILL_PARTITIONS - 1);
+  }
+
+  private void finishSpillFiles(SpillFile[] partitions)
+      throws ProcessingException {
+    try {
+      for (SpillFile partition : partitions) {
+        partition.finish();
+      }
+    } catch (IOException e) {
+      throw SpillUtils.spillException("join", e);
+    }
+  }
+
+  private void closeSpillFiles() {
+    for (SpillFile spillFile : _spillFiles) {
+      closeSpillFile(spillFile);
+    }
+    _spillFiles.clear();
+  }
+
+  private void closeSpillFile(SpillFile spillFile) {
+    try {
+      spillFile.close();
+    } catch (IOException e) {
+      logger().warn("Failed to close spill file", e);
+    }
+  }
+
   private TransferableBlock buildJoinedDataBlock()
       throws ProcessingException {
+    if (_rightSpillPartitions != null) {
+      return buildSpilledJoinedDataBlock();
+    }
     // Keep reading the input blocks until we find a match row or all blocks are processed.
     // TODO: Consider batching the rows to improve performance.
     while (true) {
       if (_upstreamErrorBlock != null) {
         return _upstreamErrorBlock;
       }
+      if (_isLeftInputEarlyTerminated && !_isTerminated) {
+        // Resume draining the early terminated left input, which yielded before reaching the end of stream
+        drainEarlyTerminatedLeftInput();
+        if (_upstreamErrorBlock != null) {
+          return _upstreamErrorBlock;
+        }
+        if (!_isTerminated) {
+          return TransferableBlockUtils.getYieldTransferableBlock();
+        }
+      }
       if (_isTerminated) {
         assert _leftSideStats != null;
         return TransferableBlockUtils.getEndOfStreamTransferableBlock(_leftSideStats);
       }
 
       TransferableBlock leftBlock = _leftInput.nextBlock();
-      if (leftBlock.isErrorBlock()) {
+      if (leftBlock.isErrorBlock() || leftBlock.isYieldBlock()) {
         return leftBlock;
       }
       if (leftBlock.isSuccessfulEndOfStreamBlock()) {
@@ -289,7 +500,220 @@ public class HashJoinOperator extends MultiStageOperator {
         return leftBlock;
       }
       assert leftBlock.isDataBlock();
-      List<Object[]> rows = buildJoinedRows(leftBlock);
+      List<Object[]> rows = buildJoinedRows(leftBlock.getContainer());
+      sampleAndCheckInterruption();
+      if (!rows.isEmpty()) {
+        return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+      }
+    }
+  }
+
+  /**
+   * Performs the grace hash join: spills the whole left table into partitions matching the right ones, then joins each
+   * pair of partitions with an in-memory hash table built from the right side.
+   */
+  private TransferableBlock buildSpilledJoinedDataBlock()
+      throws ProcessingException {
+    if (_leftSideStats == null) {
+      spillLeftInput();
+      if (_upstreamErrorBlock != null) {
+        return _upstreamErrorBlock;
+      }
+      if (_leftSideStats == null) {
+        // The left input yielded before reaching the end of stream
+        return TransferableBlockUtils.getYieldTransferableBlock();
+      }
+    }
+    while (true) {
+      if (_currentLeftSpillReader == null && !loadNextSpilledPartition()) {
+        return TransferableBlockUtils.getEndOfStreamTransferableBlock(_leftSideStats);
+      }
+      if (_currentLeftSpillReader == null) {
+        // Partition was skipped or re-partitioned
+        continue;
+      }
+      List<Object[]> leftRows;
+      try {
+        leftRows = _currentLeftSpillReader.nextBlock();
+      } catch (IOException e) {
+        throw SpillUtils.spillException("join", e);
+      }
+      List<Object[]> rows;
+      if (leftRows != null) {
+        rows = buildJoinedRows(leftRows);
+      } else {
+        // Left side of the current partition is exhausted
+        rows = needUnmatchedRightRows() ? buildNonMatchRightRows() : List.of();
+        _currentLeftSpillReader = null;
+        SpilledPartition partition = _pendingSpilledPartitions.poll();
+        assert partition != null;
+        closeSpilledPartition(partition);
+      }
+      sampleAndCheckInterruption();
+      if (!rows.isEmpty()) {
+        return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+      }
+    }
+  }
+
+  private void spillLeftInput()
+      throws ProcessingException {
+    if (_leftSpillPartitions == null) {
+      _leftSpillPartitions = createSpillPartitions(_leftSchema, "left");
+    }
+    TransferableBlock leftBlock = _leftInput.nextBlock();
+    while (!TransferableBlockUtils.isEndOfStream(leftBlock)) {
+      if (leftBlock.isYieldBlock()) {
+        return;
+      }
+      spillRows(leftBlock.getContainer(), _leftKeySelector, _leftSpillPartitions, 0);
+      sampleAndCheckInterruption();
+      leftBlock = _leftInput.nextBlock();
+    }
+    if (leftBlock.isErrorBlock()) {
+      _upstreamErrorBlock = leftBlock;
+      return;
+    }
+    assert _rightSideStats != null;
+    _leftSideStats = leftBlock.getQueryStats();
+    assert _leftSideStats != null;
+    _leftSideStats.mergeInOrder(_rightSideStats, getOperatorType(), _statMap);
+    finishSpillFiles(_leftSpillPartitions);
+    for (int i = 0; i < NUM_SPILL_PARTITIONS; i++) {
+      _pendingSpilledPartitions.add(new SpilledPartition(_rightSpillPartitions[i], _leftSpillPartitions[i], 0));
+    }
+  }
+
+  /**
+   * Prepares the partition at the head of the pending queue for joining. Partitions that cannot produce any row are
+   * dropped, and partitions whose right side exceeds the max rows limit are re-partitioned. The partition stays at the
+   * head of the queue while it is being joined.
+   *
+   * @return {@code false} if there is no more partition to join, {@code true} otherwise.
+   */
+  private boolean loadNextSpilledPartition()
+      throws ProcessingException {
+    SpilledPartition partition = _pendingSpilledPartitions.peek();
+    if (partition == null) {
+      return false;
+    }
+    long numRightRows = partition._right.getNumRows();
+    long numLeftRows = partition._left.getNumRows();
+    boolean emptyResult = needUnmatchedRightRows() ? numLeftRows == 0 && numRightRows == 0
+        : numLeftRows == 0 || (numRightRows == 0 && (_joinType == JoinRelType.INNER || _joinType == JoinRelType.SEMI));
+    if (emptyResult) {
+      _pendingSpilledPartitions.poll();
+      closeSpilledPartition(partition);
+      return true;
+    }
+    try {
+      if (numRightRows > _maxRowsInJoin) {
+        _pendingSpilledPartitions.poll();
+        repartition(partition);
+        closeSpilledPartition(partition);
+        return true;
+      }
+      _rightTable.clear();
+      if (_matchedRightRows != null) {
+        _matchedRightRows.clear();
+      }
+      SpillFile.Reader rightReader = partition._right.read();
+      List<Object[]> rightRows;
+      while ((rightRows = rightReader.nextBlock()) != null) {
+        addToHashTable(rightRows);
+      }
+      _currentLeftSpillReader = partition._left.read();
+    } catch (IOException e) {
+      throw SpillUtils.spillException("join", e);
+    }
+    return true;
+  }
+
+  private void repartition(SpilledPartition partition)
+      throws ProcessingException, IOException {
+    int level = partition._level + 1;
+    if (level > MAX_SPILL_LEVEL) {
+      throwProcessingExceptionForJoinRowLimitExceeded(
+          "Cannot build in memory hash table for join operator, spilled partition still reached number of rows limit: "
+              + _maxRowsInJoin + " after " + MAX_SPILL_LEVEL + " levels of re-partitioning");
+    }
+    SpillFile[] rightPartitions = createSpillPartitions(partition._right.getDataSchema(), "right");
+    SpillFile.Reader rightReader = partition._right.read();
+    List<Object[]> rows;
+    while ((rows = rightReader.nextBlock()) != null) {
+      spillRows(rows, _rightKeySelector, rightPartitions, level);
+      sampleAndCheckInterruption();
+    }
+    finishSpillFiles(rightPartitions);
+    SpillFile[] leftPartitions = createSpillPartitions(partition._left.getDataSchema(), "left");
+    SpillFile.Reader leftReader = partition._left.read();
+    while ((rows = leftReader.nextBlock()) != null) {
+      spillRows(rows, _leftKeySelector, leftPartitions, level);
+      sampleAndCheckInterruption();
+    }
+    finishSpillFiles(leftPartitions);
+    for (int i = NUM_SPILL_PARTITIONS - 1; i >= 0; i--) {
+      _pendingSpilledPartitions.addFirst(new SpilledPartition(rightPartitions[i], leftPartitions[i], level));
+    }
+  }
+
+  private void closeSpilledPartition(SpilledPartition partition) {
+    closeSpillFile(partition._right);
+    closeSpillFile(partition._left);
+    _spillFiles.remove(partition._right);
+    _spillFiles.remove(partition._left);
+  }
+
+  /**
+   * Returns the next block of the pipelined hash join. The inputs are read alternately, one block at a time, and only
+   * the input that is not finished yet is read once the other one reaches the end of stream. When an input yields, the
+   * other input is tried before yielding the operator.
+   */
+  private TransferableBlock getNextPipelinedBlock()
+      throws ProcessingException {
+    int numYieldedInputs = 0;
+    while (true) {
+      if (_upstreamErrorBlock != null) {
+        return _upstreamErrorBlock;
+      }
+      if (_isLeftInputFinished && _isRightInputFinished) {
+        assert _leftSideStats != null && _rightSideStats != null;
+        _leftSideStats.mergeInOrder(_rightSideStats, getOperatorType(), _statMap);
+        return TransferableBlockUtils.getEndOfStreamTransferableBlock(_leftSideStats);
+      }
+      if (_isEarlyTerminated) {
+        // The downstream does not need more rows (e.g. LIMIT reached), only read the inputs until the end of stream.
+        _isLeftInputEarlyTerminated = true;
+        _isRightInputEarlyTerminated = true;
+      }
+      boolean readLeftInput = !_isLeftInputFinished && (_isRightInputFinished || _readLeftInputNext);
+      _readLeftInputNext = !readLeftInput;
+      TransferableBlock block = readLeftInput ? _leftInput.nextBlock() : _rightInput.nextBlock();
+      if (block.isErrorBlock()) {
+        _upstreamErrorBlock = block;
+        return block;
+      }
+      if (block.isYieldBlock()) {
+        if (++numYieldedInputs == 2 || _isLeftInputFinished || _isRightInputFinished) {
+          return block;
+        }
+        continue;
+      }
+      numYieldedInputs = 0;
+      if (block.isSuccessfulEndOfStreamBlock()) {
+        if (readLeftInput) {
+          onPipelinedLeftInputFinished(block.getQueryStats());
+        } else {
+          onPipelinedRightInputFinished(block.getQueryStats());
+        }
+        continue;
+      }
+      List<Object[]> rows;
+      if (readLeftInput) {
+        rows = _isLeftInputEarlyTerminated ? List.of() : processPipelinedLeftRows(block.getContainer());
+      } else {
+        rows = _isRightInputEarlyTerminated ? List.of() : processPipelinedRightRows(block.getContainer());
+      }
       sampleAndCheckInterruption();
       if (!rows.isEmpty()) {
         return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
@@ -297,29 +721,188 @@ public class HashJoinOperator extends MultiStageOperator {
     }
   }
 
-  private List<Object[]> buildJoinedRows(TransferableBlock leftBlock)
+  private List<Object[]> processPipelinedLeftRows(List<Object[]> leftRows)
+      throws ProcessingException {
+    List<Object[]> rows = new ArrayList<>(leftRows.size());
+    for (Object[] leftRow : leftRows) {
+      Object key = _leftKeySelector.getKey(leftRow);
+      if (_joinType == JoinRelType.SEMI) {
+        if (_rightTable.containsKey(key)) {
+          rows.add(leftRow);
+        } else if (!_isRightInputFinished && canAddToPipelinedTables()) {
+          // Keep the left row until a right row with the same key is received
+          _leftTable.addRow(key, leftRow);
+          _numRowsInHashTable++;
+          _numPendingLeftRows++;
+        }
+        continue;
+      }
+      for (int rightRowId = _rightTable.getFirstRowId(key); rightRowId != JoinHashTable.INVALID_ROW_ID;
+          rightRowId = _rightTable.getNextRowId(rightRowId)) {
+        if (addPipelinedJoinedRow(rows, leftRow, _rightTable.getRow(rightRowId))) {
+          return rows;
+        }
+      }
+      if (!_isRightInputFinished && canAddToPipelinedTables()) {
+        _leftTable.addRow(key, leftRow);
+        _numRowsInHashTable++;
+      }
+    }
+    return rows;
+  }
+
+  private List<Object[]> processPipelinedRightRows(List<Object[]> rightRows)
+      throws ProcessingException {
+    List<Object[]> rows = new ArrayList<>();
+    for (Object[] rightRow : rightRows) {
+      Object key = _rightKeySelector.getKey(rightRow);
+      if (_joinType == JoinRelType.SEMI) {
+        // Only the first right row of each key is needed: it releases all the pending left rows with the same key, and
+        // the left rows received after it are emitted right away.
+        if (_rightTable.containsKey(key) || !canAddToPipelinedTables()) {
+          continue;
+        }
+        _rightTable.addRow(key, rightRow);
+        _numRowsInHashTable++;
+        for (int leftRowId = _leftTable.getFirstRowId(key); leftRowId != JoinHashTable.INVALID_ROW_ID;
+            leftRowId = _leftTable.getNextRowId(leftRowId)) {
+          rows.add(_leftTable.getRow(leftRowId));
+          _numPendingLeftRows--;
+        }
+        continue;
+      }
+      for (int leftRowId = _leftTable.getFirstRowId(key); leftRowId != JoinHashTable.INVALID_ROW_ID;
+          leftRowId = _leftTable.getNextRowId(leftRowId)) {
+        if (addPipelinedJoinedRow(rows, _leftTable.getRow(leftRowId), rightRow)) {
+          return rows;
+        }
+      }
+      if (!_isLeftInputFinished && canAddToPipelinedTables()) {
+        _rightTable.addRow(key, rightRow);
+        _numRowsInHashTable++;
+      }
+    }
+    if (_joinType == JoinRelType.SEMI && _isLeftInputFinished && _numPendingLeftRows == 0) {
+      // All the left rows are emitted, the remaining right rows cannot produce any result
+      earlyTerminatePipelinedRightInput();
+    }
+    return rows;
+  }
+
+  /**
+   * Adds the joined row if it matches the non-equi conditions.
+   *
+   * @return {@code true} if the max rows limit is reached and no more row should be added, {@code false} otherwise.
+   */
+  private boolean addPipelinedJoinedRow(List<Object[]> rows, Object[] leftRow, Object[] rightRow)
+      throws ProcessingException {
+    Object[] resultRow = joinRow(leftRow, rightRow);
+    if (!_nonEquiEvaluators.isEmpty() && !_nonEquiEvaluators.stream()
+        .allMatch(evaluator -> BooleanUtils.isTrueInternalValue(evaluator.apply(resultRow)))) {
+      return false;
+    }
+    if (rows.size() == _maxRowsInJoin) {
+      if (_joinOverflowMode == JoinOverFlowMode.THROW) {
+        throwProcessingExceptionForJoinRowLimitExceeded(
+            "Cannot process join, reached number of rows limit: " + _maxRowsInJoin);
+      }
+      logger().info("Terminating join operator early as the maximum number of rows limit was reached: {}",
+          _maxRowsInJoin);
+      _statMap.merge(StatKey.MAX_ROWS_IN_JOIN_REACHED, true);
+      earlyTerminatePipelinedLeftInput();
+      earlyTerminatePipelinedRightInput();
+      return true;
+    }
+    rows.add(resultRow);
+    return false;
+  }
+
+  /**
+   * Checks whether one more row can be added to the hash tables of the pipelined hash join. The max rows limit is
+   * applied to the total number of rows in both tables.
+   */
+  private boolean canAddToPipelinedTables()
+      throws ProcessingException {
+    if (_numRowsInHashTable < _maxRowsInJoin) {
+      return true;
+    }
+    if (_joinOverflowMode == JoinOverFlowMode.THROW) {
+      throwProcessingExceptionForJoinRowLimitExceeded(
+          "Cannot build in memory hash tables for pipelined join operator, reached number of rows limit: "
+              + _maxRowsInJoin);
+    }
+    _statMap.merge(StatKey.MAX_ROWS_IN_JOIN_REACHED, true);
+    return false;
+  }
+
+  private void onPipelinedLeftInputFinished(MultiStageQueryStats leftSideStats) {
+    _leftSideStats = leftSideStats;
+    _isLeftInputFinished = true;
+    if (_joinType == JoinRelType.SEMI) {
+      if (_numPendingLeftRows == 0) {
+        earlyTerminatePipelinedRightInput();
+      }
+    } else {
+      // The remaining right rows only need to be probed against the left table
+      _rightTable.clear();
+      if (_leftTable.isEmpty()) {
+        earlyTerminatePipelinedRightInput();
+      }
+    }
+  }
+
+  private void onPipelinedRightInputFinished(MultiStageQueryStats rightSideStats) {
+    _rightSideStats = rightSideStats;
+    _isRightInputFinished = true;
+    // SEMI join: the pending left rows cannot match anymore. INNER join: the remaining left rows only need to be probed
+    // against the right table.
+    _leftTable.clear();
+    _numPendingLeftRows = 0;
+    if (_rightTable.isEmpty()) {
+      earlyTerminatePipelinedLeftInput();
+    }
+  }
+
+  /**
+   * Early terminates the left input of the pipelined hash join. Unlike {@link #earlyTerminateLeftInput()}, the input is
+   * not drained here: the remaining blocks are read and dropped by {@link #getNextPipelinedBlock()}.
+   */
+  private void earlyTerminatePipelinedLeftInput() {
+    if (!_isLeftInputEarlyTerminated && !_isLeftInputFinished) {
+      _leftInput.earlyTerminate();
+    }
+    _isLeftInputEarlyTerminated = true;
+  }
+
+  private void earlyTerminatePipelinedRightInput() {
+    if (!_isRightInputEarlyTerminated && !_isRightInputFinished) {
+      _rightInput.earlyTerminate();
+    }
+    _isRightInputEarlyTerminated = true;
+  }
+
+  private List<Object[]> buildJoinedRows(List<Object[]> leftRows)
       throws ProcessingException {
     switch (_joinType) {
       case SEMI:
-        return buildJoinedDataBlockSemi(leftBlock);
+        return buildJoinedDataBlockSemi(leftRows);
       case ANTI:
-        return buildJoinedDataBlockAnti(leftBlock);
+        return buildJoinedDataBlockAnti(leftRows);
       default: { // INNER, LEFT, RIGHT, FULL
-        return buildJoinedDataBlockDefault(leftBlock);
+        return buildJoinedDataBlockDefault(leftRows);
       }
     }
   }
 
-  private List<Object[]> buildJoinedDataBlockDefault(TransferableBlock leftBlock)
+  private List<Object[]> buildJoinedDataBlockDefault(List<Object[]> container)
       throws ProcessingException {
-    List<Object[]> container = leftBlock.getContainer();
-    ArrayList<Object[]> rows = new ArrayList<>(container.size());
+    List<Object[]> rows = new ArrayList<>(container.size());
 
     for (Object[] leftRow : container) {
       Object key = _leftKeySelector.getKey(leftRow);
       // NOTE: Empty key selector will always give same hash code.
-      List<Object[]> rightRows = _broadcastRightTable.get(key);
-      if (rightRows == null) {
+      int rightRowId = _rightTable.getFirstRowId(key);
+      if (rightRowId == JoinHashTable.INVALID_ROW_ID) {
         if (needUnmatchedLeftRows()) {
           if (isMaxRowsLimitReached(rows.size())) {
             break;
@@ -329,11 +912,9 @@ public class HashJoinOperator extends MultiStageOperator {
         continue;
       }
       boolean hasMatchForLeftRow = false;
-      int numRightRows = rightRows.size();
-      rows.ensureCapacity(rows.size() + numRightRows);
       boolean maxRowsLimitReached = false;
-      for (int i = 0; i < numRightRows; i++) {
-        Object[] rightRow = rightRows.get(i);
+      for (; rightRowId != JoinHashTable.INVALID_ROW_ID; rightRowId = _rightTable.getNextRowId(rightRowId)) {
+        Object[] rightRow = _rightTable.getRow(rightRowId);
         // TODO: Optimize this to avoid unnecessary object copy.
         Object[] resultRow = joinRow(leftRow, rightRow);
         if (_nonEquiEvaluators.isEmpty() || _nonEquiEvaluators.stream()
@@ -345,7 +926,7 @@ public class HashJoinOperator extends MultiStageOperator {
           rows.add(resultRow);
           hasMatchForLeftRow = true;
           if (_matchedRightRows != null) {
-            _matchedRightRows.computeIfAbsent(key, k -> new BitSet(numRightRows)).set(i);
+            _matchedRightRows.set(rightRowId);
           }
         }
       }
@@ -363,14 +944,13 @@ public class HashJoinOperator extends MultiStageOperator {
     return rows;
   }
 
-  private List<Object[]> buildJoinedDataBlockSemi(TransferableBlock leftBlock) {
-    List<Object[]> container = leftBlock.getContainer();
+  private List<Object[]> buildJoinedDataBlockSemi(List<Object[]> container) {
     List<Object[]> rows = new ArrayList<>(container.size());
 
     for (Object[] leftRow : container) {
       Object key = _leftKeySelector.getKey(leftRow);
       // SEMI-JOIN only checks existence of the key
-      if (_broadcastRightTable.containsKey(key)) {
+      if (_rightTable.containsKey(key)) {
         rows.add(leftRow);
       }
     }
@@ -378,14 +958,13 @@ public class HashJoinOperator extends MultiStageOperator {
     return rows;
   }
 
-  private List<Object[]> buildJoinedDataBlockAnti(TransferableBlock leftBlock) {
-    List<Object[]> container = leftBlock.getContainer();
+  private List<Object[]> buildJoinedDataBlockAnti(List<Object[]> container) {
     List<Object[]> rows = new ArrayList<>(container.size());
 
     for (Object[] leftRow : container) {
       Object key = _leftKeySelector.getKey(leftRow);
       // ANTI-JOIN only checks non-existence of the key
-      if (!_broadcastRightTable.containsKey(key)) {
+      if (!_rightTable.containsKey(key)) {
         rows.add(leftRow);
       }
     }
@@ -395,20 +974,10 @@ public class HashJoinOperator extends MultiStageOperator {
 
   private List<Object[]> buildNonMatchRightRows() {
     List<Object[]> rows = new ArrayList<>();
-    for (Map.Entry<Object, ArrayList<Object[]>> entry : _broadcastRightTable.entrySet()) {
-      List<Object[]> rightRows = entry.getValue();
-      BitSet matchedIndices = _matchedRightRows.get(entry.getKey());
-      if (matchedIndices == null) {
-        for (Object[] rightRow : rightRows) {
-          rows.add(joinRow(null, rightRow));
-        }
-      } else {
-        int numRightRows = rightRows.size();
-        int unmatchedIndex = 0;
-        while ((unmatchedIndex = matchedIndices.nextClearBit(unmatchedIndex)) < numRightRows) {
-          rows.add(joinRow(null, rightRows.get(unmatchedIndex++)));
-        }
-      }
+    int numRightRows = _rightTable.size();
+    int unmatchedRowId = 0;
+    while ((unmatchedRowId = _matchedRightRows.nextClearBit(unmatchedRowId)) < numRightRows) {
+      rows.add(joinRow(null, _rightTable.getRow(unmatchedRowId++)));
     }
     return rows;
   }
@@ -434,6 +1003,15 @@ public class HashJoinOperator extends MultiStageOperator {
 
   private void earlyTerminateLeftInput() {
     _leftInput.earlyTerminate();
+    _isLeftInputEarlyTerminated = true;
+    drainEarlyTerminatedLeftInput();
+  }
+
+  /**
+   * Reads the early terminated left input until the end of stream. If the left input yields before that, returns
+   * without terminating the operator, and the draining is resumed on the next call.
+   */
+  private void drainEarlyTerminatedLeftInput() {
     TransferableBlock leftBlock = _leftInput.nextBlock();
 
     while (!leftBlock.isSuccessfulEndOfStreamBlock()) {
@@ -441,6 +1019,9 @@ public class HashJoinOperator extends MultiStageOperator {
         _upstreamErrorBlock = leftBlock;
         return;
       }
+      if (leftBlock.isYieldBlock()) {
+        return;
+      }
       leftBlock = _leftInput.nextBlock();
     }
 
@@ -460,7 +1041,7 @@ public class HashJoinOperator extends MultiStageOperator {
    */
   private boolean isMaxRowsLimitReached(int numJoinedRows)
       throws ProcessingException {
-    if (numJoinedRows == _maxRowsInJoin) {
+    if (numJoinedRows == _maxRowsInJoin && _joinOverflowMode != JoinOverFlowMode.SPILL) {
       if (_joinOverflowMode == JoinOverFlowMode.THROW) {
         throwProcessingExceptionForJoinRowLimitExceeded(
             "Cannot process join, reached number of rows limit: " + _maxRowsInJoin);
@@ -485,14 +1066,27 @@ public class HashJoinOperator extends MultiStageOperator {
         + ". Consider increasing the limit for the maximum number of rows in a join either via the query option '"
         + CommonConstants.Broker.Request.QueryOptionKey.MAX_ROWS_IN_JOIN + "' or the '"
         + PinotHintOptions.JoinHintOptions.MAX_ROWS_IN_JOIN + "' hint in the '" + PinotHintOptions.JOIN_HINT_OPTIONS
-        + "'. Alternatively, if partial results are acceptable, the join overflow mode can be set to '"
-        + JoinOverFlowMode.BREAK.name() + "' either via the query option '"
+        + "'. Alternatively, the join overflow mode can be set to '" + JoinOverFlowMode.SPILL.name()
+        + "' to spill the join to disk, or to '" + JoinOverFlowMode.BREAK.name()
+        + "' if partial results are acceptable, either via the query option '"
         + CommonConstants.Broker.Request.QueryOptionKey.JOIN_OVERFLOW_MODE + "' or the '"
         + PinotHintOptions.JoinHintOptions.JOIN_OVERFLOW_MODE + "' hint in the '" + PinotHintOptions.JOIN_HINT_OPTIONS
         + "'.");
     throw resourceLimitExceededException;
   }
 
+  private static class SpilledPartition {
+    final SpillFile _right;
+    final SpillFile _left;
+    final int _level;
+
+    SpilledPartition(SpillFile right, SpillFile left, int level) {
+      _right = right;
+      _left = left;
+      _level = level;
+    }
+  }
+
   public enum StatKey implements StatMap.Key {
     //@formatter:off
     EXECUTION_TIME_MS(StatMap.Type.LONG) {
@@ -511,7 +1105,11 @@ public class HashJoinOperator extends MultiStageOperator {
     /**
      * How long (CPU time) has been spent on building the hash table.
      */
-    TIME_BUILDING_HASH_TABLE_MS(StatMap.Type.LONG);
+    TIME_BUILDING_HASH_TABLE_MS(StatMap.Type.LONG),
+    /**
+     * Number of rows written to disk when the join is spilled, including rows re-written when re-partitioning.
+     */
+    SPILLED_ROWS(StatMap.Type.LONG);
     //@formatter:on
 
     private final StatMap.Type _type;
@@ -164,10 +164,21 @@ public class LeafStageTransferableBlockOperator extends MultiStageOperator {
     if (_executionFuture == null) {
       _executionFuture = startExecution();
     }
-    BaseResultsBlock resultsBlock =
-        _blockingQueue.poll(_context.getDeadlineMs() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
-    if (resultsBlock == null) {
-      throw new TimeoutException("Timed out waiting for results block");
+    BaseResultsBlock resultsBlock;
+    if (_context.isYieldEnabled()) {
+      resultsBlock = _blockingQueue.poll();
+      if (resultsBlock == null) {
+        if (System.currentTimeMillis() >= _context.getDeadlineMs()) {
+          throw new TimeoutException("Timed out waiting for results block");
+        }
+        return TransferableBlockUtils.getYieldTransferableBlock();
+      }
+    } else {
+      resultsBlock =
+          _blockingQueue.poll(_context.getDeadlineMs() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+      if (resultsBlock == null) {
+        throw new TimeoutException("Timed out waiting for results block");
+      }
     }
     // Terminate when receiving exception block
     Map<Integer, String> exceptions = _exceptions;
@@ -459,6 +470,7 @@ public class LeafStageTransferableBlockOperator extends MultiStageOperator {
         TimeUnit.MILLISECONDS)) {
       throw new TimeoutException("Timed out waiting to add results block");
     }
+    _context.notifyDataAvailable();
   }
 
   // TODO: Revisit the stats aggregation logic
@@ -133,7 +133,7 @@ public class LookupJoinOperator extends MultiStageOperator {
     // TODO: Consider batching the rows to improve performance.
     while (true) {
       TransferableBlock leftBlock = _leftInput.nextBlock();
-      if (leftBlock.isErrorBlock()) {
+      if (leftBlock.isErrorBlock() || leftBlock.isYieldBlock()) {
         return leftBlock;
       }
       if (leftBlock.isSuccessfulEndOfStreamBlock()) {
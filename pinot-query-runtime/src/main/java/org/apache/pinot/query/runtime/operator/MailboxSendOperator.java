@@ -128,7 +128,16 @@ public class MailboxSendOperator extends MultiStageOperator {
   @Override
   protected TransferableBlock getNextBlock() {
     try {
+      // When yield is enabled, yield instead of blocking on the full receiving mailboxes. Once the deadline is reached,
+      // sending the block fails right away with the timeout.
+      if (_context.isYieldEnabled() && System.currentTimeMillis() < _context.getDeadlineMs()
+          && _exchange.isBackPressured(_context::notifyDataAvailable)) {
+        return TransferableBlockUtils.getYieldTransferableBlock();
+      }
       TransferableBlock block = _input.nextBlock();
+      if (block.isYieldBlock()) {
+        return block;
+      }
       if (block.isSuccessfulEndOfStreamBlock()) {
         updateEosBlock(block, _statMap);
         // no need to check early terminate signal b/c the current block is already EOS
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -38,9 +39,12 @@ import org.apache.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
 import org.apache.pinot.core.util.DataBlockExtractUtils;
 import org.apache.pinot.query.planner.plannode.AggregateNode.AggType;
 import org.apache.pinot.query.planner.plannode.PlanNode;
+import org.apache.pinot.query.runtime.blocks.ColumnarContainer;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.operator.groupby.GroupBySpillMerger;
 import org.apache.pinot.query.runtime.operator.groupby.GroupIdGenerator;
 import org.apache.pinot.query.runtime.operator.groupby.GroupIdGeneratorFactory;
+import org.apache.pinot.query.runtime.operator.spill.SpillFile;
 import org.apache.pinot.query.runtime.operator.utils.TypeUtils;
 import org.roaringbitmap.PeekableIntIterator;
 import org.roaringbitmap.RoaringBitmap;
@@ -48,6 +52,9 @@ import org.roaringbitmap.RoaringBitmap;
 
 /**
  * Class that executes the group by aggregations for the multistage AggregateOperator.
+ * <p>When spilling is enabled, the number of groups limit is used as the number of groups to keep in memory instead of
+ * a hard limit: once reached, the groups are spilled to local disk in the intermediate format, and re-aggregated
+ * partition by partition by the {@link GroupBySpillMerger} when the result is fetched.
  */
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class MultistageGroupByExecutor {
@@ -58,6 +65,9 @@ public class MultistageGroupByExecutor {
   private final AggType _aggType;
   private final DataSchema _resultSchema;
   private final int _numGroupsLimit;
+  private final int _maxInitialResultHolderCapacity;
+  private final Map<String, String> _opChainMetadata;
+  private final boolean _spillEnabled;
 
   // Group By Result holders for each mode
   private final GroupByResultHolder[] _aggregateResultHolders;
@@ -65,7 +75,11 @@ public class MultistageGroupByExecutor {
 
   // Mapping from the row-key to a zero based integer index. This is used when we invoke the v1 aggregation functions
   // because they use the zero based integer indexes to store results.
-  private final GroupIdGenerator _groupIdGenerator;
+  private GroupIdGenerator _groupIdGenerator;
+
+  // Only set once the groups are spilled to disk
+  @Nullable
+  private GroupBySpillMerger _spillMerger;
 
   public MultistageGroupByExecutor(int[] groupKeyIds, AggregationFunction[] aggFunctions, int[] filterArgIds,
       int maxFilterArgId, AggType aggType, DataSchema resultSchema, Map<String, String> opChainMetadata,
@@ -76,25 +90,49 @@ public class MultistageGroupByExecutor {
     _maxFilterArgId = maxFilterArgId;
     _aggType = aggType;
     _resultSchema = resultSchema;
-    int maxInitialResultHolderCapacity = getMaxInitialResultHolderCapacity(opChainMetadata, nodeHint);
+    _maxInitialResultHolderCapacity = getMaxInitialResultHolderCapacity(opChainMetadata, nodeHint);
     _numGroupsLimit = getNumGroupsLimit(opChainMetadata, nodeHint);
+    _opChainMetadata = opChainMetadata;
+    _spillEnabled = isSpillEnabled(opChainMetadata, nodeHint);
 
     int numFunctions = aggFunctions.length;
     if (!aggType.isInputIntermediateFormat()) {
       _aggregateResultHolders = new GroupByResultHolder[numFunctions];
-      for (int i = 0; i < numFunctions; i++) {
-        _aggregateResultHolders[i] =
-            _aggFunctions[i].createGroupByResultHolder(maxInitialResultHolderCapacity, _numGroupsLimit);
-      }
       _mergeResultHolder = null;
     } else {
-      _mergeResultHolder = new ArrayList<>(maxInitialResultHolderCapacity);
+      _mergeResultHolder = new ArrayList<>(_maxInitialResultHolderCapacity);
       _aggregateResultHolders = null;
     }
+    initGroupByState();
+  }
 
+  private void initGroupByState() {
+    // When spilling is enabled, the limit is checked after each block so that no group is dropped
+    int maxNumGroups = _spillEnabled ? Integer.MAX_VALUE : _numGroupsLimit;
+    if (_aggregateResultHolders != null) {
+      for (int i = 0; i < _aggFunctions.length; i++) {
+        _aggregateResultHolders[i] =
+            _aggFunctions[i].createGroupByResultHolder(_maxInitialResultHolderCapacity, maxNumGroups);
+      }
+    } else {
+      _mergeResultHolder.clear();
+    }
     _groupIdGenerator =
-        GroupIdGeneratorFactory.getGroupIdGenerator(_resultSchema.getStoredColumnDataTypes(), groupKeyIds.length,
-            _numGroupsLimit);
+        GroupIdGeneratorFactory.getGroupIdGenerator(_resultSchema.getStoredColumnDataTypes(), _groupKeyIds.length,
+            maxNumGroups);
+  }
+
+  private boolean isSpillEnabled(Map<String, String> opChainMetadata, @Nullable PlanNode.NodeHint nodeHint) {
+    if (nodeHint != null) {
+      Map<String, String> aggregateOptions = nodeHint.getHintOptions().get(PinotHintOptions.AGGREGATE_HINT_OPTIONS);
+      if (aggregateOptions != null) {
+        String enableSpillStr = aggregateOptions.get(PinotHintOptions.AggregateOptions.ENABLE_SPILL);
+        if (enableSpillStr != null) {
+          return Boolean.parseBoolean(enableSpillStr);
+        }
+      }
+    }
+    return QueryOptionsUtils.isGroupBySpillEnabled(opChainMetadata);
   }
 
   private int getNumGroupsLimit(Map<String, String> opChainMetadata, @Nullable PlanNode.NodeHint nodeHint) {
@@ -135,12 +173,89 @@ public class MultistageGroupByExecutor {
   /**
    * Performs group-by aggregation for the data in the block.
    */
-  public void processBlock(TransferableBlock block) {
+  public void processBlock(TransferableBlock block)
+      throws IOException {
     if (!_aggType.isInputIntermediateFormat()) {
       processAggregate(block);
     } else {
       processMerge(block);
     }
+    if (_spillEnabled && _groupIdGenerator.getNumGroups() >= _numGroupsLimit) {
+      spill();
+    }
+  }
+
+  private void spill()
+      throws IOException {
+    if (_spillMerger == null) {
+      _spillMerger = new GroupBySpillMerger(SpillFile.getSpillDir(_opChainMetadata), "groupby_", _groupKeyIds.length,
+          _aggFunctions, _aggType.isOutputIntermediateFormat(), _resultSchema, _numGroupsLimit);
+    }
+    _spillMerger.spill(getIntermediateRows());
+    initGroupByState();
+  }
+
+  /**
+   * Returns the groups as rows of [group keys, intermediate results].
+   */
+  private Iterator<Object[]> getIntermediateRows() {
+    int numKeys = _groupKeyIds.length;
+    int numFunctions = _aggFunctions.length;
+    Iterator<GroupIdGenerator.GroupKey> groupKeyIterator =
+        _groupIdGenerator.getGroupKeyIterator(numKeys + numFunctions);
+    return new Iterator<Object[]>() {
+      @Override
+      public boolean hasNext() {
+        return groupKeyIterator.hasNext();
+      }
+
+      @Override
+      public Object[] next() {
+        GroupIdGenerator.GroupKey groupKey = groupKeyIterator.next();
+        int groupId = groupKey._groupId;
+        Object[] row = groupKey._row;
+        for (int i = 0; i < numFunctions; i++) {
+          row[numKeys + i] = _aggregateResultHolders != null ? _aggFunctions[i].extractGroupByResult(
+              _aggregateResultHolders[i], groupId) : _mergeResultHolder.get(groupId)[i];
+        }
+        return row;
+      }
+    };
+  }
+
+  /**
+   * Returns whether the groups have been spilled to disk, in which case the result must be fetched with
+   * {@link #getNextSpilledResult()} instead of {@link #getResult()}.
+   */
+  public boolean isSpilled() {
+    return _spillMerger != null;
+  }
+
+  public long getNumSpilledRows() {
+    return _spillMerger != null ? _spillMerger.getNumSpilledRows() : 0;
+  }
+
+  /**
+   * Fetches the result of the next spilled partition, or {@code null} once all the groups are returned.
+   */
+  @Nullable
+  public List<Object[]> getNextSpilledResult()
+      throws IOException {
+    assert _spillMerger != null;
+    if (_groupIdGenerator.getNumGroups() > 0) {
+      spill();
+    }
+    return _spillMerger.nextResult();
+  }
+
+  /**
+   * Releases the spilled groups if any.
+   */
+  public void close()
+      throws IOException {
+    if (_spillMerger != null) {
+      _spillMerger.close();
+    }
   }
 
   /**
@@ -190,7 +305,7 @@ public class MultistageGroupByExecutor {
   }
 
   public boolean isNumGroupsLimitReached() {
-    return _groupIdGenerator.getNumGroups() == _numGroupsLimit;
+    return !_spillEnabled && _groupIdGenerator.getNumGroups() == _numGroupsLimit;
   }
 
   private void processAggregate(TransferableBlock block) {
@@ -286,8 +401,34 @@ public class MultistageGroupByExecutor {
    * GroupByAggregationResultHolders used in v1 aggregations.
    */
   private int[] generateGroupByKeys(TransferableBlock block) {
-    return block.isContainerConstructed() ? generateGroupByKeys(block.getContainer())
-        : generateGroupByKeys(block.getDataBlock());
+    if (block.isContainerConstructed()) {
+      return generateGroupByKeys(block.getContainer());
+    }
+    if (block.isColumnarContainerConstructed()) {
+      return generateGroupByKeys(block.getColumnarContainer());
+    }
+    return generateGroupByKeys(block.getDataBlock());
+  }
+
+  private int[] generateGroupByKeys(ColumnarContainer container) {
+    int numRows = container.getNumRows();
+    int[] intKeys = new int[numRows];
+    int numKeys = _groupKeyIds.length;
+    if (numKeys == 1) {
+      int groupKeyId = _groupKeyIds[0];
+      for (int i = 0; i < numRows; i++) {
+        intKeys[i] = _groupIdGenerator.getGroupId(container.getValue(i, groupKeyId));
+      }
+    } else {
+      Object[] key = new Object[numKeys];
+      for (int i = 0; i < numRows; i++) {
+        for (int j = 0; j < numKeys; j++) {
+          key[j] = container.getValue(i, _groupKeyIds[j]);
+        }
+        intKeys[i] = _groupIdGenerator.getGroupId(key);
+      }
+    }
+    return intKeys;
   }
 
   private int[] generateGroupByKeys(List<Object[]> rows) {
@@ -332,7 +473,9 @@ public class MultistageGroupByExecutor {
    * GroupByAggregationResultHolders used in v1 aggregations.
    */
   private int[] generateGroupByKeys(TransferableBlock block, int numMatchedRows, RoaringBitmap matchedBitmap) {
-    return block.isContainerConstructed() ? generateGroupByKeys(block.getContainer(), numMatchedRows, matchedBitmap)
+    // NOTE: Materialize the rows of the columnar blocks (same as the filtered aggregation values)
+    return block.isContainerConstructed() || block.isColumnarContainerConstructed()
+        ? generateGroupByKeys(block.getContainer(), numMatchedRows, matchedBitmap)
         : generateGroupByKeys(block.getDataBlock(), numMatchedRows, matchedBitmap);
   }
 
@@ -35,6 +35,7 @@ public class OpChain implements AutoCloseable {
   private static final Logger LOGGER = LoggerFactory.getLogger(OpChain.class);
 
   private final OpChainId _id;
+  private final OpChainExecutionContext _context;
   private final MultiStageOperator _root;
   private final Consumer<OpChainId> _finishCallback;
   private final ThreadExecutionContext _parentContext;
@@ -46,6 +47,7 @@ public class OpChain implements AutoCloseable {
 
   public OpChain(OpChainExecutionContext context, MultiStageOperator root, Consumer<OpChainId> finishCallback) {
     _id = context.getId();
+    _context = context;
     _root = root;
     _finishCallback = finishCallback;
     _parentContext = context.getParentContext();
@@ -55,6 +57,10 @@ public class OpChain implements AutoCloseable {
     return _id;
   }
 
+  public OpChainExecutionContext getContext() {
+    return _context;
+  }
+
   public Operator<TransferableBlock> getRoot() {
     return _root;
   }
@@ -108,12 +108,19 @@ public abstract class SetOperator extends MultiStageOperator {
     if (_upstreamErrorBlock != null) {
       return _upstreamErrorBlock;
     }
+    if (!_isRightSetBuilt) {
+      // The right input yielded before reaching the end of stream
+      return TransferableBlockUtils.getYieldTransferableBlock();
+    }
     return constructResultBlockSet();
   }
 
   protected void constructRightBlockSet() {
     TransferableBlock block = _rightChildOperator.nextBlock();
     while (!block.isEndOfStreamBlock()) {
+      if (block.isYieldBlock()) {
+        return;
+      }
       if (block.getType() != DataBlock.Type.METADATA) {
         for (Object[] row : block.getContainer()) {
           _rightRowSet.add(new Record(row));
@@ -136,7 +143,7 @@ public abstract class SetOperator extends MultiStageOperator {
     // TODO: Consider batching the rows to improve performance.
     while (true) {
       TransferableBlock leftBlock = _leftChildOperator.nextBlock();
-      if (leftBlock.isErrorBlock()) {
+      if (leftBlock.isErrorBlock() || leftBlock.isYieldBlock()) {
         return leftBlock;
       }
       if (leftBlock.isSuccessfulEndOfStreamBlock()) {
@@ -20,17 +20,25 @@ package org.apache.pinot.query.runtime.operator;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.PriorityQueue;
+import javax.annotation.Nullable;
 import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.datatable.StatMap;
+import org.apache.pinot.common.response.ProcessingException;
 import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.core.query.selection.SelectionOperatorUtils;
 import org.apache.pinot.query.planner.plannode.SortNode;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.operator.spill.SpillFile;
+import org.apache.pinot.query.runtime.operator.spill.SpillUtils;
 import org.apache.pinot.query.runtime.operator.utils.SortUtils;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
 import org.apache.pinot.spi.utils.CommonConstants;
@@ -38,6 +46,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+/**
+ * Operator that sorts its input on the collations of the {@link SortNode} and applies its offset and fetch.
+ * <p>When the {@link org.apache.pinot.spi.utils.CommonConstants.Broker.Request.QueryOptionKey#MAX_ROWS_IN_SORT} is
+ * set and smaller than the number of rows to keep, the operator performs an external sort: whenever the in-memory
+ * priority queue reaches that many rows, its content is written to local disk as a sorted run. Once the input is
+ * consumed, the sorted runs and the remaining in-memory rows are merged with a k-way merge, producing the result in
+ * blocks of bounded size.
+ */
 public class SortOperator extends MultiStageOperator {
   private static final String EXPLAIN_NAME = "SORT";
   private static final Logger LOGGER = LoggerFactory.getLogger(SortOperator.class);
@@ -49,9 +65,16 @@ public class SortOperator extends MultiStageOperator {
   private final PriorityQueue<Object[]> _priorityQueue;
   private final ArrayList<Object[]> _rows;
   private final StatMap<StatKey> _statMap = new StatMap<>(StatKey.class);
+  private final List<RelFieldCollation> _collations;
+  // Number of rows kept in memory before spilling a sorted run, or Integer.MAX_VALUE if the sort does not spill
+  private final int _maxRowsInMemory;
+  private final List<SpillFile> _spilledRuns = new ArrayList<>();
 
   private boolean _hasConstructedSortedBlock;
   private TransferableBlock _eosBlock;
+  // Only set when merging spilled runs
+  private PriorityQueue<SortedRun> _mergeQueue;
+  private int _numMergedRows;
 
   public SortOperator(OpChainExecutionContext context, MultiStageOperator input, SortNode node) {
     this(context, input, node, SelectionOperatorUtils.MAX_ROW_HOLDER_INITIAL_CAPACITY,
@@ -73,15 +96,21 @@ public class SortOperator extends MultiStageOperator {
     // - There is no collation
     // - Input is already sorted
     List<RelFieldCollation> collations = node.getCollations();
+    _collations = collations;
     if (collations.isEmpty() || input instanceof SortedMailboxReceiveOperator) {
       _priorityQueue = null;
       _rows = new ArrayList<>(Math.min(defaultHolderCapacity, _numRowsToKeep));
+      _maxRowsInMemory = Integer.MAX_VALUE;
     } else {
       // Use the opposite direction as specified by the collation directions since we need the PriorityQueue to decide
       // which elements to keep and which to remove based on the limits.
       _priorityQueue = new PriorityQueue<>(Math.min(defaultHolderCapacity, _numRowsToKeep),
           new SortUtils.SortComparator(_dataSchema, collations, true));
       _rows = null;
+      Integer maxRowsInSort = QueryOptionsUtils.getMaxRowsInSort(context.getOpChainMetadata());
+      _maxRowsInMemory =
+          maxRowsInSort != null && maxRowsInSort > 0 && maxRowsInSort < _numRowsToKeep ? maxRowsInSort
+              : Integer.MAX_VALUE;
     }
   }
 
@@ -110,24 +139,38 @@ public class SortOperator extends MultiStageOperator {
   public void cancel(Throwable e) {
   }
 
+  @Override
+  public void close() {
+    super.close();
+    closeSpilledRuns();
+  }
+
   @Override
   public String toExplainString() {
     return EXPLAIN_NAME;
   }
 
   @Override
-  protected TransferableBlock getNextBlock() {
+  protected TransferableBlock getNextBlock()
+      throws ProcessingException {
+    if (_mergeQueue != null) {
+      return produceMergedBlock();
+    }
     if (_hasConstructedSortedBlock) {
       assert _eosBlock != null;
       return _eosBlock;
     }
     TransferableBlock finalBlock = consumeInputBlocks();
-    // returning upstream error block if finalBlock contains error.
-    if (finalBlock.isErrorBlock()) {
+    // returning upstream error block if finalBlock contains error, or the yield block if the input yielded.
+    if (finalBlock.isErrorBlock() || finalBlock.isYieldBlock()) {
       return finalBlock;
     }
     _statMap.merge(StatKey.REQUIRE_SORT, _priorityQueue != null);
     _eosBlock = updateEosBlock(finalBlock, _statMap);
+    if (!_spilledRuns.isEmpty()) {
+      initMergeQueue();
+      return produceMergedBlock();
+    }
     return produceSortedBlock();
   }
 
@@ -154,7 +197,95 @@ public class SortOperator extends MultiStageOperator {
     }
   }
 
-  private TransferableBlock consumeInputBlocks() {
+  /**
+   * Drains the priority queue into a list sorted on the collations.
+   */
+  private List<Object[]> pollSortedRows() {
+    Object[][] rowsArr = new Object[_priorityQueue.size()][];
+    for (int i = rowsArr.length - 1; i >= 0; i--) {
+      rowsArr[i] = _priorityQueue.poll();
+    }
+    return Arrays.asList(rowsArr);
+  }
+
+  private void spillSortedRun()
+      throws ProcessingException {
+    List<Object[]> sortedRows = pollSortedRows();
+    File spillDir = SpillFile.getSpillDir(_context.getOpChainMetadata());
+    try {
+      SpillFile spillFile = new SpillFile(spillDir, "sort_" + _context.getId() + "_", _dataSchema);
+      _spilledRuns.add(spillFile);
+      spillFile.addAll(sortedRows);
+      spillFile.finish();
+    } catch (IOException e) {
+      throw SpillUtils.spillException("sort", e);
+    }
+    _statMap.merge(StatKey.SPILLED_ROWS, sortedRows.size());
+  }
+
+  private void initMergeQueue()
+      throws ProcessingException {
+    SortUtils.SortComparator rowComparator = new SortUtils.SortComparator(_dataSchema, _collations, false);
+    _mergeQueue = new PriorityQueue<>(_spilledRuns.size() + 1, Comparator.comparing(SortedRun::current, rowComparator));
+    try {
+      for (SpillFile spilledRun : _spilledRuns) {
+        SortedRun sortedRun = new SortedRun(spilledRun.read());
+        if (sortedRun.current() != null) {
+          _mergeQueue.add(sortedRun);
+        }
+      }
+    } catch (IOException e) {
+      throw SpillUtils.spillException("sort", e);
+    }
+    if (!_priorityQueue.isEmpty()) {
+      _mergeQueue.add(new SortedRun(pollSortedRows()));
+    }
+  }
+
+  /**
+   * Produces the next block from the k-way merge of the sorted runs, skipping the first {@code _offset} rows and
+   * stopping after {@code _numRowsToKeep} rows.
+   */
+  private TransferableBlock produceMergedBlock()
+      throws ProcessingException {
+    _hasConstructedSortedBlock = true;
+    List<Object[]> rows = new ArrayList<>();
+    try {
+      while (!_mergeQueue.isEmpty() && _numMergedRows < _numRowsToKeep
+          && rows.size() < SpillFile.DEFAULT_MAX_ROWS_PER_BLOCK) {
+        SortedRun sortedRun = _mergeQueue.poll();
+        if (_numMergedRows++ >= _offset) {
+          rows.add(sortedRun.current());
+        }
+        if (sortedRun.advance()) {
+          _mergeQueue.add(sortedRun);
+        }
+      }
+    } catch (IOException e) {
+      throw SpillUtils.spillException("sort", e);
+    }
+    if (!rows.isEmpty()) {
+      return new TransferableBlock(rows, _dataSchema, DataBlock.Type.ROW);
+    }
+    // All the rows are emitted, release the spilled runs right away instead of waiting for the operator to be closed
+    _mergeQueue = null;
+    closeSpilledRuns();
+    return _eosBlock;
+  }
+
+  private void closeSpilledRuns() {
+    for (SpillFile spilledRun : _spilledRuns) {
+      try {
+        spilledRun.close();
+      } catch (IOException e) {
+        LOGGER.warn("Failed to close spill file", e);
+      }
+    }
+    _spilledRuns.clear();
+  }
+
+  private TransferableBlock consumeInputBlocks()
+      throws ProcessingException {
     TransferableBlock block = _input.nextBlock();
     while (block.isDataBlock()) {
       List<Object[]> container = block.getContainer();
@@ -181,6 +312,9 @@ public class SortOperator extends MultiStageOperator {
         for (Object[] row : container) {
           SelectionOperatorUtils.addToPriorityQueue(row, _priorityQueue, _numRowsToKeep);
         }
+        if (_priorityQueue.size() >= _maxRowsInMemory) {
+          spillSortedRun();
+        }
         sampleAndCheckInterruption();
       }
       block = _input.nextBlock();
@@ -201,7 +335,11 @@ public class SortOperator extends MultiStageOperator {
       public boolean includeDefaultInJson() {
         return true;
       }
-    };
+    },
+    /**
+     * Number of rows written to disk as sorted runs when the sort does not fit in memory.
+     */
+    SPILLED_ROWS(StatMap.Type.LONG);
     //@formatter:on
 
     private final StatMap.Type _type;
@@ -215,4 +353,51 @@ public class SortOperator extends MultiStageOperator {
       return _type;
     }
   }
+
+  /**
+   * A sorted sequence of rows consumed by the k-way merge, either read back from a spilled run or kept in memory.
+   */
+  private static class SortedRun {
+    @Nullable
+    private final SpillFile.Reader _reader;
+    private List<Object[]> _rows;
+    private int _index;
+
+    SortedRun(List<Object[]> rows) {
+      _reader = null;
+      _rows = rows;
+    }
+
+    SortedRun(SpillFile.Reader reader)
+        throws IOException {
+      _reader = reader;
+      List<Object[]> rows = reader.nextBlock();
+      _rows = rows != null ? rows : List.of();
+    }
+
+    @Nullable
+    Object[] current() {
+      return _index < _rows.size() ? _rows.get(_index) : null;
+    }
+
+    /**
+     * Moves to the next row, returns {@code false} if the run is exhausted.
+     */
+    boolean advance()
+        throws IOException {
+      if (++_index < _rows.size()) {
+        return true;
+      }
+      if (_reader == null) {
+        return false;
+      }
+      List<Object[]> rows = _reader.nextBlock();
+      if (rows == null) {
+        return false;
+      }
+      _rows = rows;
+      _index = 0;
+      return !rows.isEmpty();
+    }
+  }
 }
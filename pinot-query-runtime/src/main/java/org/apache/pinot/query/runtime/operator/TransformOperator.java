@@ -25,10 +25,12 @@ import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.planner.plannode.ProjectNode;
+import org.apache.pinot.query.runtime.blocks.ColumnarContainer;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.operator.operands.TransformOperand;
 import org.apache.pinot.query.runtime.operator.operands.TransformOperandFactory;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.roaringbitmap.RoaringBitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,6 +44,8 @@ import org.slf4j.LoggerFactory;
  * - Function transform, which runs a function on function operands. Function operands and be any of 3 the transform.
  * Note: Function transform only runs functions from v1 engine scalar function factory, which only does argument count
  * and canonicalized function name matching (lower case).
+ * When all the transforms are InputRef or Literal transforms and the input rows are not materialized yet, the
+ * transforms are evaluated on the columnar container of the block, sharing the input columns without copying them.
  */
 public class TransformOperator extends MultiStageOperator {
   private static final Logger LOGGER = LoggerFactory.getLogger(TransformOperator.class);
@@ -52,6 +56,7 @@ public class TransformOperator extends MultiStageOperator {
   private final int _resultColumnSize;
   // TODO: Check type matching between resultSchema and the actual result.
   private final DataSchema _resultSchema;
+  private final boolean _columnarSupported;
   private final StatMap<StatKey> _statMap = new StatMap<>(StatKey.class);
 
   public TransformOperator(OpChainExecutionContext context, MultiStageOperator input, DataSchema inputSchema,
@@ -65,6 +70,11 @@ public class TransformOperator extends MultiStageOperator {
       _transformOperandsList.add(TransformOperandFactory.getTransformOperand(rexExpression, inputSchema));
     }
     _resultSchema = node.getDataSchema();
+    boolean columnarSupported = true;
+    for (TransformOperand transformOperand : _transformOperandsList) {
+      columnarSupported &= transformOperand.isColumnarSupported();
+    }
+    _columnarSupported = columnarSupported;
   }
 
   @Override
@@ -96,6 +106,9 @@ public class TransformOperator extends MultiStageOperator {
   @Override
   protected TransferableBlock getNextBlock() {
     TransferableBlock block = _input.nextBlock();
+    if (block.isYieldBlock()) {
+      return block;
+    }
     if (block.isEndOfStreamBlock()) {
       if (block.isSuccessfulEndOfStreamBlock()) {
         return updateEosBlock(block, _statMap);
@@ -103,6 +116,17 @@ public class TransformOperator extends MultiStageOperator {
         return block;
       }
     }
+    if (_columnarSupported && block.isColumnarPreferred()) {
+      // Evaluate the operands column-wise, sharing the projected columns with the input block
+      ColumnarContainer container = block.getColumnarContainer();
+      Object[] resultColumns = new Object[_resultColumnSize];
+      RoaringBitmap[] resultNullBitmaps = new RoaringBitmap[_resultColumnSize];
+      for (int i = 0; i < _resultColumnSize; i++) {
+        _transformOperandsList.get(i).applyColumnar(container, resultColumns, resultNullBitmaps, i);
+      }
+      return new TransferableBlock(
+          new ColumnarContainer(_resultSchema, container.getNumRows(), resultColumns, resultNullBitmaps));
+    }
     List<Object[]> container = block.getContainer();
     List<Object[]> resultRows = new ArrayList<>(container.size());
     for (Object[] row : container) {
@@ -238,7 +238,8 @@ public class WindowAggregateOperator extends MultiStageOperator {
   }
 
   /**
-   * @return the final block, which must be either an end of stream or an error.
+   * @return the final block, which must be either an end of stream, an error or a yield block when the input yielded
+   *         before reaching the end of stream.
    */
   private TransferableBlock computeBlocks()
       throws ProcessingException {
@@ -272,8 +273,8 @@ public class WindowAggregateOperator extends MultiStageOperator {
       sampleAndCheckInterruption();
       block = _input.nextBlock();
     }
-    // Early termination if the block is an error block
-    if (block.isErrorBlock()) {
+    // Early termination if the block is an error block, or the input yielded
+    if (block.isErrorBlock() || block.isYieldBlock()) {
       return block;
     }
     assert block.isSuccessfulEndOfStreamBlock();
@@ -22,7 +22,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 import org.apache.calcite.rel.RelDistribution;
-import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.query.mailbox.SendingMailbox;
 import org.apache.pinot.query.planner.partitioning.KeySelectorFactory;
 import org.apache.pinot.query.runtime.blocks.BlockSplitter;
@@ -109,6 +108,19 @@ public abstract class BlockExchange {
     return isEarlyTerminated;
   }
 
+  /**
+   * Returns whether any of the destination mailboxes cannot accept more blocks without blocking the sender. When
+   * {@code true} is returned, {@code onWritable} is called once the back-pressured mailbox can accept blocks again.
+   */
+  public boolean isBackPressured(Runnable onWritable) {
+    for (SendingMailbox sendingMailbox : _sendingMailboxes) {
+      if (sendingMailbox.isBackPressured(onWritable)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   protected void sendBlock(SendingMailbox sendingMailbox, TransferableBlock block)
       throws Exception {
     if (block.isEndOfStreamBlock()) {
@@ -117,13 +129,24 @@ public abstract class BlockExchange {
       return;
     }
 
-    DataBlock.Type type = block.getType();
-    Iterator<TransferableBlock> splits = _splitter.split(block, type, MAX_MAILBOX_CONTENT_SIZE_BYTES);
+    if (sendingMailbox.isLocal()) {
+      // The block is handed over to the receiver without serialization, so there is no size limit
+      sendingMailbox.send(block);
+      return;
+    }
+    Iterator<TransferableBlock> splits = split(block);
     while (splits.hasNext()) {
       sendingMailbox.send(splits.next());
     }
   }
 
+  /**
+   * Splits the block into blocks that fit into the transport messages of the remote mailboxes.
+   */
+  protected Iterator<TransferableBlock> split(TransferableBlock block) {
+    return _splitter.split(block, block.getType(), MAX_MAILBOX_CONTENT_SIZE_BYTES);
+  }
+
   protected abstract void route(List<SendingMailbox> destinations, TransferableBlock block)
       throws Exception;
 
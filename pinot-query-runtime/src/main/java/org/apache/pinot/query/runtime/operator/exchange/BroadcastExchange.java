@@ -18,6 +18,8 @@
  */
 package org.apache.pinot.query.runtime.operator.exchange;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import org.apache.pinot.query.mailbox.SendingMailbox;
 import org.apache.pinot.query.runtime.blocks.BlockSplitter;
@@ -36,8 +38,42 @@ class BroadcastExchange extends BlockExchange {
   @Override
   protected void route(List<SendingMailbox> destinations, TransferableBlock block)
       throws Exception {
+    if (block.isEndOfStreamBlock()) {
+      for (SendingMailbox mailbox : destinations) {
+        sendBlock(mailbox, block);
+      }
+      return;
+    }
+    int numLocalMailboxes = 0;
+    for (SendingMailbox mailbox : destinations) {
+      if (mailbox.isLocal()) {
+        numLocalMailboxes++;
+      }
+    }
+    // Split the block only once for all the remote mailboxes, so that each split is converted into a data block and
+    // serialized only once instead of once per destination. This is done before handing the block over to any local
+    // receiver, which may read it concurrently.
+    List<TransferableBlock> remoteSplits = new ArrayList<>();
+    if (numLocalMailboxes < destinations.size()) {
+      Iterator<TransferableBlock> splits = split(block);
+      while (splits.hasNext()) {
+        remoteSplits.add(splits.next());
+      }
+    }
     for (SendingMailbox mailbox : destinations) {
-      sendBlock(mailbox, block);
+      if (!mailbox.isLocal()) {
+        for (TransferableBlock split : remoteSplits) {
+          mailbox.send(split);
+        }
+      } else if (numLocalMailboxes == 1) {
+        sendBlock(mailbox, block);
+      } else {
+        // Blocks are not thread safe, so each local receiver gets its own block instances
+        Iterator<TransferableBlock> splits = split(block);
+        while (splits.hasNext()) {
+          mailbox.send(splits.next());
+        }
+      }
     }
   }
 }
@@ -0,0 +1,320 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.groupby;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.query.runtime.operator.spill.SpillFile;
+import org.apache.pinot.query.runtime.operator.utils.TypeUtils;
+
+
+/**
+ * The {@code GroupBySpillMerger} keeps the group-by state spilled to local disk by the multi-stage group-by executor
+ * and re-aggregates it once all the input is consumed.
+ * <p>Groups are spilled as rows of [group keys, intermediate results], hash partitioned on the group keys so that all
+ * the partial results of a group end up in the same partition. The partitions are then merged one at a time, so that
+ * only the groups of a single partition are held in memory. A partition holding more groups than the in-memory limit
+ * is re-partitioned with a different hash, up to {@link #MAX_SPILL_LEVEL} times, after which it is merged in memory
+ * regardless of the limit.
+ * <p>This class is not thread-safe.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class GroupBySpillMerger implements Closeable {
+  public static final int NUM_SPILL_PARTITIONS = 16;
+  public static final int MAX_SPILL_LEVEL = 3;
+
+  private final File _spillDir;
+  private final String _filePrefix;
+  private final int _numKeys;
+  private final AggregationFunction[] _aggFunctions;
+  private final boolean _outputIntermediateFormat;
+  private final ColumnDataType[] _resultStoredTypes;
+  private final DataSchema _spillSchema;
+  private final ColumnDataType[] _spillStoredTypes;
+  private final int _maxGroupsInMemory;
+
+  private final List<SpillFile> _spillFiles = new ArrayList<>();
+  private final Deque<SpilledPartition> _pendingPartitions = new ArrayDeque<>();
+  @Nullable
+  private SpillFile[] _partitions;
+  private boolean _finished;
+  private long _numSpilledRows;
+
+  public GroupBySpillMerger(File spillDir, String filePrefix, int numKeys, AggregationFunction[] aggFunctions,
+      boolean outputIntermediateFormat, DataSchema resultSchema, int maxGroupsInMemory) {
+    _spillDir = spillDir;
+    _filePrefix = filePrefix;
+    _numKeys = numKeys;
+    _aggFunctions = aggFunctions;
+    _outputIntermediateFormat = outputIntermediateFormat;
+    _resultStoredTypes = resultSchema.getStoredColumnDataTypes();
+    _spillSchema = getSpillSchema(resultSchema, numKeys, aggFunctions);
+    _spillStoredTypes = _spillSchema.getStoredColumnDataTypes();
+    _maxGroupsInMemory = maxGroupsInMemory;
+  }
+
+  /**
+   * Returns the schema of the spilled rows. Intermediate results with a primitive numeric type are stored as such, all
+   * the other intermediate results are stored as custom objects so that they can be merged after being read back.
+   */
+  private static DataSchema getSpillSchema(DataSchema resultSchema, int numKeys, AggregationFunction[] aggFunctions) {
+    int numFunctions = aggFunctions.length;
+    int numColumns = numKeys + numFunctions;
+    String[] columnNames = new String[numColumns];
+    ColumnDataType[] columnDataTypes = new ColumnDataType[numColumns];
+    for (int i = 0; i < numKeys; i++) {
+      columnNames[i] = resultSchema.getColumnName(i);
+      columnDataTypes[i] = resultSchema.getColumnDataType(i);
+    }
+    for (int i = 0; i < numFunctions; i++) {
+      int colId = numKeys + i;
+      columnNames[colId] = resultSchema.getColumnName(colId);
+      ColumnDataType intermediateType = aggFunctions[i].getIntermediateResultColumnType();
+      switch (intermediateType.getStoredType()) {
+        case INT:
+        case LONG:
+        case FLOAT:
+        case DOUBLE:
+          columnDataTypes[colId] = intermediateType.getStoredType();
+          break;
+        default:
+          columnDataTypes[colId] = ColumnDataType.OBJECT;
+          break;
+      }
+    }
+    return new DataSchema(columnNames, columnDataTypes);
+  }
+
+  public long getNumSpilledRows() {
+    return _numSpilledRows;
+  }
+
+  /**
+   * Spills the given groups, each as a row of [group keys, intermediate results]. The rows can be modified in place.
+   */
+  public void spill(Iterator<Object[]> rows)
+      throws IOException {
+    if (_partitions == null) {
+      _partitions = createPartitions();
+    }
+    while (rows.hasNext()) {
+      addRow(_partitions, rows.next(), 0);
+    }
+  }
+
+  /**
+   * Returns the merged rows of the next non-empty partition in the result format, or {@code null} once all the
+   * partitions are merged. No more groups can be spilled after this method is called.
+   */
+  @Nullable
+  public List<Object[]> nextResult()
+      throws IOException {
+    if (!_finished) {
+      _finished = true;
+      if (_partitions != null) {
+        for (SpillFile partition : _partitions) {
+          partition.finish();
+          _pendingPartitions.add(new SpilledPartition(partition, 0));
+        }
+        _partitions = null;
+      }
+    }
+    while (!_pendingPartitions.isEmpty()) {
+      SpilledPartition partition = _pendingPartitions.poll();
+      try {
+        if (partition._spillFile.getNumRows() > 0) {
+          List<Object[]> rows = mergePartition(partition);
+          if (rows != null && !rows.isEmpty()) {
+            return rows;
+          }
+        }
+      } finally {
+        partition._spillFile.close();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Merges the groups of the given partition, or returns {@code null} if the partition has been re-partitioned.
+   */
+  @Nullable
+  private List<Object[]> mergePartition(SpilledPartition partition)
+      throws IOException {
+    int level = partition._level;
+    boolean canRepartition = level < MAX_SPILL_LEVEL && partition._spillFile.getNumRows() > _maxGroupsInMemory;
+    int numFunctions = _aggFunctions.length;
+    GroupIdGenerator groupIdGenerator =
+        GroupIdGeneratorFactory.getGroupIdGenerator(_spillStoredTypes, _numKeys, Integer.MAX_VALUE);
+    List<Object[]> mergedResults = new ArrayList<>();
+    SpillFile[] subPartitions = null;
+    Object[] key = _numKeys > 1 ? new Object[_numKeys] : null;
+    SpillFile.Reader reader = partition._spillFile.read();
+    List<Object[]> rows;
+    while ((rows = reader.nextBlock()) != null) {
+      for (Object[] row : rows) {
+        if (subPartitions != null) {
+          addRow(subPartitions, row, level + 1);
+          continue;
+        }
+        int groupId;
+        if (key == null) {
+          groupId = groupIdGenerator.getGroupId(row[0]);
+        } else {
+          System.arraycopy(row, 0, key, 0, _numKeys);
+          groupId = groupIdGenerator.getGroupId(key);
+        }
+        if (groupId == mergedResults.size()) {
+          mergedResults.add(new Object[numFunctions]);
+        }
+        Object[] merged = mergedResults.get(groupId);
+        for (int i = 0; i < numFunctions; i++) {
+          Object intermediateResult = row[_numKeys + i];
+          if (intermediateResult == null) {
+            continue;
+          }
+          merged[i] = merged[i] == null ? intermediateResult : _aggFunctions[i].merge(merged[i], intermediateResult);
+        }
+        if (canRepartition && mergedResults.size() > _maxGroupsInMemory) {
+          // Too many groups in this partition, move the merged groups and the remaining rows to sub-partitions
+          subPartitions = createPartitions();
+          Iterator<Object[]> mergedRows = getIntermediateRows(groupIdGenerator, mergedResults);
+          while (mergedRows.hasNext()) {
+            addRow(subPartitions, mergedRows.next(), level + 1);
+          }
+        }
+      }
+    }
+
+    if (subPartitions != null) {
+      for (int i = NUM_SPILL_PARTITIONS - 1; i >= 0; i--) {
+        subPartitions[i].finish();
+        _pendingPartitions.addFirst(new SpilledPartition(subPartitions[i], level + 1));
+      }
+      return null;
+    }
+
+    List<Object[]> resultRows = new ArrayList<>(mergedResults.size());
+    Iterator<GroupIdGenerator.GroupKey> groupKeyIterator =
+        groupIdGenerator.getGroupKeyIterator(_numKeys + numFunctions);
+    while (groupKeyIterator.hasNext()) {
+      GroupIdGenerator.GroupKey groupKey = groupKeyIterator.next();
+      Object[] merged = mergedResults.get(groupKey._groupId);
+      Object[] row = groupKey._row;
+      for (int i = 0; i < numFunctions; i++) {
+        row[_numKeys + i] = _outputIntermediateFormat ? merged[i] : _aggFunctions[i].extractFinalResult(merged[i]);
+      }
+      // Convert the results from AggregationFunction to the desired type
+      TypeUtils.convertRow(row, _resultStoredTypes);
+      resultRows.add(row);
+    }
+    return resultRows;
+  }
+
+  private Iterator<Object[]> getIntermediateRows(GroupIdGenerator groupIdGenerator, List<Object[]> mergedResults) {
+    int numFunctions = _aggFunctions.length;
+    Iterator<GroupIdGenerator.GroupKey> groupKeyIterator =
+        groupIdGenerator.getGroupKeyIterator(_numKeys + numFunctions);
+    return new Iterator<Object[]>() {
+      @Override
+      public boolean hasNext() {
+        return groupKeyIterator.hasNext();
+      }
+
+      @Override
+      public Object[] next() {
+        GroupIdGenerator.GroupKey groupKey = groupKeyIterator.next();
+        System.arraycopy(mergedResults.get(groupKey._groupId), 0, groupKey._row, _numKeys, numFunctions);
+        return groupKey._row;
+      }
+    };
+  }
+
+  private SpillFile[] createPartitions()
+      throws IOException {
+    SpillFile[] partitions = new SpillFile[NUM_SPILL_PARTITIONS];
+    for (int i = 0; i < NUM_SPILL_PARTITIONS; i++) {
+      partitions[i] = new SpillFile(_spillDir, _filePrefix, _spillSchema);
+      _spillFiles.add(partitions[i]);
+    }
+    return partitions;
+  }
+
+  private void addRow(SpillFile[] partitions, Object[] row, int level)
+      throws IOException {
+    for (int colId = _numKeys; colId < row.length; colId++) {
+      Object value = row[colId];
+      if (value != null && _spillStoredTypes[colId] != ColumnDataType.OBJECT) {
+        row[colId] = TypeUtils.convert(value, _spillStoredTypes[colId]);
+      }
+    }
+    partitions[getPartition(row, level)].add(row);
+    _numSpilledRows++;
+  }
+
+  private int getPartition(Object[] row, int level) {
+    int hash = 1;
+    for (int i = 0; i < _numKeys; i++) {
+      hash = 31 * hash + Objects.hashCode(row[i]);
+    }
+    // Mix in the level so that rows of the same partition are redistributed when re-partitioning
+    return HashCommon.murmurHash3(hash + level) & (NUM_SPILL_PARTITIONS - 1);
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    IOException exception = null;
+    for (SpillFile spillFile : _spillFiles) {
+      try {
+        spillFile.close();
+      } catch (IOException e) {
+        exception = e;
+      }
+    }
+    _spillFiles.clear();
+    _pendingPartitions.clear();
+    _partitions = null;
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  private static class SpilledPartition {
+    final SpillFile _spillFile;
+    final int _level;
+
+    SpilledPartition(SpillFile spillFile, int level) {
+      _spillFile = spillFile;
+      _level = level;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import it.unimi.dsi.fastutil.floats.Float2LongOpenHashMap;
+
+
+/**
+ * {@link JoinHashTable} for single FLOAT join key, backed by a primitive open addressing hash map.
+ */
+public class FloatJoinHashTable extends JoinHashTable {
+  private final Float2LongOpenHashMap _chainMap;
+
+  public FloatJoinHashTable() {
+    _chainMap = new Float2LongOpenHashMap();
+    _chainMap.defaultReturnValue(INVALID_CHAIN);
+  }
+
+  @Override
+  protected long getChain(Object key) {
+    return _chainMap.get((float) key);
+  }
+
+  @Override
+  protected long putChain(Object key, long chain) {
+    return _chainMap.put((float) key, chain);
+  }
+
+  @Override
+  protected void clearChains() {
+    _chainMap.clear();
+  }
+}
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+
+
+/**
+ * The {@code JoinHashTable} holds the rows of the build (right) side of a hash join, keyed by the join key.
+ * <p>Rows are identified by their insertion index (row id). Rows sharing the same key are chained in insertion order
+ * through a primitive array, so that no collection is allocated per key. Each key maps to its chain packed into a
+ * single {@code long} (first and last row id), which allows the sub-classes to use primitive open addressing hash maps
+ * without boxing for the single numeric key cases.
+ * <p>{@code null} keys are tracked separately from the hash map, and match each other.
+ */
+public abstract class JoinHashTable {
+  public static final int INVALID_ROW_ID = -1;
+  protected static final long INVALID_CHAIN = -1L;
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final ArrayList<Object[]> _rows = new ArrayList<>();
+  private int[] _nextRowIds = new int[INITIAL_CAPACITY];
+  private long _nullKeyChain = INVALID_CHAIN;
+
+  /**
+   * Adds a row for the given key.
+   */
+  public void addRow(@Nullable Object key, Object[] row) {
+    int rowId = _rows.size();
+    _rows.add(row);
+    if (rowId == _nextRowIds.length) {
+      _nextRowIds = Arrays.copyOf(_nextRowIds, rowId << 1);
+    }
+    _nextRowIds[rowId] = INVALID_ROW_ID;
+    long newChain = chain(rowId, rowId);
+    if (key == null) {
+      _nullKeyChain = appendToChain(_nullKeyChain, rowId);
+    } else {
+      long oldChain = putChain(key, newChain);
+      if (oldChain != INVALID_CHAIN) {
+        putChain(key, appendToChain(oldChain, rowId));
+      }
+    }
+  }
+
+  private long appendToChain(long chain, int rowId) {
+    if (chain == INVALID_CHAIN) {
+      return chain(rowId, rowId);
+    }
+    _nextRowIds[lastRowId(chain)] = rowId;
+    return chain(firstRowId(chain), rowId);
+  }
+
+  /**
+   * Returns the id of the first row (in insertion order) matching the given key, or {@link #INVALID_ROW_ID} if there is
+   * no match. Other matching rows can be accessed through {@link #getNextRowId(int)}.
+   */
+  public int getFirstRowId(@Nullable Object key) {
+    return firstRowId(key == null ? _nullKeyChain : getChain(key));
+  }
+
+  /**
+   * Returns the id of the next row with the same key as the given row, or {@link #INVALID_ROW_ID} if there is none.
+   */
+  public int getNextRowId(int rowId) {
+    return _nextRowIds[rowId];
+  }
+
+  public Object[] getRow(int rowId) {
+    return _rows.get(rowId);
+  }
+
+  public boolean containsKey(@Nullable Object key) {
+    return getFirstRowId(key) != INVALID_ROW_ID;
+  }
+
+  /**
+   * Returns all the rows in insertion order, indexed by row id.
+   */
+  public List<Object[]> getRows() {
+    return _rows;
+  }
+
+  public int size() {
+    return _rows.size();
+  }
+
+  public boolean isEmpty() {
+    return _rows.isEmpty();
+  }
+
+  /**
+   * Removes all the rows and keys, but keeps the allocated capacity so that the table can be refilled.
+   */
+  public void clear() {
+    _rows.clear();
+    _nullKeyChain = INVALID_CHAIN;
+    clearChains();
+  }
+
+  /**
+   * Returns the chain for the given non-null key, or {@link #INVALID_CHAIN} if the key does not exist.
+   */
+  protected abstract long getChain(Object key);
+
+  /**
+   * Puts the chain for the given non-null key, and returns the previous chain or {@link #INVALID_CHAIN} if the key did
+   * not exist.
+   */
+  protected abstract long putChain(Object key, long chain);
+
+  protected abstract void clearChains();
+
+  private static long chain(int firstRowId, int lastRowId) {
+    return ((long) firstRowId << 32) | (lastRowId & 0xFFFFFFFFL);
+  }
+
+  private static int firstRowId(long chain) {
+    return (int) (chain >> 32);
+  }
+
+  private static int lastRowId(long chain) {
+    return (int) chain;
+  }
+}
@@ -0,0 +1,49 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+
+
+public class JoinHashTableFactory {
+  private JoinHashTableFactory() {
+  }
+
+  /**
+   * Returns a {@link JoinHashTable} specialized for the given key type when the join is on a single key column of the
+   * same type on both sides, or a generic one otherwise.
+   */
+  public static JoinHashTable getJoinHashTable(ColumnDataType[] leftKeyTypes, ColumnDataType[] rightKeyTypes) {
+    if (leftKeyTypes.length == 1 && rightKeyTypes.length == 1 && leftKeyTypes[0] == rightKeyTypes[0]) {
+      switch (rightKeyTypes[0]) {
+        case INT:
+          return new IntJoinHashTable();
+        case LONG:
+          return new LongJoinHashTable();
+        case FLOAT:
+          return new FloatJoinHashTable();
+        case DOUBLE:
+          return new DoubleJoinHashTable();
+        default:
+          return new ObjectJoinHashTable();
+      }
+    }
+    return new ObjectJoinHashTable();
+  }
+}
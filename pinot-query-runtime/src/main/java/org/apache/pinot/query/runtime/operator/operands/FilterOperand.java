@@ -27,6 +27,9 @@ import javax.annotation.Nullable;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.runtime.blocks.ColumnarContainer;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.RoaringBitmapWriter;
 
 
 /**
@@ -43,6 +46,34 @@ public abstract class FilterOperand implements TransformOperand {
   @Override
   public abstract Integer apply(Object[] row);
 
+  /**
+   * Returns whether the operand can be evaluated column-wise with {@link #filterColumnar(ColumnarContainer)}.
+   */
+  public boolean isColumnarFilterSupported() {
+    return false;
+  }
+
+  /**
+   * Returns the ids of the rows of the given container on which the operand evaluates to TRUE (i.e. excluding the
+   * rows evaluated to either FALSE or NULL).
+   */
+  public RoaringBitmap filterColumnar(ColumnarContainer container) {
+    throw new UnsupportedOperationException("Columnar filtering is not supported by: " + getClass().getSimpleName());
+  }
+
+  private static boolean supportsColumnarFilter(TransformOperand operand) {
+    return operand instanceof FilterOperand && ((FilterOperand) operand).isColumnarFilterSupported();
+  }
+
+  private static boolean supportsColumnarFilter(List<TransformOperand> operands) {
+    for (TransformOperand operand : operands) {
+      if (!supportsColumnarFilter(operand)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public static class And extends FilterOperand {
     List<TransformOperand> _childOperands;
 
@@ -67,6 +98,20 @@ public abstract class FilterOperand implements TransformOperand {
       }
       return hasNull ? null : 1;
     }
+
+    @Override
+    public boolean isColumnarFilterSupported() {
+      return supportsColumnarFilter(_childOperands);
+    }
+
+    @Override
+    public RoaringBitmap filterColumnar(ColumnarContainer container) {
+      RoaringBitmap matchedBitmap = ((FilterOperand) _childOperands.get(0)).filterColumnar(container);
+      for (int i = 1; i < _childOperands.size() && !matchedBitmap.isEmpty(); i++) {
+        matchedBitmap.and(((FilterOperand) _childOperands.get(i)).filterColumnar(container));
+      }
+      return matchedBitmap;
+    }
   }
 
   public static class Or extends FilterOperand {
@@ -93,6 +138,20 @@ public abstract class FilterOperand implements TransformOperand {
       }
       return hasNull ? null : 0;
     }
+
+    @Override
+    public boolean isColumnarFilterSupported() {
+      return supportsColumnarFilter(_childOperands);
+    }
+
+    @Override
+    public RoaringBitmap filterColumnar(ColumnarContainer container) {
+      RoaringBitmap matchedBitmap = ((FilterOperand) _childOperands.get(0)).filterColumnar(container);
+      for (int i = 1; i < _childOperands.size(); i++) {
+        matchedBitmap.or(((FilterOperand) _childOperands.get(i)).filterColumnar(container));
+      }
+      return matchedBitmap;
+    }
   }
 
   public static class Not extends FilterOperand {
@@ -154,6 +213,16 @@ public abstract class FilterOperand implements TransformOperand {
       Object result = _childOperand.apply(row);
       return result != null ? (Integer) result : 0;
     }
+
+    @Override
+    public boolean isColumnarFilterSupported() {
+      return supportsColumnarFilter(_childOperand);
+    }
+
+    @Override
+    public RoaringBitmap filterColumnar(ColumnarContainer container) {
+      return ((FilterOperand) _childOperand).filterColumnar(container);
+    }
   }
 
   public static class IsNotTrue extends FilterOperand {
@@ -168,6 +237,18 @@ public abstract class FilterOperand implements TransformOperand {
       Object result = _childOperand.apply(row);
       return result != null ? 1 - (int) result : 1;
     }
+
+    @Override
+    public boolean isColumnarFilterSupported() {
+      return supportsColumnarFilter(_childOperand);
+    }
+
+    @Override
+    public RoaringBitmap filterColumnar(ColumnarContainer container) {
+      // Both FALSE and NULL are NOT TRUE
+      RoaringBitmap trueBitmap = ((FilterOperand) _childOperand).filterColumnar(container);
+      return RoaringBitmap.flip(trueBitmap, 0L, container.getNumRows());
+    }
   }
 
   public static class Predicate extends FilterOperand {
@@ -179,6 +260,11 @@ public abstract class FilterOperand implements TransformOperand {
     private final IntPredicate _comparisonResultPredicate;
     private final boolean _requireCasting;
     private final ColumnDataType _commonCastType;
+    // Set when the predicate compares a column with a non-null literal, which can be evaluated column-wise
+    private final int _columnarColId;
+    private final boolean _literalOnLeft;
+    private final ColumnDataType _columnarCompareType;
+    private final Object _columnarLiteral;
 
     /**
      * Predicate constructor also resolve data type,
@@ -211,6 +297,36 @@ public abstract class FilterOperand implements TransformOperand {
               String.format("Cannot compare incompatible type: %s and: %s", lhsType, rhsType));
         }
       }
+
+      ReferenceOperand reference = null;
+      LiteralOperand literal = null;
+      if (_lhs instanceof ReferenceOperand && _rhs instanceof LiteralOperand) {
+        reference = (ReferenceOperand) _lhs;
+        literal = (LiteralOperand) _rhs;
+      } else if (_lhs instanceof LiteralOperand && _rhs instanceof ReferenceOperand) {
+        reference = (ReferenceOperand) _rhs;
+        literal = (LiteralOperand) _lhs;
+      }
+      ColumnDataType compareType = null;
+      if (reference != null && literal.getValue() != null) {
+        compareType = _requireCasting ? _commonCastType : reference.getResultType().getStoredType();
+        boolean isNumeric = compareType == ColumnDataType.INT || compareType == ColumnDataType.LONG
+            || compareType == ColumnDataType.FLOAT || compareType == ColumnDataType.DOUBLE;
+        if (isNumeric ? !(literal.getValue() instanceof Number) : !(literal.getValue() instanceof Comparable)) {
+          compareType = null;
+        }
+      }
+      if (compareType != null) {
+        _columnarColId = reference.getIndex();
+        _literalOnLeft = _lhs == literal;
+        _columnarCompareType = compareType;
+        _columnarLiteral = literal.getValue();
+      } else {
+        _columnarColId = -1;
+        _literalOnLeft = false;
+        _columnarCompareType = null;
+        _columnarLiteral = null;
+      }
     }
 
     @SuppressWarnings({"rawtypes", "unchecked"})
@@ -232,6 +348,83 @@ public abstract class FilterOperand implements TransformOperand {
       return _comparisonResultPredicate.test(v1.compareTo(v2)) ? 1 : 0;
     }
 
+    @Override
+    public boolean isColumnarFilterSupported() {
+      return _columnarColId >= 0;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Override
+    public RoaringBitmap filterColumnar(ColumnarContainer container) {
+      int numRows = container.getNumRows();
+      RoaringBitmapWriter<RoaringBitmap> matchedBitmapWriter = RoaringBitmapWriter.writer().get();
+      switch (_columnarCompareType) {
+        case INT: {
+          int[] values = container.getIntValues(_columnarColId);
+          int literal = ((Number) _columnarLiteral).intValue();
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            if (test(Integer.compare(values[rowId], literal))) {
+              matchedBitmapWriter.add(rowId);
+            }
+          }
+          break;
+        }
+        case LONG: {
+          long[] values = container.getLongValues(_columnarColId);
+          long literal = ((Number) _columnarLiteral).longValue();
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            if (test(Long.compare(values[rowId], literal))) {
+              matchedBitmapWriter.add(rowId);
+            }
+          }
+          break;
+        }
+        case FLOAT: {
+          float[] values = container.getFloatValues(_columnarColId);
+          float literal = ((Number) _columnarLiteral).floatValue();
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            if (test(Float.compare(values[rowId], literal))) {
+              matchedBitmapWriter.add(rowId);
+            }
+          }
+          break;
+        }
+        case DOUBLE: {
+          double[] values = container.getDoubleValues(_columnarColId);
+          double literal = ((Number) _columnarLiteral).doubleValue();
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            if (test(Double.compare(values[rowId], literal))) {
+              matchedBitmapWriter.add(rowId);
+            }
+          }
+          break;
+        }
+        default: {
+          Comparable literal = (Comparable) _columnarLiteral;
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            Comparable value = (Comparable) container.getValue(rowId, _columnarColId);
+            if (value != null && test(value.compareTo(literal))) {
+              matchedBitmapWriter.add(rowId);
+            }
+          }
+          break;
+        }
+      }
+      RoaringBitmap matchedBitmap = matchedBitmapWriter.get();
+      RoaringBitmap nullBitmap = container.getNullBitmap(_columnarColId);
+      if (nullBitmap != null) {
+        matchedBitmap.andNot(nullBitmap);
+      }
+      return matchedBitmap;
+    }
+
+    /**
+     * Tests the result of comparing the column value with the literal, flipping it when the literal is on the left.
+     */
+    private boolean test(int comparisonResult) {
+      return _comparisonResultPredicate.test(_literalOnLeft ? -comparisonResult : comparisonResult);
+    }
+
     private static Comparable<?> cast(Object value, ColumnDataType type) {
       switch (type) {
         case INT:
@@ -18,8 +18,12 @@
  */
 package org.apache.pinot.query.runtime.operator.operands;
 
+import java.util.Arrays;
+import javax.annotation.Nullable;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.runtime.blocks.ColumnarContainer;
+import org.roaringbitmap.RoaringBitmap;
 
 
 public class LiteralOperand implements TransformOperand {
@@ -36,8 +40,75 @@ public class LiteralOperand implements TransformOperand {
     return _resultType;
   }
 
+  @Nullable
+  public Object getValue() {
+    return _value;
+  }
+
   @Override
   public Object apply(Object[] row) {
     return _value;
   }
+
+  @Override
+  public boolean isColumnarSupported() {
+    return true;
+  }
+
+  @Override
+  public void applyColumnar(ColumnarContainer container, Object[] outputColumns, RoaringBitmap[] outputNullBitmaps,
+      int outputColId) {
+    int numRows = container.getNumRows();
+    Object column;
+    switch (_resultType.getStoredType()) {
+      case INT: {
+        int[] values = new int[numRows];
+        if (_value != null) {
+          Arrays.fill(values, ((Number) _value).intValue());
+        }
+        column = values;
+        break;
+      }
+      case LONG: {
+        long[] values = new long[numRows];
+        if (_value != null) {
+          Arrays.fill(values, ((Number) _value).longValue());
+        }
+        column = values;
+        break;
+      }
+      case FLOAT: {
+        float[] values = new float[numRows];
+        if (_value != null) {
+          Arrays.fill(values, ((Number) _value).floatValue());
+        }
+        column = values;
+        break;
+      }
+      case DOUBLE: {
+        double[] values = new double[numRows];
+        if (_value != null) {
+          Arrays.fill(values, ((Number) _value).doubleValue());
+        }
+        column = values;
+        break;
+      }
+      default: {
+        Object[] values = new Object[numRows];
+        if (_value != null) {
+          Arrays.fill(values, _value);
+        }
+        column = values;
+        break;
+      }
+    }
+    outputColumns[outputColId] = column;
+    if (_value == null && numRows > 0) {
+      RoaringBitmap nullBitmap = new RoaringBitmap();
+      nullBitmap.add(0L, numRows);
+      outputNullBitmaps[outputColId] = nullBitmap;
+    } else {
+      outputNullBitmaps[outputColId] = null;
+    }
+  }
 }
@@ -21,6 +21,8 @@ package org.apache.pinot.query.runtime.operator.operands;
 import javax.annotation.Nullable;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.query.runtime.blocks.ColumnarContainer;
+import org.roaringbitmap.RoaringBitmap;
 
 
 public class ReferenceOperand implements TransformOperand {
@@ -37,9 +39,26 @@ public class ReferenceOperand implements TransformOperand {
     return _resultType;
   }
 
+  public int getIndex() {
+    return _index;
+  }
+
   @Nullable
   @Override
   public Object apply(Object[] row) {
     return row[_index];
   }
+
+  @Override
+  public boolean isColumnarSupported() {
+    return true;
+  }
+
+  @Override
+  public void applyColumnar(ColumnarContainer container, Object[] outputColumns, RoaringBitmap[] outputNullBitmaps,
+      int outputColId) {
+    // The column arrays are immutable, so they can be shared without copying
+    outputColumns[outputColId] = container.getColumn(_index);
+    outputNullBitmaps[outputColId] = container.getNullBitmap(_index);
+  }
 }
@@ -20,6 +20,8 @@ package org.apache.pinot.query.runtime.operator.operands;
 
 import javax.annotation.Nullable;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.query.runtime.blocks.ColumnarContainer;
+import org.roaringbitmap.RoaringBitmap;
 
 
 public interface TransformOperand {
@@ -28,4 +30,23 @@ public interface TransformOperand {
 
   @Nullable
   Object apply(Object[] row);
+
+  /**
+   * Returns whether the operand can be evaluated column-wise with
+   * {@link #applyColumnar(ColumnarContainer, Object[], RoaringBitmap[], int)}. Operands not supporting it must be
+   * evaluated row by row with {@link #apply(Object[])}.
+   */
+  default boolean isColumnarSupported() {
+    return false;
+  }
+
+  /**
+   * Evaluates the operand over all the rows of the given container, and puts the result column (backed by the array
+   * type of the stored type of {@link #getResultType()}, see {@link ColumnarContainer}) and its null bitmap into the
+   * output arrays at the given index.
+   */
+  default void applyColumnar(ColumnarContainer container, Object[] outputColumns, RoaringBitmap[] outputNullBitmaps,
+      int outputColId) {
+    throw new UnsupportedOperationException("Columnar evaluation is not supported by: " + getClass().getSimpleName());
+  }
 }
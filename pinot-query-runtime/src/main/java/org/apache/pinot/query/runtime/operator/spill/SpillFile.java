@@ -0,0 +1,237 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.spill;
+
+import com.google.common.base.Preconditions;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datablock.DataBlockUtils;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.common.datablock.DataBlockBuilder;
+import org.apache.pinot.core.util.DataBlockExtractUtils;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.utils.CommonConstants;
+
+
+/**
+ * The {@code SpillFile} is an append-only local file holding rows serialized as {@link DataBlock}s. It is used by the
+ * multi-stage operators to move intermediate state to disk once their in-memory budget is exceeded.
+ * <p>Rows are buffered on heap and written as a row data block every {@code maxRowsPerBlock} rows. Each block is
+ * prefixed with its serialized size so that the file can be read back sequentially from a memory mapped
+ * {@link PinotDataBuffer} once {@link #finish()} is called.
+ * <p>The underlying file is deleted when the {@code SpillFile} is closed. This class is not thread-safe.
+ */
+public class SpillFile implements Closeable {
+  public static final int DEFAULT_MAX_ROWS_PER_BLOCK = 10_000;
+  private static final String FILE_SUFFIX = ".spill";
+
+  private final File _file;
+  private final DataSchema _dataSchema;
+  private final int _maxRowsPerBlock;
+  private final FileChannel _fileChannel;
+
+  private List<Object[]> _bufferedRows;
+  private long _numRows;
+  private long _sizeInBytes;
+  private boolean _finished;
+  private boolean _closed;
+  @Nullable
+  private PinotDataBuffer _dataBuffer;
+
+  public SpillFile(File spillDir, String prefix, DataSchema dataSchema)
+      throws IOException {
+    this(spillDir, prefix, dataSchema, DEFAULT_MAX_ROWS_PER_BLOCK);
+  }
+
+  public SpillFile(File spillDir, String prefix, DataSchema dataSchema, int maxRowsPerBlock)
+      throws IOException {
+    FileUtils.forceMkdir(spillDir);
+    _file = File.createTempFile(prefix, FILE_SUFFIX, spillDir);
+    _dataSchema = dataSchema;
+    _maxRowsPerBlock = maxRowsPerBlock;
+    _fileChannel = FileChannel.open(_file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    _bufferedRows = new ArrayList<>();
+  }
+
+  /**
+   * Returns the directory to spill into based on the op-chain metadata, falling back to the JVM temporary directory
+   * when the server does not configure one.
+   */
+  public static File getSpillDir(Map<String, String> opChainMetadata) {
+    String spillDir = opChainMetadata.get(CommonConstants.MultiStageQueryRunner.KEY_OF_SPILL_DIR);
+    return spillDir != null ? new File(spillDir)
+        : new File(FileUtils.getTempDirectory(), CommonConstants.MultiStageQueryRunner.DEFAULT_SPILL_DIR_NAME);
+  }
+
+  public DataSchema getDataSchema() {
+    return _dataSchema;
+  }
+
+  public long getNumRows() {
+    return _numRows;
+  }
+
+  public long getSizeInBytes() {
+    return _sizeInBytes;
+  }
+
+  public void add(Object[] row)
+      throws IOException {
+    Preconditions.checkState(!_finished, "Cannot add rows to a finished spill file: %s", _file);
+    _bufferedRows.add(row);
+    _numRows++;
+    if (_bufferedRows.size() >= _maxRowsPerBlock) {
+      flush();
+    }
+  }
+
+  public void addAll(List<Object[]> rows)
+      throws IOException {
+    for (Object[] row : rows) {
+      add(row);
+    }
+  }
+
+  /**
+   * Flushes the buffered rows and seals the file. No more rows can be added after this call.
+   */
+  public void finish()
+      throws IOException {
+    if (_finished) {
+      return;
+    }
+    flush();
+    _fileChannel.close();
+    _bufferedRows = null;
+    _finished = true;
+  }
+
+  /**
+   * Returns a reader over the blocks of the file, in the order they were written. The file must be finished.
+   * <p>Only one reader can be opened for a given {@code SpillFile}.
+   */
+  public Reader read()
+      throws IOException {
+    Preconditions.checkState(_finished, "Spill file must be finished before being read: %s", _file);
+    Preconditions.checkState(_dataBuffer == null, "Spill file is already being read: %s", _file);
+    if (_sizeInBytes > 0) {
+      _dataBuffer = PinotDataBuffer.mapFile(_file, true, 0, _sizeInBytes, ByteOrder.BIG_ENDIAN,
+          "Spill file: " + _file.getName());
+    }
+    return new Reader(_dataBuffer);
+  }
+
+  private void flush()
+      throws IOException {
+    if (_bufferedRows.isEmpty()) {
+      return;
+    }
+    List<ByteBuffer> serialized = DataBlockUtils.serialize(DataBlockBuilder.buildFromRows(_bufferedRows, _dataSchema));
+    _bufferedRows.clear();
+    int size = 0;
+    for (ByteBuffer byteBuffer : serialized) {
+      size += byteBuffer.remaining();
+    }
+    ByteBuffer[] buffers = new ByteBuffer[serialized.size() + 1];
+    buffers[0] = ByteBuffer.allocate(Integer.BYTES).putInt(0, size);
+    for (int i = 0; i < serialized.size(); i++) {
+      buffers[i + 1] = serialized.get(i);
+    }
+    long remaining = Integer.BYTES + (long) size;
+    while (remaining > 0) {
+      remaining -= _fileChannel.write(buffers);
+    }
+    _sizeInBytes += Integer.BYTES + (long) size;
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    if (_closed) {
+      return;
+    }
+    _closed = true;
+    try {
+      if (!_finished) {
+        _fileChannel.close();
+        _bufferedRows = null;
+      }
+      if (_dataBuffer != null) {
+        _dataBuffer.close();
+        _dataBuffer = null;
+      }
+    } finally {
+      FileUtils.deleteQuietly(_file);
+    }
+  }
+
+  /**
+   * Sequential reader over the blocks of a {@link SpillFile}. The memory mapped buffer is owned by the spill file and
+   * released when the spill file is closed.
+   */
+  public static class Reader {
+    @Nullable
+    private final PinotDataBuffer _dataBuffer;
+    private final long _size;
+    private long _offset;
+
+    private Reader(@Nullable PinotDataBuffer dataBuffer) {
+      _dataBuffer = dataBuffer;
+      _size = dataBuffer != null ? dataBuffer.size() : 0;
+    }
+
+    /**
+     * Returns the rows of the next block, or {@code null} if all the blocks have been read.
+     */
+    @Nullable
+    public List<Object[]> nextBlock()
+        throws IOException {
+      DataBlock dataBlock = nextDataBlock();
+      return dataBlock != null ? DataBlockExtractUtils.extractRows(dataBlock) : null;
+    }
+
+    /**
+     * Returns the next block without extracting its rows, or {@code null} if all the blocks have been read. The
+     * returned block is backed by the memory mapped file and must not be used after the spill file is closed.
+     */
+    @Nullable
+    public DataBlock nextDataBlock()
+        throws IOException {
+      if (_offset >= _size) {
+        return null;
+      }
+      assert _dataBuffer != null;
+      int size = _dataBuffer.getInt(_offset);
+      long start = _offset + Integer.BYTES;
+      _offset = start + size;
+      return DataBlockUtils.deserialize(_dataBuffer.view(start, _offset));
+    }
+  }
+}
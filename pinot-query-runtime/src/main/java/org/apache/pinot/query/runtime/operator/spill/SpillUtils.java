@@ -0,0 +1,41 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.spill;
+
+import java.io.IOException;
+import org.apache.pinot.common.exception.QueryException;
+import org.apache.pinot.common.response.ProcessingException;
+
+
+public class SpillUtils {
+  private SpillUtils() {
+  }
+
+  /**
+   * Returns the exception to throw when an operator fails to spill to or read back from disk. The {@link IOException}
+   * is kept as the cause so that its stack trace is not lost.
+   */
+  public static ProcessingException spillException(String operatorName, IOException e) {
+    ProcessingException processingException = new ProcessingException(QueryException.QUERY_EXECUTION_ERROR_CODE);
+    processingException.setMessage(
+        "Caught exception while spilling " + operatorName + " operator to disk: " + e.getMessage());
+    processingException.initCause(e);
+    return processingException;
+  }
+}
@@ -155,6 +155,22 @@ public abstract class BlockingMultiStreamConsumer<E> implements AutoCloseable {
     }
   }
 
+  /**
+   * Reads the next block for any ready mailbox, or returns {@code null} if none of them is ready. Contrary to
+   * {@link #readBlockBlocking()}, the calling thread is never blocked, and the caller is expected to call this method
+   * again after {@link #onData()} is notified.
+   *
+   * The same sequential read semantic as {@link #readBlockBlocking()} applies, and the timeout error is returned when
+   * the deadline is reached.
+   */
+  @Nullable
+  public E readBlockNonBlocking() {
+    if (LOGGER.isTraceEnabled()) {
+      LOGGER.trace("==[RECEIVE]== Enter non-blocking read from: " + _id + " mailboxSize: " + _mailboxes.size());
+    }
+    return readDroppingSuccessEos();
+  }
+
   /**
    * This is a utility method that reads tries to read from the different mailboxes in a circular manner.
    *
@@ -235,14 +251,34 @@ public abstract class BlockingMultiStreamConsumer<E> implements AutoCloseable {
 
   public static class OfTransferableBlock extends BlockingMultiStreamConsumer<TransferableBlock> {
 
+    private final OpChainExecutionContext _context;
     private final MultiStageQueryStats _stats;
 
     public OfTransferableBlock(OpChainExecutionContext context,
         List<? extends AsyncStream<TransferableBlock>> asyncProducers) {
       super(context.getId(), context.getDeadlineMs(), asyncProducers);
+      _context = context;
       _stats = MultiStageQueryStats.emptyStats(context.getStageId());
     }
 
+    /**
+     * Reads the next block, or returns a yield block when yield is enabled for the op-chain and none of the mailboxes
+     * is ready.
+     */
+    public TransferableBlock readBlock() {
+      if (!_context.isYieldEnabled()) {
+        return readBlockBlocking();
+      }
+      TransferableBlock block = readBlockNonBlocking();
+      return block != null ? block : TransferableBlockUtils.getYieldTransferableBlock();
+    }
+
+    @Override
+    public void onData() {
+      super.onData();
+      _context.notifyDataAvailable();
+    }
+
     @Override
     protected boolean isError(TransferableBlock element) {
       return element.isErrorBlock();
@@ -52,6 +52,10 @@ public class OpChainExecutionContext {
   private final ThreadExecutionContext _parentContext;
 
   private ServerPlanRequestContext _leafStageContext;
+  // Set by the cooperative scheduler before the op-chain starts running. When set, operators return a yield block
+  // instead of blocking on their inputs/outputs, and call it when they are ready to make progress again.
+  @Nullable
+  private volatile Runnable _onDataAvailable;
 
   public OpChainExecutionContext(MailboxService mailboxService, long requestId, long deadlineMs,
       Map<String, String> opChainMetadata, StageMetadata stageMetadata, WorkerMetadata workerMetadata,
@@ -131,4 +135,28 @@ public class OpChainExecutionContext {
   public ThreadExecutionContext getParentContext() {
     return _parentContext;
   }
+
+  /**
+   * Enables yielding for the op-chain, where {@code onDataAvailable} is called whenever a yielded op-chain might be
+   * able to make progress (e.g. new block arrives in the receiving mailboxes, or the sending mailboxes are drained).
+   * Must be called before the op-chain starts running.
+   */
+  public void enableYield(Runnable onDataAvailable) {
+    _onDataAvailable = onDataAvailable;
+  }
+
+  /**
+   * Returns whether the operators should return a yield block instead of blocking the thread when they cannot make
+   * progress.
+   */
+  public boolean isYieldEnabled() {
+    return _onDataAvailable != null;
+  }
+
+  public void notifyDataAvailable() {
+    Runnable onDataAvailable = _onDataAvailable;
+    if (onDataAvailable != null) {
+      onDataAvailable.run();
+    }
+  }
 }
@@ -45,6 +45,9 @@ public class PipelineBreakerOperator extends MultiStageOperator {
   private final Map<Integer, Operator<TransferableBlock>> _workerMap;
 
   private Map<Integer, List<TransferableBlock>> _resultMap;
+  // Workers that haven't returned EOS yet, initialized on the first call so that the reading is resumed after a yield
+  @Nullable
+  private Queue<Map.Entry<Integer, Operator<TransferableBlock>>> _pendingWorkers;
   private TransferableBlock _errorBlock;
   @Nullable
   private MultiStageQueryStats _queryStats = null;
@@ -106,10 +109,21 @@ public class PipelineBreakerOperator extends MultiStageOperator {
       return _errorBlock;
     }
     // NOTE: Put an empty list for each worker in case there is no data block returned from that worker
+    if (_pendingWorkers == null) {
+      if (_workerMap.size() == 1) {
+        _resultMap = Collections.singletonMap(_workerMap.keySet().iterator().next(), new ArrayList<>());
+      } else {
+        _resultMap = new HashMap<>();
+        for (int workerKey : _workerMap.keySet()) {
+          _resultMap.put(workerKey, new ArrayList<>());
+        }
+      }
+      _pendingWorkers = new ArrayDeque<>(_workerMap.entrySet());
+    }
     if (_workerMap.size() == 1) {
-      Map.Entry<Integer, Operator<TransferableBlock>> entry = _workerMap.entrySet().iterator().next();
-      List<TransferableBlock> dataBlocks = new ArrayList<>();
-      _resultMap = Collections.singletonMap(entry.getKey(), dataBlocks);
+      Map.Entry<Integer, Operator<TransferableBlock>> entry = _pendingWorkers.peek();
+      assert entry != null;
+      List<TransferableBlock> dataBlocks = _resultMap.get(entry.getKey());
       Operator<TransferableBlock> operator = entry.getValue();
       TransferableBlock block = operator.nextBlock();
       while (!block.isSuccessfulEndOfStreamBlock()) {
@@ -117,27 +131,34 @@ public class PipelineBreakerOperator extends MultiStageOperator {
           _errorBlock = block;
           return block;
         }
+        if (block.isYieldBlock()) {
+          return block;
+        }
         dataBlocks.add(block);
         block = operator.nextBlock();
       }
       _queryStats = block.getQueryStats();
     } else {
-      _resultMap = new HashMap<>();
-      for (int workerKey : _workerMap.keySet()) {
-        _resultMap.put(workerKey, new ArrayList<>());
-      }
-      // Keep polling from every operator in round-robin fashion
-      Queue<Map.Entry<Integer, Operator<TransferableBlock>>> entries = new ArrayDeque<>(_workerMap.entrySet());
-      while (!entries.isEmpty()) {
-        Map.Entry<Integer, Operator<TransferableBlock>> entry = entries.poll();
+      // Keep polling from every operator in round-robin fashion, and only yield when all the pending operators yielded
+      int numYieldedWorkers = 0;
+      while (!_pendingWorkers.isEmpty()) {
+        Map.Entry<Integer, Operator<TransferableBlock>> entry = _pendingWorkers.poll();
         TransferableBlock block = entry.getValue().nextBlock();
         if (block.isErrorBlock()) {
           _errorBlock = block;
           return block;
         }
+        if (block.isYieldBlock()) {
+          _pendingWorkers.offer(entry);
+          if (++numYieldedWorkers == _pendingWorkers.size()) {
+            return block;
+          }
+          continue;
+        }
+        numYieldedWorkers = 0;
         if (block.isDataBlock()) {
           _resultMap.get(entry.getKey()).add(block);
-          entries.offer(entry);
+          _pendingWorkers.offer(entry);
         } else if (block.isSuccessfulEndOfStreamBlock()) {
           MultiStageQueryStats queryStats = block.getQueryStats();
           assert queryStats != null;
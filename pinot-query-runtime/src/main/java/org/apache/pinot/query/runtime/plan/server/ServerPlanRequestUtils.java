@@ -27,6 +27,7 @@ import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.apache.helix.HelixManager;
 import org.apache.helix.store.zk.ZkHelixPropertyStore;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
@@ -70,6 +71,8 @@ public class ServerPlanRequestUtils {
   }
 
   private static final int DEFAULT_LEAF_NODE_LIMIT = Integer.MAX_VALUE;
+  // Max number of distinct values in the IN filter of a runtime filter, over which a range filter is used instead
+  private static final int MAX_RUNTIME_FILTER_IN_VALUES = 10_000;
   private static final List<String> QUERY_REWRITERS_CLASS_NAMES =
       ImmutableList.of(PredicateComparisonRewriter.class.getName(),
           NonAggregationGroupByToDistinctQueryRewriter.class.getName());
@@ -253,15 +256,23 @@ public class ServerPlanRequestUtils {
 
   /**
    * attach the dynamic filter to the given PinotQuery.
+   * <p>For runtime filter, the filter is allowed to match more rows than the right keys because the join is still
+   * performed after the leaf stage: the IN filter is replaced with a range filter when there are too many distinct
+   * values, and the filter on a key is skipped when it cannot be computed.
    */
   static void attachDynamicFilter(PinotQuery pinotQuery, List<Integer> leftKeys, List<Integer> rightKeys,
-      List<Object[]> dataContainer, DataSchema dataSchema) {
+      List<Object[]> dataContainer, DataSchema dataSchema, boolean isRuntimeFilter) {
     List<Expression> expressions = new ArrayList<>();
     for (int i = 0; i < leftKeys.size(); i++) {
       Expression leftExpr = pinotQuery.getSelectList().get(leftKeys.get(i));
       if (dataContainer.isEmpty()) {
         // put a constant false expression
         expressions.add(RequestUtils.getLiteralExpression(false));
+      } else if (isRuntimeFilter) {
+        Expression runtimeFilter = computeRuntimeFilter(leftExpr, dataContainer, dataSchema, rightKeys.get(i));
+        if (runtimeFilter != null) {
+          expressions.add(runtimeFilter);
+        }
       } else {
         int rightIdx = rightKeys.get(i);
         List<Expression> operands = new ArrayList<>(dataContainer.size() + 1);
@@ -274,6 +285,9 @@ public class ServerPlanRequestUtils {
     if (filterExpression != null) {
       expressions.add(filterExpression);
     }
+    if (expressions.isEmpty()) {
+      return;
+    }
     if (expressions.size() > 1) {
       pinotQuery.setFilterExpression(RequestUtils.getFunctionExpression(FilterKind.AND.name(), expressions));
     } else {
@@ -281,6 +295,45 @@ public class ServerPlanRequestUtils {
     }
   }
 
+  /**
+   * Computes the runtime filter on the left key from the distinct right key values. Returns {@code null} when the
+   * right key contains null (null keys might match based on the null handling), or is of unsupported type.
+   */
+  @Nullable
+  private static Expression computeRuntimeFilter(Expression leftExpr, List<Object[]> dataContainer,
+      DataSchema dataSchema, int colIdx) {
+    switch (dataSchema.getColumnDataType(colIdx).getStoredType().toDataType()) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+      case STRING:
+        break;
+      default:
+        return null;
+    }
+    Map<Object, Object[]> distinctRows = new HashMap<>();
+    for (Object[] row : dataContainer) {
+      Object value = row[colIdx];
+      if (value == null) {
+        return null;
+      }
+      distinctRows.putIfAbsent(value, row);
+    }
+    // NOTE: The operands are sorted by the values
+    List<Expression> values = computeInOperands(new ArrayList<>(distinctRows.values()), dataSchema, colIdx);
+    int numValues = values.size();
+    if (numValues <= MAX_RUNTIME_FILTER_IN_VALUES) {
+      List<Expression> operands = new ArrayList<>(numValues + 1);
+      operands.add(leftExpr);
+      operands.addAll(values);
+      return RequestUtils.getFunctionExpression(FilterKind.IN.name(), operands);
+    }
+    // Too many values for an IN filter, filter on the range of the values instead
+    return RequestUtils.getFunctionExpression(FilterKind.BETWEEN.name(), leftExpr, values.get(0),
+        values.get(numValues - 1));
+  }
+
   private static List<Expression> computeInOperands(List<Object[]> dataContainer, DataSchema dataSchema, int colIdx) {
     final DataSchema.ColumnDataType columnDataType = dataSchema.getColumnDataType(colIdx);
     final FieldSpec.DataType storedType = columnDataType.getStoredType().toDataType();
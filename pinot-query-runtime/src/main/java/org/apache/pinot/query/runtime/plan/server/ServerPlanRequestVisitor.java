@@ -22,6 +22,8 @@ import com.google.common.base.Preconditions;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
 import org.apache.pinot.calcite.rel.logical.PinotRelExchangeType;
 import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.request.DataSource;
@@ -127,7 +129,7 @@ public class ServerPlanRequestVisitor implements PlanNodeVisitor<Void, ServerPla
 
   @Override
   public Void visitJoin(JoinNode node, ServerPlanRequestContext context) {
-    // We can reach here for dynamic broadcast SEMI join and lookup join.
+    // We can reach here for dynamic broadcast SEMI join (including the one added for runtime filter) and lookup join.
     List<PlanNode> inputs = node.getInputs();
     PlanNode left = inputs.get(0);
     PlanNode right = inputs.get(1);
@@ -149,7 +151,7 @@ public class ServerPlanRequestVisitor implements PlanNodeVisitor<Void, ServerPla
           }
         }
         ServerPlanRequestUtils.attachDynamicFilter(context.getPinotQuery(), node.getLeftKeys(), node.getRightKeys(),
-            resultDataContainer, dataSchema);
+            resultDataContainer, dataSchema, isRuntimeFilter(node));
       }
     } else {
       // For lookup join, visit the right child and set it as the leaf boundary.
@@ -233,6 +235,12 @@ public class ServerPlanRequestVisitor implements PlanNodeVisitor<Void, ServerPla
     throw new UnsupportedOperationException("Leaf stage should not visit ExplainedNode!");
   }
 
+  private static boolean isRuntimeFilter(JoinNode node) {
+    Map<String, String> joinOptions = node.getNodeHint().getHintOptions().get(PinotHintOptions.JOIN_HINT_OPTIONS);
+    return joinOptions != null && Boolean.parseBoolean(
+        joinOptions.get(PinotHintOptions.JoinHintOptions.IS_RUNTIME_FILTER));
+  }
+
   private boolean visit(PlanNode node, ServerPlanRequestContext context) {
     node.visit(this, context);
     return context.getLeafStageBoundaryNode() == null;
@@ -0,0 +1,146 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.blocks;
+
+import java.math.BigDecimal;
+import java.util.List;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.common.datablock.DataBlockBuilder;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.roaringbitmap.RoaringBitmap;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+
+public class ColumnarContainerTest {
+  private static final DataSchema DATA_SCHEMA = new DataSchema(
+      new String[]{"intCol", "longCol", "floatCol", "doubleCol", "bigDecimalCol", "stringCol", "bytesCol", "boolCol"},
+      new ColumnDataType[]{
+          ColumnDataType.INT, ColumnDataType.LONG, ColumnDataType.FLOAT, ColumnDataType.DOUBLE,
+          ColumnDataType.BIG_DECIMAL, ColumnDataType.STRING, ColumnDataType.BYTES, ColumnDataType.BOOLEAN
+      });
+  private static final List<Object[]> ROWS = List.of(
+      new Object[]{1, 10L, 1.5f, 2.5, new BigDecimal("1.1"), "a", new ByteArray(new byte[]{1}), 1},
+      new Object[]{null, null, null, null, null, null, null, null},
+      new Object[]{3, 30L, 3.5f, 4.5, new BigDecimal("3.3"), "c", new ByteArray(new byte[]{3}), 0});
+
+  @Test
+  public void testFromRows() {
+    ColumnarContainer container = ColumnarContainer.fromRows(ROWS, DATA_SCHEMA);
+    validate(container);
+  }
+
+  @Test
+  public void testFromDataBlock()
+      throws Exception {
+    ColumnarContainer container = ColumnarContainer.fromDataBlock(DataBlockBuilder.buildFromRows(ROWS, DATA_SCHEMA));
+    validate(container);
+    DataSchema columnarSchema = new DataSchema(new String[]{"intCol", "longCol"},
+        new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.LONG});
+    container = ColumnarContainer.fromDataBlock(DataBlockBuilder.buildFromColumns(
+        List.of(new Object[]{1, null, 3}, new Object[]{10L, null, 30L}), columnarSchema));
+    assertEquals(container.getIntValues(0), new int[]{1, 0, 3});
+    assertEquals(container.getLongValues(1), new long[]{10L, 0L, 30L});
+    assertTrue(container.isNull(1, 0));
+    assertTrue(container.isNull(1, 1));
+  }
+
+  private static void validate(ColumnarContainer container) {
+    assertEquals(container.getNumRows(), 3);
+    assertTrue(container.getColumn(0) instanceof int[]);
+    assertTrue(container.getColumn(1) instanceof long[]);
+    assertTrue(container.getColumn(2) instanceof float[]);
+    assertTrue(container.getColumn(3) instanceof double[]);
+    assertTrue(container.getColumn(4) instanceof Object[]);
+    assertTrue(container.getColumn(7) instanceof int[]);
+    for (int colId = 0; colId < DATA_SCHEMA.size(); colId++) {
+      assertFalse(container.isNull(0, colId));
+      assertTrue(container.isNull(1, colId));
+      assertNull(container.getValue(1, colId));
+    }
+
+    // Values with the matching type are returned without copying
+    assertSame(container.getIntValues(0), container.getColumn(0));
+    assertEquals(container.getIntValues(0), new int[]{1, 0, 3});
+    assertEquals(container.getLongValues(0), new long[]{1L, 0L, 3L});
+    assertEquals(container.getDoubleValues(2), new double[]{1.5, 0.0, 3.5});
+    assertEquals(container.getIntValues(3), new int[]{2, 0, 4});
+    assertEquals(container.getDoubleValues(4), new double[]{1.1, 0.0, 3.3});
+
+    List<Object[]> rows = container.toRows();
+    assertEquals(rows.size(), ROWS.size());
+    for (int rowId = 0; rowId < rows.size(); rowId++) {
+      assertEquals(rows.get(rowId), ROWS.get(rowId));
+    }
+
+    ColumnarContainer selected = container.select(RoaringBitmap.bitmapOf(1, 2));
+    assertEquals(selected.getNumRows(), 2);
+    rows = selected.toRows();
+    assertEquals(rows.get(0), ROWS.get(1));
+    assertEquals(rows.get(1), ROWS.get(2));
+    selected = container.select(RoaringBitmap.bitmapOf(0, 2));
+    for (int colId = 0; colId < DATA_SCHEMA.size(); colId++) {
+      assertNull(selected.getNullBitmap(colId));
+    }
+  }
+
+  @Test
+  public void testBlockValSet() {
+    ColumnarContainer container = ColumnarContainer.fromRows(ROWS, DATA_SCHEMA);
+    ColumnarBlockValSet intValSet = new ColumnarBlockValSet(ColumnDataType.INT, container, 0);
+    assertSame(intValSet.getIntValuesSV(), container.getColumn(0));
+    assertEquals(intValSet.getNullBitmap(), RoaringBitmap.bitmapOf(1));
+    assertEquals(intValSet.getBigDecimalValuesSV()[2], BigDecimal.valueOf(3));
+    ColumnarBlockValSet bigDecimalValSet = new ColumnarBlockValSet(ColumnDataType.BIG_DECIMAL, container, 4);
+    assertEquals(bigDecimalValSet.getBigDecimalValuesSV()[0], new BigDecimal("1.1"));
+    assertEquals(bigDecimalValSet.getDoubleValuesSV()[2], 3.3);
+    ColumnarBlockValSet stringValSet = new ColumnarBlockValSet(ColumnDataType.STRING, container, 5);
+    assertEquals(stringValSet.getStringValuesSV()[2], "c");
+    ColumnarBlockValSet bytesValSet = new ColumnarBlockValSet(ColumnDataType.BYTES, container, 6);
+    assertEquals(bytesValSet.getBytesValuesSV()[0], new byte[]{1});
+  }
+
+  @Test
+  public void testTransferableBlock()
+      throws Exception {
+    TransferableBlock block = new TransferableBlock(DataBlockBuilder.buildFromRows(ROWS, DATA_SCHEMA));
+    assertTrue(block.isColumnarPreferred());
+    ColumnarContainer container = block.getColumnarContainer();
+    assertFalse(block.isContainerConstructed());
+    validate(container);
+
+    // Rows and data block are lazily built from the columnar container
+    block = new TransferableBlock(container);
+    assertEquals(block.getNumRows(), 3);
+    assertEquals(block.getDataSchema(), DATA_SCHEMA);
+    TransferableBlock serialized = new TransferableBlock(block.getDataBlock());
+    assertEquals(serialized.getNumRows(), 3);
+    List<Object[]> rows = serialized.getContainer();
+    for (int rowId = 0; rowId < rows.size(); rowId++) {
+      assertEquals(rows.get(rowId), ROWS.get(rowId));
+    }
+    assertFalse(serialized.isColumnarPreferred());
+  }
+}
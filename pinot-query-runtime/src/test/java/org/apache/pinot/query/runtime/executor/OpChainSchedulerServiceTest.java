@@ -20,6 +20,8 @@ package org.apache.pinot.query.runtime.executor;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -74,12 +76,16 @@ public class OpChainSchedulerServiceTest {
   }
 
   private OpChain getChain(MultiStageOperator operator) {
+    return getChain(operator, 123L, Long.MAX_VALUE);
+  }
+
+  private OpChain getChain(MultiStageOperator operator, long requestId, long deadlineMs) {
     MailboxService mailboxService = mock(MailboxService.class);
     when(mailboxService.getHostname()).thenReturn("localhost");
     when(mailboxService.getPort()).thenReturn(1234);
     WorkerMetadata workerMetadata = new WorkerMetadata(0, ImmutableMap.of(), ImmutableMap.of());
     OpChainExecutionContext context =
-        new OpChainExecutionContext(mailboxService, 123L, Long.MAX_VALUE, ImmutableMap.of(),
+        new OpChainExecutionContext(mailboxService, requestId, deadlineMs, ImmutableMap.of(),
             new StageMetadata(0, ImmutableList.of(workerMetadata), ImmutableMap.of()), workerMetadata, null, null);
     return new OpChain(context, operator);
   }
@@ -204,4 +210,138 @@ public class OpChainSchedulerServiceTest {
     Assert.assertTrue(cancelLatch.await(10, TimeUnit.SECONDS), "expected OpChain to be cancelled");
     Mockito.verify(_operatorA, Mockito.times(1)).cancel(Mockito.any());
   }
+
+  @Test
+  public void shouldResumeYieldedOpChainOnDataAvailable()
+      throws InterruptedException {
+    OpChain opChain = getChain(_operatorA);
+    OpChainSchedulerService schedulerService = new OpChainSchedulerService(_executor, 1);
+
+    CountDownLatch yieldLatch = new CountDownLatch(1);
+    CountDownLatch closeLatch = new CountDownLatch(1);
+    Mockito.when(_operatorA.nextBlock()).thenAnswer(inv -> {
+      yieldLatch.countDown();
+      return TransferableBlockUtils.getYieldTransferableBlock();
+    }).thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    Mockito.doAnswer(inv -> {
+      closeLatch.countDown();
+      return null;
+    }).when(_operatorA).close();
+
+    try {
+      schedulerService.register(opChain);
+      Assert.assertTrue(opChain.getContext().isYieldEnabled());
+      Assert.assertTrue(yieldLatch.await(10, TimeUnit.SECONDS), "op chain doesn't seem to be started");
+      // The yielded op chain must not be resumed until data is available
+      Assert.assertFalse(closeLatch.await(200, TimeUnit.MILLISECONDS), "op chain resumed without data");
+
+      opChain.getContext().notifyDataAvailable();
+
+      Assert.assertTrue(closeLatch.await(10, TimeUnit.SECONDS), "expected OpChain to be resumed and closed");
+      Mockito.verify(_operatorA, Mockito.times(2)).nextBlock();
+    } finally {
+      schedulerService.shutDown();
+    }
+  }
+
+  @Test
+  public void shouldResumeYieldedOpChainOnDeadline()
+      throws InterruptedException {
+    OpChain opChain = getChain(_operatorA, 123L, System.currentTimeMillis() + 200L);
+    OpChainSchedulerService schedulerService = new OpChainSchedulerService(_executor, 1);
+
+    CountDownLatch closeLatch = new CountDownLatch(1);
+    Mockito.when(_operatorA.nextBlock()).thenReturn(TransferableBlockUtils.getYieldTransferableBlock())
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    Mockito.doAnswer(inv -> {
+      closeLatch.countDown();
+      return null;
+    }).when(_operatorA).close();
+
+    try {
+      schedulerService.register(opChain);
+      Assert.assertTrue(closeLatch.await(10, TimeUnit.SECONDS), "expected OpChain to be resumed on deadline");
+    } finally {
+      schedulerService.shutDown();
+    }
+  }
+
+  @Test
+  public void shouldNotKeepFinishedOpChainsUntilDeadline()
+      throws InterruptedException {
+    YieldingOpChainScheduler scheduler = new YieldingOpChainScheduler();
+    OpChain opChain = getChain(_operatorA, 123L, System.currentTimeMillis() + 3_600_000L);
+    scheduler.register(opChain);
+    Assert.assertEquals(scheduler.getNumDeadlineQueueEntries(), 1);
+    Assert.assertSame(scheduler.next(10, TimeUnit.SECONDS), opChain);
+
+    scheduler.deregister(opChain);
+    Assert.assertEquals(scheduler.size(), 0);
+    Assert.assertEquals(scheduler.getNumDeadlineQueueEntries(), 0, "expected finished OpChain to be released");
+  }
+
+  @Test
+  public void shouldCallCancelOnYieldedOpChainsWhenItIsCancelledByDispatch()
+      throws InterruptedException {
+    OpChain opChain = getChain(_operatorA);
+    OpChainSchedulerService schedulerService = new OpChainSchedulerService(_executor, 1);
+
+    CountDownLatch yieldLatch = new CountDownLatch(1);
+    Mockito.when(_operatorA.nextBlock()).thenAnswer(inv -> {
+      yieldLatch.countDown();
+      return TransferableBlockUtils.getYieldTransferableBlock();
+    });
+    CountDownLatch cancelLatch = new CountDownLatch(1);
+    Mockito.doAnswer(inv -> {
+      cancelLatch.countDown();
+      return null;
+    }).when(_operatorA).cancel(Mockito.any());
+
+    try {
+      schedulerService.register(opChain);
+      Assert.assertTrue(yieldLatch.await(10, TimeUnit.SECONDS), "op chain doesn't seem to be started");
+
+      schedulerService.cancel(123);
+
+      Assert.assertTrue(cancelLatch.await(10, TimeUnit.SECONDS), "expected OpChain to be cancelled");
+      Mockito.verify(_operatorA, Mockito.times(1)).cancel(Mockito.any());
+    } finally {
+      schedulerService.shutDown();
+    }
+  }
+
+  @Test
+  public void shouldDriveManyYieldingOpChainsWithSingleWorker()
+      throws InterruptedException {
+    OpChainSchedulerService schedulerService = new OpChainSchedulerService(_executor, 1);
+    int numOpChains = 100;
+    CountDownLatch yieldLatch = new CountDownLatch(numOpChains);
+    CountDownLatch closeLatch = new CountDownLatch(numOpChains);
+    List<OpChain> opChains = new ArrayList<>(numOpChains);
+    try {
+      for (int i = 0; i < numOpChains; i++) {
+        MultiStageOperator operator = Mockito.mock(MultiStageOperator.class);
+        Mockito.when(operator.nextBlock()).thenAnswer(inv -> {
+          yieldLatch.countDown();
+          return TransferableBlockUtils.getYieldTransferableBlock();
+        }).thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+        Mockito.doAnswer(inv -> {
+          closeLatch.countDown();
+          return null;
+        }).when(operator).close();
+        OpChain opChain = getChain(operator, i, Long.MAX_VALUE);
+        opChains.add(opChain);
+        schedulerService.register(opChain);
+      }
+      // None of the op chains can block the single worker, so all of them get to yield, and are resumed once data is
+      // available
+      Assert.assertTrue(yieldLatch.await(10, TimeUnit.SECONDS), "expected all the OpChains to yield");
+      for (OpChain opChain : opChains) {
+        opChain.getContext().notifyDataAvailable();
+      }
+      Assert.assertTrue(closeLatch.await(10, TimeUnit.SECONDS), "expected all the OpChains to finish");
+    } finally {
+      schedulerService.shutDown();
+    }
+  }
 }
@@ -18,6 +18,8 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import org.apache.calcite.sql.SqlKind;
@@ -42,11 +44,13 @@ import static org.apache.pinot.common.utils.DataSchema.ColumnDataType.BOOLEAN;
 import static org.apache.pinot.common.utils.DataSchema.ColumnDataType.DOUBLE;
 import static org.apache.pinot.common.utils.DataSchema.ColumnDataType.INT;
 import static org.apache.pinot.common.utils.DataSchema.ColumnDataType.STRING;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 
@@ -265,6 +269,89 @@ public class AggregateOperatorTest {
         "num groups limit should be reached");
   }
 
+  @Test
+  public void shouldSpillGroupsWhenGroupLimitExceedWithSpillEnabled() {
+    // Given:
+    List<RexExpression.FunctionCall> aggCalls = List.of(getSum(new RexExpression.InputRef(1)));
+    List<Integer> filterArgs = List.of(-1);
+    List<Integer> groupKeys = List.of(0);
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.AGGREGATE_HINT_OPTIONS,
+        Map.of(PinotHintOptions.AggregateOptions.NUM_GROUPS_LIMIT, "2",
+            PinotHintOptions.AggregateOptions.ENABLE_SPILL, "true")));
+    DataSchema inSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{INT, DOUBLE});
+    when(_input.nextBlock()).thenReturn(OperatorTestUtil.block(inSchema, new Object[]{2, 1.0}, new Object[]{3, 2.0}))
+        .thenReturn(OperatorTestUtil.block(inSchema, new Object[]{3, 3.0}, new Object[]{1, 4.0}))
+        .thenReturn(OperatorTestUtil.block(inSchema, new Object[]{2, 5.0}, new Object[]{null, 6.0}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema = new DataSchema(new String[]{"group", "sum"}, new ColumnDataType[]{INT, DOUBLE});
+    AggregateOperator operator = getOperator(resultSchema, aggCalls, filterArgs, groupKeys, nodeHint);
+
+    // When:
+    List<Object[]> resultRows = new ArrayList<>();
+    TransferableBlock eosBlock = collectRows(operator, resultRows);
+
+    // Then:
+    verify(_input, never()).earlyTerminate();
+    assertEquals(resultRows.size(), 4);
+    assertEquals(resultRows.get(0), new Object[]{null, 6.0});
+    assertEquals(resultRows.get(1), new Object[]{1, 4.0});
+    assertEquals(resultRows.get(2), new Object[]{2, 6.0});
+    assertEquals(resultRows.get(3), new Object[]{3, 5.0});
+    StatMap<AggregateOperator.StatKey> statMap =
+        OperatorTestUtil.getStatMap(AggregateOperator.StatKey.class, eosBlock);
+    assertFalse(statMap.getBoolean(AggregateOperator.StatKey.NUM_GROUPS_LIMIT_REACHED));
+    assertTrue(statMap.getLong(AggregateOperator.StatKey.SPILLED_ROWS) >= 6);
+  }
+
+  @Test
+  public void shouldRepartitionSpilledGroupsWithObjectIntermediateResults() {
+    // Given:
+    List<RexExpression.FunctionCall> aggCalls = List.of(getSum(new RexExpression.InputRef(2)),
+        new RexExpression.FunctionCall(ColumnDataType.DOUBLE, "AVG", List.of(new RexExpression.InputRef(2))));
+    List<Integer> filterArgs = List.of(-1, -1);
+    List<Integer> groupKeys = List.of(0, 1);
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.AGGREGATE_HINT_OPTIONS,
+        Map.of(PinotHintOptions.AggregateOptions.NUM_GROUPS_LIMIT, "3",
+            PinotHintOptions.AggregateOptions.ENABLE_SPILL, "true")));
+    DataSchema inSchema =
+        new DataSchema(new String[]{"group1", "group2", "arg"}, new ColumnDataType[]{INT, STRING, DOUBLE});
+    int numGroups = 500;
+    List<Object[]> firstRows = new ArrayList<>();
+    List<Object[]> secondRows = new ArrayList<>();
+    for (int i = 0; i < numGroups; i++) {
+      firstRows.add(new Object[]{i, "key_" + i, (double) i});
+      secondRows.add(new Object[]{i, "key_" + i, (double) i + 2});
+    }
+    when(_input.nextBlock()).thenReturn(OperatorTestUtil.block(inSchema, firstRows.toArray(new Object[0][])))
+        .thenReturn(OperatorTestUtil.block(inSchema, secondRows.toArray(new Object[0][])))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema = new DataSchema(new String[]{"group1", "group2", "sum", "avg"},
+        new ColumnDataType[]{INT, STRING, DOUBLE, DOUBLE});
+    AggregateOperator operator = getOperator(resultSchema, aggCalls, filterArgs, groupKeys, nodeHint);
+
+    // When:
+    List<Object[]> resultRows = new ArrayList<>();
+    collectRows(operator, resultRows);
+
+    // Then:
+    assertEquals(resultRows.size(), numGroups);
+    for (int i = 0; i < numGroups; i++) {
+      assertEquals(resultRows.get(i), new Object[]{i, "key_" + i, 2.0 * i + 2, (double) i + 1});
+    }
+  }
+
+  private static TransferableBlock collectRows(AggregateOperator operator, List<Object[]> resultRows) {
+    TransferableBlock block = operator.nextBlock();
+    while (block.isDataBlock()) {
+      resultRows.addAll(block.getContainer());
+      block = operator.nextBlock();
+    }
+    assertTrue(block.isSuccessfulEndOfStreamBlock(), "expected EOS block to propagate");
+    operator.close();
+    resultRows.sort(Comparator.comparing(row -> (Integer) row[0], Comparator.nullsFirst(Comparator.naturalOrder())));
+    return block;
+  }
+
   private static RexExpression.FunctionCall getSum(RexExpression arg) {
     return new RexExpression.FunctionCall(ColumnDataType.INT, SqlKind.SUM.name(), List.of(arg));
   }
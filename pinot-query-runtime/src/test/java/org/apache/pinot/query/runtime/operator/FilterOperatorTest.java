@@ -23,6 +23,7 @@ import org.apache.calcite.sql.SqlKind;
 import org.apache.pinot.common.exception.QueryException;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.common.datablock.DataBlockBuilder;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.planner.plannode.FilterNode;
 import org.apache.pinot.query.planner.plannode.PlanNode;
@@ -202,6 +203,43 @@ public class FilterOperatorTest {
     assertEquals(resultRows.get(0), new Object[]{3, 2});
   }
 
+  @Test
+  public void shouldHandleColumnarFilter()
+      throws Exception {
+    DataSchema inputSchema = new DataSchema(new String[]{"int0", "long1", "str2"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.LONG, ColumnDataType.STRING
+    });
+    List<Object[]> rows = List.of(new Object[]{1, 10L, "a"}, new Object[]{2, null, "b"}, new Object[]{3, 30L, "c"},
+        new Object[]{null, 40L, "d"}, new Object[]{5, 50L, null});
+    // int0 > 1L AND 40 >= long1 (literal on the left side)
+    RexExpression.FunctionCall andCall = new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.AND.name(),
+        List.of(new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.GREATER_THAN.name(),
+                List.of(new RexExpression.InputRef(0), new RexExpression.Literal(ColumnDataType.LONG, 1L))),
+            new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.GREATER_THAN_OR_EQUAL.name(),
+                List.of(new RexExpression.Literal(ColumnDataType.INT, 40), new RexExpression.InputRef(1)))));
+    when(_input.nextBlock()).thenReturn(new TransferableBlock(DataBlockBuilder.buildFromRows(rows, inputSchema)));
+    TransferableBlock block = getOperator(inputSchema, andCall).nextBlock();
+    assertTrue(block.isColumnarContainerConstructed());
+    List<Object[]> resultRows = block.getContainer();
+    assertEquals(resultRows.size(), 1);
+    assertEquals(resultRows.get(0), new Object[]{3, 30L, "c"});
+
+    // str2 IS NOT TRUE over (str2 = 'b' OR str2 = 'd'), which also matches the null value
+    RexExpression.FunctionCall orCall = new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.OR.name(),
+        List.of(new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.EQUALS.name(),
+                List.of(new RexExpression.InputRef(2), new RexExpression.Literal(ColumnDataType.STRING, "b"))),
+            new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.EQUALS.name(),
+                List.of(new RexExpression.InputRef(2), new RexExpression.Literal(ColumnDataType.STRING, "d")))));
+    RexExpression.FunctionCall isNotTrueCall =
+        new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.IS_NOT_TRUE.name(), List.of(orCall));
+    when(_input.nextBlock()).thenReturn(new TransferableBlock(DataBlockBuilder.buildFromRows(rows, inputSchema)));
+    resultRows = getOperator(inputSchema, isNotTrueCall).nextBlock().getContainer();
+    assertEquals(resultRows.size(), 3);
+    assertEquals(resultRows.get(0), new Object[]{1, 10L, "a"});
+    assertEquals(resultRows.get(1), new Object[]{3, 30L, "c"});
+    assertEquals(resultRows.get(2), new Object[]{5, 50L, null});
+  }
+
   @Test
   public void shouldHandleBooleanFunction() {
     DataSchema inputSchema = new DataSchema(new String[]{"string1"}, new ColumnDataType[]{
@@ -18,6 +18,8 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import org.apache.calcite.rel.core.JoinRelType;
@@ -43,6 +45,7 @@ import org.testng.annotations.Test;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 
@@ -595,6 +598,252 @@ public class HashJoinOperatorTest {
         "Max rows in join should be reached");
   }
 
+  @Test
+  public void shouldSpillInnerJoinWhenHitDataRowsLimitOnRightInput() {
+    DataSchema leftSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    DataSchema rightSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    when(_leftInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(leftSchema, new Object[]{1, "Aa"}, new Object[]{2, "BB"}, new Object[]{3, "CC"}))
+        .thenReturn(OperatorTestUtil.block(leftSchema, new Object[]{4, "DD"}, new Object[]{5, "EE"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(rightSchema, new Object[]{1, "a"}, new Object[]{2, "b"}))
+        .thenReturn(OperatorTestUtil.block(rightSchema, new Object[]{3, "c"}, new Object[]{4, "d"}))
+        .thenReturn(OperatorTestUtil.block(rightSchema, new Object[]{6, "f"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema =
+        new DataSchema(new String[]{"int_col1", "string_col1", "int_col2", "string_col2"}, new ColumnDataType[]{
+            ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING
+        });
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.JOIN_HINT_OPTIONS,
+        Map.of(PinotHintOptions.JoinHintOptions.JOIN_OVERFLOW_MODE, "SPILL",
+            PinotHintOptions.JoinHintOptions.MAX_ROWS_IN_JOIN, "2")));
+    HashJoinOperator operator =
+        getOperator(leftSchema, resultSchema, JoinRelType.INNER, List.of(0), List.of(0), List.of(), nodeHint);
+    List<Object[]> resultRows = new ArrayList<>();
+    TransferableBlock eosBlock = collectRows(operator, resultRows);
+    assertEquals(resultRows.size(), 4);
+    assertEquals(resultRows.get(0), new Object[]{1, "Aa", 1, "a"});
+    assertEquals(resultRows.get(1), new Object[]{2, "BB", 2, "b"});
+    assertEquals(resultRows.get(2), new Object[]{3, "CC", 3, "c"});
+    assertEquals(resultRows.get(3), new Object[]{4, "DD", 4, "d"});
+    StatMap<HashJoinOperator.StatKey> statMap = OperatorTestUtil.getStatMap(HashJoinOperator.StatKey.class, eosBlock);
+    assertFalse(statMap.getBoolean(HashJoinOperator.StatKey.MAX_ROWS_IN_JOIN_REACHED));
+    assertTrue(statMap.getLong(HashJoinOperator.StatKey.SPILLED_ROWS) >= 10);
+  }
+
+  @Test
+  public void shouldSpillFullJoinWhenHitDataRowsLimitOnRightInput() {
+    DataSchema leftSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    DataSchema rightSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    when(_leftInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(leftSchema, new Object[]{1, "Aa"}, new Object[]{5, "EE"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(rightSchema, new Object[]{1, "a"}, new Object[]{2, "b"}, new Object[]{3, "c"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema =
+        new DataSchema(new String[]{"int_col1", "string_col1", "int_col2", "string_col2"}, new ColumnDataType[]{
+            ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING
+        });
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.JOIN_HINT_OPTIONS,
+        Map.of(PinotHintOptions.JoinHintOptions.JOIN_OVERFLOW_MODE, "SPILL",
+            PinotHintOptions.JoinHintOptions.MAX_ROWS_IN_JOIN, "2")));
+    HashJoinOperator operator =
+        getOperator(leftSchema, resultSchema, JoinRelType.FULL, List.of(0), List.of(0), List.of(), nodeHint);
+    List<Object[]> resultRows = new ArrayList<>();
+    collectRows(operator, resultRows);
+    assertEquals(resultRows.size(), 4);
+    assertEquals(resultRows.get(0), new Object[]{null, null, 2, "b"});
+    assertEquals(resultRows.get(1), new Object[]{null, null, 3, "c"});
+    assertEquals(resultRows.get(2), new Object[]{1, "Aa", 1, "a"});
+    assertEquals(resultRows.get(3), new Object[]{5, "EE", null, null});
+  }
+
+  @Test
+  public void shouldFailSpilledJoinWhenPartitionCannotBeSplit() {
+    DataSchema leftSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    DataSchema rightSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    when(_leftInput.nextBlock()).thenReturn(OperatorTestUtil.block(leftSchema, new Object[]{1, "Aa"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(rightSchema, new Object[]{1, "a"}, new Object[]{1, "b"}, new Object[]{1, "c"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema =
+        new DataSchema(new String[]{"int_col1", "string_col1", "int_col2", "string_col2"}, new ColumnDataType[]{
+            ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING
+        });
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.JOIN_HINT_OPTIONS,
+        Map.of(PinotHintOptions.JoinHintOptions.JOIN_OVERFLOW_MODE, "SPILL",
+            PinotHintOptions.JoinHintOptions.MAX_ROWS_IN_JOIN, "2")));
+    HashJoinOperator operator =
+        getOperator(leftSchema, resultSchema, JoinRelType.INNER, List.of(0), List.of(0), List.of(), nodeHint);
+    TransferableBlock block = operator.nextBlock();
+    operator.close();
+    assertTrue(block.isErrorBlock());
+    assertTrue(block.getExceptions().get(QueryException.SERVER_RESOURCE_LIMIT_EXCEEDED_ERROR_CODE)
+        .contains("levels of re-partitioning"));
+  }
+
+  @Test
+  public void shouldResumeAfterInputsYield() {
+    DataSchema leftSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    DataSchema rightSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    TransferableBlock yieldBlock = TransferableBlockUtils.getYieldTransferableBlock();
+    when(_leftInput.nextBlock()).thenReturn(yieldBlock)
+        .thenReturn(OperatorTestUtil.block(leftSchema, new Object[]{1, "Aa"}, new Object[]{2, "BB"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(OperatorTestUtil.block(rightSchema, new Object[]{2, "Aa"}))
+        .thenReturn(yieldBlock)
+        .thenReturn(OperatorTestUtil.block(rightSchema, new Object[]{3, "BB"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema =
+        new DataSchema(new String[]{"int_col1", "string_col1", "int_col2", "string_col2"}, new ColumnDataType[]{
+            ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING
+        });
+    HashJoinOperator operator =
+        getOperator(leftSchema, resultSchema, JoinRelType.INNER, List.of(1), List.of(1), List.of());
+    // Right input yields while building the hash table
+    assertTrue(operator.nextBlock().isYieldBlock());
+    // Left input yields while probing
+    assertTrue(operator.nextBlock().isYieldBlock());
+    List<Object[]> resultRows = operator.nextBlock().getContainer();
+    assertEquals(resultRows.size(), 2);
+    assertEquals(resultRows.get(0), new Object[]{1, "Aa", 2, "Aa"});
+    assertEquals(resultRows.get(1), new Object[]{2, "BB", 3, "BB"});
+    assertTrue(operator.nextBlock().isSuccessfulEndOfStreamBlock());
+  }
+
+  @Test
+  public void shouldEmitRowsBeforeRightInputFinishesInPipelinedInnerJoin() {
+    DataSchema leftSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    DataSchema rightSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    when(_leftInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(leftSchema, new Object[]{1, "Aa"}, new Object[]{2, "BB"}))
+        .thenReturn(OperatorTestUtil.block(leftSchema, new Object[]{3, "CC"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(OperatorTestUtil.block(rightSchema, new Object[]{1, "a"}))
+        .thenReturn(OperatorTestUtil.block(rightSchema, new Object[]{2, "b"}, new Object[]{3, "c"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema =
+        new DataSchema(new String[]{"int_col1", "string_col1", "int_col2", "string_col2"}, new ColumnDataType[]{
+            ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING
+        });
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.JOIN_HINT_OPTIONS,
+        Map.of(PinotHintOptions.JoinHintOptions.IS_PIPELINED, "true")));
+    HashJoinOperator operator =
+        getOperator(leftSchema, resultSchema, JoinRelType.INNER, List.of(0), List.of(0), List.of(), nodeHint);
+    // The first left block is joined with the first right block only
+    List<Object[]> resultRows = operator.nextBlock().getContainer();
+    Mockito.verify(_rightInput, Mockito.times(1)).nextBlock();
+    assertEquals(resultRows.size(), 1);
+    assertEquals(resultRows.get(0), new Object[]{1, "Aa", 1, "a"});
+    // The second right block is probed against the left rows received so far
+    resultRows = operator.nextBlock().getContainer();
+    assertEquals(resultRows.size(), 1);
+    assertEquals(resultRows.get(0), new Object[]{2, "BB", 2, "b"});
+    // The second left block is probed against the right rows received so far
+    resultRows = operator.nextBlock().getContainer();
+    assertEquals(resultRows.size(), 1);
+    assertEquals(resultRows.get(0), new Object[]{3, "CC", 3, "c"});
+    assertTrue(operator.nextBlock().isSuccessfulEndOfStreamBlock());
+  }
+
+  @Test
+  public void shouldEarlyTerminateRightInputInPipelinedSemiJoin() {
+    DataSchema leftSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    DataSchema rightSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    when(_leftInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(leftSchema, new Object[]{1, "Aa"}, new Object[]{2, "BB"}, new Object[]{4, "CC"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(OperatorTestUtil.block(rightSchema, new Object[]{2, "a"}))
+        .thenReturn(OperatorTestUtil.block(rightSchema, new Object[]{4, "b"}, new Object[]{4, "c"}))
+        .thenReturn(OperatorTestUtil.block(rightSchema, new Object[]{1, "d"}))
+        .thenReturn(OperatorTestUtil.block(rightSchema, new Object[]{1, "e"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema = new DataSchema(new String[]{"foo", "bar"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.JOIN_HINT_OPTIONS,
+        Map.of(PinotHintOptions.JoinHintOptions.IS_PIPELINED, "true")));
+    HashJoinOperator operator =
+        getOperator(leftSchema, resultSchema, JoinRelType.SEMI, List.of(0), List.of(0), List.of(), nodeHint);
+    List<Object[]> resultRows = operator.nextBlock().getContainer();
+    assertEquals(resultRows.size(), 1);
+    assertEquals(resultRows.get(0), new Object[]{2, "BB"});
+    // Pending left rows are emitted once a right row with the same key is received
+    resultRows = operator.nextBlock().getContainer();
+    assertEquals(resultRows.size(), 1);
+    assertEquals(resultRows.get(0), new Object[]{4, "CC"});
+    resultRows = operator.nextBlock().getContainer();
+    assertEquals(resultRows.size(), 1);
+    assertEquals(resultRows.get(0), new Object[]{1, "Aa"});
+    // All the left rows are emitted, the right input is no longer needed
+    Mockito.verify(_rightInput).earlyTerminate();
+    assertTrue(operator.nextBlock().isSuccessfulEndOfStreamBlock());
+  }
+
+  @Test
+  public void shouldEarlyTerminateLeftInputWhenRightInputIsEmptyInPipelinedJoin() {
+    DataSchema leftSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    when(_leftInput.nextBlock()).thenReturn(OperatorTestUtil.block(leftSchema, new Object[]{1, "Aa"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema =
+        new DataSchema(new String[]{"int_col1", "string_col1", "int_col2", "string_col2"}, new ColumnDataType[]{
+            ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING
+        });
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.JOIN_HINT_OPTIONS,
+        Map.of(PinotHintOptions.JoinHintOptions.IS_PIPELINED, "true")));
+    HashJoinOperator operator =
+        getOperator(leftSchema, resultSchema, JoinRelType.INNER, List.of(0), List.of(0), List.of(), nodeHint);
+    assertTrue(operator.nextBlock().isSuccessfulEndOfStreamBlock());
+    Mockito.verify(_leftInput).earlyTerminate();
+  }
+
+  /**
+   * Reads all the blocks from the operator into the given list sorted by the left then right int column, and returns
+   * the EOS block.
+   */
+  private static TransferableBlock collectRows(HashJoinOperator operator, List<Object[]> rows) {
+    TransferableBlock block = operator.nextBlock();
+    while (!block.isEndOfStreamBlock()) {
+      rows.addAll(block.getContainer());
+      block = operator.nextBlock();
+    }
+    operator.close();
+    assertTrue(block.isSuccessfulEndOfStreamBlock(), "Unexpected block: " + block.getExceptions());
+    rows.sort(Comparator.comparing((Object[] row) -> (Integer) row[0], Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(row -> (Integer) row[2], Comparator.nullsFirst(Comparator.naturalOrder())));
+    return block;
+  }
+
   private HashJoinOperator getOperator(DataSchema leftSchema, DataSchema resultSchema, JoinRelType joinType,
       List<Integer> leftKeys, List<Integer> rightKeys, List<RexExpression> nonEquiConditions,
       PlanNode.NodeHint nodeHint) {
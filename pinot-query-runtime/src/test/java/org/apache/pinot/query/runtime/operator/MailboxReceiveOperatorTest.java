@@ -229,9 +229,33 @@ public class MailboxReceiveOperatorTest {
     }
   }
 
+  @Test
+  public void shouldYieldWhenNoMailboxIsReady() {
+    when(_mailboxService.getReceivingMailbox(eq(MAILBOX_ID_1))).thenReturn(_mailbox1);
+    Object[] row = new Object[]{1, 1};
+    when(_mailbox1.poll()).thenReturn(null, OperatorTestUtil.block(DATA_SCHEMA, row), null,
+        TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    OpChainExecutionContext context =
+        OperatorTestUtil.getOpChainContext(_mailboxService, Long.MAX_VALUE, _stageMetadata1);
+    context.enableYield(() -> {
+    });
+    try (MailboxReceiveOperator operator = getOperator(context, RelDistribution.Type.SINGLETON)) {
+      assertTrue(operator.nextBlock().isYieldBlock());
+      List<Object[]> resultRows = operator.nextBlock().getContainer();
+      assertEquals(resultRows.size(), 1);
+      assertEquals(resultRows.get(0), row);
+      assertTrue(operator.nextBlock().isYieldBlock());
+      assertTrue(operator.nextBlock().isSuccessfulEndOfStreamBlock());
+    }
+  }
+
   private MailboxReceiveOperator getOperator(StageMetadata stageMetadata, RelDistribution.Type distributionType,
       long deadlineMs) {
-    OpChainExecutionContext context = OperatorTestUtil.getOpChainContext(_mailboxService, deadlineMs, stageMetadata);
+    return getOperator(OperatorTestUtil.getOpChainContext(_mailboxService, deadlineMs, stageMetadata),
+        distributionType);
+  }
+
+  private MailboxReceiveOperator getOperator(OpChainExecutionContext context, RelDistribution.Type distributionType) {
     MailboxReceiveNode node = mock(MailboxReceiveNode.class);
     when(node.getDistributionType()).thenReturn(distributionType);
     when(node.getSenderStageId()).thenReturn(1);
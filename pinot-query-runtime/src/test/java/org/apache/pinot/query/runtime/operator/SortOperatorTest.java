@@ -18,11 +18,14 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.calcite.rel.RelFieldCollation.Direction;
 import org.apache.calcite.rel.RelFieldCollation.NullDirection;
 import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.planner.plannode.SortNode;
@@ -30,6 +33,7 @@ import org.apache.pinot.query.routing.VirtualServerAddress;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockTestUtils;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.spi.utils.CommonConstants;
 import org.mockito.Mock;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -472,6 +476,96 @@ public class SortOperatorTest {
     assertTrue(operator.nextBlock().isSuccessfulEndOfStreamBlock(), "expected EOS block to propagate");
   }
 
+  @Test
+  public void shouldSpillSortedRunsWhenHitMaxRowsInSort() {
+    // Given:
+    DataSchema schema = new DataSchema(new String[]{"sort", "val"}, new DataSchema.ColumnDataType[]{INT, STRING});
+    when(_input.nextBlock()).thenReturn(block(schema, new Object[]{5, "e"}, new Object[]{1, "a"}, new Object[]{9, "i"}))
+        .thenReturn(block(schema, new Object[]{3, "c"}, new Object[]{null, "n"}, new Object[]{7, "g"}))
+        .thenReturn(block(schema, new Object[]{2, "b"}, new Object[]{8, "h"}))
+        .thenReturn(block(schema, new Object[]{6, "f"}, new Object[]{4, "d"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    List<RelFieldCollation> collations = List.of(new RelFieldCollation(0, Direction.ASCENDING, NullDirection.LAST));
+    SortOperator operator = getSpillingOperator(schema, collations, -1, 0, 3);
+
+    // When:
+    List<Object[]> resultRows = new ArrayList<>();
+    TransferableBlock eosBlock = collectRows(operator, resultRows);
+
+    // Then:
+    assertEquals(resultRows.size(), 10);
+    for (int i = 0; i < 9; i++) {
+      assertEquals(resultRows.get(i), new Object[]{i + 1, String.valueOf((char) ('a' + i))});
+    }
+    assertEquals(resultRows.get(9), new Object[]{null, "n"});
+    StatMap<SortOperator.StatKey> statMap = OperatorTestUtil.getStatMap(SortOperator.StatKey.class, eosBlock);
+    assertEquals(statMap.getLong(SortOperator.StatKey.SPILLED_ROWS), 10);
+  }
+
+  @Test
+  public void shouldApplyOffsetAndFetchAcrossSpilledRuns() {
+    // Given:
+    DataSchema schema = new DataSchema(new String[]{"sort"}, new DataSchema.ColumnDataType[]{INT});
+    when(_input.nextBlock()).thenReturn(block(schema, new Object[]{8}, new Object[]{1}, new Object[]{6}))
+        .thenReturn(block(schema, new Object[]{3}, new Object[]{7}, new Object[]{2}))
+        .thenReturn(block(schema, new Object[]{5}, new Object[]{4}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    List<RelFieldCollation> collations =
+        List.of(new RelFieldCollation(0, Direction.DESCENDING, NullDirection.FIRST));
+    SortOperator operator = getSpillingOperator(schema, collations, 4, 2, 2);
+
+    // When:
+    List<Object[]> resultRows = new ArrayList<>();
+    collectRows(operator, resultRows);
+
+    // Then:
+    assertEquals(resultRows.size(), 4);
+    assertEquals(resultRows.get(0), new Object[]{6});
+    assertEquals(resultRows.get(1), new Object[]{5});
+    assertEquals(resultRows.get(2), new Object[]{4});
+    assertEquals(resultRows.get(3), new Object[]{3});
+  }
+
+  @Test
+  public void shouldNotSpillWhenFetchFitsInMaxRowsInSort() {
+    // Given:
+    DataSchema schema = new DataSchema(new String[]{"sort"}, new DataSchema.ColumnDataType[]{INT});
+    when(_input.nextBlock()).thenReturn(block(schema, new Object[]{2}, new Object[]{1}, new Object[]{3}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    List<RelFieldCollation> collations = List.of(new RelFieldCollation(0, Direction.ASCENDING, NullDirection.LAST));
+    SortOperator operator = getSpillingOperator(schema, collations, 2, 0, 2);
+
+    // When:
+    List<Object[]> resultRows = new ArrayList<>();
+    TransferableBlock eosBlock = collectRows(operator, resultRows);
+
+    // Then:
+    assertEquals(resultRows.size(), 2);
+    assertEquals(resultRows.get(0), new Object[]{1});
+    assertEquals(resultRows.get(1), new Object[]{2});
+    StatMap<SortOperator.StatKey> statMap = OperatorTestUtil.getStatMap(SortOperator.StatKey.class, eosBlock);
+    assertEquals(statMap.getLong(SortOperator.StatKey.SPILLED_ROWS), 0);
+  }
+
+  private SortOperator getSpillingOperator(DataSchema schema, List<RelFieldCollation> collations, int fetch,
+      int offset, int maxRowsInSort) {
+    Map<String, String> opChainMetadata = Map.of(CommonConstants.Broker.Request.TRACE, "true",
+        CommonConstants.Broker.Request.QueryOptionKey.MAX_ROWS_IN_SORT, Integer.toString(maxRowsInSort));
+    return new SortOperator(OperatorTestUtil.getTracingContext(opChainMetadata), _input,
+        new SortNode(-1, schema, PlanNode.NodeHint.EMPTY, List.of(), collations, fetch, offset));
+  }
+
+  private static TransferableBlock collectRows(SortOperator operator, List<Object[]> resultRows) {
+    TransferableBlock block = operator.nextBlock();
+    while (block.isDataBlock()) {
+      resultRows.addAll(block.getContainer());
+      block = operator.nextBlock();
+    }
+    assertTrue(block.isSuccessfulEndOfStreamBlock(), "expected EOS block to propagate");
+    operator.close();
+    return block;
+  }
+
   private SortOperator getOperator(DataSchema schema, List<RelFieldCollation> collations, int fetch, int offset) {
     return new SortOperator(OperatorTestUtil.getTracingContext(), _input,
         new SortNode(-1, schema, PlanNode.NodeHint.EMPTY, List.of(), collations, fetch, offset));
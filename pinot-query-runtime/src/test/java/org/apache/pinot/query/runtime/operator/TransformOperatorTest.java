@@ -23,6 +23,7 @@ import org.apache.calcite.sql.SqlKind;
 import org.apache.pinot.common.exception.QueryException;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.common.datablock.DataBlockBuilder;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.planner.plannode.ProjectNode;
@@ -90,6 +91,27 @@ public class TransformOperatorTest {
     assertEquals(resultRows.get(1), new Object[]{1, "str"});
   }
 
+  @Test
+  public void shouldHandleColumnarRefAndLiteralTransform()
+      throws Exception {
+    DataSchema inputSchema = new DataSchema(new String[]{"intCol", "strCol", "doubleCol"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.DOUBLE
+    });
+    List<Object[]> rows = List.of(new Object[]{1, "a", 1.5}, new Object[]{null, "b", 2.5});
+    when(_input.nextBlock()).thenReturn(new TransferableBlock(DataBlockBuilder.buildFromRows(rows, inputSchema)));
+    DataSchema resultSchema = new DataSchema(new String[]{"doubleCol", "intCol", "longCol"},
+        new ColumnDataType[]{ColumnDataType.DOUBLE, ColumnDataType.INT, ColumnDataType.LONG});
+    List<RexExpression> projects = List.of(new RexExpression.InputRef(2), new RexExpression.InputRef(0),
+        new RexExpression.Literal(ColumnDataType.LONG, 7L));
+    TransferableBlock block = getOperator(inputSchema, resultSchema, projects).nextBlock();
+    assertTrue(block.isColumnarContainerConstructed());
+    assertEquals(block.getDataSchema(), resultSchema);
+    List<Object[]> resultRows = block.getContainer();
+    assertEquals(resultRows.size(), 2);
+    assertEquals(resultRows.get(0), new Object[]{1.5, 1, 7L});
+    assertEquals(resultRows.get(1), new Object[]{2.5, null, 7L});
+  }
+
   @Test
   public void shouldHandlePlusMinusFuncTransform() {
     DataSchema inputSchema = new DataSchema(new String[]{"doubleCol1", "doubleCol2"}, new ColumnDataType[]{
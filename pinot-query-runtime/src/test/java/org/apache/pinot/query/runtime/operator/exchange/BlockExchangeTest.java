@@ -165,6 +165,31 @@ public class BlockExchangeTest {
     Assert.assertEquals(sentBlocks.get(1).getContainer(), outBlockTwo.getContainer());
   }
 
+  @Test
+  public void shouldNotSplitBlocksForLocalMailbox()
+      throws Exception {
+    // Given:
+    Mockito.when(_mailbox1.isLocal()).thenReturn(true);
+    List<SendingMailbox> destinations = ImmutableList.of(_mailbox1);
+
+    DataSchema schema = new DataSchema(new String[]{"foo"}, new ColumnDataType[]{ColumnDataType.STRING});
+
+    TransferableBlock inBlock =
+        new TransferableBlock(ImmutableList.of(new Object[]{"one"}, new Object[]{"two"}), schema, DataBlock.Type.ROW);
+
+    BlockExchange exchange = new TestBlockExchange(destinations, (block, type, maxSize) -> {
+      throw new AssertionError("blocks sent to local mailboxes should not be split");
+    });
+
+    // When:
+    exchange.send(inBlock);
+
+    // Then:
+    ArgumentCaptor<TransferableBlock> captor = ArgumentCaptor.forClass(TransferableBlock.class);
+    Mockito.verify(_mailbox1, Mockito.times(1)).send(captor.capture());
+    Assert.assertSame(captor.getValue(), inBlock);
+  }
+
   private static class TestBlockExchange extends BlockExchange {
     protected TestBlockExchange(List<SendingMailbox> destinations) {
       this(destinations, (block, type, size) -> Iterators.singletonIterator(block));
@@ -19,7 +19,10 @@
 package org.apache.pinot.query.runtime.operator.exchange;
 
 import com.google.common.collect.ImmutableList;
+import java.util.List;
 import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.query.mailbox.SendingMailbox;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
@@ -72,4 +75,70 @@ public class BroadcastExchangeTest {
     Mockito.verify(_mailbox2, Mockito.times(1)).send(captor.capture());
     Assert.assertEquals(captor.getValue(), _block);
   }
+
+  @Test
+  public void shouldSplitOnceForRemoteMailboxes()
+      throws Exception {
+    // Given:
+    ImmutableList<SendingMailbox> destinations = ImmutableList.of(_mailbox1, _mailbox2);
+    TransferableBlock block = createRowBlock();
+
+    // When:
+    new BroadcastExchange(destinations, TransferableBlockUtils::splitBlock).route(destinations, block);
+
+    // Then:
+    ArgumentCaptor<TransferableBlock> captor1 = ArgumentCaptor.forClass(TransferableBlock.class);
+    Mockito.verify(_mailbox1, Mockito.times(1)).send(captor1.capture());
+    ArgumentCaptor<TransferableBlock> captor2 = ArgumentCaptor.forClass(TransferableBlock.class);
+    Mockito.verify(_mailbox2, Mockito.times(1)).send(captor2.capture());
+    Assert.assertNotSame(captor1.getValue(), block);
+    Assert.assertSame(captor1.getValue(), captor2.getValue());
+  }
+
+  @Test
+  public void shouldNotSplitForSingleLocalMailbox()
+      throws Exception {
+    // Given:
+    Mockito.when(_mailbox1.isLocal()).thenReturn(true);
+    ImmutableList<SendingMailbox> destinations = ImmutableList.of(_mailbox1, _mailbox2);
+    TransferableBlock block = createRowBlock();
+
+    // When:
+    new BroadcastExchange(destinations, TransferableBlockUtils::splitBlock).route(destinations, block);
+
+    // Then:
+    ArgumentCaptor<TransferableBlock> captor1 = ArgumentCaptor.forClass(TransferableBlock.class);
+    Mockito.verify(_mailbox1, Mockito.times(1)).send(captor1.capture());
+    Assert.assertSame(captor1.getValue(), block);
+    ArgumentCaptor<TransferableBlock> captor2 = ArgumentCaptor.forClass(TransferableBlock.class);
+    Mockito.verify(_mailbox2, Mockito.times(1)).send(captor2.capture());
+    Assert.assertNotSame(captor2.getValue(), block);
+  }
+
+  @Test
+  public void shouldSendSeparateBlocksToMultipleLocalMailboxes()
+      throws Exception {
+    // Given:
+    Mockito.when(_mailbox1.isLocal()).thenReturn(true);
+    Mockito.when(_mailbox2.isLocal()).thenReturn(true);
+    ImmutableList<SendingMailbox> destinations = ImmutableList.of(_mailbox1, _mailbox2);
+    TransferableBlock block = createRowBlock();
+
+    // When:
+    new BroadcastExchange(destinations, TransferableBlockUtils::splitBlock).route(destinations, block);
+
+    // Then:
+    ArgumentCaptor<TransferableBlock> captor1 = ArgumentCaptor.forClass(TransferableBlock.class);
+    Mockito.verify(_mailbox1, Mockito.times(1)).send(captor1.capture());
+    ArgumentCaptor<TransferableBlock> captor2 = ArgumentCaptor.forClass(TransferableBlock.class);
+    Mockito.verify(_mailbox2, Mockito.times(1)).send(captor2.capture());
+    Assert.assertNotSame(captor1.getValue(), captor2.getValue());
+    Assert.assertEquals(captor1.getValue().getNumRows(), 2);
+    Assert.assertEquals(captor2.getValue().getNumRows(), 2);
+  }
+
+  private static TransferableBlock createRowBlock() {
+    DataSchema schema = new DataSchema(new String[]{"col"}, new ColumnDataType[]{ColumnDataType.INT});
+    return new TransferableBlock(List.of(new Object[]{1}, new Object[]{2}), schema, DataBlock.Type.ROW);
+  }
 }
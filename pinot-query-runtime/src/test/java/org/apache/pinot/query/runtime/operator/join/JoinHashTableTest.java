@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.data.table.Key;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+
+public class JoinHashTableTest {
+
+  @DataProvider
+  public static Object[][] keyTypes() {
+    return new Object[][]{
+        {ColumnDataType.INT, IntJoinHashTable.class, new Object[]{1, 2, 3}},
+        {ColumnDataType.LONG, LongJoinHashTable.class, new Object[]{1L, 2L, 3L}},
+        {ColumnDataType.FLOAT, FloatJoinHashTable.class, new Object[]{1.5f, 2.5f, 3.5f}},
+        {ColumnDataType.DOUBLE, DoubleJoinHashTable.class, new Object[]{1.5, 2.5, 3.5}},
+        {ColumnDataType.STRING, ObjectJoinHashTable.class, new Object[]{"a", "b", "c"}}
+    };
+  }
+
+  @Test(dataProvider = "keyTypes")
+  public void testAddAndLookup(ColumnDataType keyType, Class<?> expectedClass, Object[] keys) {
+    JoinHashTable table =
+        JoinHashTableFactory.getJoinHashTable(new ColumnDataType[]{keyType}, new ColumnDataType[]{keyType});
+    assertEquals(table.getClass(), expectedClass);
+
+    // Rows 0 and 2 share the first key, row 1 has the second key, rows 3 and 4 have null keys
+    table.addRow(keys[0], new Object[]{keys[0], "r0"});
+    table.addRow(keys[1], new Object[]{keys[1], "r1"});
+    table.addRow(keys[0], new Object[]{keys[0], "r2"});
+    table.addRow(null, new Object[]{null, "r3"});
+    table.addRow(null, new Object[]{null, "r4"});
+    assertEquals(table.size(), 5);
+
+    assertEquals(getMatchingValues(table, keys[0]), List.of("r0", "r2"));
+    assertEquals(getMatchingValues(table, keys[1]), List.of("r1"));
+    assertEquals(getMatchingValues(table, null), List.of("r3", "r4"));
+    assertTrue(table.containsKey(keys[1]));
+    assertFalse(table.containsKey(keys[2]));
+    assertEquals(table.getFirstRowId(keys[2]), JoinHashTable.INVALID_ROW_ID);
+
+    table.clear();
+    assertTrue(table.isEmpty());
+    assertFalse(table.containsKey(keys[0]));
+    assertFalse(table.containsKey(null));
+    table.addRow(keys[2], new Object[]{keys[2], "r5"});
+    assertEquals(getMatchingValues(table, keys[2]), List.of("r5"));
+  }
+
+  @Test
+  public void testMultipleKeyColumns() {
+    ColumnDataType[] keyTypes = new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING};
+    JoinHashTable table = JoinHashTableFactory.getJoinHashTable(keyTypes, keyTypes);
+    assertEquals(table.getClass(), ObjectJoinHashTable.class);
+    table.addRow(new Key(new Object[]{1, "a"}), new Object[]{"r0", 1, "a"});
+    table.addRow(new Key(new Object[]{1, "b"}), new Object[]{"r1", 1, "b"});
+    assertEquals(table.getRow(table.getFirstRowId(new Key(new Object[]{1, "b"})))[0], "r1");
+    assertFalse(table.containsKey(new Key(new Object[]{2, "a"})));
+  }
+
+  @Test
+  public void testMismatchedKeyTypes() {
+    JoinHashTable table = JoinHashTableFactory.getJoinHashTable(new ColumnDataType[]{ColumnDataType.INT},
+        new ColumnDataType[]{ColumnDataType.LONG});
+    assertEquals(table.getClass(), ObjectJoinHashTable.class);
+  }
+
+  @Test
+  public void testManyRowsPerKey() {
+    JoinHashTable table = new IntJoinHashTable();
+    int numRows = 1000;
+    for (int i = 0; i < numRows; i++) {
+      table.addRow(i % 3, new Object[]{i % 3, i});
+    }
+    List<Object> values = new ArrayList<>();
+    for (int rowId = table.getFirstRowId(1); rowId != JoinHashTable.INVALID_ROW_ID; rowId = table.getNextRowId(rowId)) {
+      values.add(table.getRow(rowId)[1]);
+    }
+    assertEquals(values.size(), 333);
+    for (int i = 0; i < values.size(); i++) {
+      assertEquals(values.get(i), 3 * i + 1);
+    }
+  }
+
+  private static List<Object> getMatchingValues(JoinHashTable table, Object key) {
+    List<Object> values = new ArrayList<>();
+    for (int rowId = table.getFirstRowId(key); rowId != JoinHashTable.INVALID_ROW_ID;
+        rowId = table.getNextRowId(rowId)) {
+      values.add(table.getRow(rowId)[1]);
+    }
+    return values;
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.spill;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+
+public class SpillFileTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "SpillFileTest");
+  private static final DataSchema DATA_SCHEMA = new DataSchema(new String[]{"int_col", "string_col", "long_col"},
+      new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.LONG});
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+
+  @Test
+  public void testWriteAndRead()
+      throws Exception {
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      rows.add(new Object[]{i, "value_" + i, i % 3 == 0 ? null : (long) i * 1000});
+    }
+    try (SpillFile spillFile = new SpillFile(TEMP_DIR, "test_", DATA_SCHEMA, 10)) {
+      spillFile.addAll(rows);
+      spillFile.finish();
+      assertEquals(spillFile.getNumRows(), 25);
+      assertTrue(spillFile.getSizeInBytes() > 0);
+
+      SpillFile.Reader reader = spillFile.read();
+      List<Object[]> readRows = new ArrayList<>();
+      int numBlocks = 0;
+      List<Object[]> block;
+      while ((block = reader.nextBlock()) != null) {
+        readRows.addAll(block);
+        numBlocks++;
+      }
+      assertEquals(numBlocks, 3);
+      assertEquals(readRows.size(), rows.size());
+      for (int i = 0; i < rows.size(); i++) {
+        assertEquals(readRows.get(i), rows.get(i));
+      }
+    }
+    String[] remainingFiles = TEMP_DIR.list();
+    assertTrue(remainingFiles == null || remainingFiles.length == 0);
+  }
+
+  @Test
+  public void testEmptyFile()
+      throws Exception {
+    try (SpillFile spillFile = new SpillFile(TEMP_DIR, "test_", DATA_SCHEMA)) {
+      spillFile.finish();
+      assertEquals(spillFile.getNumRows(), 0);
+      assertNull(spillFile.read().nextBlock());
+    }
+  }
+}
@@ -144,6 +144,12 @@ public abstract class BasePartitionDedupMetadataManager implements PartitionDedu
         return;
       }
     }
+    // Skip reading the primary keys if the dedup metadata of the new segment is already persisted
+    if (oldSegment == null && loadPersistedSegment(newSegment)) {
+      _logger.info("Loaded persisted dedup metadata for segment: {}", newSegment.getSegmentName());
+      updatePrimaryKeyGauge();
+      return;
+    }
     try (DedupUtils.DedupRecordInfoReader dedupRecordInfoReader = new DedupUtils.DedupRecordInfoReader(newSegment,
         _primaryKeyColumns, _dedupTimeColumn)) {
       Iterator<DedupRecordInfo> dedupRecordInfoIterator =
@@ -153,6 +159,15 @@ public abstract class BasePartitionDedupMetadataManager implements PartitionDedu
     }
   }
 
+  /**
+   * Can be overridden by the metadata managers persisting the dedup metadata across restarts. Returns {@code true} if
+   * the dedup metadata of the given segment is already persisted, in which case the primary keys of the segment are
+   * not added again.
+   */
+  protected boolean loadPersistedSegment(IndexSegment segment) {
+    return false;
+  }
+
   /**
    * Adds the dedup metadata for the new segment if old segment is null; or replaces the dedup metadata for the given
    * old segment with the new segment if the old segment is not null.
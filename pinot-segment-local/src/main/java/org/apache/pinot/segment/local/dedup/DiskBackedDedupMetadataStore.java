@@ -0,0 +1,530 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.dedup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.utils.HashedKeySlotTable;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.SegmentMetadata;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.config.table.HashFunction;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.apache.pinot.spi.utils.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Disk backed open addressing hash table from the 128-bit hashed primary key (output of the MD5 or MURMUR3 hash
+ * function) to the segment and dedup time, used by the {@link DiskBackedPartitionDedupMetadataManager}.
+ * <p>The slots are stored in a {@link HashedKeySlotTable} backed by a memory mapped file so that the number of keys is
+ * bounded by the disk instead of the heap, and the OS page cache keeps the hot part of the table in memory. Each slot
+ * takes 32 bytes: the 2 longs of the hashed primary key, the segment id and the dedup time. An in-memory bloom filter
+ * on the keys is consulted before probing the file for lookups that do not insert, so that the keys never added (e.g.
+ * when removing a segment) do not hit the disk.
+ * <p>The table is persisted across restarts: when closed, the file is flushed and the metadata file recording the
+ * immutable segments (name and CRC) referenced by the keys is written. When re-opened, the keys of the mutable
+ * segments are dropped (they will be re-consumed), and the persisted segments can be bound back to the loaded
+ * segments through {@link #bindPersistedSegment} without reading their primary keys again. The metadata file is
+ * deleted when the store is opened, so that the keys are discarded and rebuilt from the segments if the server does
+ * not shut down cleanly.
+ * <p>All the operations are synchronized on the store, and the functions passed to {@link #compute} and
+ * {@link #computeIfPresent} are invoked while holding the lock.
+ */
+@ThreadSafe
+class DiskBackedDedupMetadataStore implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DiskBackedDedupMetadataStore.class);
+
+  static final int DEFAULT_INITIAL_CAPACITY = 1 << 16;
+  static final String KEYS_FILE_NAME = "keys.bin";
+  static final String METADATA_FILE_NAME = "metadata.json";
+
+  private static final int SLOT_SIZE = 32;
+  private static final int SEGMENT_ID_OFFSET = HashedKeySlotTable.VALUE_OFFSET;
+  private static final int DEDUP_TIME_OFFSET = SEGMENT_ID_OFFSET + Long.BYTES;
+  private static final double BLOOM_FILTER_FPP = 0.01;
+  private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+  private static final String HASH_FUNCTION_KEY = "hashFunction";
+  private static final String CAPACITY_KEY = "capacity";
+  private static final String SEGMENTS_KEY = "segments";
+  private static final String SEGMENT_ID_KEY = "id";
+  private static final String SEGMENT_NAME_KEY = "name";
+  private static final String SEGMENT_CRC_KEY = "crc";
+
+  private final File _dir;
+  private final File _keysFile;
+  // The keys file is mapped under this name and then renamed, so that a partially written file is never persisted
+  private final File _newKeysFile;
+  private final File _metadataFile;
+  private final HashFunction _hashFunction;
+  private final HashedKeySlotTable.BufferAllocator _bufferAllocator = new FileBufferAllocator();
+
+  private HashedKeySlotTable _table;
+  private BloomFilter<Long> _bloomFilter;
+
+  // Segment id to segment info (null for the free ids). Segment id 0 is reserved to mark the empty slots.
+  private final List<SegmentInfo> _segments = new ArrayList<>();
+  private final Map<IndexSegment, Integer> _segmentToId = new IdentityHashMap<>();
+  // Persisted segments not bound to a loaded segment yet
+  private final Map<String, Integer> _unboundSegmentNameToId = new HashMap<>();
+  private final IntArrayList _freeSegmentIds = new IntArrayList();
+
+  DiskBackedDedupMetadataStore(File dir, HashFunction hashFunction)
+      throws IOException {
+    this(dir, DEFAULT_INITIAL_CAPACITY, hashFunction);
+  }
+
+  DiskBackedDedupMetadataStore(File dir, int initialCapacity, HashFunction hashFunction)
+      throws IOException {
+    Preconditions.checkArgument(hashFunction == HashFunction.MD5 || hashFunction == HashFunction.MURMUR3,
+        "Disk backed dedup metadata store requires MD5 or MURMUR3 hash function, got: %s", hashFunction);
+    FileUtils.forceMkdir(dir);
+    _dir = dir;
+    _keysFile = new File(dir, KEYS_FILE_NAME);
+    _newKeysFile = new File(dir, KEYS_FILE_NAME + ".tmp");
+    _metadataFile = new File(dir, METADATA_FILE_NAME);
+    _hashFunction = hashFunction;
+    if (!load()) {
+      resetSegments();
+      FileUtils.deleteQuietly(_keysFile);
+      _table =
+          new HashedKeySlotTable(SLOT_SIZE, SEGMENT_ID_OFFSET, initialCapacity, _bufferAllocator, getDescription());
+      Files.move(_newKeysFile.toPath(), _keysFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      rebuildBloomFilter();
+    }
+    // Delete the metadata file so that the keys are discarded if the store is not closed cleanly
+    FileUtils.deleteQuietly(_metadataFile);
+  }
+
+  synchronized int size() {
+    return _table.size();
+  }
+
+  /**
+   * Returns the number of persisted segments not bound to a loaded segment yet.
+   */
+  synchronized int getNumUnboundSegments() {
+    return _unboundSegmentNameToId.size();
+  }
+
+  /**
+   * Returns the segment and dedup time of the given hashed primary key, or {@code null} if it does not exist.
+   */
+  @Nullable
+  synchronized SegmentAndTime get(ByteArray primaryKey) {
+    long key0 = HashedKeySlotTable.getKey0(primaryKey);
+    if (!_bloomFilter.mightContain(key0)) {
+      return null;
+    }
+    int slot = _table.findSlot(key0, HashedKeySlotTable.getKey1(primaryKey));
+    return _table.isEmpty(slot) ? null : getSegmentAndTime(slot);
+  }
+
+  /**
+   * Same semantics as {@link java.util.concurrent.ConcurrentHashMap#compute}: the function is invoked with the current
+   * value ({@code null} if absent), and the returned value replaces it ({@code null} removes it). Returning the current
+   * value instance keeps the slot untouched. New values must reference a loaded segment.
+   */
+  @Nullable
+  synchronized SegmentAndTime compute(ByteArray primaryKey,
+      BiFunction<ByteArray, SegmentAndTime, SegmentAndTime> remappingFunction) {
+    long key0 = HashedKeySlotTable.getKey0(primaryKey);
+    long key1 = HashedKeySlotTable.getKey1(primaryKey);
+    int slot = _table.findSlot(key0, key1);
+    if (_table.isEmpty(slot)) {
+      SegmentAndTime newValue = remappingFunction.apply(primaryKey, null);
+      if (newValue != null) {
+        insert(key0, key1, newValue);
+      }
+      return newValue;
+    }
+    return remap(slot, primaryKey, remappingFunction);
+  }
+
+  /**
+   * Same semantics as {@link java.util.concurrent.ConcurrentHashMap#computeIfPresent}.
+   */
+  @Nullable
+  synchronized SegmentAndTime computeIfPresent(ByteArray primaryKey,
+      BiFunction<ByteArray, SegmentAndTime, SegmentAndTime> remappingFunction) {
+    long key0 = HashedKeySlotTable.getKey0(primaryKey);
+    if (!_bloomFilter.mightContain(key0)) {
+      return null;
+    }
+    int slot = _table.findSlot(key0, HashedKeySlotTable.getKey1(primaryKey));
+    return _table.isEmpty(slot) ? null : remap(slot, primaryKey, remappingFunction);
+  }
+
+  /**
+   * Removes all the keys matching the given predicate. The predicate is invoked while holding the lock.
+   */
+  synchronized int removeIf(Predicate<SegmentAndTime> predicate) {
+    return _table.removeIf(slot -> predicate.test(getSegmentAndTime(slot)), this::delete);
+  }
+
+  /**
+   * Binds the given loaded segment to the persisted keys of the segment with the same name, and returns {@code true}
+   * if the persisted segment has the same CRC so that its primary keys do not need to be added again. When the CRC
+   * does not match, the persisted keys of the segment are removed and {@code false} is returned.
+   */
+  synchronized boolean bindPersistedSegment(IndexSegment segment) {
+    Integer segmentId = _unboundSegmentNameToId.remove(segment.getSegmentName());
+    if (segmentId == null) {
+      return false;
+    }
+    SegmentInfo segmentInfo = _segments.get(segmentId);
+    String crc = getCrc(segment);
+    if (crc != null && crc.equals(segmentInfo._crc)) {
+      segmentInfo._segment = segment;
+      _segmentToId.put(segment, segmentId);
+      return true;
+    }
+    LOGGER.info("Removing persisted dedup metadata for segment: {} with CRC: {} (loaded segment CRC: {}) from: {}",
+        segmentInfo._name, segmentInfo._crc, crc, _dir);
+    int id = segmentId;
+    _table.removeIf(slot -> getSegmentId(slot) == id, this::delete);
+    return false;
+  }
+
+  /**
+   * Removes the keys of the persisted segments not bound to a loaded segment, i.e. the segments deleted while the
+   * server was down. Should be invoked once all the existing segments are loaded.
+   */
+  synchronized int removeUnboundSegments() {
+    if (_unboundSegmentNameToId.isEmpty()) {
+      return 0;
+    }
+    LOGGER.info("Removing persisted dedup metadata for {} segments not loaded: {} from: {}",
+        _unboundSegmentNameToId.size(), _unboundSegmentNameToId.keySet(), _dir);
+    int numRemoved = _table.removeIf(slot -> _segments.get(getSegmentId(slot))._segment == null, this::delete);
+    _unboundSegmentNameToId.clear();
+    rebuildBloomFilter();
+    return numRemoved;
+  }
+
+  /**
+   * Flushes the keys to disk and writes the metadata file so that the store can be re-opened after restart.
+   */
+  @Override
+  public synchronized void close()
+      throws IOException {
+    if (_table == null) {
+      return;
+    }
+    ObjectNode metadata = JsonUtils.newObjectNode();
+    metadata.put(HASH_FUNCTION_KEY, _hashFunction.name());
+    metadata.put(CAPACITY_KEY, _table.getCapacity());
+    ArrayNode segments = metadata.putArray(SEGMENTS_KEY);
+    for (int segmentId = 1; segmentId < _segments.size(); segmentId++) {
+      SegmentInfo segmentInfo = _segments.get(segmentId);
+      if (segmentInfo != null && segmentInfo._crc != null) {
+        segments.addObject().put(SEGMENT_ID_KEY, segmentId).put(SEGMENT_NAME_KEY, segmentInfo._name)
+            .put(SEGMENT_CRC_KEY, segmentInfo._crc);
+      }
+    }
+    _table.getBuffer().flush();
+    _table.close();
+    _table = null;
+    FileUtils.writeStringToFile(_metadataFile, metadata.toString(), StandardCharsets.UTF_8);
+    resetSegments();
+  }
+
+  /**
+   * Loads the persisted keys and segments, and returns {@code false} if there is nothing to load or the persisted
+   * files are not valid.
+   */
+  private boolean load()
+      throws IOException {
+    if (!_metadataFile.exists() || !_keysFile.exists()) {
+      return false;
+    }
+    PinotDataBuffer buffer = null;
+    try {
+      JsonNode metadata = JsonUtils.fileToJsonNode(_metadataFile);
+      if (!_hashFunction.name().equals(metadata.get(HASH_FUNCTION_KEY).asText())) {
+        LOGGER.info("Discarding persisted dedup metadata with different hash function from: {}", _dir);
+        return false;
+      }
+      int capacity = metadata.get(CAPACITY_KEY).asInt();
+      if (Integer.bitCount(capacity) != 1 || _keysFile.length() != (long) capacity * SLOT_SIZE) {
+        LOGGER.warn("Discarding persisted dedup metadata with invalid capacity: {} from: {}", capacity, _dir);
+        return false;
+      }
+      resetSegments();
+      for (JsonNode segment : metadata.get(SEGMENTS_KEY)) {
+        int segmentId = segment.get(SEGMENT_ID_KEY).asInt();
+        while (_segments.size() <= segmentId) {
+          _segments.add(null);
+        }
+        String segmentName = segment.get(SEGMENT_NAME_KEY).asText();
+        _segments.set(segmentId, new SegmentInfo(segmentName, segment.get(SEGMENT_CRC_KEY).asText(), null));
+        _unboundSegmentNameToId.put(segmentName, segmentId);
+      }
+      buffer = PinotDataBuffer.mapFile(_keysFile, false, 0, (long) capacity * SLOT_SIZE, BYTE_ORDER, getDescription());
+      _table = new HashedKeySlotTable(SLOT_SIZE, SEGMENT_ID_OFFSET, buffer, capacity, _bufferAllocator,
+          getDescription());
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while loading persisted dedup metadata from: {}, discarding it", _dir, e);
+      if (buffer != null) {
+        buffer.close();
+      }
+      return false;
+    }
+
+    // Count the keys of the persisted segments, and drop the keys of the segments not persisted (mutable segments)
+    int numKeysToRemove = _table.removeIf(slot -> {
+      int segmentId = getSegmentId(slot);
+      SegmentInfo segmentInfo = segmentId < _segments.size() ? _segments.get(segmentId) : null;
+      if (segmentInfo != null) {
+        segmentInfo._numKeys++;
+        return false;
+      }
+      return true;
+    }, _table::delete);
+    for (int segmentId = 1; segmentId < _segments.size(); segmentId++) {
+      SegmentInfo segmentInfo = _segments.get(segmentId);
+      if (segmentInfo == null) {
+        _freeSegmentIds.add(segmentId);
+      } else if (segmentInfo._numKeys == 0) {
+        releaseSegmentId(segmentId);
+      }
+    }
+    rebuildBloomFilter();
+    LOGGER.info("Loaded {} persisted dedup keys of {} segments (dropped {} keys of mutable segments) from: {}",
+        _table.size(),
+        _unboundSegmentNameToId.size(), numKeysToRemove, _dir);
+    return true;
+  }
+
+  private void resetSegments() {
+    _segments.clear();
+    _segments.add(null);
+    _segmentToId.clear();
+    _unboundSegmentNameToId.clear();
+    _freeSegmentIds.clear();
+  }
+
+  private SegmentAndTime remap(int slot, ByteArray primaryKey,
+      BiFunction<ByteArray, SegmentAndTime, SegmentAndTime> remappingFunction) {
+    SegmentAndTime currentValue = getSegmentAndTime(slot);
+    SegmentAndTime newValue = remappingFunction.apply(primaryKey, currentValue);
+    if (newValue == null) {
+      delete(slot);
+    } else if (newValue != currentValue) {
+      update(slot, newValue);
+    }
+    return newValue;
+  }
+
+  private int getSegmentId(int slot) {
+    return (int) _table.getBuffer().getLong(_table.getOffset(slot) + SEGMENT_ID_OFFSET);
+  }
+
+  private SegmentAndTime getSegmentAndTime(int slot) {
+    SegmentInfo segmentInfo = _segments.get(getSegmentId(slot));
+    return new SegmentAndTime(segmentInfo._segment, segmentInfo._name,
+        _table.getBuffer().getDouble(_table.getOffset(slot) + DEDUP_TIME_OFFSET));
+  }
+
+  private void insert(long key0, long key1, SegmentAndTime value) {
+    int capacity = _table.getCapacity();
+    write(_table.insert(key0, key1), value);
+    if (_table.getCapacity() != capacity) {
+      // Resized, size the bloom filter for the new capacity
+      rebuildBloomFilter();
+    } else {
+      _bloomFilter.put(key0);
+    }
+  }
+
+  private void update(int slot, SegmentAndTime value) {
+    long offset = _table.getOffset(slot);
+    int oldSegmentId = getSegmentId(slot);
+    // Acquire the new segment id before releasing the old one so that the same segment keeps its id
+    write(offset, value);
+    releaseSegmentId(oldSegmentId);
+  }
+
+  private void write(long offset, SegmentAndTime value) {
+    Preconditions.checkArgument(value._segment != null, "New dedup metadata must reference a loaded segment");
+    PinotDataBuffer buffer = _table.getBuffer();
+    buffer.putLong(offset + SEGMENT_ID_OFFSET, acquireSegmentId(value._segment));
+    buffer.putDouble(offset + DEDUP_TIME_OFFSET, value._dedupTime);
+  }
+
+  private void delete(int slot) {
+    releaseSegmentId(getSegmentId(slot));
+    _table.delete(slot);
+  }
+
+  private String getDescription() {
+    return "dedup metadata store: " + _dir;
+  }
+
+  private void rebuildBloomFilter() {
+    int capacity = _table.getCapacity();
+    _bloomFilter = BloomFilter.create(Funnels.longFunnel(), capacity, BLOOM_FILTER_FPP);
+    for (int slot = 0; slot < capacity; slot++) {
+      if (!_table.isEmpty(slot)) {
+        _bloomFilter.put(_table.getKey0(slot));
+      }
+    }
+  }
+
+  private int acquireSegmentId(IndexSegment segment) {
+    Integer boxedSegmentId = _segmentToId.get(segment);
+    int segmentId;
+    if (boxedSegmentId != null) {
+      segmentId = boxedSegmentId;
+    } else {
+      SegmentInfo segmentInfo = new SegmentInfo(segment.getSegmentName(), getCrc(segment), segment);
+      if (_freeSegmentIds.isEmpty()) {
+        segmentId = _segments.size();
+        _segments.add(segmentInfo);
+      } else {
+        segmentId = _freeSegmentIds.popInt();
+        _segments.set(segmentId, segmentInfo);
+      }
+      _segmentToId.put(segment, segmentId);
+    }
+    _segments.get(segmentId)._numKeys++;
+    return segmentId;
+  }
+
+  private void releaseSegmentId(int segmentId) {
+    SegmentInfo segmentInfo = _segments.get(segmentId);
+    if (--segmentInfo._numKeys == 0) {
+      if (segmentInfo._segment != null) {
+        _segmentToId.remove(segmentInfo._segment);
+      } else {
+        _unboundSegmentNameToId.remove(segmentInfo._name);
+      }
+      _segments.set(segmentId, null);
+      _freeSegmentIds.add(segmentId);
+    }
+  }
+
+  /**
+   * Returns the CRC of the given segment if it is immutable (i.e. can be persisted), or {@code null} otherwise.
+   */
+  @Nullable
+  private static String getCrc(IndexSegment segment) {
+    if (!(segment instanceof ImmutableSegment)) {
+      return null;
+    }
+    SegmentMetadata segmentMetadata = segment.getSegmentMetadata();
+    return segmentMetadata != null ? segmentMetadata.getCrc() : null;
+  }
+
+  private static class SegmentInfo {
+    final String _name;
+    @Nullable
+    final String _crc;
+    @Nullable
+    IndexSegment _segment;
+    int _numKeys;
+
+    SegmentInfo(String name, @Nullable String crc, @Nullable IndexSegment segment) {
+      _name = name;
+      _crc = crc;
+      _segment = segment;
+    }
+  }
+
+  /**
+   * The segment and dedup time of a primary key. The segment is {@code null} when the key is persisted but the segment
+   * is not loaded yet.
+   */
+  static class SegmentAndTime {
+    @Nullable
+    private final IndexSegment _segment;
+    private final String _segmentName;
+    private final double _dedupTime;
+
+    SegmentAndTime(IndexSegment segment, double dedupTime) {
+      this(segment, segment.getSegmentName(), dedupTime);
+    }
+
+    private SegmentAndTime(@Nullable IndexSegment segment, String segmentName, double dedupTime) {
+      _segment = segment;
+      _segmentName = segmentName;
+      _dedupTime = dedupTime;
+    }
+
+    @Nullable
+    IndexSegment getSegment() {
+      return _segment;
+    }
+
+    String getSegmentName() {
+      return _segmentName;
+    }
+
+    double getDedupTime() {
+      return _dedupTime;
+    }
+  }
+
+  /**
+   * Maps the keys file under a temporary name, which is renamed once the keys are written. The file is zero-filled
+   * when extended, which marks the new slots as empty.
+   */
+  private class FileBufferAllocator implements HashedKeySlotTable.BufferAllocator {
+
+    @Override
+    public PinotDataBuffer allocate(int capacity)
+        throws IOException {
+      FileUtils.deleteQuietly(_newKeysFile);
+      return PinotDataBuffer.mapFile(_newKeysFile, false, 0, (long) capacity * SLOT_SIZE, BYTE_ORDER,
+          getDescription());
+    }
+
+    @Override
+    public void release(PinotDataBuffer buffer)
+        throws IOException {
+      buffer.close();
+      Files.move(_newKeysFile.toPath(), _keysFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
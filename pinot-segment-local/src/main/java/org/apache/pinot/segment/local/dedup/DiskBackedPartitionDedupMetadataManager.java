@@ -0,0 +1,167 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.dedup;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.pinot.segment.local.dedup.DiskBackedDedupMetadataStore.SegmentAndTime;
+import org.apache.pinot.segment.local.utils.HashUtils;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.spi.config.table.HashFunction;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.ByteArray;
+
+
+/**
+ * Dedup metadata manager keeping the primary keys in a {@link DiskBackedDedupMetadataStore} under the table index
+ * directory instead of on heap, and persisting them across restarts so that the primary keys of the existing segments
+ * do not need to be read again when the server restarts. Requires the MD5 or MURMUR3 hash function.
+ */
+class DiskBackedPartitionDedupMetadataManager extends BasePartitionDedupMetadataManager {
+  static final String STORE_DIR_PREFIX = "dedup_metadata_partition_";
+
+  @VisibleForTesting
+  final DiskBackedDedupMetadataStore _store;
+  // The keys of the persisted segments not loaded are removed before ingesting the first record
+  private volatile boolean _unboundSegmentsRemoved;
+
+  protected DiskBackedPartitionDedupMetadataManager(String tableNameWithType, int partitionId,
+      DedupContext dedupContext) {
+    super(tableNameWithType, partitionId, dedupContext);
+    Preconditions.checkArgument(_hashFunction == HashFunction.MD5 || _hashFunction == HashFunction.MURMUR3,
+        "Disk backed dedup metadata manager requires MD5 or MURMUR3 hash function, got: %s for table: %s",
+        _hashFunction, tableNameWithType);
+    File storeDir = new File(_tableIndexDir, STORE_DIR_PREFIX + partitionId);
+    try {
+      _store = new DiskBackedDedupMetadataStore(storeDir, _hashFunction);
+    } catch (IOException e) {
+      throw new RuntimeException(
+          String.format("Caught exception while opening dedup metadata store: %s for table: %s", storeDir,
+              tableNameWithType), e);
+    }
+  }
+
+  @Override
+  protected boolean loadPersistedSegment(IndexSegment segment) {
+    return _store.bindPersistedSegment(segment);
+  }
+
+  @Override
+  protected void doAddOrReplaceSegment(IndexSegment oldSegment, IndexSegment newSegment,
+      Iterator<DedupRecordInfo> dedupRecordInfoIteratorOfNewSegment) {
+    String segmentName = newSegment.getSegmentName();
+    while (dedupRecordInfoIteratorOfNewSegment.hasNext()) {
+      DedupRecordInfo dedupRecordInfo = dedupRecordInfoIteratorOfNewSegment.next();
+      double dedupTime = dedupRecordInfo.getDedupTime();
+      _store.compute(hashPrimaryKey(dedupRecordInfo.getPrimaryKey()), (primaryKey, segmentAndTime) -> {
+        // Stale metadata is treated as not existing when checking for deduplicates.
+        if (segmentAndTime == null || isOutOfMetadataTTL(segmentAndTime.getDedupTime())) {
+          return new SegmentAndTime(newSegment, dedupTime);
+        }
+        // when oldSegment is null, it means we are adding a new segment
+        // when oldSegment is not null, it means we are replacing an existing segment
+        if (oldSegment == null) {
+          _logger.warn("When adding a new segment: record in segment: {} with primary key: {} and dedup "
+                  + "time: {} already exists in segment: {} with dedup time: {}", segmentName,
+              dedupRecordInfo.getPrimaryKey(), dedupTime, segmentAndTime.getSegmentName(),
+              segmentAndTime.getDedupTime());
+        } else if (segmentAndTime.getSegment() != oldSegment) {
+          _logger.warn("When replacing a segment: record in segment: {} with primary key: {} and dedup "
+                  + "time: {} exists in segment: {} with dedup time: {} (but not the segment: {} to replace)",
+              segmentName, dedupRecordInfo.getPrimaryKey(), dedupTime, segmentAndTime.getSegmentName(),
+              segmentAndTime.getDedupTime(), oldSegment.getSegmentName());
+        }
+        // When dedup time is the same, we always keep the latest segment
+        if (segmentAndTime.getDedupTime() <= dedupTime) {
+          return new SegmentAndTime(newSegment, dedupTime);
+        }
+        return segmentAndTime;
+      });
+    }
+  }
+
+  @Override
+  protected void doRemoveSegment(IndexSegment segment, Iterator<DedupRecordInfo> dedupRecordInfoIterator) {
+    while (dedupRecordInfoIterator.hasNext()) {
+      DedupRecordInfo dedupRecordInfo = dedupRecordInfoIterator.next();
+      _store.computeIfPresent(hashPrimaryKey(dedupRecordInfo.getPrimaryKey()),
+          (primaryKey, segmentAndTime) -> segmentAndTime.getSegment() == segment ? null : segmentAndTime);
+    }
+  }
+
+  @Override
+  protected void doRemoveExpiredPrimaryKeys() {
+    double smallestTimeToKeep = _largestSeenTime.get() - _metadataTTL;
+    _store.removeIf(segmentAndTime -> segmentAndTime.getDedupTime() < smallestTimeToKeep);
+  }
+
+  @Override
+  public boolean checkRecordPresentOrUpdate(DedupRecordInfo dedupRecordInfo, IndexSegment indexSegment) {
+    if (!startOperation()) {
+      _logger.info("Skip adding record to {} because metadata manager is already stopped",
+          indexSegment.getSegmentName());
+      return true;
+    }
+    try {
+      // All the existing segments are loaded before the consuming segment starts ingesting, so the keys of the
+      // persisted segments not loaded belong to segments deleted while the server was down.
+      if (!_unboundSegmentsRemoved) {
+        _store.removeUnboundSegments();
+        _unboundSegmentsRemoved = true;
+      }
+      if (_metadataTTL > 0) {
+        _largestSeenTime.getAndUpdate(time -> Math.max(time, dedupRecordInfo.getDedupTime()));
+      }
+      AtomicBoolean present = new AtomicBoolean(false);
+      _store.compute(hashPrimaryKey(dedupRecordInfo.getPrimaryKey()), (primaryKey, segmentAndTime) -> {
+        // The stale metadata is treated as not existing when checking for deduplicates.
+        if (segmentAndTime == null || isOutOfMetadataTTL(segmentAndTime.getDedupTime())) {
+          return new SegmentAndTime(indexSegment, dedupRecordInfo.getDedupTime());
+        }
+        present.set(true);
+        return segmentAndTime;
+      });
+      if (!present.get()) {
+        updatePrimaryKeyGauge();
+      }
+      return present.get();
+    } finally {
+      finishOperation();
+    }
+  }
+
+  @Override
+  protected long getNumPrimaryKeys() {
+    return _store.size();
+  }
+
+  @Override
+  protected void doClose()
+      throws IOException {
+    _store.close();
+  }
+
+  private ByteArray hashPrimaryKey(PrimaryKey primaryKey) {
+    return (ByteArray) HashUtils.hashPrimaryKey(primaryKey, _hashFunction);
+  }
+}
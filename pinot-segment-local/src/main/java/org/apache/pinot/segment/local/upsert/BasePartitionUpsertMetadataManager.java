@@ -436,6 +436,13 @@ public abstract class BasePartitionUpsertMetadataManager implements PartitionUps
         return;
       }
     }
+    if (_context.isKeyMapSnapshotEnabled() && preloadSegmentFromKeyMapSnapshot(segment, validDocIds)) {
+      long numPrimaryKeys = getNumPrimaryKeys();
+      updatePrimaryKeyGauge(numPrimaryKeys);
+      _logger.info("Finished preloading segment: {} from key map snapshot in {}ms, current primary key count: {}",
+          segmentName, System.currentTimeMillis() - startTimeMs, numPrimaryKeys);
+      return;
+    }
     try (UpsertUtils.RecordInfoReader recordInfoReader = new UpsertUtils.RecordInfoReader(segment, _primaryKeyColumns,
         _comparisonColumns, _deleteRecordColumn)) {
       doPreloadSegment(segment, null, null, UpsertUtils.getRecordInfoIterator(recordInfoReader, validDocIds));
@@ -452,6 +459,16 @@ public abstract class BasePartitionUpsertMetadataManager implements PartitionUps
         System.currentTimeMillis() - startTimeMs, numPrimaryKeys);
   }
 
+  /**
+   * Can be overridden to preload the segment from the snapshot of the primary key map instead of reading the primary
+   * key and comparison columns of the segment. Returns {@code true} if the segment is preloaded, or {@code false} to
+   * fall back to reading the columns.
+   */
+  protected boolean preloadSegmentFromKeyMapSnapshot(ImmutableSegmentImpl segment,
+      MutableRoaringBitmap validDocIdsSnapshot) {
+    return false;
+  }
+
   /**
    * NOTE: no need to get segmentLock to preload segment as callers ensure the segment is processed by a single thread.
    * NOTE: We allow passing in validDocIds and queryableDocIds here so that the value can be easily accessed from the
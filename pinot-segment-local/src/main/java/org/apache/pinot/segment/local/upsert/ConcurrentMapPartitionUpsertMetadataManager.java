@@ -19,17 +19,23 @@
 package org.apache.pinot.segment.local.upsert;
 
 import com.google.common.annotations.VisibleForTesting;
+import java.io.File;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
+import org.apache.commons.io.FileUtils;
+import org.apache.helix.HelixManager;
 import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.segment.local.data.manager.TableDataManager;
 import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentImpl;
+import org.apache.pinot.segment.local.segment.index.loader.IndexLoadingConfig;
 import org.apache.pinot.segment.local.segment.readers.LazyRow;
 import org.apache.pinot.segment.local.utils.HashUtils;
 import org.apache.pinot.segment.spi.IndexSegment;
@@ -54,8 +60,15 @@ public class ConcurrentMapPartitionUpsertMetadataManager extends BasePartitionUp
   @VisibleForTesting
   final ConcurrentHashMap<Object, RecordLocation> _primaryKeyToRecordLocationMap = new ConcurrentHashMap<>();
 
+  // Loaded lazily when preloading the first segment, and closed once all the segments are preloaded
+  private UpsertKeyMapSnapshot _keyMapSnapshot;
+  private boolean _keyMapSnapshotLoaded;
+
   public ConcurrentMapPartitionUpsertMetadataManager(String tableNameWithType, int partitionId, UpsertContext context) {
     super(tableNameWithType, partitionId, context);
+    if (!context.isKeyMapSnapshotEnabled() && _tableIndexDir != null) {
+      FileUtils.deleteQuietly(getKeyMapSnapshotFile());
+    }
   }
 
   @Override
@@ -171,6 +184,95 @@ public class ConcurrentMapPartitionUpsertMetadataManager extends BasePartitionUp
     }
   }
 
+  @Override
+  protected void doPreloadSegments(TableDataManager tableDataManager, IndexLoadingConfig indexLoadingConfig,
+      HelixManager helixManager, ExecutorService segmentPreloadExecutor)
+      throws Exception {
+    try {
+      super.doPreloadSegments(tableDataManager, indexLoadingConfig, helixManager, segmentPreloadExecutor);
+    } finally {
+      closeKeyMapSnapshot();
+    }
+  }
+
+  @Override
+  protected boolean preloadSegmentFromKeyMapSnapshot(ImmutableSegmentImpl segment,
+      MutableRoaringBitmap validDocIdsSnapshot) {
+    UpsertKeyMapSnapshot keyMapSnapshot = getKeyMapSnapshot();
+    if (keyMapSnapshot == null) {
+      return false;
+    }
+    String segmentName = segment.getSegmentName();
+    UpsertKeyMapSnapshot.SegmentEntries segmentEntries =
+        keyMapSnapshot.getSegmentEntries(segmentName, segment.getSegmentMetadata().getCrc());
+    if (segmentEntries == null) {
+      _logger.info("Segment: {} is not found in key map snapshot, reading its primary keys", segmentName);
+      return false;
+    }
+    // The key map snapshot can be taken at a different time from the validDocIds snapshot of the segment (e.g. when
+    // failed to take some snapshots), so only use it when both snapshots have the same valid docs.
+    int numEntries = segmentEntries.size();
+    MutableRoaringBitmap docIds = new MutableRoaringBitmap();
+    for (int i = 0; i < numEntries; i++) {
+      docIds.add(segmentEntries.getDocId(i));
+    }
+    if (!docIds.equals(validDocIdsSnapshot)) {
+      _logger.info("Segment: {} has different valid docs in key map snapshot, reading its primary keys", segmentName);
+      return false;
+    }
+    MutableRoaringBitmap queryableDocIds = getQueryableDocIds(segment, docIds);
+    segment.enableUpsert(this, new ThreadSafeMutableRoaringBitmap(docIds),
+        queryableDocIds != null ? new ThreadSafeMutableRoaringBitmap(queryableDocIds) : null);
+    for (int i = 0; i < numEntries; i++) {
+      _primaryKeyToRecordLocationMap.put(segmentEntries.getPrimaryKey(i),
+          new RecordLocation(segment, segmentEntries.getDocId(i), segmentEntries.getComparisonValue(i)));
+    }
+    return true;
+  }
+
+  @Nullable
+  private synchronized UpsertKeyMapSnapshot getKeyMapSnapshot() {
+    if (!_keyMapSnapshotLoaded) {
+      _keyMapSnapshot = UpsertKeyMapSnapshot.load(getKeyMapSnapshotFile(), _hashFunction);
+      _keyMapSnapshotLoaded = true;
+    }
+    return _keyMapSnapshot;
+  }
+
+  private synchronized void closeKeyMapSnapshot() {
+    if (_keyMapSnapshot != null) {
+      try {
+        _keyMapSnapshot.close();
+      } catch (Exception e) {
+        _logger.warn("Caught exception while closing key map snapshot", e);
+      }
+      _keyMapSnapshot = null;
+    }
+  }
+
+  @Override
+  protected void doTakeSnapshot() {
+    super.doTakeSnapshot();
+    if (!_context.isKeyMapSnapshotEnabled()) {
+      return;
+    }
+    File keyMapSnapshotFile = getKeyMapSnapshotFile();
+    try {
+      if (!UpsertKeyMapSnapshot.write(keyMapSnapshotFile, _hashFunction,
+          _primaryKeyToRecordLocationMap.entrySet().iterator())) {
+        FileUtils.deleteQuietly(keyMapSnapshotFile);
+      }
+    } catch (Exception e) {
+      _logger.warn("Caught exception while taking key map snapshot", e);
+      FileUtils.deleteQuietly(keyMapSnapshotFile);
+    }
+  }
+
+  @VisibleForTesting
+  File getKeyMapSnapshotFile() {
+    return new File(_tableIndexDir, UpsertKeyMapSnapshot.FILE_NAME_PREFIX + _partitionId);
+  }
+
   @Override
   protected void removeSegment(IndexSegment segment, Iterator<PrimaryKey> primaryKeyIterator) {
     while (primaryKeyIterator.hasNext()) {
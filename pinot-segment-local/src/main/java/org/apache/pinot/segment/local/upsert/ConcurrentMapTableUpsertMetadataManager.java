@@ -47,14 +47,22 @@ public class ConcurrentMapTableUpsertMetadataManager extends BaseTableUpsertMeta
 
   @Override
   public BasePartitionUpsertMetadataManager getOrCreatePartitionManager(int partitionId) {
-    return _partitionMetadataManagerMap.computeIfAbsent(partitionId, k -> _enableDeletedKeysCompactionConsistency
-        ? new ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes(_tableNameWithType, k, _context)
-        : new ConcurrentMapPartitionUpsertMetadataManager(_tableNameWithType, k, _context));
+    return _partitionMetadataManagerMap.computeIfAbsent(partitionId, this::createPartitionManager);
+  }
+
+  protected BasePartitionUpsertMetadataManager createPartitionManager(int partitionId) {
+    return _enableDeletedKeysCompactionConsistency
+        ? new ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes(_tableNameWithType, partitionId, _context)
+        : new ConcurrentMapPartitionUpsertMetadataManager(_tableNameWithType, partitionId, _context);
   }
 
   @Override
   public void stop() {
     for (BasePartitionUpsertMetadataManager metadataManager : _partitionMetadataManagerMap.values()) {
+      if (_context.isKeyMapSnapshotEnabled()) {
+        // Take a final snapshot so that the next restart can preload the segments from the key map snapshot
+        metadataManager.takeSnapshot();
+      }
       metadataManager.stop();
     }
   }
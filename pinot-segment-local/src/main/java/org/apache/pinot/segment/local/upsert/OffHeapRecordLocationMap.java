@@ -0,0 +1,295 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.segment.local.upsert.ConcurrentMapPartitionUpsertMetadataManager.RecordLocation;
+import org.apache.pinot.segment.local.utils.HashedKeySlotTable;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.utils.ByteArray;
+
+
+/**
+ * Off-heap open addressing hash table from the 128-bit hashed primary key (output of the MD5 or MURMUR3 hash function)
+ * to the record location, used by the {@link OffHeapPartitionUpsertMetadataManager}.
+ * <p>The slots are stored in a {@link HashedKeySlotTable} backed by a direct buffer. Each slot takes 32 bytes: the 2
+ * longs of the hashed primary key, the segment id and doc id packed into a long, and the comparison value encoded into
+ * a long. The segments are assigned ids on heap, and an id is released once no record location references the segment
+ * anymore. Segment id 0 is reserved to mark the empty slots.
+ * <p>Only comparison values of INT, LONG, FLOAT and DOUBLE (single comparison column) are supported. The type is
+ * inferred from the first comparison value added to the map.
+ * <p>All the operations are synchronized on the map, and the functions passed to {@link #compute} and
+ * {@link #computeIfPresent} are invoked while holding the lock (same as for the bins of a
+ * {@link java.util.concurrent.ConcurrentHashMap}).
+ */
+@ThreadSafe
+@SuppressWarnings("rawtypes")
+class OffHeapRecordLocationMap implements Closeable {
+  static final int DEFAULT_INITIAL_CAPACITY = 1 << 16;
+
+  private static final int SLOT_SIZE = 32;
+  private static final int LOCATION_OFFSET = HashedKeySlotTable.VALUE_OFFSET;
+  private static final int COMPARISON_VALUE_OFFSET = LOCATION_OFFSET + Long.BYTES;
+
+  private enum ComparisonValueType {
+    INT, LONG, FLOAT, DOUBLE
+  }
+
+  private final String _description;
+  private final HashedKeySlotTable _table;
+  private ComparisonValueType _comparisonValueType;
+
+  // Segment id to segment, and number of record locations referencing each segment
+  private final Map<IndexSegment, Integer> _segmentToId = new IdentityHashMap<>();
+  private final List<IndexSegment> _segments = new ArrayList<>();
+  private final IntArrayList _segmentNumLocations = new IntArrayList();
+  private final IntArrayList _freeSegmentIds = new IntArrayList();
+
+  OffHeapRecordLocationMap(String description) {
+    this(DEFAULT_INITIAL_CAPACITY, description);
+  }
+
+  OffHeapRecordLocationMap(int initialCapacity, String description) {
+    _description = description;
+    // Reserve segment id 0 for the empty slots
+    _segments.add(null);
+    _segmentNumLocations.add(0);
+    try {
+      _table = new HashedKeySlotTable(SLOT_SIZE, LOCATION_OFFSET, initialCapacity, new DirectBufferAllocator(),
+          "record location map of: " + description);
+    } catch (IOException e) {
+      throw new RuntimeException("Caught exception while allocating the record location map of: " + description, e);
+    }
+  }
+
+  synchronized int size() {
+    return _table.size();
+  }
+
+  /**
+   * Returns the record location of the given hashed primary key, or {@code null} if it does not exist.
+   */
+  @Nullable
+  synchronized RecordLocation get(ByteArray primaryKey) {
+    int slot = _table.findSlot(HashedKeySlotTable.getKey0(primaryKey), HashedKeySlotTable.getKey1(primaryKey));
+    return _table.isEmpty(slot) ? null : getRecordLocation(slot);
+  }
+
+  synchronized void put(ByteArray primaryKey, RecordLocation recordLocation) {
+    long key0 = HashedKeySlotTable.getKey0(primaryKey);
+    long key1 = HashedKeySlotTable.getKey1(primaryKey);
+    int slot = _table.findSlot(key0, key1);
+    if (_table.isEmpty(slot)) {
+      write(_table.insert(key0, key1), recordLocation);
+    } else {
+      update(slot, recordLocation);
+    }
+  }
+
+  /**
+   * Same semantics as {@link java.util.concurrent.ConcurrentHashMap#compute}: the function is invoked with the current
+   * record location ({@code null} if absent), and the returned record location replaces it ({@code null} removes it).
+   * Returning the current record location instance keeps the slot untouched.
+   */
+  @Nullable
+  synchronized RecordLocation compute(ByteArray primaryKey,
+      BiFunction<ByteArray, RecordLocation, RecordLocation> remappingFunction) {
+    long key0 = HashedKeySlotTable.getKey0(primaryKey);
+    long key1 = HashedKeySlotTable.getKey1(primaryKey);
+    int slot = _table.findSlot(key0, key1);
+    if (_table.isEmpty(slot)) {
+      RecordLocation newRecordLocation = remappingFunction.apply(primaryKey, null);
+      if (newRecordLocation != null) {
+        write(_table.insert(key0, key1), newRecordLocation);
+      }
+      return newRecordLocation;
+    }
+    return remap(slot, primaryKey, remappingFunction);
+  }
+
+  /**
+   * Same semantics as {@link java.util.concurrent.ConcurrentHashMap#computeIfPresent}.
+   */
+  @Nullable
+  synchronized RecordLocation computeIfPresent(ByteArray primaryKey,
+      BiFunction<ByteArray, RecordLocation, RecordLocation> remappingFunction) {
+    int slot = _table.findSlot(HashedKeySlotTable.getKey0(primaryKey), HashedKeySlotTable.getKey1(primaryKey));
+    return _table.isEmpty(slot) ? null : remap(slot, primaryKey, remappingFunction);
+  }
+
+  /**
+   * Removes all the record locations matching the given predicate. The predicate is invoked while holding the lock.
+   */
+  synchronized int removeIf(Predicate<RecordLocation> predicate) {
+    return _table.removeIf(slot -> predicate.test(getRecordLocation(slot)), this::delete);
+  }
+
+  @Override
+  public synchronized void close()
+      throws IOException {
+    _table.close();
+    _segmentToId.clear();
+    _segments.clear();
+  }
+
+  private RecordLocation remap(int slot, ByteArray primaryKey,
+      BiFunction<ByteArray, RecordLocation, RecordLocation> remappingFunction) {
+    RecordLocation currentRecordLocation = getRecordLocation(slot);
+    RecordLocation newRecordLocation = remappingFunction.apply(primaryKey, currentRecordLocation);
+    if (newRecordLocation == null) {
+      delete(slot);
+    } else if (newRecordLocation != currentRecordLocation) {
+      update(slot, newRecordLocation);
+    }
+    return newRecordLocation;
+  }
+
+  private RecordLocation getRecordLocation(int slot) {
+    PinotDataBuffer buffer = _table.getBuffer();
+    long offset = _table.getOffset(slot);
+    long location = buffer.getLong(offset + LOCATION_OFFSET);
+    IndexSegment segment = _segments.get((int) (location >>> 32));
+    return new RecordLocation(segment, (int) location, decodeComparisonValue(
+        buffer.getLong(offset + COMPARISON_VALUE_OFFSET)));
+  }
+
+  private void update(int slot, RecordLocation recordLocation) {
+    long offset = _table.getOffset(slot);
+    releaseSegmentId((int) (_table.getBuffer().getLong(offset + LOCATION_OFFSET) >>> 32));
+    write(offset, recordLocation);
+  }
+
+  private void write(long offset, RecordLocation recordLocation) {
+    PinotDataBuffer buffer = _table.getBuffer();
+    int segmentId = acquireSegmentId(recordLocation.getSegment());
+    buffer.putLong(offset + LOCATION_OFFSET, ((long) segmentId << 32) | (recordLocation.getDocId() & 0xFFFFFFFFL));
+    buffer.putLong(offset + COMPARISON_VALUE_OFFSET, encodeComparisonValue(recordLocation.getComparisonValue()));
+  }
+
+  private void delete(int slot) {
+    releaseSegmentId((int) (_table.getBuffer().getLong(_table.getOffset(slot) + LOCATION_OFFSET) >>> 32));
+    _table.delete(slot);
+  }
+
+  private int acquireSegmentId(IndexSegment segment) {
+    Integer boxedSegmentId = _segmentToId.get(segment);
+    int segmentId;
+    if (boxedSegmentId != null) {
+      segmentId = boxedSegmentId;
+    } else {
+      if (_freeSegmentIds.isEmpty()) {
+        segmentId = _segments.size();
+        _segments.add(segment);
+        _segmentNumLocations.add(0);
+      } else {
+        segmentId = _freeSegmentIds.popInt();
+        _segments.set(segmentId, segment);
+      }
+      _segmentToId.put(segment, segmentId);
+    }
+    _segmentNumLocations.set(segmentId, _segmentNumLocations.getInt(segmentId) + 1);
+    return segmentId;
+  }
+
+  private void releaseSegmentId(int segmentId) {
+    int numLocations = _segmentNumLocations.getInt(segmentId) - 1;
+    _segmentNumLocations.set(segmentId, numLocations);
+    if (numLocations == 0) {
+      _segmentToId.remove(_segments.get(segmentId));
+      _segments.set(segmentId, null);
+      _freeSegmentIds.add(segmentId);
+    }
+  }
+
+  private long encodeComparisonValue(Comparable comparisonValue) {
+    if (_comparisonValueType == null) {
+      if (comparisonValue instanceof Integer) {
+        _comparisonValueType = ComparisonValueType.INT;
+      } else if (comparisonValue instanceof Long) {
+        _comparisonValueType = ComparisonValueType.LONG;
+      } else if (comparisonValue instanceof Float) {
+        _comparisonValueType = ComparisonValueType.FLOAT;
+      } else if (comparisonValue instanceof Double) {
+        _comparisonValueType = ComparisonValueType.DOUBLE;
+      } else {
+        throw new IllegalStateException(
+            "Unsupported comparison value type: " + comparisonValue.getClass().getSimpleName() + " for: "
+                + _description);
+      }
+    }
+    switch (_comparisonValueType) {
+      case INT:
+        return (Integer) comparisonValue;
+      case LONG:
+        return (Long) comparisonValue;
+      case FLOAT:
+        return Float.floatToRawIntBits((Float) comparisonValue);
+      case DOUBLE:
+        return Double.doubleToRawLongBits((Double) comparisonValue);
+      default:
+        throw new IllegalStateException();
+    }
+  }
+
+  private Comparable decodeComparisonValue(long encodedValue) {
+    switch (_comparisonValueType) {
+      case INT:
+        return (int) encodedValue;
+      case LONG:
+        return encodedValue;
+      case FLOAT:
+        return Float.intBitsToFloat((int) encodedValue);
+      case DOUBLE:
+        return Double.longBitsToDouble(encodedValue);
+      default:
+        throw new IllegalStateException();
+    }
+  }
+
+  private class DirectBufferAllocator implements HashedKeySlotTable.BufferAllocator {
+
+    @Override
+    public PinotDataBuffer allocate(int capacity) {
+      PinotDataBuffer buffer =
+          PinotDataBuffer.allocateDirect((long) capacity * SLOT_SIZE, ByteOrder.nativeOrder(), _description);
+      for (int slot = 0; slot < capacity; slot++) {
+        buffer.putLong((long) slot * SLOT_SIZE + LOCATION_OFFSET, 0L);
+      }
+      return buffer;
+    }
+
+    @Override
+    public void release(PinotDataBuffer buffer)
+        throws IOException {
+      buffer.close();
+    }
+  }
+}
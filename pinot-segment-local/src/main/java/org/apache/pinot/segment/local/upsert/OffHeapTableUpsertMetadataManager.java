@@ -0,0 +1,42 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import com.google.common.base.Preconditions;
+import javax.annotation.concurrent.ThreadSafe;
+
+
+/**
+ * Implementation of {@link TableUpsertMetadataManager} that keeps the upsert metadata of each partition off heap with
+ * an {@link OffHeapPartitionUpsertMetadataManager}.
+ * <p>It can be selected by setting the metadata manager class of the upsert config (or the
+ * {@link TableUpsertMetadataManagerFactory#UPSERT_DEFAULT_METADATA_MANAGER_CLASS} instance config) to the name of this
+ * class.
+ */
+@ThreadSafe
+public class OffHeapTableUpsertMetadataManager extends ConcurrentMapTableUpsertMetadataManager {
+
+  @Override
+  protected BasePartitionUpsertMetadataManager createPartitionManager(int partitionId) {
+    Preconditions.checkState(!_enableDeletedKeysCompactionConsistency,
+        "Off-heap upsert metadata does not support deleted keys compaction consistency for table: %s",
+        _tableNameWithType);
+    return new OffHeapPartitionUpsertMetadataManager(_tableNameWithType, partitionId, _context);
+  }
+}
@@ -0,0 +1,343 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import com.google.common.base.Preconditions;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentImpl;
+import org.apache.pinot.segment.local.upsert.ConcurrentMapPartitionUpsertMetadataManager.RecordLocation;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.config.table.HashFunction;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Versioned snapshot of the primary key to record location map of an upsert partition, covering the record locations
+ * in the immutable segments. It is taken together with the validDocIds snapshots, and used when preloading segments so
+ * that the primary key and comparison columns of the segments do not need to be read again.
+ * <p>File layout (big endian):
+ * <ul>
+ *   <li>Header: magic, version, comparison value type</li>
+ *   <li>Entries of 32 bytes each: 128-bit hashed primary key, segment index, doc id, comparison value encoded into a
+ *   long</li>
+ *   <li>Footer: number of entries, hash function, then the name, CRC and number of entries of each segment</li>
+ *   <li>Trailer: footer offset, magic</li>
+ * </ul>
+ * The entries are memory mapped when the snapshot is loaded. Only hashed primary keys (MD5 or MURMUR3) and a single
+ * numeric comparison column are supported, otherwise the snapshot is not written.
+ */
+class UpsertKeyMapSnapshot implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(UpsertKeyMapSnapshot.class);
+
+  static final String FILE_NAME_PREFIX = "upsert.keymap.snapshot.partition.";
+  static final int VERSION = 1;
+
+  private static final int MAGIC = 0x55504B4D;
+  private static final int HEADER_SIZE = 3 * Integer.BYTES;
+  private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+  private static final int ENTRY_SIZE = 32;
+  private static final int KEY_SIZE = 16;
+  private static final int KEY_0_OFFSET = 0;
+  private static final int KEY_1_OFFSET = 8;
+  private static final int SEGMENT_INDEX_OFFSET = 16;
+  private static final int DOC_ID_OFFSET = 20;
+  private static final int COMPARISON_VALUE_OFFSET = 24;
+
+  private enum ComparisonValueType {
+    INT, LONG, FLOAT, DOUBLE
+  }
+
+  private final PinotDataBuffer _entries;
+  private final ComparisonValueType _comparisonValueType;
+  private final Map<String, SegmentEntries> _segmentEntriesMap;
+
+  private UpsertKeyMapSnapshot(PinotDataBuffer entries, ComparisonValueType comparisonValueType,
+      Map<String, SegmentEntries> segmentEntriesMap) {
+    _entries = entries;
+    _comparisonValueType = comparisonValueType;
+    _segmentEntriesMap = segmentEntriesMap;
+  }
+
+  /**
+   * Writes the record locations in the immutable segments into the given file, replacing the existing one. Returns
+   * {@code false} without writing the file if the primary keys are not hashed into 16 bytes, or the comparison values
+   * are not of the same numeric type.
+   */
+  static boolean write(File file, HashFunction hashFunction,
+      Iterator<? extends Map.Entry<Object, RecordLocation>> recordLocationIterator)
+      throws IOException {
+    File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+    Map<IndexSegment, Integer> segmentIndexMap = new IdentityHashMap<>();
+    List<ImmutableSegmentImpl> segments = new ArrayList<>();
+    List<Integer> segmentNumEntries = new ArrayList<>();
+    long numEntries = 0;
+    ComparisonValueType comparisonValueType = null;
+    boolean success = false;
+    try (DataOutputStream outputStream = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(tempFile.toPath())))) {
+      outputStream.writeInt(MAGIC);
+      outputStream.writeInt(VERSION);
+      // Placeholder for the comparison value type, which is inferred from the first entry
+      outputStream.writeInt(-1);
+      while (recordLocationIterator.hasNext()) {
+        Map.Entry<Object, RecordLocation> entry = recordLocationIterator.next();
+        RecordLocation recordLocation = entry.getValue();
+        IndexSegment segment = recordLocation.getSegment();
+        if (!(segment instanceof ImmutableSegmentImpl)) {
+          continue;
+        }
+        if (!(entry.getKey() instanceof ByteArray) || ((ByteArray) entry.getKey()).length() != KEY_SIZE) {
+          LOGGER.warn("Skip writing upsert key map snapshot: {} with primary key not hashed into {} bytes", file,
+              KEY_SIZE);
+          return false;
+        }
+        Comparable comparisonValue = recordLocation.getComparisonValue();
+        if (comparisonValueType == null) {
+          comparisonValueType = getComparisonValueType(comparisonValue);
+          if (comparisonValueType == null) {
+            LOGGER.warn("Skip writing upsert key map snapshot: {} with unsupported comparison value type: {}", file,
+                comparisonValue.getClass());
+            return false;
+          }
+        } else if (getComparisonValueType(comparisonValue) != comparisonValueType) {
+          LOGGER.warn("Skip writing upsert key map snapshot: {} with comparison values of different types", file);
+          return false;
+        }
+        Integer segmentIndex = segmentIndexMap.get(segment);
+        if (segmentIndex == null) {
+          segmentIndex = segments.size();
+          segmentIndexMap.put(segment, segmentIndex);
+          segments.add((ImmutableSegmentImpl) segment);
+          segmentNumEntries.add(0);
+        }
+        segmentNumEntries.set(segmentIndex, segmentNumEntries.get(segmentIndex) + 1);
+        outputStream.write(((ByteArray) entry.getKey()).getBytes());
+        outputStream.writeInt(segmentIndex);
+        outputStream.writeInt(recordLocation.getDocId());
+        outputStream.writeLong(encodeComparisonValue(comparisonValue, comparisonValueType));
+        numEntries++;
+      }
+      long footerOffset = HEADER_SIZE + numEntries * ENTRY_SIZE;
+      outputStream.writeLong(numEntries);
+      outputStream.writeUTF(hashFunction.name());
+      outputStream.writeInt(segments.size());
+      for (int i = 0; i < segments.size(); i++) {
+        ImmutableSegmentImpl segment = segments.get(i);
+        String crc = segment.getSegmentMetadata().getCrc();
+        outputStream.writeUTF(segment.getSegmentName());
+        outputStream.writeUTF(crc != null ? crc : "");
+        outputStream.writeInt(segmentNumEntries.get(i));
+      }
+      outputStream.writeLong(footerOffset);
+      outputStream.writeInt(MAGIC);
+      success = true;
+    } finally {
+      if (!success) {
+        FileUtils.deleteQuietly(tempFile);
+      }
+    }
+    // Fill in the comparison value type
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(tempFile, "rw")) {
+      randomAccessFile.seek(2 * Integer.BYTES);
+      randomAccessFile.writeInt(comparisonValueType != null ? comparisonValueType.ordinal() : 0);
+    }
+    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    LOGGER.info("Wrote upsert key map snapshot: {} with {} entries of {} segments", file, numEntries,
+        segments.size());
+    return true;
+  }
+
+  /**
+   * Loads the snapshot from the given file, or returns {@code null} if the file does not exist or is not valid.
+   */
+  @Nullable
+  static UpsertKeyMapSnapshot load(File file, HashFunction hashFunction) {
+    if (!file.exists()) {
+      return null;
+    }
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+      long fileLength = randomAccessFile.length();
+      Preconditions.checkState(fileLength >= HEADER_SIZE + TRAILER_SIZE, "Invalid file length: %s", fileLength);
+      Preconditions.checkState(randomAccessFile.readInt() == MAGIC, "Invalid magic in header");
+      int version = randomAccessFile.readInt();
+      Preconditions.checkState(version == VERSION, "Unsupported version: %s", version);
+      ComparisonValueType comparisonValueType = ComparisonValueType.values()[randomAccessFile.readInt()];
+      randomAccessFile.seek(fileLength - TRAILER_SIZE);
+      long footerOffset = randomAccessFile.readLong();
+      Preconditions.checkState(randomAccessFile.readInt() == MAGIC, "Invalid magic in trailer");
+      randomAccessFile.seek(footerOffset);
+      long numEntries = randomAccessFile.readLong();
+      Preconditions.checkState(footerOffset == HEADER_SIZE + numEntries * ENTRY_SIZE, "Invalid footer offset: %s",
+          footerOffset);
+      String hashFunctionName = randomAccessFile.readUTF();
+      if (!hashFunctionName.equals(hashFunction.name())) {
+        LOGGER.info("Skip loading upsert key map snapshot: {} with different hash function: {}", file,
+            hashFunctionName);
+        return null;
+      }
+      int numSegments = randomAccessFile.readInt();
+      String[] segmentNames = new String[numSegments];
+      SegmentEntries[] segmentEntriesArray = new SegmentEntries[numSegments];
+      for (int i = 0; i < numSegments; i++) {
+        segmentNames[i] = randomAccessFile.readUTF();
+        String crc = randomAccessFile.readUTF();
+        segmentEntriesArray[i] = new SegmentEntries(crc, new int[randomAccessFile.readInt()]);
+      }
+
+      PinotDataBuffer entries =
+          PinotDataBuffer.mapFile(file, true, HEADER_SIZE, Math.max(numEntries * ENTRY_SIZE, 1), ByteOrder.BIG_ENDIAN,
+              "Upsert key map snapshot: " + file);
+      Map<String, SegmentEntries> segmentEntriesMap = new HashMap<>();
+      UpsertKeyMapSnapshot snapshot = new UpsertKeyMapSnapshot(entries, comparisonValueType, segmentEntriesMap);
+      for (int entryId = 0; entryId < numEntries; entryId++) {
+        SegmentEntries segmentEntries =
+            segmentEntriesArray[entries.getInt((long) entryId * ENTRY_SIZE + SEGMENT_INDEX_OFFSET)];
+        segmentEntries._entryIds[segmentEntries._numEntries++] = entryId;
+      }
+      for (int i = 0; i < numSegments; i++) {
+        segmentEntriesArray[i]._snapshot = snapshot;
+        segmentEntriesMap.put(segmentNames[i], segmentEntriesArray[i]);
+      }
+      LOGGER.info("Loaded upsert key map snapshot: {} with {} entries of {} segments", file, numEntries, numSegments);
+      return snapshot;
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while loading upsert key map snapshot: {}, skipping it", file, e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the entries of the given segment, or {@code null} if the snapshot does not have the segment with the
+   * given CRC.
+   */
+  @Nullable
+  SegmentEntries getSegmentEntries(String segmentName, @Nullable String crc) {
+    SegmentEntries segmentEntries = _segmentEntriesMap.get(segmentName);
+    return segmentEntries != null && segmentEntries._crc.equals(crc) ? segmentEntries : null;
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    _entries.close();
+  }
+
+  @Nullable
+  private static ComparisonValueType getComparisonValueType(Comparable comparisonValue) {
+    if (comparisonValue instanceof Integer) {
+      return ComparisonValueType.INT;
+    }
+    if (comparisonValue instanceof Long) {
+      return ComparisonValueType.LONG;
+    }
+    if (comparisonValue instanceof Float) {
+      return ComparisonValueType.FLOAT;
+    }
+    if (comparisonValue instanceof Double) {
+      return ComparisonValueType.DOUBLE;
+    }
+    return null;
+  }
+
+  private static long encodeComparisonValue(Comparable comparisonValue, ComparisonValueType comparisonValueType) {
+    switch (comparisonValueType) {
+      case INT:
+        return (Integer) comparisonValue;
+      case LONG:
+        return (Long) comparisonValue;
+      case FLOAT:
+        return Float.floatToRawIntBits((Float) comparisonValue);
+      case DOUBLE:
+        return Double.doubleToRawLongBits((Double) comparisonValue);
+      default:
+        throw new IllegalStateException("Unsupported comparison value type: " + comparisonValueType);
+    }
+  }
+
+  private Comparable decodeComparisonValue(long value) {
+    switch (_comparisonValueType) {
+      case INT:
+        return (int) value;
+      case LONG:
+        return value;
+      case FLOAT:
+        return Float.intBitsToFloat((int) value);
+      case DOUBLE:
+        return Double.longBitsToDouble(value);
+      default:
+        throw new IllegalStateException("Unsupported comparison value type: " + _comparisonValueType);
+    }
+  }
+
+  /**
+   * The entries of a segment in the snapshot.
+   */
+  static class SegmentEntries {
+    private final String _crc;
+    private final int[] _entryIds;
+    private int _numEntries;
+    private UpsertKeyMapSnapshot _snapshot;
+
+    private SegmentEntries(String crc, int[] entryIds) {
+      _crc = crc;
+      _entryIds = entryIds;
+    }
+
+    int size() {
+      return _numEntries;
+    }
+
+    ByteArray getPrimaryKey(int index) {
+      byte[] bytes = new byte[KEY_SIZE];
+      _snapshot._entries.copyTo(getOffset(index), bytes);
+      return new ByteArray(bytes);
+    }
+
+    int getDocId(int index) {
+      return _snapshot._entries.getInt(getOffset(index) + DOC_ID_OFFSET);
+    }
+
+    Comparable getComparisonValue(int index) {
+      return _snapshot.decodeComparisonValue(_snapshot._entries.getLong(getOffset(index) + COMPARISON_VALUE_OFFSET));
+    }
+
+    private long getOffset(int index) {
+      return (long) _entryIds[index] * ENTRY_SIZE;
+    }
+  }
+}
@@ -0,0 +1,283 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.utils;
+
+import com.google.common.base.Preconditions;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.utils.ByteArray;
+
+
+/**
+ * Open addressing hash table of fixed size slots stored in a {@link PinotDataBuffer}, keyed by a 128-bit hashed key
+ * (output of the MD5 or MURMUR3 hash function).
+ * <p>Each slot starts with the 2 longs of the key, followed by the value written by the owner of the table. A slot is
+ * empty when the long at the occupied marker offset is 0, so the value must never write 0 there. Collisions are
+ * resolved with linear probing, and removals use backward shift deletion so that no tombstone is needed.
+ * <p>The buffers are provided by a {@link BufferAllocator}, so that the slots can be kept off-heap or in a memory
+ * mapped file. The table is not thread safe, and the owner should synchronize the accesses.
+ */
+@NotThreadSafe
+public class HashedKeySlotTable implements Closeable {
+  public static final int KEY_SIZE = 16;
+  public static final int KEY_0_OFFSET = 0;
+  public static final int KEY_1_OFFSET = 8;
+  // Offset of the value within the slot
+  public static final int VALUE_OFFSET = 16;
+  public static final int MAX_CAPACITY = 1 << 30;
+
+  private static final float LOAD_FACTOR = 0.7f;
+
+  public interface BufferAllocator {
+
+    /**
+     * Allocates a buffer of the given number of slots, where the occupied marker of all the slots is 0.
+     */
+    PinotDataBuffer allocate(int capacity)
+        throws IOException;
+
+    /**
+     * Releases the buffer replaced when the table is resized, invoked after the keys are moved to the new buffer.
+     */
+    void release(PinotDataBuffer buffer)
+        throws IOException;
+  }
+
+  private final int _slotSize;
+  private final int _occupiedMarkerOffset;
+  private final BufferAllocator _bufferAllocator;
+  private final String _description;
+
+  private PinotDataBuffer _buffer;
+  private int _capacity;
+  private int _mask;
+  private int _threshold;
+  private int _size;
+
+  /**
+   * Creates an empty table with the given initial capacity (rounded up to the next power of 2).
+   */
+  public HashedKeySlotTable(int slotSize, int occupiedMarkerOffset, int initialCapacity,
+      BufferAllocator bufferAllocator, String description)
+      throws IOException {
+    this(slotSize, occupiedMarkerOffset, bufferAllocator, description);
+    Preconditions.checkArgument(initialCapacity > 0 && initialCapacity <= MAX_CAPACITY,
+        "Invalid initial capacity: %s", initialCapacity);
+    // Round up to the next power of 2
+    int capacity = Integer.highestOneBit(Math.max(initialCapacity - 1, 1)) << 1;
+    setBuffer(bufferAllocator.allocate(capacity), capacity);
+  }
+
+  /**
+   * Creates a table on top of the given buffer holding the slots of a previous table with the given capacity.
+   */
+  public HashedKeySlotTable(int slotSize, int occupiedMarkerOffset, PinotDataBuffer buffer, int capacity,
+      BufferAllocator bufferAllocator, String description) {
+    this(slotSize, occupiedMarkerOffset, bufferAllocator, description);
+    Preconditions.checkArgument(Integer.bitCount(capacity) == 1 && capacity <= MAX_CAPACITY,
+        "Invalid capacity: %s", capacity);
+    setBuffer(buffer, capacity);
+    for (int slot = 0; slot < capacity; slot++) {
+      if (!isEmpty(slot)) {
+        _size++;
+      }
+    }
+  }
+
+  private HashedKeySlotTable(int slotSize, int occupiedMarkerOffset, BufferAllocator bufferAllocator,
+      String description) {
+    Preconditions.checkArgument(slotSize >= VALUE_OFFSET + Long.BYTES && slotSize % Long.BYTES == 0,
+        "Invalid slot size: %s", slotSize);
+    Preconditions.checkArgument(occupiedMarkerOffset >= VALUE_OFFSET && occupiedMarkerOffset <= slotSize - Long.BYTES,
+        "Invalid occupied marker offset: %s", occupiedMarkerOffset);
+    _slotSize = slotSize;
+    _occupiedMarkerOffset = occupiedMarkerOffset;
+    _bufferAllocator = bufferAllocator;
+    _description = description;
+  }
+
+  /**
+   * Returns the first long of the given hashed key.
+   */
+  public static long getKey0(ByteArray hashedKey) {
+    byte[] bytes = hashedKey.getBytes();
+    Preconditions.checkArgument(bytes.length == KEY_SIZE, "Hashed key must be %s bytes, got: %s", KEY_SIZE,
+        bytes.length);
+    return ByteBuffer.wrap(bytes).getLong(KEY_0_OFFSET);
+  }
+
+  /**
+   * Returns the second long of the given hashed key, which should be validated with {@link #getKey0} first.
+   */
+  public static long getKey1(ByteArray hashedKey) {
+    return ByteBuffer.wrap(hashedKey.getBytes()).getLong(KEY_1_OFFSET);
+  }
+
+  public PinotDataBuffer getBuffer() {
+    return _buffer;
+  }
+
+  public int getCapacity() {
+    return _capacity;
+  }
+
+  public int size() {
+    return _size;
+  }
+
+  public long getOffset(int slot) {
+    return (long) slot * _slotSize;
+  }
+
+  public boolean isEmpty(int slot) {
+    return _buffer.getLong(getOffset(slot) + _occupiedMarkerOffset) == 0;
+  }
+
+  public long getKey0(int slot) {
+    return _buffer.getLong(getOffset(slot) + KEY_0_OFFSET);
+  }
+
+  public long getKey1(int slot) {
+    return _buffer.getLong(getOffset(slot) + KEY_1_OFFSET);
+  }
+
+  /**
+   * Returns the slot holding the given key, or the empty slot where it should be inserted.
+   */
+  public int findSlot(long key0, long key1) {
+    int slot = hash(key0, key1) & _mask;
+    while (true) {
+      long offset = getOffset(slot);
+      if (_buffer.getLong(offset + _occupiedMarkerOffset) == 0
+          || (_buffer.getLong(offset + KEY_0_OFFSET) == key0 && _buffer.getLong(offset + KEY_1_OFFSET) == key1)) {
+        return slot;
+      }
+      slot = (slot + 1) & _mask;
+    }
+  }
+
+  /**
+   * Inserts the given key, which should not exist in the table, and returns the offset of the slot where the value
+   * should be written. The table is resized before inserting the key if needed, so the slot returned by
+   * {@link #findSlot} might no longer be valid afterward.
+   */
+  public long insert(long key0, long key1) {
+    if (_size >= _threshold) {
+      resize();
+    }
+    long offset = getOffset(findSlot(key0, key1));
+    _buffer.putLong(offset + KEY_0_OFFSET, key0);
+    _buffer.putLong(offset + KEY_1_OFFSET, key1);
+    _size++;
+    return offset;
+  }
+
+  /**
+   * Removes the entry in the given slot, and shifts back the following entries of the probe sequence.
+   */
+  public void delete(int slot) {
+    _size--;
+    int emptySlot = slot;
+    int currentSlot = slot;
+    while (true) {
+      currentSlot = (currentSlot + 1) & _mask;
+      long currentOffset = getOffset(currentSlot);
+      if (_buffer.getLong(currentOffset + _occupiedMarkerOffset) == 0) {
+        break;
+      }
+      int idealSlot =
+          hash(_buffer.getLong(currentOffset + KEY_0_OFFSET), _buffer.getLong(currentOffset + KEY_1_OFFSET)) & _mask;
+      // Move the entry to the empty slot if its ideal slot is not within (emptySlot, currentSlot]
+      if (((currentSlot - idealSlot) & _mask) >= ((currentSlot - emptySlot) & _mask)) {
+        _buffer.copyTo(currentOffset, _buffer, getOffset(emptySlot), _slotSize);
+        emptySlot = currentSlot;
+      }
+    }
+    _buffer.putLong(getOffset(emptySlot) + _occupiedMarkerOffset, 0L);
+  }
+
+  /**
+   * Removes the entries in the slots matching the given predicate with the given deleter, which is invoked with the
+   * slot of each entry and should call {@link #delete}. Returns the number of entries removed.
+   */
+  public int removeIf(IntPredicate slotPredicate, IntConsumer slotDeleter) {
+    // Collect the keys first because the deletion shifts back the entries
+    LongArrayList keysToRemove = new LongArrayList();
+    for (int slot = 0; slot < _capacity; slot++) {
+      if (!isEmpty(slot) && slotPredicate.test(slot)) {
+        keysToRemove.add(getKey0(slot));
+        keysToRemove.add(getKey1(slot));
+      }
+    }
+    int numKeysToRemove = keysToRemove.size() / 2;
+    for (int i = 0; i < numKeysToRemove; i++) {
+      slotDeleter.accept(findSlot(keysToRemove.getLong(2 * i), keysToRemove.getLong(2 * i + 1)));
+    }
+    return numKeysToRemove;
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    if (_buffer != null) {
+      _buffer.close();
+      _buffer = null;
+    }
+  }
+
+  private static int hash(long key0, long key1) {
+    // The keys are the output of a cryptographic/murmur hash, so the bits are already well distributed
+    long bits = key0 ^ key1;
+    return (int) (bits ^ (bits >>> 32));
+  }
+
+  private void setBuffer(PinotDataBuffer buffer, int capacity) {
+    _buffer = buffer;
+    _capacity = capacity;
+    _mask = capacity - 1;
+    _threshold = (int) (capacity * LOAD_FACTOR);
+  }
+
+  private void resize() {
+    Preconditions.checkState(_capacity < MAX_CAPACITY, "Cannot grow the %s beyond %s slots", _description,
+        MAX_CAPACITY);
+    PinotDataBuffer oldBuffer = _buffer;
+    int oldCapacity = _capacity;
+    try {
+      int capacity = oldCapacity << 1;
+      setBuffer(_bufferAllocator.allocate(capacity), capacity);
+      for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+        long oldOffset = (long) oldSlot * _slotSize;
+        if (oldBuffer.getLong(oldOffset + _occupiedMarkerOffset) != 0) {
+          int slot = findSlot(oldBuffer.getLong(oldOffset + KEY_0_OFFSET), oldBuffer.getLong(oldOffset + KEY_1_OFFSET));
+          oldBuffer.copyTo(oldOffset, _buffer, getOffset(slot), _slotSize);
+        }
+      }
+      _bufferAllocator.release(oldBuffer);
+    } catch (IOException e) {
+      throw new RuntimeException("Caught exception while resizing the " + _description, e);
+    }
+  }
+}
@@ -57,6 +57,7 @@ import org.apache.pinot.segment.spi.index.startree.AggregationFunctionColumnPair
 import org.apache.pinot.spi.config.table.FieldConfig;
 import org.apache.pinot.spi.config.table.FieldConfig.CompressionCodec;
 import org.apache.pinot.spi.config.table.FieldConfig.EncodingType;
+import org.apache.pinot.spi.config.table.HashFunction;
 import org.apache.pinot.spi.config.table.IndexingConfig;
 import org.apache.pinot.spi.config.table.QuotaConfig;
 import org.apache.pinot.spi.config.table.RoutingConfig;
@@ -881,6 +882,16 @@ public final class TableConfigUtils {
             "enableDeletedKeysCompactionConsistency should exist with UpsertCompactionTask for upsert table");
       }
 
+      if (upsertConfig.isEnableKeyMapSnapshot()) {
+        Preconditions.checkState(upsertConfig.isEnableSnapshot() && upsertConfig.isEnablePreload(),
+            "enableKeyMapSnapshot should exist with enableSnapshot and enablePreload for upsert table");
+        HashFunction hashFunction = upsertConfig.getHashFunction();
+        Preconditions.checkState(hashFunction == HashFunction.MD5 || hashFunction == HashFunction.MURMUR3,
+            "enableKeyMapSnapshot requires MD5 or MURMUR3 hashFunction for upsert table");
+        Preconditions.checkState(comparisonColumns == null || comparisonColumns.size() == 1,
+            "enableKeyMapSnapshot does not work with multiple comparison columns for upsert table");
+      }
+
       if (upsertConfig.getConsistencyMode() != UpsertConfig.ConsistencyMode.NONE) {
         Preconditions.checkState(upsertConfig.getNewSegmentTrackingTimeMs() > 0,
             "Positive newSegmentTrackingTimeMs is required to enable consistency mode: "
@@ -0,0 +1,279 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.dedup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.segment.local.data.manager.TableDataManager;
+import org.apache.pinot.segment.local.dedup.DiskBackedDedupMetadataStore.SegmentAndTime;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentImpl;
+import org.apache.pinot.segment.local.segment.readers.PinotSegmentColumnReader;
+import org.apache.pinot.segment.local.segment.readers.PrimaryKeyReader;
+import org.apache.pinot.segment.local.utils.HashUtils;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.MutableSegment;
+import org.apache.pinot.spi.config.table.HashFunction;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+
+public class DiskBackedPartitionDedupMetadataManagerTest {
+  private static final File TEMP_DIR =
+      new File(FileUtils.getTempDirectory(), DiskBackedPartitionDedupMetadataManagerTest.class.getSimpleName());
+  private DedupContext.Builder _dedupContextBuilder;
+
+  @BeforeMethod
+  public void setUpContextBuilder()
+      throws IOException {
+    FileUtils.forceMkdir(TEMP_DIR);
+    _dedupContextBuilder = new DedupContext.Builder();
+    _dedupContextBuilder.setTableConfig(mock(TableConfig.class)).setSchema(mock(Schema.class))
+        .setPrimaryKeyColumns(List.of("primaryKeyColumn")).setTableDataManager(mock(TableDataManager.class))
+        .setServerMetrics(mock(ServerMetrics.class)).setTableIndexDir(TEMP_DIR);
+  }
+
+  @AfterMethod
+  public void cleanup() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+
+  @Test
+  public void testUnsupportedHashFunction() {
+    _dedupContextBuilder.setHashFunction(HashFunction.NONE);
+    assertThrows(IllegalArgumentException.class,
+        () -> new DiskBackedPartitionDedupMetadataManager(DedupTestUtils.REALTIME_TABLE_NAME, 0,
+            _dedupContextBuilder.build()));
+  }
+
+  @Test
+  public void testAddRemoveSegment()
+      throws IOException {
+    verifyAddRemoveSegment(HashFunction.MD5);
+    verifyAddRemoveSegment(HashFunction.MURMUR3);
+  }
+
+  private void verifyAddRemoveSegment(HashFunction hashFunction)
+      throws IOException {
+    DiskBackedPartitionDedupMetadataManager metadataManager = createMetadataManager(hashFunction);
+    DiskBackedDedupMetadataStore store = metadataManager._store;
+
+    // Add the first segment
+    DedupUtils.DedupRecordInfoReader dedupRecordInfoReader = generateDedupRecordInfoReader();
+    Iterator<DedupRecordInfo> dedupRecordInfoIterator = DedupUtils.getDedupRecordInfoIterator(dedupRecordInfoReader, 6);
+    ImmutableSegmentImpl segment1 = DedupTestUtils.mockSegment(1, 6);
+    metadataManager.doAddOrReplaceSegment(null, segment1, dedupRecordInfoIterator);
+    assertEquals(store.size(), 3);
+    checkSegmentAndTime(store, 0, segment1, 5000, hashFunction);
+    checkSegmentAndTime(store, 1, segment1, 4000, hashFunction);
+    checkSegmentAndTime(store, 2, segment1, 2000, hashFunction);
+
+    // Removing another segment with the same primary keys should not remove the keys
+    dedupRecordInfoIterator = DedupUtils.getDedupRecordInfoIterator(dedupRecordInfoReader, 6);
+    metadataManager.doRemoveSegment(DedupTestUtils.mockSegment(1, 6), dedupRecordInfoIterator);
+    assertEquals(store.size(), 3);
+
+    dedupRecordInfoIterator = DedupUtils.getDedupRecordInfoIterator(dedupRecordInfoReader, 6);
+    metadataManager.doRemoveSegment(segment1, dedupRecordInfoIterator);
+    assertEquals(store.size(), 0);
+
+    metadataManager.stop();
+    metadataManager.close();
+    FileUtils.cleanDirectory(TEMP_DIR);
+  }
+
+  @Test
+  public void testAddRow()
+      throws IOException {
+    DiskBackedPartitionDedupMetadataManager metadataManager = createMetadataManager(HashFunction.MD5);
+    DiskBackedDedupMetadataStore store = metadataManager._store;
+
+    DedupUtils.DedupRecordInfoReader dedupRecordInfoReader = generateDedupRecordInfoReader();
+    Iterator<DedupRecordInfo> dedupRecordInfoIterator = DedupUtils.getDedupRecordInfoIterator(dedupRecordInfoReader, 6);
+    ImmutableSegmentImpl segment1 = DedupTestUtils.mockSegment(1, 6);
+    metadataManager.doAddOrReplaceSegment(null, segment1, dedupRecordInfoIterator);
+
+    // Same PK exists
+    MutableSegment segment2 = mockMutableSegment(2);
+    dedupRecordInfoIterator = DedupUtils.getDedupRecordInfoIterator(dedupRecordInfoReader, 6);
+    while (dedupRecordInfoIterator.hasNext()) {
+      assertTrue(metadataManager.checkRecordPresentOrUpdate(dedupRecordInfoIterator.next(), segment2));
+    }
+    checkSegmentAndTime(store, 0, segment1, 5000, HashFunction.MD5);
+
+    // New PK
+    assertFalse(
+        metadataManager.checkRecordPresentOrUpdate(new DedupRecordInfo(DedupTestUtils.getPrimaryKey(3), 3000),
+            segment2));
+    checkSegmentAndTime(store, 3, segment2, 3000, HashFunction.MD5);
+    assertTrue(
+        metadataManager.checkRecordPresentOrUpdate(new DedupRecordInfo(DedupTestUtils.getPrimaryKey(3), 4000),
+            segment2));
+
+    // Add enough keys to resize the store
+    for (int i = 4; i < 100_000; i++) {
+      assertFalse(
+          metadataManager.checkRecordPresentOrUpdate(new DedupRecordInfo(DedupTestUtils.getPrimaryKey(i), i),
+              segment2));
+    }
+    assertEquals(store.size(), 100_000);
+    checkSegmentAndTime(store, 0, segment1, 5000, HashFunction.MD5);
+    checkSegmentAndTime(store, 99_999, segment2, 99_999, HashFunction.MD5);
+
+    metadataManager.stop();
+    metadataManager.close();
+  }
+
+  @Test
+  public void testRestart()
+      throws IOException {
+    DiskBackedPartitionDedupMetadataManager metadataManager = createMetadataManager(HashFunction.MURMUR3);
+    DedupUtils.DedupRecordInfoReader dedupRecordInfoReader = generateDedupRecordInfoReader();
+    ImmutableSegmentImpl segment1 = mockSegment(1, "crc1");
+    metadataManager.doAddOrReplaceSegment(null, segment1,
+        DedupUtils.getDedupRecordInfoIterator(dedupRecordInfoReader, 6));
+    MutableSegment segment2 = mockMutableSegment(2);
+    assertFalse(
+        metadataManager.checkRecordPresentOrUpdate(new DedupRecordInfo(DedupTestUtils.getPrimaryKey(3), 6000),
+            segment2));
+    ImmutableSegmentImpl segment3 = mockSegment(3, "crc3");
+    metadataManager.doAddOrReplaceSegment(null, segment3,
+        List.of(new DedupRecordInfo(DedupTestUtils.getPrimaryKey(4), 7000)).iterator());
+    assertEquals(metadataManager._store.size(), 5);
+    metadataManager.stop();
+    metadataManager.close();
+
+    // The keys of the mutable segment should be dropped, and the persisted segments should be loaded without reading
+    // the primary keys
+    metadataManager = createMetadataManager(HashFunction.MURMUR3);
+    DiskBackedDedupMetadataStore store = metadataManager._store;
+    assertEquals(store.size(), 4);
+    assertEquals(store.getNumUnboundSegments(), 2);
+    ImmutableSegmentImpl reloadedSegment1 = mockSegment(1, "crc1");
+    metadataManager.addSegment(reloadedSegment1);
+    assertEquals(store.getNumUnboundSegments(), 1);
+    checkSegmentAndTime(store, 0, reloadedSegment1, 5000, HashFunction.MURMUR3);
+    assertNull(store.get(hashPrimaryKey(3, HashFunction.MURMUR3)));
+    SegmentAndTime segmentAndTime = store.get(hashPrimaryKey(4, HashFunction.MURMUR3));
+    assertNotNull(segmentAndTime);
+    assertNull(segmentAndTime.getSegment());
+    assertEquals(segmentAndTime.getSegmentName(), segment3.getSegmentName());
+
+    // The keys of the segments not loaded should be removed before ingesting the first record
+    MutableSegment newSegment2 = mockMutableSegment(2);
+    assertFalse(
+        metadataManager.checkRecordPresentOrUpdate(new DedupRecordInfo(DedupTestUtils.getPrimaryKey(4), 8000),
+            newSegment2));
+    assertTrue(
+        metadataManager.checkRecordPresentOrUpdate(new DedupRecordInfo(DedupTestUtils.getPrimaryKey(1), 8000),
+            newSegment2));
+    assertEquals(store.getNumUnboundSegments(), 0);
+    assertEquals(store.size(), 4);
+    checkSegmentAndTime(store, 4, newSegment2, 8000, HashFunction.MURMUR3);
+    metadataManager.stop();
+    metadataManager.close();
+
+    // Segment with different CRC should be added again
+    metadataManager = createMetadataManager(HashFunction.MURMUR3);
+    store = metadataManager._store;
+    assertEquals(store.size(), 3);
+    assertFalse(metadataManager.loadPersistedSegment(mockSegment(1, "newCrc")));
+    assertEquals(store.size(), 0);
+    metadataManager.stop();
+    metadataManager.close();
+
+    // Persisted keys should be discarded when the hash function changes, or when the store is not closed cleanly
+    metadataManager = createMetadataManager(HashFunction.MD5);
+    assertEquals(metadataManager._store.size(), 0);
+    metadataManager.doAddOrReplaceSegment(null, segment1,
+        DedupUtils.getDedupRecordInfoIterator(dedupRecordInfoReader, 6));
+    assertEquals(metadataManager._store.size(), 3);
+    metadataManager.stop();
+    metadataManager.close();
+    FileUtils.deleteQuietly(new File(new File(TEMP_DIR, DiskBackedPartitionDedupMetadataManager.STORE_DIR_PREFIX + 0),
+        DiskBackedDedupMetadataStore.METADATA_FILE_NAME));
+    metadataManager = createMetadataManager(HashFunction.MD5);
+    assertEquals(metadataManager._store.size(), 0);
+    metadataManager.stop();
+    metadataManager.close();
+  }
+
+  private DiskBackedPartitionDedupMetadataManager createMetadataManager(HashFunction hashFunction) {
+    _dedupContextBuilder.setHashFunction(hashFunction);
+    return new DiskBackedPartitionDedupMetadataManager(DedupTestUtils.REALTIME_TABLE_NAME, 0,
+        _dedupContextBuilder.build());
+  }
+
+  private static ImmutableSegmentImpl mockSegment(int sequenceNumber, String crc) {
+    ImmutableSegmentImpl segment = DedupTestUtils.mockSegment(sequenceNumber, 6);
+    when(segment.getSegmentMetadata().getCrc()).thenReturn(crc);
+    return segment;
+  }
+
+  private static MutableSegment mockMutableSegment(int sequenceNumber) {
+    MutableSegment segment = mock(MutableSegment.class);
+    when(segment.getSegmentName()).thenReturn(DedupTestUtils.getSegmentName(sequenceNumber));
+    return segment;
+  }
+
+  private static DedupUtils.DedupRecordInfoReader generateDedupRecordInfoReader() {
+    PrimaryKeyReader primaryKeyReader = Mockito.mock(PrimaryKeyReader.class);
+    PinotSegmentColumnReader dedupTimeColumnReader = Mockito.mock(PinotSegmentColumnReader.class);
+    when(primaryKeyReader.getPrimaryKey(0)).thenReturn(DedupTestUtils.getPrimaryKey(0));
+    when(primaryKeyReader.getPrimaryKey(1)).thenReturn(DedupTestUtils.getPrimaryKey(1));
+    when(primaryKeyReader.getPrimaryKey(2)).thenReturn(DedupTestUtils.getPrimaryKey(2));
+    when(primaryKeyReader.getPrimaryKey(3)).thenReturn(DedupTestUtils.getPrimaryKey(0));
+    when(primaryKeyReader.getPrimaryKey(4)).thenReturn(DedupTestUtils.getPrimaryKey(1));
+    when(primaryKeyReader.getPrimaryKey(5)).thenReturn(DedupTestUtils.getPrimaryKey(0));
+    for (int i = 0; i < 6; i++) {
+      when(dedupTimeColumnReader.getValue(i)).thenReturn(i * 1000);
+    }
+    return new DedupUtils.DedupRecordInfoReader(primaryKeyReader, dedupTimeColumnReader);
+  }
+
+  private static ByteArray hashPrimaryKey(int value, HashFunction hashFunction) {
+    return (ByteArray) HashUtils.hashPrimaryKey(DedupTestUtils.getPrimaryKey(value), hashFunction);
+  }
+
+  private static void checkSegmentAndTime(DiskBackedDedupMetadataStore store, int keyValue, IndexSegment segment,
+      double dedupTime, HashFunction hashFunction) {
+    SegmentAndTime segmentAndTime = store.get(hashPrimaryKey(keyValue, hashFunction));
+    assertNotNull(segmentAndTime);
+    assertSame(segmentAndTime.getSegment(), segment);
+    assertEquals(segmentAndTime.getDedupTime(), dedupTime);
+  }
+}
@@ -30,11 +30,13 @@ import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
 import org.apache.pinot.common.metrics.ServerMetrics;
 import org.apache.pinot.common.utils.LLCSegmentName;
 import org.apache.pinot.common.utils.UploadedRealtimeSegmentName;
+import org.apache.pinot.segment.local.data.manager.TableDataManager;
 import org.apache.pinot.segment.local.indexsegment.immutable.EmptyIndexSegment;
 import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentImpl;
 import org.apache.pinot.segment.local.segment.readers.PinotSegmentColumnReader;
@@ -1164,6 +1166,80 @@ public class ConcurrentMapPartitionUpsertMetadataManagerTest {
     }
   }
 
+  @Test
+  public void testPreloadSegmentFromKeyMapSnapshot() {
+    TableDataManager tableDataManager = mock(TableDataManager.class);
+    when(tableDataManager.getSegmentLock(anyString())).thenAnswer(invocation -> new ReentrantLock());
+    _contextBuilder.setEnableSnapshot(true).setEnablePreload(true).setEnableKeyMapSnapshot(true)
+        .setTableDataManager(tableDataManager);
+    verifyPreloadSegmentFromKeyMapSnapshot(HashFunction.MD5);
+    verifyPreloadSegmentFromKeyMapSnapshot(HashFunction.MURMUR3);
+  }
+
+  private void verifyPreloadSegmentFromKeyMapSnapshot(HashFunction hashFunction) {
+    UpsertContext upsertContext = _contextBuilder.setHashFunction(hashFunction).build();
+    ConcurrentMapPartitionUpsertMetadataManager upsertMetadataManager =
+        new ConcurrentMapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0, upsertContext);
+
+    // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
+    int[] primaryKeys = new int[]{0, 1, 2};
+    List<PrimaryKey> primaryKeyList = getPrimaryKeyList(3, primaryKeys);
+    ThreadSafeMutableRoaringBitmap validDocIds1 = new ThreadSafeMutableRoaringBitmap();
+    ImmutableSegmentImpl segment1 = mockImmutableSegment(1, validDocIds1, null, primaryKeyList);
+    when(segment1.getSegmentMetadata().getCrc()).thenReturn("1");
+    List<RecordInfo> recordInfoList = new ArrayList<>();
+    recordInfoList.add(new RecordInfo(primaryKeyList.get(0), 0, 100, false));
+    recordInfoList.add(new RecordInfo(primaryKeyList.get(1), 1, 120, false));
+    recordInfoList.add(new RecordInfo(primaryKeyList.get(2), 2, 100, false));
+    upsertMetadataManager.doPreloadSegment(segment1, validDocIds1, null, recordInfoList.iterator());
+    upsertMetadataManager.doTakeSnapshot();
+    File keyMapSnapshotFile = upsertMetadataManager.getKeyMapSnapshotFile();
+    assertTrue(keyMapSnapshotFile.exists());
+
+    // Restart with the same segment, which should be preloaded without reading the primary keys
+    ConcurrentMapPartitionUpsertMetadataManager restartedMetadataManager =
+        new ConcurrentMapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0, upsertContext);
+    Map<Object, RecordLocation> recordLocationMap = restartedMetadataManager._primaryKeyToRecordLocationMap;
+    MutableRoaringBitmap validDocIdsSnapshot = new MutableRoaringBitmap();
+    validDocIdsSnapshot.add(0, 1, 2);
+    ImmutableSegmentImpl newSegment1 = mockImmutableSegment(1, new ThreadSafeMutableRoaringBitmap(), null,
+        Collections.emptyList());
+    when(newSegment1.getSegmentMetadata().getCrc()).thenReturn("1");
+    when(newSegment1.loadValidDocIdsFromSnapshot()).thenReturn(validDocIdsSnapshot);
+    restartedMetadataManager.doPreloadSegment(newSegment1);
+    assertEquals(recordLocationMap.size(), 3);
+    int[] comparisonValues = new int[]{100, 120, 100};
+    for (int i = 0; i < 3; i++) {
+      RecordLocation recordLocation =
+          recordLocationMap.get(HashUtils.hashPrimaryKey(makePrimaryKey(primaryKeys[i]), hashFunction));
+      assertNotNull(recordLocation);
+      assertSame(recordLocation.getSegment(), newSegment1);
+      assertEquals(recordLocation.getDocId(), i);
+      assertEquals(recordLocation.getComparisonValue(), comparisonValues[i]);
+    }
+
+    // Segment with different CRC or different valid docs should fall back to reading the primary keys
+    ConcurrentMapPartitionUpsertMetadataManager fallbackMetadataManager =
+        new ConcurrentMapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0, upsertContext);
+    ImmutableSegmentImpl otherSegment1 = mockImmutableSegment(1, new ThreadSafeMutableRoaringBitmap(), null,
+        Collections.emptyList());
+    when(otherSegment1.getSegmentMetadata().getCrc()).thenReturn("2");
+    when(otherSegment1.loadValidDocIdsFromSnapshot()).thenReturn(validDocIdsSnapshot);
+    assertThrows(RuntimeException.class, () -> fallbackMetadataManager.doPreloadSegment(otherSegment1));
+    MutableRoaringBitmap staleValidDocIdsSnapshot = new MutableRoaringBitmap();
+    staleValidDocIdsSnapshot.add(0, 1);
+    when(otherSegment1.getSegmentMetadata().getCrc()).thenReturn("1");
+    when(otherSegment1.loadValidDocIdsFromSnapshot()).thenReturn(staleValidDocIdsSnapshot);
+    assertThrows(RuntimeException.class, () -> fallbackMetadataManager.doPreloadSegment(otherSegment1));
+    assertTrue(fallbackMetadataManager._primaryKeyToRecordLocationMap.isEmpty());
+
+    // Key map snapshot should be removed when it is disabled
+    new ConcurrentMapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0,
+        _contextBuilder.setEnableKeyMapSnapshot(false).build());
+    assertFalse(keyMapSnapshotFile.exists());
+    _contextBuilder.setEnableKeyMapSnapshot(true);
+  }
+
   @Test
   public void testAddRecordWithDeleteColumn()
       throws IOException {
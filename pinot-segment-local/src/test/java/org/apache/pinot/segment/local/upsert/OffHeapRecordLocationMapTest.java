@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.pinot.segment.local.upsert.ConcurrentMapPartitionUpsertMetadataManager.RecordLocation;
+import org.apache.pinot.segment.local.utils.HashUtils;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.expectThrows;
+
+
+public class OffHeapRecordLocationMapTest {
+  private static final int NUM_KEYS = 2000;
+  private static final int NUM_OPERATIONS = 50_000;
+
+  @Test
+  public void testRandomOperations()
+      throws Exception {
+    Random random = new Random();
+    List<IndexSegment> segments = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      segments.add(mock(IndexSegment.class));
+    }
+    ByteArray[] keys = new ByteArray[NUM_KEYS];
+    for (int i = 0; i < NUM_KEYS; i++) {
+      keys[i] = new ByteArray(HashUtils.hashMurmur3(Integer.toString(i).getBytes()));
+    }
+
+    Map<ByteArray, RecordLocation> expected = new HashMap<>();
+    // Use a small initial capacity to exercise the resizing
+    try (OffHeapRecordLocationMap map = new OffHeapRecordLocationMap(4, "test")) {
+      for (int i = 0; i < NUM_OPERATIONS; i++) {
+        ByteArray key = keys[random.nextInt(NUM_KEYS)];
+        RecordLocation recordLocation =
+            new RecordLocation(segments.get(random.nextInt(segments.size())), random.nextInt(1000),
+                random.nextLong());
+        switch (random.nextInt(4)) {
+          case 0:
+            map.put(key, recordLocation);
+            expected.put(key, recordLocation);
+            break;
+          case 1:
+            // Keep the record location with the larger comparison value
+            map.compute(key, (k, v) -> v == null || v.getComparisonValue().compareTo(
+                recordLocation.getComparisonValue()) < 0 ? recordLocation : v);
+            expected.compute(key, (k, v) -> v == null || v.getComparisonValue().compareTo(
+                recordLocation.getComparisonValue()) < 0 ? recordLocation : v);
+            break;
+          case 2:
+            map.computeIfPresent(key, (k, v) -> null);
+            expected.remove(key);
+            break;
+          default:
+            RecordLocation actualRecordLocation = map.get(key);
+            RecordLocation expectedRecordLocation = expected.get(key);
+            if (expectedRecordLocation == null) {
+              assertNull(actualRecordLocation);
+            } else {
+              checkRecordLocation(actualRecordLocation, expectedRecordLocation);
+            }
+            break;
+        }
+        assertEquals(map.size(), expected.size());
+      }
+
+      // Remove all the record locations of the first segment
+      IndexSegment segmentToRemove = segments.get(0);
+      int numRemoved = map.removeIf(recordLocation -> recordLocation.getSegment() == segmentToRemove);
+      int expectedNumRemoved = expected.size();
+      expected.values().removeIf(recordLocation -> recordLocation.getSegment() == segmentToRemove);
+      assertEquals(numRemoved, expectedNumRemoved - expected.size());
+      assertEquals(map.size(), expected.size());
+      for (ByteArray key : keys) {
+        RecordLocation expectedRecordLocation = expected.get(key);
+        if (expectedRecordLocation == null) {
+          assertNull(map.get(key));
+        } else {
+          checkRecordLocation(map.get(key), expectedRecordLocation);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testComparisonValueTypes()
+      throws Exception {
+    IndexSegment segment = mock(IndexSegment.class);
+    ByteArray key = new ByteArray(HashUtils.hashMD5("key".getBytes()));
+    Comparable[] comparisonValues = new Comparable[]{-5, Long.MIN_VALUE, -1.5f, Double.MAX_VALUE};
+    for (Comparable comparisonValue : comparisonValues) {
+      try (OffHeapRecordLocationMap map = new OffHeapRecordLocationMap("test")) {
+        map.put(key, new RecordLocation(segment, 3, comparisonValue));
+        RecordLocation recordLocation = map.get(key);
+        assertNotNull(recordLocation);
+        assertEquals(recordLocation.getComparisonValue(), comparisonValue);
+      }
+    }
+
+    try (OffHeapRecordLocationMap map = new OffHeapRecordLocationMap("test")) {
+      expectThrows(IllegalStateException.class, () -> map.put(key, new RecordLocation(segment, 0, "value")));
+      expectThrows(IllegalArgumentException.class,
+          () -> map.put(new ByteArray(new byte[]{1, 2, 3}), new RecordLocation(segment, 0, 1)));
+    }
+  }
+
+  private static void checkRecordLocation(RecordLocation actual, RecordLocation expected) {
+    assertNotNull(actual);
+    assertSame(actual.getSegment(), expected.getSegment());
+    assertEquals(actual.getDocId(), expected.getDocId());
+    assertEquals(actual.getComparisonValue(), expected.getComparisonValue());
+  }
+}
@@ -84,6 +84,27 @@ public class TableUpsertMetadataManagerFactoryTest {
         0) instanceof ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes);
   }
 
+  @Test
+  public void testCreateForOffHeapManagerClass() {
+    UpsertConfig upsertConfig = new UpsertConfig(UpsertConfig.Mode.FULL);
+    upsertConfig.setHashFunction(HashFunction.MURMUR3);
+    upsertConfig.setMetadataManagerClass(OffHeapTableUpsertMetadataManager.class.getName());
+    Schema schema = new Schema.SchemaBuilder().setSchemaName(RAW_TABLE_NAME)
+        .addSingleValueDimension("myCol", FieldSpec.DataType.STRING).setPrimaryKeyColumns(Lists.newArrayList("myCol"))
+        .build();
+    TableDataManager tableDataManager = mock(TableDataManager.class);
+    when(tableDataManager.getTableDataDir()).thenReturn(new File(RAW_TABLE_NAME));
+    _tableConfig =
+        new TableConfigBuilder(TableType.REALTIME).setTableName(RAW_TABLE_NAME).setUpsertConfig(upsertConfig).build();
+    TableUpsertMetadataManager tableUpsertMetadataManager =
+        TableUpsertMetadataManagerFactory.create(_tableConfig, null);
+    assertNotNull(tableUpsertMetadataManager);
+    assertTrue(tableUpsertMetadataManager instanceof OffHeapTableUpsertMetadataManager);
+    tableUpsertMetadataManager.init(_tableConfig, schema, tableDataManager);
+    assertTrue(tableUpsertMetadataManager.getOrCreatePartitionManager(
+        0) instanceof OffHeapPartitionUpsertMetadataManager);
+  }
+
   @Test
   public void testEnablePreload() {
     UpsertConfig upsertConfig = new UpsertConfig(UpsertConfig.Mode.FULL);
@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.utils;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+
+public class HashedKeySlotTableTest {
+  private static final int SLOT_SIZE = 24;
+  private static final int NUM_KEYS = 1000;
+  private static final int NUM_OPERATIONS = 20_000;
+
+  @Test
+  public void testGetKeys() {
+    byte[] bytes = new byte[HashedKeySlotTable.KEY_SIZE];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) (i + 1);
+    }
+    ByteArray key = new ByteArray(bytes);
+    assertEquals(HashedKeySlotTable.getKey0(key), 0x0102030405060708L);
+    assertEquals(HashedKeySlotTable.getKey1(key), 0x090A0B0C0D0E0F10L);
+    expectThrows(IllegalArgumentException.class, () -> HashedKeySlotTable.getKey0(new ByteArray(new byte[]{1, 2})));
+  }
+
+  @Test
+  public void testRandomOperations()
+      throws Exception {
+    Random random = new Random();
+    long[][] keys = new long[NUM_KEYS][];
+    for (int i = 0; i < NUM_KEYS; i++) {
+      ByteArray key = new ByteArray(HashUtils.hashMurmur3(Integer.toString(i).getBytes()));
+      keys[i] = new long[]{HashedKeySlotTable.getKey0(key), HashedKeySlotTable.getKey1(key)};
+    }
+
+    Map<Integer, Long> expected = new HashMap<>();
+    // Use a small initial capacity to exercise the resizing
+    try (HashedKeySlotTable table = new HashedKeySlotTable(SLOT_SIZE, HashedKeySlotTable.VALUE_OFFSET, 4,
+        new DirectBufferAllocator(), "test table")) {
+      for (int i = 0; i < NUM_OPERATIONS; i++) {
+        int keyId = random.nextInt(NUM_KEYS);
+        long[] key = keys[keyId];
+        int slot = table.findSlot(key[0], key[1]);
+        if (random.nextBoolean()) {
+          // Values are never 0, which marks the empty slots
+          long value = random.nextInt(Integer.MAX_VALUE) + 1L;
+          // Inserting might resize the table, so the buffer should be read afterward
+          long offset = table.isEmpty(slot) ? table.insert(key[0], key[1]) : table.getOffset(slot);
+          table.getBuffer().putLong(offset + HashedKeySlotTable.VALUE_OFFSET, value);
+          expected.put(keyId, value);
+        } else if (!table.isEmpty(slot)) {
+          table.delete(slot);
+          expected.remove(keyId);
+        }
+        assertEquals(table.size(), expected.size());
+      }
+
+      int numRemoved = table.removeIf(slot -> (table.getBuffer().getLong(table.getOffset(slot)
+          + HashedKeySlotTable.VALUE_OFFSET) & 1) == 0, table::delete);
+      int expectedNumRemoved = expected.size();
+      expected.values().removeIf(value -> (value & 1) == 0);
+      assertEquals(numRemoved, expectedNumRemoved - expected.size());
+      assertEquals(table.size(), expected.size());
+      for (int keyId = 0; keyId < NUM_KEYS; keyId++) {
+        int slot = table.findSlot(keys[keyId][0], keys[keyId][1]);
+        Long expectedValue = expected.get(keyId);
+        if (expectedValue == null) {
+          assertTrue(table.isEmpty(slot));
+        } else {
+          assertFalse(table.isEmpty(slot));
+          assertEquals(table.getBuffer().getLong(table.getOffset(slot) + HashedKeySlotTable.VALUE_OFFSET),
+              (long) expectedValue);
+        }
+      }
+    }
+  }
+
+  private static class DirectBufferAllocator implements HashedKeySlotTable.BufferAllocator {
+
+    @Override
+    public PinotDataBuffer allocate(int capacity) {
+      PinotDataBuffer buffer =
+          PinotDataBuffer.allocateDirect((long) capacity * SLOT_SIZE, ByteOrder.nativeOrder(), "test table");
+      for (int slot = 0; slot < capacity; slot++) {
+        buffer.putLong((long) slot * SLOT_SIZE + HashedKeySlotTable.VALUE_OFFSET, 0L);
+      }
+      return buffer;
+    }
+
+    @Override
+    public void release(PinotDataBuffer buffer)
+        throws IOException {
+      buffer.close();
+    }
+  }
+}
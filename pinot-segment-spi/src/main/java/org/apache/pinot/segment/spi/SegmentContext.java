@@ -26,6 +26,10 @@ public class SegmentContext {
   private final IndexSegment _indexSegment;
   @Nullable
   private MutableRoaringBitmap _queryableDocIdsSnapshot = null;
+  // Range of docIds [start, end) to be processed when the segment is split into multiple morsels, where end of -1 means
+  // all the docs in the segment are processed
+  private int _docIdRangeStart = 0;
+  private int _docIdRangeEnd = -1;
 
   public SegmentContext(IndexSegment indexSegment) {
     _indexSegment = indexSegment;
@@ -43,4 +47,24 @@ public class SegmentContext {
   public void setQueryableDocIdsSnapshot(@Nullable MutableRoaringBitmap queryableDocIdsSnapshot) {
     _queryableDocIdsSnapshot = queryableDocIdsSnapshot;
   }
+
+  public boolean hasDocIdRange() {
+    return _docIdRangeEnd >= 0;
+  }
+
+  public int getDocIdRangeStart() {
+    return _docIdRangeStart;
+  }
+
+  public int getDocIdRangeEnd() {
+    return _docIdRangeEnd;
+  }
+
+  /**
+   * Restricts the query processing to the docIds within [start, end) of the segment.
+   */
+  public void setDocIdRange(int start, int end) {
+    _docIdRangeStart = start;
+    _docIdRangeEnd = end;
+  }
 }
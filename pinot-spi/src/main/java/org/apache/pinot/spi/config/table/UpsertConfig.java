@@ -82,6 +82,10 @@ public class UpsertConfig extends BaseJsonConfig {
   @JsonPropertyDescription("Whether to preload segments for fast upsert metadata recovery")
   private boolean _enablePreload;
 
+  @JsonPropertyDescription("Whether to also snapshot the primary key to record location map, so that preloading "
+      + "segments does not need to read the primary key columns. Requires snapshot and preload to be enabled")
+  private boolean _enableKeyMapSnapshot;
+
   @JsonPropertyDescription("Configure the way to provide consistent view for upsert table")
   private ConsistencyMode _consistencyMode = ConsistencyMode.NONE;
 
@@ -167,6 +171,10 @@ public class UpsertConfig extends BaseJsonConfig {
     return _enablePreload;
   }
 
+  public boolean isEnableKeyMapSnapshot() {
+    return _enableKeyMapSnapshot;
+  }
+
   public boolean isEnableDeletedKeysCompactionConsistency() {
     return _enableDeletedKeysCompactionConsistency;
   }
@@ -273,6 +281,10 @@ public class UpsertConfig extends BaseJsonConfig {
     _enablePreload = enablePreload;
   }
 
+  public void setEnableKeyMapSnapshot(boolean enableKeyMapSnapshot) {
+    _enableKeyMapSnapshot = enableKeyMapSnapshot;
+  }
+
   public void setConsistencyMode(ConsistencyMode consistencyMode) {
     _consistencyMode = consistencyMode;
   }
@@ -301,6 +301,22 @@ public class CommonConstants {
     public static final String CONFIG_OF_BROKER_MIN_GROUP_TRIM_SIZE = "pinot.broker.min.group.trim.size";
     public static final int DEFAULT_BROKER_MIN_GROUP_TRIM_SIZE = 5000;
 
+    // Reduce the aggregation, group-by and selection order-by server responses as they arrive instead of after all the
+    // servers responded, so that each data table can be released right after being reduced.
+    public static final String CONFIG_OF_BROKER_ENABLE_INCREMENTAL_REDUCE = "pinot.broker.enable.incremental.reduce";
+    public static final boolean DEFAULT_BROKER_ENABLE_INCREMENTAL_REDUCE = false;
+
+    // Broker-side result cache for single-stage queries on tables that set 'resultCacheTtlMs' in their query config.
+    // Cached results are invalidated when the routing of the table changes (segment added/removed/refreshed). Setting
+    // the max number of entries to 0 disables the cache.
+    public static final String CONFIG_OF_BROKER_RESULT_CACHE_MAX_ENTRIES = "pinot.broker.result.cache.max.entries";
+    public static final int DEFAULT_BROKER_RESULT_CACHE_MAX_ENTRIES = 1000;
+    // Results from real-time tables include consuming segments which change without any routing change, so they are
+    // cached for at most this long. The default of 0 means results from real-time tables are not cached.
+    public static final String CONFIG_OF_BROKER_RESULT_CACHE_REALTIME_TTL_MS =
+        "pinot.broker.result.cache.realtime.ttl.ms";
+    public static final long DEFAULT_BROKER_RESULT_CACHE_REALTIME_TTL_MS = 0L;
+
     // Configure the request handler type used by broker to handler inbound query request.
     // NOTE: the request handler type refers to the communication between Broker and Server.
     public static final String BROKER_REQUEST_HANDLER_TYPE = "pinot.broker.request.handler.type";
@@ -427,7 +443,27 @@ public class CommonConstants {
         public static final String MULTI_STAGE_LEAF_LIMIT = "multiStageLeafLimit";
         public static final String NUM_GROUPS_LIMIT = "numGroupsLimit";
         public static final String MAX_INITIAL_RESULT_HOLDER_CAPACITY = "maxInitialResultHolderCapacity";
+        // Spill the multi-stage group-by state to disk instead of dropping new groups once numGroupsLimit is reached
+        public static final String ENABLE_GROUP_BY_SPILL = "enableGroupBySpill";
         public static final String GROUP_TRIM_THRESHOLD = "groupTrimThreshold";
+        // Combine the server group-by results with thread-local partitioned tables merged in parallel, instead of a
+        // shared concurrent table. Only applies to GROUP BY with ORDER BY.
+        public static final String USE_PARTITIONED_GROUP_BY_COMBINE = "usePartitionedGroupByCombine";
+        // Split the immutable segments with more docs than this value into morsels of this many docs, which are
+        // processed in parallel by the server query workers. 0 disables the splitting.
+        public static final String MORSEL_SIZE = "morselSize";
+        // Reorder the AND filter children and choose between index and scan based on the selectivity of the predicates
+        // observed by the previous queries. Overrides the server default when set.
+        public static final String USE_ADAPTIVE_FILTER_REORDERING = "useAdaptiveFilterReordering";
+        // For selection queries with ORDER BY, only fetch the order-by values and docIds in the segments, and fetch the
+        // other selected columns after merging the rows of all the segments. Overrides the server default when set.
+        public static final String DEFER_SELECTION_MATERIALIZATION = "deferSelectionMaterialization";
+        // Reduce the server responses on the broker as they arrive. Overrides the broker default when set.
+        public static final String INCREMENTAL_REDUCE = "incrementalReduce";
+        // Maximum memory in bytes the group-by operators of a query can reserve on each server, beyond which the query
+        // is failed. The group-by tables are trimmed early when the budget is close to its limit. Overrides the server
+        // default when set (0 disables the budget).
+        public static final String GROUP_BY_MEMORY_BUDGET_BYTES = "groupByMemoryBudgetBytes";
         public static final String STAGE_PARALLELISM = "stageParallelism";
 
         public static final String IN_PREDICATE_PRE_SORTED = "inPredicatePreSorted";
@@ -435,6 +471,12 @@ public class CommonConstants {
 
         public static final String DROP_RESULTS = "dropResults";
 
+        // Bypass the broker result cache for tables that enable it through 'resultCacheTtlMs' in their query config
+        public static final String SKIP_RESULT_CACHE = "skipResultCache";
+        // Bypass the server segment result cache (see 'segment.result.cache.max.size.bytes' in the query executor
+        // config)
+        public static final String SKIP_SEGMENT_RESULT_CACHE = "skipSegmentResultCache";
+
         // Maximum number of pending results blocks allowed in the streaming operator
         public static final String MAX_STREAMING_PENDING_BLOCKS = "maxStreamingPendingBlocks";
 
@@ -446,6 +488,9 @@ public class CommonConstants {
         public static final String MAX_ROWS_IN_WINDOW = "maxRowsInWindow";
         public static final String WINDOW_OVERFLOW_MODE = "windowOverflowMode";
 
+        // Maximum number of rows kept in memory by the multi-stage sort before spilling sorted runs to disk
+        public static final String MAX_ROWS_IN_SORT = "maxRowsInSort";
+
         // Indicates the maximum length of the serialized response per server for a query.
         public static final String MAX_SERVER_RESPONSE_SIZE_BYTES = "maxServerResponseSizeBytes";
 
@@ -1210,9 +1255,33 @@ public class CommonConstants {
     public static final String KEY_OF_JOIN_OVERFLOW_MODE = "pinot.query.join.overflow.mode";
 
     public enum JoinOverFlowMode {
-      THROW, BREAK
+      THROW, BREAK, SPILL
     }
 
+    /**
+     * Local directory used by the multi-stage operators (e.g. hash join in {@link JoinOverFlowMode#SPILL} mode) to
+     * spill intermediate state once it no longer fits in memory. Defaults to a sub-directory of the JVM temporary
+     * directory.
+     */
+    public static final String KEY_OF_SPILL_DIR = "pinot.query.runner.spill.dir";
+    public static final String DEFAULT_SPILL_DIR_NAME = "pinot-query-spill";
+
+    /**
+     * Maximum number of rows the multi-stage sort keeps in memory. Once exceeded, the sorted rows are spilled to the
+     * spill directory as a sorted run and the runs are merged when producing the result. Not set by default, in which
+     * case the sort never spills.
+     */
+    public static final String KEY_OF_MAX_ROWS_IN_SORT = "pinot.query.sort.max.rows";
+
+    /**
+     * Number of worker threads of the yielding op-chain scheduler. When set to a positive value, op-chains yield
+     * instead of blocking when their receiving mailboxes are empty or their sending mailboxes are full, and are resumed
+     * on a fixed pool of that many threads once data arrives. Defaults to 0, in which case each op-chain holds a thread
+     * of the query runner executor until it finishes.
+     */
+    public static final String KEY_OF_YIELDING_SCHEDULER_NUM_WORKERS = "pinot.query.runner.yielding.scheduler.workers";
+    public static final int DEFAULT_YIELDING_SCHEDULER_NUM_WORKERS = 0;
+
     /**
      * Configuration for window overflow.
      */